@@ -20,7 +20,12 @@
 package generator;
 
 import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import solver.SolverConfig;
 import solver.SudokuSolver;
 import solver.SudokuSolverFactory;
 import sudoku.ClipboardMode;
@@ -36,26 +41,54 @@ import sudoku.Sudoku2;
  * and for a given {@link GameMode}. An instance of this class can be contained 
  * within a {@link BackgroundGeneratorThread} or within a {@link GenerateSudokuProgressDialog}.<br>
  * If it is called from a {@link GenerateSudokuProgressDialog}, it uses the
- * default solver and reports the progress to the dialog. If a puzzle has been
+ * default solver (only with one worker) and reports the progress to the dialog. If a puzzle has been
  * found, the dialog is closed. The creation process can be aborted at any time.<br>
  * If it is called from a {@link BackgroundGeneratorThread}, it simply delivers
- * the generated puzzle or <code>null</code>, if no puzzle could be found.
+ * the generated puzzle or <code>null</code>, if no puzzle could be found.<br><br>
+ * 
+ * If the generator is created with more than one worker, every worker runs
+ * its own generator/solver pair (from the factories) in its own thread. The
+ * first acceptable puzzle is returned, all other workers stop after their
+ * current try. Puzzles that are found by the other workers in the meantime
+ * and valid puzzles of another level (in {@link GameMode#PLAYING} only) are
+ * stored in a cache per level and are handed out by later calls.
  * 
  * @author hobiwan
  */
 public class BackgroundGenerator {
     /** Maximal number of tries, when called from a {@link BackgroundGeneratorThread}. */
     private static final int MAX_TRIES = 20000;
+    /** Maximal number of puzzles per level in {@link #cache}. */
+    private static final int MAX_CACHED = 10;
+    /** Puzzles for {@link GameMode#PLAYING} that were found but not needed, one list per level. */
+    private static final List<LinkedList<Sudoku2>> cache = new ArrayList<LinkedList<Sudoku2>>();
+    /** Number of worker threads. */
+    private final int anzWorkers;
     /** Current number of tries when called from {@link GenerateSudokuProgressDialog}. */
     private int anz = 0;
     /** Progress dialog when called from GUI. */
     private GenerateSudokuProgressDialog progressDialog = null;
 
+    static {
+        for (int i = 0; i < Options.DEFAULT_DIFFICULTY_LEVELS.length; i++) {
+            cache.add(new LinkedList<Sudoku2>());
+        }
+    }
+
     /**
-     * Generates a new instance.
+     * Generates a new instance that creates the puzzles in the calling thread.
      */
     public BackgroundGenerator() {
-        // nothing to do!
+        this(1);
+    }
+    
+    /**
+     * Generates a new instance that uses <code>anzWorkers</code> threads.
+     * 
+     * @param anzWorkers 
+     */
+    public BackgroundGenerator(int anzWorkers) {
+        this.anzWorkers = Math.max(1, anzWorkers);
     }
     
     /**
@@ -80,7 +113,9 @@ public class BackgroundGenerator {
      * current thread is checked for interruptions.<br>
      * If <code>dlg</code> is not <code>null</code>, the creation process goes on
      * until a puzzle has been found or until {@link #MAX_TRIES} tries have been
-     * run.
+     * run.<br>
+     * If a matching puzzle is available in the {@link #cache}, it is
+     * returned immediately.
      * 
      * @param level
      * @param mode
@@ -88,12 +123,21 @@ public class BackgroundGenerator {
      * @return 
      */
     public Sudoku2 generate(DifficultyLevel level, GameMode mode, GenerateSudokuProgressDialog dlg) {
-        long actMillis = System.currentTimeMillis();
         progressDialog = dlg;
+        setAnz(0);
+        if (mode == GameMode.PLAYING) {
+            Sudoku2 sudoku = getCachedSudoku(level);
+            if (sudoku != null) {
+                return sudoku;
+            }
+        }
+        if (anzWorkers > 1) {
+            return generateParallel(level, mode, dlg);
+        }
+        long actMillis = System.currentTimeMillis();
         Sudoku2 sudoku = null;
         SudokuGenerator creator = null; 
         SudokuSolver solver = null;
-        setAnz(0);
         if (dlg == null) {
             // get any instance
             solver = SudokuSolverFactory.getInstance();
@@ -103,60 +147,168 @@ public class BackgroundGenerator {
             solver = SudokuSolverFactory.getDefaultSolverInstance();
             creator = SudokuGeneratorFactory.getDefaultGeneratorInstance();
         }
-        while (dlg == null || ! Thread.currentThread().isInterrupted()) {
-            sudoku = creator.generateSudoku(true);
-            if (sudoku == null) {
-                // impossible to create sudoku due to an invalid pattern
-                return null;
-            }
-            Sudoku2 solvedSudoku = sudoku.clone();
-            boolean ok = solver.solve(level, solvedSudoku, true, null, false, 
-                    Options.getInstance().solverSteps, mode);
-            boolean containsTrainingStep = true;
-            if (mode != GameMode.PLAYING) {
-                containsTrainingStep = false;
-                List<SolutionStep> steps = solver.getSteps();
-                for (SolutionStep step : steps) {
-                    if (step.getType().getStepConfig().isEnabledTraining()) {
-                        containsTrainingStep = true;
+        try {
+            while (dlg == null || ! Thread.currentThread().isInterrupted()) {
+                sudoku = creator.generateSudoku(true);
+                if (sudoku == null) {
+                    // impossible to create sudoku due to an invalid pattern
+                    return null;
+                }
+                if (tryPuzzle(sudoku, solver, level, mode)) {
+                    break;
+                }
+                incrementAnz();
+                if (dlg != null) {
+                    if ((System.currentTimeMillis() - actMillis) > 500) {
+                        actMillis = System.currentTimeMillis();
+                        updateProgress();
+                    }
+                } else {
+                    if (getAnz() > MAX_TRIES) {
+                        // give up...
+                        sudoku = null;
                         break;
                     }
                 }
             }
-            if (ok && containsTrainingStep && 
-                    (solvedSudoku.getLevel().getOrdinal() == level.getOrdinal()
-                    || mode == GameMode.LEARNING)) {
-                sudoku.setLevel(solvedSudoku.getLevel());
-                sudoku.setScore(solvedSudoku.getScore());
-                break;
+        } finally {
+            if (dlg == null) {
+                // give everything back
+                SudokuGeneratorFactory.giveBack(creator);
+                SudokuSolverFactory.giveBack(solver);
             }
-            setAnz(getAnz() + 1);
-            if (dlg != null) {
-                if ((System.currentTimeMillis() - actMillis) > 500) {
-                    actMillis = System.currentTimeMillis();
-                    EventQueue.invokeLater(new Runnable() {
-
-                        @Override
-                        public void run() {
-                            progressDialog.updateProgressLabel();
-                            //progressLabel.setText(Integer.toString(getAnz()));
-                        }
-                    });
-                }
-            } else {
-                if (getAnz() > MAX_TRIES) {
-                    // give up...
-                    sudoku = null;
+        }
+        return sudoku;
+    }
+
+    /**
+     * Rates <code>sudoku</code>. If it matches <code>level</code> and <code>mode</code>,
+     * level and score are set in <code>sudoku</code>. Valid puzzles of another
+     * level are added to the {@link #cache} (<code>PLAYING</code> only).
+     * 
+     * @param sudoku
+     * @param solver
+     * @param level
+     * @param mode
+     * @return <code>true</code>, if the puzzle is acceptable.
+     */
+    private boolean tryPuzzle(Sudoku2 sudoku, SudokuSolver solver, DifficultyLevel level, GameMode mode) {
+        Sudoku2 solvedSudoku = sudoku.clone();
+        boolean ok = solver.solve(level, solvedSudoku, true, null, false, 
+                Options.getInstance().solverSteps, mode);
+        boolean containsTrainingStep = true;
+        if (mode != GameMode.PLAYING) {
+            containsTrainingStep = false;
+            // the settings the puzzle has just been rated with
+            SolverConfig config = solver.getConfig();
+            List<SolutionStep> steps = solver.getSteps();
+            for (SolutionStep step : steps) {
+                if (config.getStepConfig(step.getType()).isEnabledTraining()) {
+                    containsTrainingStep = true;
                     break;
                 }
             }
         }
-        if (dlg == null) {
-            // give everything back
-            SudokuGeneratorFactory.giveBack(creator);
-            SudokuSolverFactory.giveBack(solver);
+        if (ok && containsTrainingStep && 
+                (solvedSudoku.getLevel().getOrdinal() == level.getOrdinal()
+                || mode == GameMode.LEARNING)) {
+            sudoku.setLevel(solvedSudoku.getLevel());
+            sudoku.setScore(solvedSudoku.getScore());
+            return true;
+        }
+        if (ok && mode == GameMode.PLAYING) {
+            // a valid puzzle, but too easy: keep it for later
+            sudoku.setLevel(solvedSudoku.getLevel());
+            sudoku.setScore(solvedSudoku.getScore());
+            addCachedSudoku(sudoku);
+        }
+        return false;
+    }
+
+    /**
+     * Runs {@link #anzWorkers} workers until one of them has found a
+     * puzzle. The calling thread only waits (and updates the progress dialog).
+     * If the calling thread is interrupted, all workers are cancelled.
+     * 
+     * @param level
+     * @param mode
+     * @param dlg
+     * @return 
+     */
+    private Sudoku2 generateParallel(DifficultyLevel level, GameMode mode, GenerateSudokuProgressDialog dlg) {
+        Search search = new Search(anzWorkers);
+        for (int i = 0; i < anzWorkers; i++) {
+            Thread thread = new SudokuGenerator.GeneratorThread(new Worker(search, level, mode), "GeneratorThread-" + i);
+            thread.setDaemon(true);
+            search.addWorker(thread);
+            thread.start();
+        }
+        try {
+            while (!search.finished.await(500, TimeUnit.MILLISECONDS)) {
+                if (dlg != null) {
+                    updateProgress();
+                }
+            }
+        } catch (InterruptedException ex) {
+            // creation aborted: the workers stop after their current try
+            search.cancel();
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        return search.getResult();
+    }
+
+    /**
+     * Updates the progress label of {@link #progressDialog}.
+     */
+    private void updateProgress() {
+        EventQueue.invokeLater(new Runnable() {
+
+            @Override
+            public void run() {
+                progressDialog.updateProgressLabel();
+                //progressLabel.setText(Integer.toString(getAnz()));
+            }
+        });
+    }
+
+    /**
+     * Gets a puzzle with <code>level</code> from the {@link #cache}.
+     * 
+     * @param level
+     * @return The puzzle or <code>null</code>, if none is available.
+     */
+    private static Sudoku2 getCachedSudoku(DifficultyLevel level) {
+        synchronized (cache) {
+            return cache.get(level.getOrdinal()).poll();
+        }
+    }
+
+    /**
+     * Adds <code>sudoku</code> to the {@link #cache}; the level
+     * must already be set in <code>sudoku</code>.
+     * 
+     * @param sudoku 
+     */
+    private static void addCachedSudoku(Sudoku2 sudoku) {
+        synchronized (cache) {
+            LinkedList<Sudoku2> list = cache.get(sudoku.getLevel().getOrdinal());
+            if (list.size() < MAX_CACHED) {
+                list.add(sudoku);
+            }
+        }
+    }
+
+    /**
+     * Removes all puzzles from the cache. Has to be called, when the
+     * step configuration has been changed (the levels could be wrong).
+     */
+    public static void clearCache() {
+        synchronized (cache) {
+            for (LinkedList<Sudoku2> list : cache) {
+                list.clear();
+            }
         }
-        return sudoku;
     }
 
     /**
@@ -172,4 +324,167 @@ public class BackgroundGenerator {
     public synchronized void setAnz(int anz) {
         this.anz = anz;
     }
+
+    /**
+     * Counts one more generated puzzle (called by all workers concurrently).
+     */
+    public synchronized void incrementAnz() {
+        anz++;
+    }
+
+    /**
+     * The state of one call to {@link #generateParallel(sudoku.DifficultyLevel, sudoku.GameMode, sudoku.GenerateSudokuProgressDialog) },
+     * shared by all its workers. Workers that are still busy when the call
+     * returns only see their own search.<br>
+     * The workers are interrupted when the search is cancelled: a worker
+     * can be stuck in a pattern search for up to {@link SudokuGenerator#PATTERN_TIMEOUT} ms,
+     * which only stops early on an interrupt.
+     */
+    private static class Search {
+        /** Set if the workers have to stop. */
+        volatile boolean cancelled = false;
+        /** The threads of all workers. */
+        private final List<Thread> workers = new ArrayList<Thread>();
+        /** Counted down, when a puzzle has been found or when all workers have stopped. */
+        final CountDownLatch finished = new CountDownLatch(1);
+        /** The puzzle found by the workers. */
+        private Sudoku2 result = null;
+        /** Number of workers still running. */
+        private int running;
+        /** Number of tries of all workers. */
+        private int tries = 0;
+
+        /**
+         * Creates a new search.
+         * 
+         * @param running Number of workers.
+         */
+        Search(int running) {
+            this.running = running;
+        }
+
+        /**
+         * Stores the result of a worker and cancels all workers.
+         * 
+         * @param sudoku
+         * @return <code>false</code>, if another worker was faster
+         *   or if the search has been cancelled.
+         */
+        synchronized boolean setResult(Sudoku2 sudoku) {
+            if (result != null || cancelled) {
+                return false;
+            }
+            result = sudoku;
+            cancel();
+            finished.countDown();
+            return true;
+        }
+
+        /**
+         * Adds a worker thread (before it is started).
+         * 
+         * @param worker 
+         */
+        synchronized void addWorker(Thread worker) {
+            workers.add(worker);
+        }
+
+        /**
+         * Stops all workers: sets {@link #cancelled} and interrupts all
+         * worker threads except the calling thread.
+         */
+        synchronized void cancel() {
+            cancelled = true;
+            for (Thread worker : workers) {
+                if (worker != Thread.currentThread()) {
+                    worker.interrupt();
+                }
+            }
+        }
+
+        /**
+         * @return the result
+         */
+        synchronized Sudoku2 getResult() {
+            return result;
+        }
+
+        /**
+         * Adds one try.
+         * @return The new number of tries.
+         */
+        synchronized int incrementTries() {
+            return ++tries;
+        }
+
+        /**
+         * Called by every worker, when it stops.
+         */
+        synchronized void workerDone() {
+            running--;
+            if (running == 0) {
+                finished.countDown();
+            }
+        }
+    }
+
+    /**
+     * One worker for {@link #generateParallel(sudoku.DifficultyLevel, sudoku.GameMode, sudoku.GenerateSudokuProgressDialog) }:
+     * creates and rates puzzles until a puzzle has been found or until
+     * the search is cancelled.
+     */
+    private class Worker implements Runnable {
+        /** The search this worker belongs to. */
+        private final Search search;
+        /** The level to create. */
+        private final DifficultyLevel level;
+        /** The mode to create. */
+        private final GameMode mode;
+
+        /**
+         * Creates a new worker.
+         * 
+         * @param search
+         * @param level
+         * @param mode
+         */
+        Worker(Search search, DifficultyLevel level, GameMode mode) {
+            this.search = search;
+            this.level = level;
+            this.mode = mode;
+        }
+
+        @Override
+        public void run() {
+            SudokuSolver solver = SudokuSolverFactory.getInstance();
+            SudokuGenerator creator = SudokuGeneratorFactory.getInstance();
+            try {
+                while (!search.cancelled) {
+                    Sudoku2 sudoku = creator.generateSudoku(true);
+                    if (sudoku == null) {
+                        // impossible to create sudoku due to an invalid pattern
+                        // (or the pattern search has been interrupted)
+                        search.cancel();
+                        break;
+                    }
+                    if (tryPuzzle(sudoku, solver, level, mode)) {
+                        if (!search.setResult(sudoku) && mode == GameMode.PLAYING) {
+                            // another worker was faster: keep it for later
+                            addCachedSudoku(sudoku);
+                        }
+                        break;
+                    }
+                    incrementAnz();
+                    if (search.incrementTries() > MAX_TRIES && progressDialog == null) {
+                        // give up...
+                        search.cancel();
+                    }
+                }
+            } finally {
+                SudokuGeneratorFactory.giveBack(creator);
+                SudokuSolverFactory.giveBack(solver);
+                search.workerDone();
+            }
+        }
+    }
 }
@@ -30,12 +30,15 @@ import sudoku.StepConfig;
 /**
  * One instance of this class is used to control the background creation
  * of sudokus. The following puzzles are created automatically and
- * stored in {@link Options}:
+ * stored in a {@link PuzzlePool} (the number of puzzles is set in
+ * {@link Options#getPuzzlePoolSizes()}):
  * <ul>
- *  <li>10 sudokus for every difficulty level</li>
- *  <li>10 sudokus for {@link GameMode#LEARNING}</li>
- *  <li>10 sudokus for {@link GameMode#PRACTISING}</li>
+ *  <li>sudokus for every difficulty level</li>
+ *  <li>sudokus for {@link GameMode#LEARNING}</li>
+ *  <li>sudokus for {@link GameMode#PRACTISING}</li>
  * </ul>
+ * Pools that have dropped below their low watermark are refilled, the pool
+ * for the current level and mode first.
  * The puzzle creation is triggered by the following events:
  * <ul>
  *  <li>At program startup: missing puzzles are created (starting with the current {@link DifficultyLevel})</li>
@@ -55,6 +58,8 @@ public class BackgroundGeneratorThread implements Runnable {
     private static BackgroundGeneratorThread instance = null;
     /** the actual creator */
     private BackgroundGenerator generator;
+    /** The pregenerated puzzles */
+    private final PuzzlePool pool;
     /** The creation thread */
     private final Thread thread;
     /** a flag that indicates, that a new sudoku has been passed in */
@@ -67,7 +72,9 @@ public class BackgroundGeneratorThread implements Runnable {
      */
     private BackgroundGeneratorThread() {
         thread = new Thread(this);
-        generator = new BackgroundGenerator();
+        // leave one processor for the GUI
+        generator = new BackgroundGenerator(Runtime.getRuntime().availableProcessors() - 1);
+        pool = new PuzzlePool();
     }
     
     /**
@@ -83,24 +90,15 @@ public class BackgroundGeneratorThread implements Runnable {
     }
 
     /**
-     * Checks, if a puzzle matching the requirements is available.
+     * Checks, if a puzzle matching the requirements is available. The
+     * puzzle is taken from the {@link PuzzlePool} without locking.
      * 
      * @param level
      * @param mode
      * @return 
      */
-    public synchronized String getSudoku(DifficultyLevel level, GameMode mode) {
-        // get the correct puzzles from Options
-        String[] puzzles = getPuzzleArray(level, mode);
-        // check if a puzzle is available
-        String newPuzzle = null;
-        if (puzzles[0] != null) {
-            newPuzzle = puzzles[0];
-            for (int i = 1; i < puzzles.length; i++) {
-                puzzles[i - 1] = puzzles[i];
-            }
-            puzzles[puzzles.length - 1] = null;
-        }
+    public String getSudoku(DifficultyLevel level, GameMode mode) {
+        String newPuzzle = pool.take(PuzzlePool.getPoolIndex(level, mode));
         if (DEBUG) {
             System.out.println("Got puzzle from cache: " + level.getName() + "/" + mode.name() + "/" + newPuzzle);
         }
@@ -110,34 +108,14 @@ public class BackgroundGeneratorThread implements Runnable {
         return newPuzzle;
     }
     
-    /**
-     * Writes a new sudoku into the cache.
-     * 
-     * @param level
-     * @param mode
-     * @param sudoku 
-     */
-    private synchronized void setSudoku(DifficultyLevel level, GameMode mode, String sudoku) {
-        // get the correct puzzles from Options
-        String[] puzzles = getPuzzleArray(level, mode);
-        for (int i = 0; i < puzzles.length; i++) {
-            if (puzzles[i] == null) {
-                puzzles[i] = sudoku;
-                break;
-            }
-        }
-    }
-    
     /**
      * The step configuration has been changed:
      * reset everything and start over.
      */
     public synchronized void resetAll() {
-        String[][] puzzles = Options.getInstance().getNormalPuzzles();
-        for (int i = 0; i < puzzles.length; i++) {
-            for (int j = 0; j < puzzles[i].length; j++) {
-                puzzles[i][j] = null;
-            }
+        BackgroundGenerator.clearCache();
+        for (int i = 0; i < PuzzlePool.LEARNING; i++) {
+            pool.clear(i);
         }
         resetTrainingPractising();
     }
@@ -147,14 +125,8 @@ public class BackgroundGeneratorThread implements Runnable {
      * LEARNING and PRACTISING puzzles and start over.
      */
     public synchronized void resetTrainingPractising() {
-        String[] puzzles1 = Options.getInstance().getLearningPuzzles();
-        for (int i = 0; i < puzzles1.length; i++) {
-            puzzles1[i] = null;
-        }
-        puzzles1 = Options.getInstance().getPractisingPuzzles();
-        for (int i = 0; i < puzzles1.length; i++) {
-            puzzles1[i] = null;
-        }
+        pool.clear(PuzzlePool.LEARNING);
+        pool.clear(PuzzlePool.PRACTISING);
         startCreation();
     }
     
@@ -174,10 +146,7 @@ public class BackgroundGeneratorThread implements Runnable {
             // nothing to do!
             return;
         }
-        String[] puzzles = Options.getInstance().getPractisingPuzzles();
-        for (int i = 0; i < puzzles.length; i++) {
-            puzzles[i] = null;
-        }
+        pool.clear(PuzzlePool.PRACTISING);
         Options.getInstance().setPractisingPuzzlesLevel(newLevel);
         startCreation();
     }
@@ -211,9 +180,9 @@ public class BackgroundGeneratorThread implements Runnable {
     }
     
     /**
-     * The main thread: If it is signalled it checks, which type of puzzle
-     * is missing. As long as a missing puzzle type is found, the creation is
-     * continued.
+     * The main thread: If it is signalled it checks, which pool has to
+     * be refilled. As long as such a pool is found, the creation is
+     * continued. All changes to the pool are written after every puzzle.
      */
     @Override
     public void run() {
@@ -232,79 +201,41 @@ public class BackgroundGeneratorThread implements Runnable {
                 if (DEBUG) {
                     System.out.println("Creation starting...");
                 }
-                DifficultyLevel level = null;
-                GameMode mode = null;
-                while (level == null && !thread.isInterrupted()) {
-                    // get the next puzzle
+                while (!thread.isInterrupted()) {
+                    pool.flush();
+                    // find out, what to do
+                    int index = -1;
                     synchronized (this) {
-                        // find out, what to do
-                        String[][] puzzles = Options.getInstance().getNormalPuzzles();
-                        for (int i = 0; i < puzzles.length; i++) {
-                            for (int j = 0; j < puzzles[i].length; j++) {
-                                if (puzzles[i][j] == null) {
-                                    if (DEBUG) {
-                                        System.out.println("found level: "+ (i + 1));
-                                    }
-                                    level = Options.getInstance().getDifficultyLevel(i + 1);
-                                    mode = GameMode.PLAYING;
-                                    if (DEBUG) {
-                                        System.out.println("   " + level.getName()+ "/" + mode.name());
-                                    }
-                                    break;
-                                }
-                            }
-                            if (level != null) {
-                                break;
-                            }
-                        }
                         int trLevel = getTrainingLevel();
-                        String[] puzzles1 = Options.getInstance().getLearningPuzzles();
-                        if (level == null && trLevel != -1) {
-                            for (int i = 0; i < puzzles1.length; i++) {
-                                if (puzzles1[i] == null) {
-                                    if (DEBUG) {
-                                        System.out.println("found level: "+ (i + 1));
-                                    }
-                                    level = Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal());
-                                    mode = GameMode.LEARNING;
-                                    if (DEBUG) {
-                                        System.out.println("   " + level.getName()+ "/" + mode.name());
-                                    }
-                                    break;
-                                }
-                            }
-                        }
                         if (trLevel != -1 && Options.getInstance().getPractisingPuzzlesLevel() == -1) {
                             setNewLevel(Options.getInstance().getActLevel());
                         }
-                        puzzles1 = Options.getInstance().getPractisingPuzzles();
-                        if (DEBUG) {
-                            System.out.println("looking for pract: " + level + "/" + trLevel + "/" + Options.getInstance().getActLevel() + "/" + Options.getInstance().getPractisingPuzzlesLevel());
-                        }
-                        if (level == null && trLevel != -1 && Options.getInstance().getActLevel() >= trLevel) {
-                            for (int i = 0; i < puzzles1.length; i++) {
-                                if (puzzles1[i] == null) {
-                                    if (DEBUG) {
-                                        System.out.println("found level: " + (i + 1));
-                                    }
-                                    level = Options.getInstance().getDifficultyLevel(Options.getInstance().getPractisingPuzzlesLevel());
-                                    mode = GameMode.PRACTISING;
-                                    if (DEBUG) {
-                                        System.out.println("   " + level.getName()+ "/" + mode.name());
-                                    }
-                                    break;
-                                }
-                            }
-                        }
+                        index = getNextPool(trLevel);
                     }
                     //new puzzle type found?
-                    if (level == null) {
+                    if (index == -1) {
                         // we are done for now
                         if (DEBUG) {
                             System.out.println("creation: nothing to do!");
                         }
                         break;
                     }
+                    DifficultyLevel level = null;
+                    GameMode mode = null;
+                    switch (index) {
+                        case PuzzlePool.LEARNING:
+                            level = Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal());
+                            mode = GameMode.LEARNING;
+                            break;
+                        case PuzzlePool.PRACTISING:
+                            level = Options.getInstance().getDifficultyLevel(Options.getInstance().getPractisingPuzzlesLevel());
+                            mode = GameMode.PRACTISING;
+                            break;
+                        default:
+                            level = Options.getInstance().getDifficultyLevel(index + 1);
+                            mode = GameMode.PLAYING;
+                            break;
+                    }
                     if (DEBUG) {
                         System.out.println("  creating " + level.getName() + "/" + mode.name());
                     }
@@ -319,16 +250,14 @@ public class BackgroundGeneratorThread implements Runnable {
                         break;
                     }
                     // store it
-                    setSudoku(level, mode, puzzle);
+                    pool.add(index, puzzle);
                     if (DEBUG) {
                         System.out.println("  created in background: " + level.getName() + "/" + mode.name() + "/" + puzzle);
                     }
-                    // and try again
-                    level = null;
-                    mode = null;
                 }
+                pool.flush();
                 if (DEBUG) {
-                    System.out.println("Done (level = " + level + ", isInterrupted() = " + thread.isInterrupted() + ")!");
+                    System.out.println("Done (isInterrupted() = " + thread.isInterrupted() + ")!");
                 }
             } catch (InterruptedException ex) {
                 thread.interrupt();
@@ -339,26 +268,32 @@ public class BackgroundGeneratorThread implements Runnable {
     }
     
     /**
-     * Gets the correct cache array from Options.
+     * Finds the next pool that has to be refilled. The pool for the current
+     * level and mode is checked first. <code>LEARNING</code> and <code>PRACTISING</code>
+     * puzzles are only created, if training steps are enabled, <code>PRACTISING</code>
+     * puzzles only if the current level is not lower than the level of the hardest
+     * training step.
      * 
-     * @param level
-     * @param mode
-     * @return 
+     * @param trLevel The result of {@link #getTrainingLevel()}
+     * @return The index of the pool or -1, if nothing has to be done.
      */
-    private String[] getPuzzleArray(DifficultyLevel level, GameMode mode) {
-        String[] puzzles = null;
-        switch (mode) {
-            case PLAYING:
-                puzzles = Options.getInstance().getNormalPuzzles()[level.getOrdinal() - 1];
-                break;
-            case LEARNING:
-                puzzles = Options.getInstance().getLearningPuzzles();
-                break;
-            case PRACTISING:
-                puzzles = Options.getInstance().getPractisingPuzzles();
-                break;
+    private int getNextPool(int trLevel) {
+        int actLevel = Options.getInstance().getActLevel();
+        int actIndex = PuzzlePool.getPoolIndex(Options.getInstance().getDifficultyLevel(actLevel),
+                Options.getInstance().getGameMode());
+        for (int i = -1; i < PuzzlePool.ANZ_POOLS; i++) {
+            int index = i == -1 ? actIndex : i;
+            if (index >= PuzzlePool.LEARNING && trLevel == -1) {
+                continue;
+            }
+            if (index == PuzzlePool.PRACTISING && actLevel < trLevel) {
+                continue;
+            }
+            if (pool.needsRefill(index)) {
+                return index;
+            }
         }
-        return puzzles;
+        return -1;
     }
     
     /**
@@ -0,0 +1,407 @@
+/*
+ * Copyright (C) 2008-12  Bernhard Hobiger
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ */
+package generator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import sudoku.DifficultyLevel;
+import sudoku.GameMode;
+import sudoku.Options;
+
+/**
+ * The pregenerated puzzles of the {@link BackgroundGeneratorThread}. There
+ * is one pool for every {@link DifficultyLevel} in {@link GameMode#PLAYING}
+ * and one pool each for {@link GameMode#LEARNING} and {@link GameMode#PRACTISING}.
+ * The number of puzzles per pool is set in {@link Options#getPuzzlePoolSizes()}.<br><br>
+ *
+ * Refilling works with two watermarks: a pool is refilled, when it has
+ * dropped to half of its size, and it is then filled up completely.<br><br>
+ *
+ * Puzzles can be taken without locking (the GUI never has to wait for
+ * the generator). Every change is recorded and appended to {@link #FILE_NAME}
+ * by {@link #flush()}, which is called only by the generator thread. The file
+ * is always kept in <code>java.io.tmpdir</code>, where {@link Options#writeOptions()}
+ * stores the options; a <code>hodoku.hcfg</code> in the program directory
+ * is only read and doesn't change the location of the pool. The file is replayed
+ * at startup and rewritten, when it contains too many outdated records.
+ *
+ * @author hobiwan
+ */
+public class PuzzlePool {
+    /** The file for storing the pool. */
+    public static final String FILE_NAME = "hodoku.pool";
+    /** The index of the pool for {@link GameMode#LEARNING}. */
+    public static final int LEARNING = 5;
+    /** The index of the pool for {@link GameMode#PRACTISING}. */
+    public static final int PRACTISING = 6;
+    /** The number of pools. */
+    public static final int ANZ_POOLS = 7;
+    /** Record: a puzzle has been added. */
+    private static final char ADD = '+';
+    /** Record: a puzzle has been taken. */
+    private static final char TAKE = '-';
+    /** Record: a pool has been cleared. */
+    private static final char CLEAR = '*';
+    /** The file is rewritten, if it has more than this number of outdated records. */
+    private static final int MAX_OUTDATED_RECORDS = 200;
+
+    /** The puzzles of every pool. */
+    private final List<ConcurrentLinkedQueue<String>> pools = new ArrayList<ConcurrentLinkedQueue<String>>(ANZ_POOLS);
+    /** The number of puzzles in every pool. */
+    private final AtomicInteger[] sizes = new AtomicInteger[ANZ_POOLS];
+    /** <code>true</code> for all pools, that are currently refilled (only used by the generator thread). */
+    private final boolean[] refilling = new boolean[ANZ_POOLS];
+    /** All changes that have not yet been written to {@link #file}. */
+    private final ConcurrentLinkedQueue<String> pendingRecords = new ConcurrentLinkedQueue<String>();
+    /** The store. */
+    private final File file;
+    /** The number of records in {@link #file}. */
+    private int anzRecords = 0;
+
+    /**
+     * Creates the pools and reads the puzzles from the store.
+     */
+    PuzzlePool() {
+        for (int i = 0; i < ANZ_POOLS; i++) {
+            pools.add(new ConcurrentLinkedQueue<String>());
+            sizes[i] = new AtomicInteger();
+        }
+        String tmp = System.getProperty("java.io.tmpdir");
+        if (tmp.endsWith(File.separator)) {
+            file = new File(tmp + FILE_NAME);
+        } else {
+            file = new File(tmp + File.separator + FILE_NAME);
+        }
+        if (file.exists()) {
+            read();
+        } else {
+            importOptions();
+        }
+        for (int i = 0; i < ANZ_POOLS; i++) {
+            refilling[i] = sizes[i].get() < getSize(i);
+        }
+    }
+
+    /**
+     * Gets the index of the pool for <code>level</code> and <code>mode</code>.
+     *
+     * @param level
+     * @param mode
+     * @return
+     */
+    static int getPoolIndex(DifficultyLevel level, GameMode mode) {
+        switch (mode) {
+            case LEARNING:
+                return LEARNING;
+            case PRACTISING:
+                return PRACTISING;
+            default:
+                return level.getOrdinal() - 1;
+        }
+    }
+
+    /**
+     * Takes a puzzle from a pool without locking.
+     *
+     * @param index
+     * @return The puzzle or <code>null</code>, if the pool is empty.
+     */
+    String take(int index) {
+        String puzzle = pools.get(index).poll();
+        if (puzzle != null) {
+            sizes[index].decrementAndGet();
+            pendingRecords.add(TAKE + Integer.toString(index) + " " + puzzle);
+        }
+        return puzzle;
+    }
+
+    /**
+     * Adds a new puzzle to a pool. If the pool is full, the puzzle is dropped.
+     *
+     * @param index
+     * @param puzzle
+     */
+    void add(int index, String puzzle) {
+        if (sizes[index].get() >= getSize(index)) {
+            return;
+        }
+        pools.get(index).add(puzzle);
+        sizes[index].incrementAndGet();
+        pendingRecords.add(ADD + Integer.toString(index) + " " + puzzle);
+    }
+
+    /**
+     * Removes all puzzles from a pool.
+     *
+     * @param index
+     */
+    void clear(int index) {
+        while (pools.get(index).poll() != null) {
+            sizes[index].decrementAndGet();
+        }
+        pendingRecords.add(CLEAR + Integer.toString(index));
+    }
+
+    /**
+     * Checks, if a pool should be refilled: The refill starts, when
+     * the pool has dropped to half of its size, and stops, when the
+     * pool is full again. Only called by the generator thread.
+     *
+     * @param index
+     * @return
+     */
+    boolean needsRefill(int index) {
+        int size = sizes[index].get();
+        int maxSize = getSize(index);
+        if (size >= maxSize) {
+            refilling[index] = false;
+        } else if (size <= maxSize / 2) {
+            refilling[index] = true;
+        }
+        return refilling[index];
+    }
+
+    /**
+     * The number of puzzles a pool should hold.
+     *
+     * @param index
+     * @return
+     */
+    private int getSize(int index) {
+        int[] poolSizes = Options.getInstance().getPuzzlePoolSizes();
+        if (poolSizes == null || index >= poolSizes.length) {
+            return Options.PUZZLE_POOL_SIZES[index];
+        }
+        return poolSizes[index];
+    }
+
+    /**
+     * Appends all pending records to {@link #file}. If the file contains too
+     * many outdated records, it is rewritten completely.
+     */
+    synchronized void flush() {
+        if (pendingRecords.isEmpty()) {
+            return;
+        }
+        int anz = 0;
+        for (int i = 0; i < ANZ_POOLS; i++) {
+            anz += sizes[i].get();
+        }
+        if (anzRecords - anz > MAX_OUTDATED_RECORDS) {
+            write();
+            return;
+        }
+        BufferedWriter out = null;
+        try {
+            out = new BufferedWriter(new FileWriter(file, true));
+            String record = null;
+            while ((record = pendingRecords.poll()) != null) {
+                out.write(record);
+                out.newLine();
+                anzRecords++;
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error writing puzzle pool", ex);
+        } finally {
+            close(out);
+        }
+    }
+
+    /**
+     * Writes the current content of all pools to {@link #file}.
+     */
+    private void write() {
+        pendingRecords.clear();
+        File tmpFile = new File(file.getPath() + ".tmp");
+        BufferedWriter out = null;
+        try {
+            out = new BufferedWriter(new FileWriter(tmpFile));
+            anzRecords = 0;
+            for (int i = 0; i < ANZ_POOLS; i++) {
+                for (String puzzle : pools.get(i)) {
+                    out.write(ADD + Integer.toString(i) + " " + puzzle);
+                    out.newLine();
+                    anzRecords++;
+                }
+            }
+            out.close();
+            out = null;
+            if ((file.exists() && !file.delete()) || !tmpFile.renameTo(file)) {
+                Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error replacing puzzle pool {0}", file);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error writing puzzle pool", ex);
+        } finally {
+            close(out);
+        }
+    }
+
+    /**
+     * Replays all records in {@link #file}. Invalid records (e.g. a line that
+     * was cut off, when the program was killed while writing) are skipped;
+     * if there were any, the file is rewritten.
+     */
+    private void read() {
+        Logger.getLogger(getClass().getName()).log(Level.INFO, "Reading puzzle pool from {0}", file);
+        int anzInvalid = 0;
+        BufferedReader in = null;
+        try {
+            in = new BufferedReader(new FileReader(file));
+            String line = null;
+            while ((line = in.readLine()) != null) {
+                if (line.length() < 2) {
+                    if (line.length() > 0) {
+                        anzInvalid++;
+                    }
+                    continue;
+                }
+                anzRecords++;
+                int blank = line.indexOf(' ');
+                int index = -1;
+                try {
+                    index = Integer.parseInt(line.substring(1, blank == -1 ? line.length() : blank));
+                } catch (NumberFormatException ex) {
+                    // handled below
+                }
+                if (index < 0 || index >= ANZ_POOLS) {
+                    anzInvalid++;
+                    continue;
+                }
+                String puzzle = blank == -1 ? null : line.substring(blank + 1);
+                switch (line.charAt(0)) {
+                    case ADD:
+                        if (isValidPuzzle(puzzle)) {
+                            pools.get(index).add(puzzle);
+                        } else {
+                            anzInvalid++;
+                        }
+                        break;
+                    case TAKE:
+                        if (isValidPuzzle(puzzle)) {
+                            pools.get(index).remove(puzzle);
+                        } else {
+                            anzInvalid++;
+                        }
+                        break;
+                    case CLEAR:
+                        pools.get(index).clear();
+                        break;
+                    default:
+                        anzInvalid++;
+                        break;
+                }
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error reading puzzle pool", ex);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+        }
+        for (int i = 0; i < ANZ_POOLS; i++) {
+            sizes[i].set(pools.get(i).size());
+        }
+        if (anzInvalid > 0) {
+            Logger.getLogger(getClass().getName()).log(Level.WARNING, "{0} invalid records in puzzle pool skipped", anzInvalid);
+            write();
+        }
+    }
+
+    /**
+     * Checks, if <code>puzzle</code> is a complete givens string
+     * (81 characters, digits or '.').
+     *
+     * @param puzzle
+     * @return
+     */
+    private static boolean isValidPuzzle(String puzzle) {
+        if (puzzle == null || puzzle.length() != 81) {
+            return false;
+        }
+        for (int i = 0; i < puzzle.length(); i++) {
+            char ch = puzzle.charAt(i);
+            if (ch != '.' && (ch < '0' || ch > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Older versions stored the pregenerated puzzles in {@link Options}:
+     * move them into the pool.
+     */
+    private void importOptions() {
+        String[][] normalPuzzles = Options.getInstance().getNormalPuzzles();
+        for (int i = 0; i < normalPuzzles.length && i < LEARNING; i++) {
+            importPuzzles(i, normalPuzzles[i]);
+        }
+        importPuzzles(LEARNING, Options.getInstance().getLearningPuzzles());
+        importPuzzles(PRACTISING, Options.getInstance().getPractisingPuzzles());
+        write();
+    }
+
+    /**
+     * Moves all puzzles from <code>puzzles</code> into a pool.
+     *
+     * @param index
+     * @param puzzles
+     */
+    private void importPuzzles(int index, String[] puzzles) {
+        if (puzzles == null) {
+            return;
+        }
+        for (int i = 0; i < puzzles.length; i++) {
+            if (puzzles[i] != null) {
+                pools.get(index).add(puzzles[i]);
+                sizes[index].incrementAndGet();
+                puzzles[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Closes <code>out</code>, if it is not <code>null</code>.
+     *
+     * @param out
+     */
+    private void close(BufferedWriter out) {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ex) {
+                Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error writing puzzle pool", ex);
+            }
+        }
+    }
+}
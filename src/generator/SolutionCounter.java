@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2008-12  Bernhard Hobiger
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ */
+package generator;
+
+import sudoku.Sudoku2;
+
+/**
+ * Fast backtracking solver that only counts solutions (up to 2); used
+ * for all uniqueness checks in {@link SudokuGenerator}.<br>
+ * The state of one recursion level is nothing more than the candidate
+ * masks of all cells, the values and one mask of placed digits per house.
+ * Copying a level is therefore cheap (compared to copying a {@link Sudoku2}).
+ * Naked and Hidden Singles are propagated after every placement, the
+ * next cell to try is the unsolved cell with the fewest candidates.
+ *
+ * @author hobiwan
+ */
+final class SolutionCounter {
+
+    /** Mask with all 9 candidates */
+    private static final short ALL = 0x1FF;
+    /** Number of recursion levels (one per cell plus the start). */
+    private static final int LEVELS = Sudoku2.LENGTH + 1;
+    /** The 20 buddies of every cell. */
+    private static final int[][] BUDDIES = new int[Sudoku2.LENGTH][20];
+    /** Candidate masks per level and cell (0 for cells that are set). */
+    private final short[][] cands = new short[LEVELS][Sudoku2.LENGTH];
+    /** Values per level and cell. */
+    private final int[][] values = new int[LEVELS][Sudoku2.LENGTH];
+    /** Digits already placed in every house per level. */
+    private final short[][] placed = new short[LEVELS][Sudoku2.ALL_UNITS.length];
+    /** Number of unsolved cells per level. */
+    private final int[] unsolved = new int[LEVELS];
+    /** The cell that is tried on a level. */
+    private final int[] branchCell = new int[LEVELS];
+    /** The candidates for {@link #branchCell} not tried yet. */
+    private final int[] branchCands = new int[LEVELS];
+    /** Cells that have become Naked Singles. */
+    private final int[] queue = new int[Sudoku2.LENGTH * 20];
+    /** The first solution found. */
+    private final int[] solution = new int[Sudoku2.LENGTH];
+    /** The second solution found (only valid if {@link #solutionCount} is 2). */
+    private final int[] secondSolution = new int[Sudoku2.LENGTH];
+    /** Number of solutions found (0, 1 or 2). */
+    private int solutionCount;
+    /** The search stops after this number of solutions. */
+    private int maxSolutions = 2;
+    /** statistics: number of tries */
+    private int anzTries;
+
+    static {
+        for (int i = 0; i < Sudoku2.LENGTH; i++) {
+            int anz = 0;
+            for (int j = Sudoku2.buddies[i].nextSetBit(0); j >= 0; j = Sudoku2.buddies[i].nextSetBit(j + 1)) {
+                BUDDIES[i][anz++] = j;
+            }
+        }
+    }
+
+    /**
+     * Counts the solutions of <code>sudoku</code>. Cells that are not
+     * set can only get values that are still candidates in <code>sudoku</code>.
+     * @param sudoku
+     * @return 0 (invalid), 1 (valid), or 2 (multiple solutions)
+     */
+    int solve(Sudoku2 sudoku) {
+        short[] c = cands[0];
+        for (int i = 0; i < Sudoku2.LENGTH; i++) {
+            c[i] = sudoku.getValue(i) != 0 ? ALL : sudoku.getCell(i);
+        }
+        return doSolve(sudoku.getValues());
+    }
+
+    /**
+     * Counts the solutions of the puzzle given by <code>cellValues</code>
+     * (0 for empty cells).
+     * @param cellValues
+     * @return 0 (invalid), 1 (valid), or 2 (multiple solutions)
+     */
+    int solve(int[] cellValues) {
+        short[] c = cands[0];
+        for (int i = 0; i < Sudoku2.LENGTH; i++) {
+            c[i] = ALL;
+        }
+        return doSolve(cellValues);
+    }
+
+    /**
+     * Checks if the puzzle given by <code>cellValues</code> has a solution
+     * in which the empty cell <code>index</code> doesn't have the value 
+     * <code>value</code>. The search stops at the first such solution.<br>
+     * If the puzzle has a unique solution when <code>value</code> is set in
+     * <code>index</code>, it is still unique after deleting <code>index</code>
+     * if and only if this method returns <code>false</code>.
+     * @param cellValues
+     * @param index
+     * @param value
+     * @return
+     */
+    boolean hasSolutionWithout(int[] cellValues, int index, int value) {
+        short[] c = cands[0];
+        for (int i = 0; i < Sudoku2.LENGTH; i++) {
+            c[i] = ALL;
+        }
+        c[index] &= ~Sudoku2.MASKS[value];
+        maxSolutions = 1;
+        int count = doSolve(cellValues);
+        maxSolutions = 2;
+        return count > 0;
+    }
+
+    /**
+     * Sets up level 0 and does the search. The candidates of level 0
+     * must already be initialized.
+     * @param cellValues
+     * @return
+     */
+    private int doSolve(int[] cellValues) {
+        solutionCount = 0;
+        anzTries = 0;
+        unsolved[0] = Sudoku2.LENGTH;
+        for (int i = 0; i < placed[0].length; i++) {
+            placed[0][i] = 0;
+        }
+        for (int i = 0; i < Sudoku2.LENGTH; i++) {
+            values[0][i] = 0;
+        }
+        int tail = 0;
+        for (int i = 0; i < Sudoku2.LENGTH; i++) {
+            if (cellValues[i] != 0) {
+                // givens: only conflicts with other givens are checked
+                cands[0][i] |= Sudoku2.MASKS[cellValues[i]];
+                tail = place(0, i, cellValues[i], tail);
+                if (tail < 0) {
+                    return 0;
+                }
+            }
+        }
+        // cells without candidates left
+        for (int i = 0; i < Sudoku2.LENGTH; i++) {
+            if (values[0][i] == 0 && cands[0][i] == 0) {
+                return 0;
+            }
+        }
+        if (!propagate(0, tail)) {
+            return 0;
+        }
+        search();
+        return solutionCount;
+    }
+
+    /**
+     * The backtracking search, recursion is simulated by the arrays for
+     * every level.
+     */
+    private void search() {
+        int level = 0;
+        while (true) {
+            if (unsolved[level] == 0) {
+                // sudoku is solved
+                solutionCount++;
+                if (solutionCount == 1) {
+                    System.arraycopy(values[level], 0, solution, 0, Sudoku2.LENGTH);
+                } else {
+                    System.arraycopy(values[level], 0, secondSolution, 0, Sudoku2.LENGTH);
+                }
+                if (solutionCount == maxSolutions) {
+                    return;
+                }
+                level--;
+            } else {
+                // the unsolved cell with the fewest candidates
+                short[] c = cands[level];
+                int index = -1;
+                int anzCand = 10;
+                for (int i = 0; i < Sudoku2.LENGTH; i++) {
+                    if (values[level][i] == 0 && Sudoku2.ANZ_VALUES[c[i]] < anzCand) {
+                        index = i;
+                        anzCand = Sudoku2.ANZ_VALUES[c[i]];
+                        if (anzCand <= 2) {
+                            break;
+                        }
+                    }
+                }
+                branchCell[level] = index;
+                branchCands[level] = c[index];
+            }
+            // try the next candidate; fall back all levels where nothing is left to do
+            while (level >= 0) {
+                int rest = branchCands[level];
+                if (rest == 0) {
+                    level--;
+                    continue;
+                }
+                int bit = rest & -rest;
+                branchCands[level] = rest & ~bit;
+                anzTries++;
+                copyLevel(level);
+                int tail = place(level + 1, branchCell[level], Sudoku2.CAND_FROM_MASK[bit], 0);
+                if (tail >= 0 && propagate(level + 1, tail)) {
+                    level++;
+                    break;
+                }
+            }
+            if (level < 0) {
+                return;
+            }
+        }
+    }
+
+    private void copyLevel(int level) {
+        System.arraycopy(cands[level], 0, cands[level + 1], 0, Sudoku2.LENGTH);
+        System.arraycopy(values[level], 0, values[level + 1], 0, Sudoku2.LENGTH);
+        System.arraycopy(placed[level], 0, placed[level + 1], 0, placed[level].length);
+        unsolved[level + 1] = unsolved[level];
+    }
+
+    /**
+     * Sets <code>value</code> in <code>index</code> and removes it from
+     * all buddies. Buddies that become Naked Singles are added to {@link #queue}.
+     * @param level
+     * @param index
+     * @param value
+     * @param tail Number of entries in {@link #queue}
+     * @return The new number of entries in {@link #queue} or -1, if the
+     *   sudoku has become invalid.
+     */
+    private int place(int level, int index, int value, int tail) {
+        short[] c = cands[level];
+        short[] p = placed[level];
+        int mask = Sudoku2.MASKS[value];
+        if ((c[index] & mask) == 0) {
+            return -1;
+        }
+        int[] constr = Sudoku2.CONSTRAINTS[index];
+        if (((p[constr[0]] | p[constr[1]] | p[constr[2]]) & mask) != 0) {
+            return -1;
+        }
+        p[constr[0]] |= mask;
+        p[constr[1]] |= mask;
+        p[constr[2]] |= mask;
+        values[level][index] = value;
+        c[index] = 0;
+        unsolved[level]--;
+        int[] buddies = BUDDIES[index];
+        for (int i = 0; i < buddies.length; i++) {
+            int b = buddies[i];
+            if ((c[b] & mask) != 0) {
+                c[b] &= ~mask;
+                if (values[level][b] == 0) {
+                    if (c[b] == 0) {
+                        return -1;
+                    }
+                    if (Sudoku2.ANZ_VALUES[c[b]] == 1) {
+                        queue[tail++] = b;
+                    }
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Sets all Naked Singles in {@link #queue} and all Hidden Singles
+     * until nothing is left to do.
+     * @param level
+     * @param tail
+     * @return <code>false</code>, if the sudoku has become invalid.
+     */
+    private boolean propagate(int level, int tail) {
+        short[] c = cands[level];
+        int[] v = values[level];
+        short[] p = placed[level];
+        while (true) {
+            // Naked Singles
+            while (tail > 0) {
+                int index = queue[--tail];
+                if (v[index] != 0) {
+                    continue;
+                }
+                tail = place(level, index, Sudoku2.CAND_FROM_MASK[c[index]], tail);
+                if (tail < 0) {
+                    return false;
+                }
+            }
+            // Hidden Singles
+            boolean found = false;
+            for (int h = 0; h < Sudoku2.ALL_UNITS.length; h++) {
+                int[] unit = Sudoku2.ALL_UNITS[h];
+                int once = 0;
+                int twice = 0;
+                for (int i = 0; i < unit.length; i++) {
+                    int m = c[unit[i]];
+                    twice |= once & m;
+                    once |= m;
+                }
+                if ((once | p[h]) != ALL) {
+                    // a digit can't be placed in this house anymore
+                    return false;
+                }
+                int hidden = once & ~twice;
+                while (hidden != 0) {
+                    int bit = hidden & -hidden;
+                    hidden &= ~bit;
+                    for (int i = 0; i < unit.length; i++) {
+                        if ((c[unit[i]] & bit) != 0) {
+                            tail = place(level, unit[i], Sudoku2.CAND_FROM_MASK[bit], tail);
+                            if (tail < 0) {
+                                return false;
+                            }
+                            found = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            if (!found && tail == 0) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * The first solution found by the last call to <code>solve()</code>.
+     * @return
+     */
+    int[] getSolution() {
+        return solution;
+    }
+
+    /**
+     * The second solution found by the last call to <code>solve()</code>;
+     * only valid, if the sudoku has more than one solution.
+     * @return
+     */
+    int[] getSecondSolution() {
+        return secondSolution;
+    }
+
+    /**
+     * Number of tries in the last call to <code>solve()</code>.
+     * @return
+     */
+    int getAnzTries() {
+        return anzTries;
+    }
+}
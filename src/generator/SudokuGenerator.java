@@ -25,6 +25,11 @@ package generator;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import sudoku.Options;
@@ -41,14 +46,18 @@ public class SudokuGenerator {
     /** Debug flag */
     private static final boolean DEBUG = false;
     
-    /** Maximum number of tries when generating a puzzle using a pattern */
-    private static final int MAX_TRIES = 1000000;
+    /** Default time budget in ms when generating a puzzle using a pattern */
+    public static final long PATTERN_TIMEOUT = 30000;
+    /** Maximum number of uniqueness checks for one try of the pattern search */
+    private static final int MAX_PATTERN_NODES = 100;
+    /** A sudoku with less than 17 givens cannot have a unique solution */
+    private static final int MIN_GIVENS = 17;
 
     /** Empty sudoku for initialization */
     private static Sudoku2 EMPTY_GRID = new Sudoku2();
 
     /**
-     * One entry in recursion stack
+     * One entry in recursion stack (for generating full grids)
      */
     private class RecursionStackEntry {
 
@@ -61,11 +70,13 @@ public class SudokuGenerator {
         /** The index of the last tried candidate in {@link #candidates}. */
         int candIndex;
     }
+    /** The solver for all uniqueness checks */
+    private SolutionCounter counter = new SolutionCounter();
     /** The cells values of the first solution */
-    private int[] solution = new int[81];
+    private int[] solution = counter.getSolution();
     /** Number of solutions already found */
     private int solutionCount = 0;
-    /** The recursion stack */
+    /** The recursion stack for generating full grids */
     private RecursionStackEntry[] stack = new RecursionStackEntry[82];
     /** The order in which cells are set when generating a full grid. */
     private int[] generateIndices = new int[81];
@@ -75,6 +86,15 @@ public class SudokuGenerator {
     private int[] newValidSudoku = new int[81];
     /** A random generator for creating new puzzles. */
     private Random rand = new Random();
+    /** The givens already chosen by the pattern search. */
+    private int[] patternClues = new int[81];
+    /** The cells set by the pattern search, one entry per level. */
+    private int[] patternStackCell = new int[81];
+    /** The values not yet tried for the cell in {@link #patternStackCell} (as bit mask). */
+    private int[] patternStackCands = new int[81];
+    /** The threads for the parallel pattern search, shared by all generators
+     *  (see {@link #generatePatternParallel(boolean[], generator.SudokuGenerator.PatternSearch, int) }). */
+    private static ExecutorService executor = null;
 
     private int anzTries = 0;
     private int anzNS = 0;
@@ -130,18 +150,12 @@ public class SudokuGenerator {
     }
 
     /**
-     * Solves <code>sudoku</code>.
+     * Solves <code>sudoku</code> (see {@link SolutionCounter}).
      * @param sudoku
      */
     private void solve(Sudoku2 sudoku) {
-        // start with the current state of the sudoku
-        stack[0].sudoku.set(sudoku);
-        stack[0].index = 0;
-        stack[0].candidates = null;
-        stack[0].candIndex = 0;
-
-        // solve it
-        solve();
+        solutionCount = counter.solve(sudoku);
+        anzTries = counter.getAnzTries();
     }
 
     /**
@@ -149,21 +163,14 @@ public class SudokuGenerator {
      * @param sudokuString
      */
     public void solve(String sudokuString) {
-        // start with an empty sudoku
-        stack[0].sudoku.set(EMPTY_GRID);
-        stack[0].candidates = null;
-        stack[0].candIndex = 0;
-
-        // set up the sudoku
+        int[] cellValues = new int[Sudoku2.LENGTH];
         for (int i = 0; i < sudokuString.length() && i < Sudoku2.LENGTH; i++) {
             int value = sudokuString.charAt(i) - '0';
             if (value >= 1 && value <= 9) {
-                stack[0].sudoku.setCell(i, value, false, false);
-                setAllExposedSingles(stack[0].sudoku);
+                cellValues[i] = value;
             }
         }
-        // solve it
-        solve();
+        solve(cellValues);
     }
 
     /**
@@ -171,150 +178,8 @@ public class SudokuGenerator {
      * @param cellValues 
      */
     public void solve(int[] cellValues) {
-//        System.out.println("start solving " + getSolutionAsString(cellValues));
-//        actSetNanos = System.nanoTime();
-        // start with an empty sudoku
-        stack[0].sudoku.set(EMPTY_GRID);
-        stack[0].candidates = null;
-        stack[0].candIndex = 0;
-
-//        // set up the sudoku
-//        for (int i = 0; i < cellValues.length; i++) {
-//            int value = cellValues[i];
-//            if (value >= 1 && value <= 9) {
-//                stack[0].sudoku.setCell(i, value, false, false);
-//                setAllExposedSingles(stack[0].sudoku);
-//            }
-//        }
-        // set up the sudoku
-//        System.out.println("setting up sudoku...");
-        for (int i = 0; i < cellValues.length; i++) {
-            int value = cellValues[i];
-            if (value >= 1 && value <= 9) {
-                stack[0].sudoku.setCellBS(i, value);
-            }
-        }
-        stack[0].sudoku.rebuildInternalData();
-        setAllExposedSingles(stack[0].sudoku);
-//        System.out.println("and solve...");
-
-        // solve it
-        solve();
-    }
-
-    /**
-     * The real backtracking solver: Recursion is simulated by
-     * a recursion stack ({@link #stack}), if Singles are exposed
-     * during solving, they are set.
-     */
-    private void solve() {
-        anzTries = 0;
-        anzNS = 0;
-        anzHS = 0;
-        solutionCount = 0;
-        // first set all Singles exposed by building up the Sudoku grid
-        if (DEBUG) {
-            System.out.println("solve start:");
-        }
-        if (!setAllExposedSingles(stack[0].sudoku)) {
-            // puzzle was invalid all along
-            if (DEBUG) {
-                System.out.println("  puzzle was invalid!");
-            }
-            return;
-        }
-//        setNanos += System.nanoTime() - actSetNanos;
-//        System.out.println("solve: " + getSolutionAsString(stack[0].sudoku.getValues()));
-//        System.out.println("unsolvedCellsAnz = " + stack[0].sudoku.getUnsolvedCellsAnz());
-        if (stack[0].sudoku.getUnsolvedCellsAnz() == 0) {
-            // already solved, nothing to do
-            solution = Arrays.copyOf(stack[0].sudoku.getValues(), Sudoku2.LENGTH);
-            solutionCount++;
-            if (DEBUG) {
-                System.out.println("  puzzle was already solved!");
-            }
-            return;
-        }
-        int level = 0;
-        while (true) {
-            // get the next unsolved cells with the fewest number of candidates
-            if (stack[level].sudoku.getUnsolvedCellsAnz() == 0) {
-                // sudoku is solved
-                solutionCount++;
-                // count the solutions
-                if (solutionCount == 1) {
-                    // first solution is recorded
-                    solution = Arrays.copyOf(stack[level].sudoku.getValues(), Sudoku2.LENGTH);
-                } else if (solutionCount > 1) {
-                    // but not more than 1000
-                    if (DEBUG) {
-                        System.out.println("  puzzle has more than one solution (" + solutionCount + ")!");
-                    }
-                    return;
-                }
-            } else {
-                int index = -1;
-                int anzCand = 9;
-                Sudoku2 sudoku = stack[level].sudoku;
-                for (int i = 0; i < Sudoku2.LENGTH; i++) {
-//                    if (sudoku.getCell(i) != 0) {
-//                        System.out.println("cell[" + i + "] = " + Sudoku2.ANZ_VALUES[sudoku.getCell(i)]);
-//                    }
-                    if (sudoku.getCell(i) != 0 && Sudoku2.ANZ_VALUES[sudoku.getCell(i)] < anzCand) {
-                        index = i;
-                        anzCand = Sudoku2.ANZ_VALUES[sudoku.getCell(i)];
-                    }
-                }
-                level++;
-                // missing candidates lead to exception -> avoid that
-                if (index < 0) {
-                    solutionCount = 0;
-                    return;
-                }
-                stack[level].index = (short) index;
-                stack[level].candidates = Sudoku2.POSSIBLE_VALUES[stack[level - 1].sudoku.getCell(index)];
-                stack[level].candIndex = 0;
-            }
-
-            // go to the next level
-            boolean done = false;
-            do {
-                // this loop runs as long as the next candidate tried produces an
-                // invalid sudoku or until all possibilities have been tried
-
-                // fall back all levels, where nothing is to do anymore
-                while (stack[level].candIndex >= stack[level].candidates.length) {
-                    level--;
-                    if (level <= 0) {
-                        // no level with candidates left
-                        done = true;
-                        break;
-                    }
-                }
-                if (done) {
-                    break;
-                }
-                // try the next candidate
-                int nextCand = stack[level].candidates[stack[level].candIndex++];
-                // start with a fresh sudoku
-                anzTries++;
-                stack[level].sudoku.setBS(stack[level - 1].sudoku);
-                if (!stack[level].sudoku.setCell(stack[level].index, nextCand, false, false)) {
-                    // invalid -> try next candidate
-                    continue;
-                }
-                if (setAllExposedSingles(stack[level].sudoku)) {
-                    // valid move, break from the inner loop to advance to the next level
-                    break;
-                }
-            } while (true);
-            if (done) {
-                break;
-            }
-        }
-        if (DEBUG) {
-            System.out.println("  puzzle has " + solutionCount + " solution!");
-        }
+        solutionCount = counter.solve(cellValues);
+        anzTries = counter.getAnzTries();
     }
 
     /**
@@ -340,8 +205,8 @@ public class SudokuGenerator {
     /**
      * Generates a new valid sudoku. If <code>pattern</code> is not <code>null</code>,
      * it is used to determine the positions of the givens. If no sudoku could be generated
-     * (only possible if a <code>pattern</code> is applied), the method returns 
-     * <code>null</code>.<br><br>
+     * (only possible if a <code>pattern</code> is applied and no puzzle is found within
+     * {@link #PATTERN_TIMEOUT} ms), the method returns <code>null</code>.<br><br>
      * 
      * This method is used by the validity checker in the {@link ConfigGeneratorPanel}.
      * 
@@ -350,28 +215,56 @@ public class SudokuGenerator {
      * @return 
      */
     public Sudoku2 generateSudoku(boolean symmetric, boolean[] pattern) {
+        if (pattern != null) {
+            return generateSudoku(pattern, PATTERN_TIMEOUT);
+        }
         generateFullGrid();
-        if (pattern == null) {
-            generateInitPos(symmetric);
+        generateInitPos(symmetric);
+        return createSudoku();
+    }
+
+    /**
+     * Generates a new valid sudoku with givens exactly in the cells
+     * set in <code>pattern</code>. The givens are searched directly (see 
+     * {@link #generateInitPos(boolean[], generator.SudokuGenerator.PatternSearch) }),
+     * if more than one processor is available, one search with its own random
+     * order runs per processor. If the caller is itself a {@link GeneratorThread}
+     * (e.g. a worker of the {@link BackgroundGenerator}), the processors are
+     * already busy: the search then runs in the calling thread.<br><br>
+     * 
+     * The search stops after <code>timeout</code> ms or when the calling thread is
+     * interrupted. In both cases <code>null</code> is returned.
+     * 
+     * @param pattern
+     * @param timeout Time budget in ms
+     * @return 
+     */
+    public Sudoku2 generateSudoku(boolean[] pattern, long timeout) {
+        long ticks = System.currentTimeMillis();
+        PatternSearch search = new PatternSearch(ticks + timeout);
+        boolean found;
+        int anzWorkers = Runtime.getRuntime().availableProcessors();
+        if (anzWorkers > 1 && !(Thread.currentThread() instanceof GeneratorThread)) {
+            found = generatePatternParallel(pattern, search, anzWorkers);
         } else {
-            boolean ok = false;
-            System.out.println("Trying with pattern!");
-            for (int i = 0; i < MAX_TRIES; i++) {
-                if ((ok = generateInitPos(pattern)) == true) {
-                    break;
-                }
-                if ((i % 1000) == 0) {
-                    System.out.println("  try: " + i);
-                }
-            }
-            if (! ok) {
-                // no puzzle found in MAX_TRIES iterations
-                System.out.println("nothing found!");
-                return null;
-            }
-            System.out.println("puzzle found!");
+            found = generateInitPos(pattern, search);
+        }
+        ticks = System.currentTimeMillis() - ticks;
+        if (!found) {
+            Logger.getLogger(getClass().getName()).log(Level.FINE, "no puzzle found for pattern ({0}ms)", ticks);
+            return null;
         }
-        // construct the new sudoku
+        Logger.getLogger(getClass().getName()).log(Level.FINE, "puzzle found for pattern ({0}ms)", ticks);
+        solve(newValidSudoku);
+        return createSudoku();
+    }
+
+    /**
+     * Builds a new {@link Sudoku2} from {@link #newValidSudoku}.
+     * 
+     * @return 
+     */
+    private Sudoku2 createSudoku() {
         Sudoku2 sudoku = new Sudoku2();
         for (int i = 0; i < newValidSudoku.length; i++) {
             if (newValidSudoku[i] != 0) {
@@ -386,6 +279,75 @@ public class SudokuGenerator {
         return sudoku;
     }
 
+    /**
+     * Runs one pattern search per worker in {@link #executor}, every worker uses its own
+     * generator from the {@link SudokuGeneratorFactory}. The first puzzle
+     * found is copied into {@link #newValidSudoku}, all other workers stop
+     * after their current uniqueness check.
+     * 
+     * @param pattern
+     * @param search
+     * @param anzWorkers
+     * @return <code>false</code>, if no puzzle was found in time or if
+     *   the search was cancelled.
+     */
+    private boolean generatePatternParallel(final boolean[] pattern, final PatternSearch search, int anzWorkers) {
+        search.running = anzWorkers;
+        ExecutorService pool = getExecutor();
+        for (int i = 0; i < anzWorkers; i++) {
+            pool.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    SudokuGenerator creator = SudokuGeneratorFactory.getInstance();
+                    try {
+                        if (creator.generateInitPos(pattern, search)) {
+                            search.setResult(creator.newValidSudoku);
+                        }
+                    } finally {
+                        SudokuGeneratorFactory.giveBack(creator);
+                        search.workerDone();
+                    }
+                }
+            });
+        }
+        try {
+            long rest = search.deadline - System.currentTimeMillis();
+            if (rest > 0) {
+                search.finished.await(rest, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // time is up or search is done: stop all workers
+        search.cancelled = true;
+        return search.getResult(newValidSudoku);
+    }
+
+    /**
+     * Creates {@link #executor} if necessary. The threads are daemon
+     * threads and don't keep the program alive.
+     * 
+     * @return 
+     */
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                    new ThreadFactory() {
+
+                        private int anz = 0;
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new GeneratorThread(r, "PatternGeneratorThread-" + anz++);
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        return executor;
+    }
+
     /**
      * Generates a new valid randomized grid. The real work is
      * done by {@link #doGenerateFullGrid()}, but since this
@@ -397,8 +359,8 @@ public class SudokuGenerator {
     }
 
     /**
-     * Generates a new valid full sudoku grid. Works exactly like the
-     * backtracking solver ({@link #solve()}), the cells are set in
+     * Generates a new valid full sudoku grid. Works like a
+     * backtracking solver with a recursion stack ({@link #stack}), the cells are set in
      * random order.<br>
      * The method works very well most of the times, but somtimes 
      * (about 1.5% of all cases) it can take extremely long to get a
@@ -499,43 +461,151 @@ public class SudokuGenerator {
     }
 
     /**
-     * Takes a full sudoku from {@link #newFullSudoku} and generates a valid
-     * puzzle by deleting the cells indicated by <code>pattern</code>. If the
-     * resulting puzzle is invalid, <code>false</code> is returned and the caller
-     * is responsible for continuing the search.
+     * Searches the givens for the cells set in <code>pattern</code> directly.
+     * Filling a random full grid and deleting all other cells almost never
+     * gives a unique puzzle for sparse patterns, so the givens are chosen
+     * one by one instead (backtracking search over the pattern cells):<br>
+     * As long as the givens chosen so far allow two solutions, a pattern
+     * cell that is not set yet and that has different values in both solutions
+     * is chosen randomly. It gets the value of one of the solutions (the value
+     * of the other solution is tried, if the search backtracks). Both values are
+     * consistent with the givens so far and each of them removes at least one
+     * solution.<br>
+     * If both solutions have the same values in all pattern cells, no puzzle
+     * with this pattern can have one of them as its unique solution. In that
+     * case a random pattern cell that is not set yet gets all other values
+     * that are not yet set in a buddy (one after another). Assignments that
+     * leave no solution are undone immediately. If the givens have a unique
+     * solution, all remaining pattern cells are filled from it.<br><br>
+     * 
+     * Every try is limited to {@link #MAX_PATTERN_NODES} uniqueness checks,
+     * after that a new try with another random order is started. The digits
+     * of a puzzle found are permuted randomly. The result is stored in 
+     * {@link #newValidSudoku}.
      * 
      * @param pattern
-     * @return 
+     * @param search 
+     * @return <code>false</code>, if the search was stopped.
      */
-    private boolean generateInitPos(boolean[] pattern) {
-        // we start with the full board
-        System.arraycopy(newFullSudoku, 0, newValidSudoku, 0, newFullSudoku.length);
-        // delete all cells indicated by pattern
-//        System.out.println("Full:  " + Arrays.toString(newFullSudoku));
+    private boolean generateInitPos(boolean[] pattern, PatternSearch search) {
+        int anzGivens = 0;
         for (int i = 0; i < pattern.length; i++) {
-            if (pattern[i] == false) {
-                newValidSudoku[i] = 0;
+            if (pattern[i]) {
+                anzGivens++;
             }
         }
-//        System.out.println("Valid: " + Arrays.toString(newValidSudoku));
-//        long actNanos = System.nanoTime();
-        solve(newValidSudoku);
-//        nanos += System.nanoTime() - actNanos;
-        if (solutionCount > 1) {
+        if (anzGivens < MIN_GIVENS) {
             return false;
-        } else {
-            System.out.println("!!!! FOUND ONE !!!!");
-            return true;
         }
+        while (!search.isStopped()) {
+            anzTriesGen++;
+            if (doGenerateInitPos(pattern, search)) {
+                permuteDigits();
+                return true;
+            }
+        }
+        return false;
     }
-    
+
+    /**
+     * One try of the pattern search (see {@link #generateInitPos(boolean[], generator.SudokuGenerator.PatternSearch) }).
+     * 
+     * @param pattern
+     * @param search
+     * @return <code>true</code>, if a puzzle has been found.
+     */
+    private boolean doGenerateInitPos(boolean[] pattern, PatternSearch search) {
+        Arrays.fill(patternClues, 0);
+        int level = 0;
+        for (int nodes = 0; nodes < MAX_PATTERN_NODES && !search.isStopped(); nodes++) {
+            int count = counter.solve(patternClues);
+            if (count == 1) {
+                for (int i = 0; i < pattern.length; i++) {
+                    newValidSudoku[i] = pattern[i] ? solution[i] : 0;
+                }
+                return true;
+            }
+            if (count == 2) {
+                int[] secondSolution = counter.getSecondSolution();
+                // a random cell that distinguishes both solutions
+                int index = -1;
+                int anz = 0;
+                int anzFree = 0;
+                for (int i = 0; i < pattern.length; i++) {
+                    if (pattern[i] && patternClues[i] == 0) {
+                        anzFree++;
+                        if (solution[i] != secondSolution[i] && rand.nextInt(++anz) == 0) {
+                            index = i;
+                        }
+                    }
+                }
+                int cands = 0;
+                if (index != -1) {
+                    cands = Sudoku2.MASKS[solution[index]] | Sudoku2.MASKS[secondSolution[index]];
+                } else if (anzFree > 0) {
+                    // no puzzle can have one of the solutions: use any other value
+                    int free = rand.nextInt(anzFree);
+                    for (int i = 0; i < pattern.length; i++) {
+                        if (pattern[i] && patternClues[i] == 0 && free-- == 0) {
+                            index = i;
+                            break;
+                        }
+                    }
+                    cands = Sudoku2.MAX_MASK & ~Sudoku2.MASKS[solution[index]];
+                    for (int j = Sudoku2.buddies[index].nextSetBit(0); j >= 0; j = Sudoku2.buddies[index].nextSetBit(j + 1)) {
+                        if (patternClues[j] != 0) {
+                            cands &= ~Sudoku2.MASKS[patternClues[j]];
+                        }
+                    }
+                }
+                if (cands != 0) {
+                    patternStackCell[level] = index;
+                    patternStackCands[level] = cands;
+                    level++;
+                }
+            }
+            // set the next untried value, go back if necessary
+            while (level > 0 && patternStackCands[level - 1] == 0) {
+                level--;
+                patternClues[patternStackCell[level]] = 0;
+            }
+            if (level == 0) {
+                return false;
+            }
+            int[] values = Sudoku2.POSSIBLE_VALUES[patternStackCands[level - 1]];
+            int value = values[rand.nextInt(values.length)];
+            patternStackCands[level - 1] &= ~Sudoku2.MASKS[value];
+            patternClues[patternStackCell[level - 1]] = value;
+        }
+        return false;
+    }
+
+    /**
+     * Permutes the digits of {@link #newValidSudoku} randomly.
+     */
+    private void permuteDigits() {
+        int[] perm = new int[10];
+        for (int i = 1; i < perm.length; i++) {
+            int j = 1 + rand.nextInt(i);
+            perm[i] = perm[j];
+            perm[j] = i;
+        }
+        for (int i = 0; i < newValidSudoku.length; i++) {
+            newValidSudoku[i] = perm[newValidSudoku[i]];
+        }
+    }
+
     /**
      * Takes a full sudoku from {@link #newFullSudoku} and generates a valid
      * puzzle by deleting cells. If a deletion produces a grid with more
      * than one solution it is of course undone.<br><br>
      * 
+     * The puzzle is unique before every deletion and its solution is
+     * always {@link #newFullSudoku}. So another solution after a deletion
+     * has to differ from {@link #newFullSudoku} in a deleted cell: only
+     * such solutions are searched for (see {@link SolutionCounter#hasSolutionWithout(int[], int, int) }).
+     * 
      * @param isSymmetric
-     * @param pattern
      */
     private void generateInitPos(boolean isSymmetric) {
         int maxPosToFill = 17; // no less than 17 givens
@@ -581,10 +651,16 @@ public class SudokuGenerator {
                 remainingClues--;
             }
 //            long actNanos = System.nanoTime();
-            solve(newValidSudoku);
+            boolean unique = !counter.hasSolutionWithout(newValidSudoku, i, newFullSudoku[i]);
+            if (unique && isSymmetric && (i/9 != 4 || i%9 != 4 )) {
+                // other solutions with the old value in i must differ in symm
+                newValidSudoku[i] = newFullSudoku[i];
+                unique = !counter.hasSolutionWithout(newValidSudoku, symm, newFullSudoku[symm]);
+                newValidSudoku[i] = 0;
+            }
 //            nanos += System.nanoTime() - actNanos;
             anzTriesGen++;
-            if (solutionCount > 1) {
+            if (!unique) {
                 newValidSudoku[i] = newFullSudoku[i];
                 remainingClues++;
                 if (isSymmetric && (i/9 != 4 || i%9 != 4 )) {
@@ -666,6 +742,93 @@ public class SudokuGenerator {
         return "anzTries: " + anzTries + ", anzNS: " + anzNS + ", anzHS: " + anzHS;
     }
 
+    /**
+     * A thread that generates puzzles in parallel to other threads of its
+     * kind: pattern searches started from such a thread don't start more
+     * threads (see {@link #generateSudoku(boolean[], long) }).
+     */
+    static class GeneratorThread extends Thread {
+
+        GeneratorThread(Runnable target, String name) {
+            super(target, name);
+        }
+    }
+
+    /**
+     * The state of one call to {@link #generateSudoku(boolean[], long) },
+     * shared by all its workers.
+     */
+    private static class PatternSearch {
+        /** Set if the workers have to stop. */
+        volatile boolean cancelled = false;
+        /** Time (ms) when the search has to stop. */
+        final long deadline;
+        /** Counted down, when a puzzle has been found or when all workers have stopped. */
+        final CountDownLatch finished = new CountDownLatch(1);
+        /** The givens found by the workers. */
+        private int[] result = null;
+        /** Number of workers still running. */
+        private int running = 1;
+
+        /**
+         * Creates a new search.
+         * 
+         * @param deadline 
+         */
+        PatternSearch(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Checks, if the search has to stop. Searches that run in the calling
+         * thread stop when the thread is interrupted.
+         * 
+         * @return 
+         */
+        boolean isStopped() {
+            return cancelled || Thread.currentThread().isInterrupted() 
+                    || System.currentTimeMillis() > deadline;
+        }
+
+        /**
+         * Stores the result of a worker and cancels all workers.
+         * 
+         * @param givens 
+         */
+        synchronized void setResult(int[] givens) {
+            if (result != null || cancelled) {
+                return;
+            }
+            result = givens.clone();
+            cancelled = true;
+            finished.countDown();
+        }
+
+        /**
+         * Copies the result into <code>givens</code>.
+         * 
+         * @param givens
+         * @return <code>false</code>, if no puzzle has been found.
+         */
+        synchronized boolean getResult(int[] givens) {
+            if (result == null) {
+                return false;
+            }
+            System.arraycopy(result, 0, givens, 0, result.length);
+            return true;
+        }
+
+        /**
+         * Called by every worker, when it stops.
+         */
+        synchronized void workerDone() {
+            running--;
+            if (running == 0) {
+                finished.countDown();
+            }
+        }
+    }
+
     public static void main(String[] args) {
         System.out.println("Sudoku2!");
 //        ..15............32...............2.9.5...3......7..8..27.....4.3...9.......6..5..
@@ -19,15 +19,13 @@
 
 package generator;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import solver.InstancePool;
 
 /**
  * HoDoKu uses one instance of class {@link SudokuGenerator} from within the
  * GUI. This instance is called the <b>defaultGenerator</b>. For use in background
  * threads an arbitrary number of additional generator instances can be gotten
- * from this factory.<br>
+ * from this factory (they are held in an {@link InstancePool}).<br>
  * Generators have to be released after they are used.
  * 
  * @author hobiwan
@@ -35,58 +33,19 @@ import java.util.List;
 public class SudokuGeneratorFactory {
     /** The <b>defaultGenerator</b> for use by the GUI. */
     private static final SudokuGenerator defaultGenerator = new SudokuGenerator();
-    /** All SudokuGenerator instances created by this factory. */
-    private static List<generatorInstance> instances = new ArrayList<generatorInstance>();
-    /** A background thread that cleans up unused SudokuGenerator instances. */
-    private static final Thread thread = new Thread( new Runnable() {
-        @Override
-        @SuppressWarnings("SleepWhileInLoop")
-        public void run() {
-            while (true) {
-                synchronized (thread) {
-                    Iterator<generatorInstance> iterator = instances.iterator();
-                    while (iterator.hasNext()) {
-                        generatorInstance act = iterator.next();
-                        if (act.inUse == false && (System.currentTimeMillis() - act.lastUsedAt) > GENERATOR_TIMEOUT) {
-                            iterator.remove();
-                        }
-                    }
-                }
-                try {
-                    Thread.sleep(GENERATOR_TIMEOUT);
-                } catch (InterruptedException ex) {
-                    // do nothing
-                }
-            }
-        }
-    });
     /** The default cleanup time for SudokuGenerator instances. */
     private static final long GENERATOR_TIMEOUT = 5 * 60 * 1000;
+    /** The maximum number of unused SudokuGenerator instances kept by the factory. */
+    private static final int MAX_IDLE = 2 * Runtime.getRuntime().availableProcessors() + 2;
+    /** All unused SudokuGenerator instances. */
+    private static final InstancePool<SudokuGenerator> pool =
+            new InstancePool<SudokuGenerator>("SudokuGeneratorFactory", MAX_IDLE, GENERATOR_TIMEOUT) {
 
-    /**
-     * One entry in {@link #instances}.
-     */
-    private static class generatorInstance {
-        /** The generator held in this entry. */
-        SudokuGenerator instance = null;
-        /** <code>true</code>, if the generator has been handed out by the factory. */
-        boolean inUse = true;
-        /** Last time the generator was returned to the factory. */
-        long lastUsedAt = -1;
-
-        /**
-         * Create a new entry for {@link #instances}.
-         * @param instance
-         */
-        private generatorInstance(SudokuGenerator instance) {
-            this.instance = instance;
+        @Override
+        protected SudokuGenerator create() {
+            return new SudokuGenerator();
         }
-    }
-
-    /** Start the thread */
-    static {
-        thread.start();
-    }
+    };
 
     /**
      * This class is a utility class that cannot be instantiated.
@@ -105,21 +64,7 @@ public class SudokuGeneratorFactory {
      * @return
      */
     public static SudokuGenerator getInstance() {
-        SudokuGenerator ret = null;
-        synchronized (thread) {
-            for (generatorInstance act : instances) {
-                if (act.inUse == false) {
-                    act.inUse = true;
-                    ret = act.instance;
-                    break;
-                }
-            }
-            if (ret == null) {
-                ret = new SudokuGenerator();
-                instances.add(new generatorInstance(ret));
-            }
-        }
-        return ret;
+        return pool.getInstance();
     }
 
     /**
@@ -127,14 +72,14 @@ public class SudokuGeneratorFactory {
      * @param generator
      */
     public static void giveBack(SudokuGenerator generator) {
-        synchronized (thread) {
-            for (generatorInstance act : instances) {
-                if (act.instance == generator) {
-                    act.inUse = false;
-                    act.lastUsedAt = System.currentTimeMillis();
-                    break;
-                }
-            }
-        }
+        pool.giveBack(generator);
+    }
+
+    /**
+     * The pool holding the generators (for statistics).
+     * @return
+     */
+    public static InstancePool<SudokuGenerator> getPool() {
+        return pool;
     }
 }
@@ -59,22 +59,32 @@ public class Als {
 
     /**
      * Computes all the additional fields; is done after the initial search
-     * to optimize finding doubles.
+     * to optimize finding doubles.<br>
+     * Can be called again, if the candidates of the sudoku have changed; the
+     * sets are reused.
      * 
      * @param finder
      */
     public void computeFields(SudokuStepFinder finder) {
-        this.buddies = new SudokuSet();
+        if (buddies == null) {
+            buddies = new SudokuSet();
+        } else {
+            buddies.clear();
+        }
         for (int i = 1; i <= 9; i++) {
             if ((candidates & Sudoku2.MASKS[i]) != 0) {
+                if (indicesPerCandidat[i] == null) {
+                    indicesPerCandidat[i] = new SudokuSet();
+                    buddiesPerCandidat[i] = new SudokuSet();
+                    buddiesAlsPerCandidat[i] = new SudokuSet();
+                }
                 SudokuSet sudokuCandidates = finder.getCandidates()[i];
-                indicesPerCandidat[i] = new SudokuSet(indices);
+                indicesPerCandidat[i].set(indices);
                 indicesPerCandidat[i].and(sudokuCandidates);
-                buddiesPerCandidat[i] = new SudokuSet();
                 Sudoku2.getBuddies(indicesPerCandidat[i], buddiesPerCandidat[i]);
                 buddiesPerCandidat[i].andNot(indices);
                 buddiesPerCandidat[i].and(finder.getCandidates()[i]);
-                buddiesAlsPerCandidat[i] = new SudokuSet(buddiesPerCandidat[i]);
+                buddiesAlsPerCandidat[i].set(buddiesPerCandidat[i]);
                 buddiesAlsPerCandidat[i].or(indicesPerCandidat[i]);
                 buddies.or(buddiesPerCandidat[i]);
             }
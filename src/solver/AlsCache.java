@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2008-12  Bernhard Hobiger
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import sudoku.Sudoku2;
+import sudoku.SudokuSet;
+
+/**
+ * Incremental ALS search for {@link SudokuStepFinder}.<br>
+ * The ALS are searched per house; the result for every house is kept
+ * together with a snapshot of all cells. When the ALS are needed again,
+ * only houses containing a changed cell are searched again. The list of
+ * all ALS is then built from the houses in the original order, doubles
+ * (ALS that are found in more than one house) are eliminated with
+ * a hash set on the indices of the ALS.<br>
+ * ALS from unchanged houses are reused, {@link Als#computeFields(solver.SudokuStepFinder)}
+ * reuses their sets.
+ *
+ * @author hobiwan
+ */
+final class AlsCache {
+
+    /** Initial size of the hash set for doubles (must be a power of 2). */
+    private static final int INITIAL_CAPACITY = 1024;
+    /** Allow ALS with only one cell (bivalue cells)? */
+    private final boolean onlyLargerThanOne;
+    /** Value and candidates of every cell at the last search; -1 if nothing was searched yet. */
+    private final int[] cells = new int[Sudoku2.LENGTH];
+    /** For every house the ALS found in that house. */
+    private final List<List<Als>> houseAlses = new ArrayList<List<Als>>(Sudoku2.ALL_UNITS.length);
+    /** Houses that have to be searched again. */
+    private final boolean[] dirtyHouses = new boolean[Sudoku2.ALL_UNITS.length];
+    /** The result of the last search. */
+    private List<Als> alses = null;
+    /** Hash set for doubles: <code>mask1</code> of the indices of the ALS. */
+    private long[] keys1;
+    /** Hash set for doubles: <code>mask2</code> of the indices of the ALS. */
+    private long[] keys2;
+    /** A slot is in use, if its stamp equals {@link #generation}. */
+    private int[] stamps;
+    /** Current generation of the hash set. */
+    private int generation = 0;
+    /** Temporary set for recursion: all cells of each try */
+    private SudokuSet indexSet = new SudokuSet();
+    /** Temporary set for recursion: all numbers contained in {@link #indexSet}. */
+    private short[] candSets = new short[10];
+    /** statistics: number of ALS found */
+    int anzAls;
+    /** statistics: number of ALS found more than once */
+    int doubleAls;
+
+    /**
+     * Creates a new cache.
+     * @param onlyLargerThanOne
+     */
+    AlsCache(boolean onlyLargerThanOne) {
+        this.onlyLargerThanOne = onlyLargerThanOne;
+        Arrays.fill(cells, -1);
+        for (int i = 0; i < Sudoku2.ALL_UNITS.length; i++) {
+            houseAlses.add(new ArrayList<Als>());
+        }
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Gets all ALS for <code>sudoku</code>. Only the houses that have changed
+     * since the last call are searched again.<br>
+     * If nothing has changed at all, the list from the last call is returned.
+     *
+     * @param sudoku
+     * @param finder Needed for {@link Als#computeFields(solver.SudokuStepFinder)}.
+     * @return
+     */
+    List<Als> getAlses(Sudoku2 sudoku, SudokuStepFinder finder) {
+        boolean changed = false;
+        Arrays.fill(dirtyHouses, false);
+        for (int i = 0; i < Sudoku2.LENGTH; i++) {
+            int cell = (sudoku.getValue(i) << 16) | sudoku.getCell(i);
+            if (cell != cells[i]) {
+                cells[i] = cell;
+                changed = true;
+                dirtyHouses[Sudoku2.CONSTRAINTS[i][0]] = true;
+                dirtyHouses[Sudoku2.CONSTRAINTS[i][1]] = true;
+                dirtyHouses[Sudoku2.CONSTRAINTS[i][2]] = true;
+            }
+        }
+        if (!changed && alses != null) {
+            return alses;
+        }
+
+        // search the houses that have changed
+        for (int i = 0; i < Sudoku2.ALL_UNITS.length; i++) {
+            if (dirtyHouses[i]) {
+                List<Als> houseList = houseAlses.get(i);
+                houseList.clear();
+                // recursion is started once for every cell in the house
+                for (int j = 0; j < Sudoku2.ALL_UNITS[i].length; j++) {
+                    indexSet.clear();
+                    candSets[0] = 0;
+                    checkAlsRecursive(sudoku, 0, j, Sudoku2.ALL_UNITS[i], houseList);
+                }
+            }
+        }
+
+        // collect all ALS and eliminate doubles
+        alses = new ArrayList<Als>(alses != null ? alses.size() + 50 : 300);
+        clearSet();
+        for (int i = 0; i < houseAlses.size(); i++) {
+            List<Als> houseList = houseAlses.get(i);
+            for (int j = 0; j < houseList.size(); j++) {
+                Als als = houseList.get(j);
+                if (addToSet(als.indices)) {
+                    alses.add(als);
+                } else {
+                    doubleAls++;
+                }
+            }
+        }
+
+        // compute fields (candidates outside the changed houses can have changed as well)
+        for (int i = 0; i < alses.size(); i++) {
+            alses.get(i).computeFields(finder);
+        }
+        return alses;
+    }
+
+    /**
+     * Does a recursive ALS search over one house (<code>indexe</code>).
+     * @param sudoku
+     * @param anzahl Number of cells already contained in {@link #indexSet}.
+     * @param startIndex First index in <code>indexe</code> to check.
+     * @param indexe Array with all the cells of the current house.
+     * @param houseList List for all newly found ALS
+     */
+    private void checkAlsRecursive(Sudoku2 sudoku, int anzahl, int startIndex, int[] indexe,
+            List<Als> houseList) {
+        anzahl++;
+        if (anzahl > indexe.length - 1) {
+            // end recursion (no more than 8 cells in an ALS possible)
+            return;
+        }
+        for (int i = startIndex; i < indexe.length; i++) {
+            int houseIndex = indexe[i];
+            if (sudoku.getValue(houseIndex) != 0) {
+                // cell already set -> ignore
+                continue;
+            }
+            indexSet.add(houseIndex);
+            candSets[anzahl] = (short) (candSets[anzahl - 1] | sudoku.getCell(houseIndex));
+
+            // if the number of candidates is excatly one larger than the number
+            // of cells, an ALS was found
+            if (Sudoku2.ANZ_VALUES[candSets[anzahl]] - anzahl == 1) {
+                if (!onlyLargerThanOne || anzahl > 1) {
+                    // found one -> doubles within one house are not possible
+                    anzAls++;
+                    houseList.add(new Als(indexSet, candSets[anzahl]));
+                }
+            }
+
+            // continue recursion
+            checkAlsRecursive(sudoku, anzahl, i + 1, indexe, houseList);
+
+            // remove current cell
+            indexSet.remove(houseIndex);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys1 = new long[capacity];
+        keys2 = new long[capacity];
+        stamps = new int[capacity];
+    }
+
+    /**
+     * Empties the hash set for doubles; the set is enlarged, if it could
+     * become too full.
+     */
+    private void clearSet() {
+        int needed = 0;
+        for (int i = 0; i < houseAlses.size(); i++) {
+            needed += houseAlses.get(i).size();
+        }
+        if (needed * 2 > stamps.length) {
+            int capacity = stamps.length;
+            while (needed * 2 > capacity) {
+                capacity *= 2;
+            }
+            allocate(capacity);
+            generation = 0;
+        }
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Adds <code>indices</code> to the hash set for doubles.
+     * @param indices
+     * @return <code>false</code>, if <code>indices</code> was already contained in the set.
+     */
+    private boolean addToSet(SudokuSet indices) {
+        long m1 = indices.getMask1();
+        long m2 = indices.getMask2();
+        long h = (m1 * 0x9E3779B97F4A7C15L + m2) * 0x9E3779B97F4A7C15L;
+        int mask = stamps.length - 1;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (stamps[slot] == generation) {
+            if (keys1[slot] == m1 && keys2[slot] == m2) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys1[slot] = m1;
+        keys2[slot] = m2;
+        stamps[slot] = generation;
+        return true;
+    }
+}
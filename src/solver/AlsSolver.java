@@ -23,11 +23,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import sudoku.Candidate;
 import sudoku.Chain;
-import sudoku.Options;
 import sudoku.SolutionStep;
 import sudoku.SolutionType;
 import sudoku.Sudoku2;
@@ -54,7 +51,7 @@ public class AlsSolver extends AbstractSolver {
     /** The indices of the last RC in {@link #restrictedCommons} for every ALS in {@link #alses}. */
     private int[] endIndices = null;
     /** all chains that have been found so far: eliminations and number of links */
-    private SortedMap<String, Integer> deletesMap = new TreeMap<String, Integer>();
+    private EliminationIndex deletesMap = new EliminationIndex();
     /** A special comparator used to find the "best" step out of a list of steps. */
     private static AlsComparator alsComparator = null;
     /** A list with all steps found during the last run. */
@@ -180,16 +177,16 @@ public class AlsSolver extends AbstractSolver {
         sudoku = finder.getSudoku();
         List<SolutionStep> oldSteps = steps;
         List<SolutionStep> resultSteps = new ArrayList<SolutionStep>();
-        finder.setRcOnlyForward(Options.getInstance().isAllStepsAlsChainForwardOnly());
+        finder.setRcOnlyForward(finder.getConfig().isAllStepsAlsChainForwardOnly());
         if (chain.length == MAX_RC) {
-            chain = new RestrictedCommon[Options.getInstance().getAllStepsAlsChainLength()];
+            chain = new RestrictedCommon[finder.getConfig().getAllStepsAlsChainLength()];
         }
         long millis1 = 0;
         if (TIMING) {
             millis1 = System.nanoTime();
         }
         collectAllAlses();
-        collectAllRestrictedCommons(Options.getInstance().isAllowAlsOverlap());
+        collectAllRestrictedCommons(finder.getConfig().isAllowAlsOverlap());
         if (doXz) {
             steps.clear();
             getAlsXZInt(false);
@@ -270,7 +267,7 @@ public class AlsSolver extends AbstractSolver {
     private SolutionStep getAlsXYChain() {
         steps.clear();
         collectAllAlses();
-        collectAllRestrictedCommons(Options.getInstance().isAllowAlsOverlap());
+        collectAllRestrictedCommons(finder.getConfig().isAllowAlsOverlap());
         getAlsXYChainInt();
         if (steps.size() > 0) {
             Collections.sort(steps, alsComparator);
@@ -290,7 +287,7 @@ public class AlsSolver extends AbstractSolver {
     private SolutionStep getAlsXYWing(boolean onlyOne) {
         steps.clear();
         collectAllAlses();
-        collectAllRestrictedCommons(Options.getInstance().isAllowAlsOverlap());
+        collectAllRestrictedCommons(finder.getConfig().isAllowAlsOverlap());
         SolutionStep step = getAlsXYWingInt(onlyOne);
         if (!onlyOne && steps.size() > 0) {
             Collections.sort(steps, alsComparator);
@@ -314,7 +311,7 @@ public class AlsSolver extends AbstractSolver {
         anzCalls++;
         steps.clear();
         collectAllAlses();
-        collectAllRestrictedCommons(Options.getInstance().isAllowAlsOverlap());
+        collectAllRestrictedCommons(finder.getConfig().isAllowAlsOverlap());
         SolutionStep step = getAlsXZInt(onlyOne);
         if (!onlyOne && steps.size() > 0) {
             Collections.sort(steps, alsComparator);
@@ -439,7 +436,7 @@ public class AlsSolver extends AbstractSolver {
                     a = alses.get(rc1.getAls1());
                     b = alses.get(rc2.getAls1());
                 }
-                if (!Options.getInstance().isAllowAlsOverlap()) {
+                if (!finder.getConfig().isAllowAlsOverlap()) {
                     // Check overlaps: the RCs have already been checked, a and b are missing:
                     tmpSet.set(a.indices);
                     if (!tmpSet.andEmpty(b.indices)) {
@@ -641,11 +638,11 @@ public class AlsSolver extends AbstractSolver {
                     // if we do, the new chain is only written, if it is shorter than the old one.
                     boolean writeIt = true;
                     int replaceIndex = -1;
-                    String elim = null;
-                    if (Options.getInstance().isOnlyOneAlsPerStep()) {
-                        elim = globalStep.getCandidateString();
-                        Integer alreadyThere = deletesMap.get(elim);
-                        if (alreadyThere != null) {
+                    boolean elim = false;
+                    if (finder.getConfig().isOnlyOneAlsPerStep()) {
+                        elim = true;
+                        int alreadyThere = deletesMap.setKey(globalStep).get();
+                        if (alreadyThere != -1) {
                             // a step already exists!
                             SolutionStep tmp = steps.get(alreadyThere);
                             if (tmp.getAlsesIndexCount() > globalStep.getAlsesIndexCount()) {
@@ -662,8 +659,8 @@ public class AlsSolver extends AbstractSolver {
                             steps.add(replaceIndex, (SolutionStep) globalStep.clone());
                         } else {
                             steps.add((SolutionStep) globalStep.clone());
-                            if (elim != null) {
-                                deletesMap.put(elim, steps.size() - 1);
+                            if (elim) {
+                                deletesMap.put(steps.size() - 1);
                             }
                         }
                     }
@@ -793,7 +790,7 @@ public class AlsSolver extends AbstractSolver {
                 Als als = alses.get(aktRcdb.alsPerCandidate[cand][i]);
                 //if (DEBUG) System.out.println("cand = " + cand + ", i = " + i + ", ALS: " + als.toString());
                 // check for overlap
-                if (!Options.getInstance().isAllowAlsOverlap() && !als.indices.andNotEquals(aktDBIndices)) {
+                if (!finder.getConfig().isAllowAlsOverlap() && !als.indices.andNotEquals(aktDBIndices)) {
                     // new ALS overlaps -> we dont need to look further
                     //if (DEBUG) System.out.println(" Overlap!");
                     continue;
@@ -885,11 +882,11 @@ public class AlsSolver extends AbstractSolver {
 
                         boolean writeIt = true;
                         int replaceIndex = -1;
-                        String elim = null;
-                        if (Options.getInstance().isOnlyOneAlsPerStep()) {
-                            elim = globalStep.getCandidateString();
-                            Integer alreadyThere = deletesMap.get(elim);
-                            if (alreadyThere != null) {
+                        boolean elim = false;
+                        if (finder.getConfig().isOnlyOneAlsPerStep()) {
+                            elim = true;
+                            int alreadyThere = deletesMap.setKey(globalStep).get();
+                            if (alreadyThere != -1) {
                                 // a step already exists!
                                 SolutionStep tmp = steps.get(alreadyThere);
                                 if (tmp.getAlsesIndexCount() > globalStep.getAlsesIndexCount()) {
@@ -910,8 +907,8 @@ public class AlsSolver extends AbstractSolver {
                                     return step;
                                 }
                                 steps.add(step);
-                                if (elim != null) {
-                                    deletesMap.put(elim, steps.size() - 1);
+                                if (elim) {
+                                    deletesMap.put(steps.size() - 1);
                                 }
                             }
                         }
@@ -23,13 +23,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import sudoku.Candidate;
 import sudoku.Chain;
-import sudoku.Options;
 import sudoku.SolutionStep;
 import sudoku.SolutionType;
 import sudoku.Sudoku2;
@@ -114,8 +111,8 @@ public class ChainSolver extends AbstractSolver {
     private SudokuSet rpCand2 = new SudokuSet();
     /** Additional checks for Remote Pairs */
     private SudokuSet rpTmp = new SudokuSet();
-    /** Contains all chains that have already be found. "String" are the eliminations, "Integer" is the chain length */
-    private SortedMap<String, Integer> deletesMap = new TreeMap<String, Integer>();
+    /** Contains all chains that have already be found. The key are the eliminations, the value is the chain length */
+    private EliminationIndex deletesMap = new EliminationIndex();
     /** One global step for optimization */
     private SolutionStep globalStep = new SolutionStep(SolutionType.FULL_HOUSE);
     /** A list for all chain steps */
@@ -336,11 +333,11 @@ public class ChainSolver extends AbstractSolver {
 
         // calculate maximum length of chain
         chainMaxLength = MAX_CHAIN_LENGTH - 1;
-        if (Options.getInstance().isRestrictChainSize()) {
+        if (finder.getConfig().isRestrictChainSize()) {
             if (type == NICE_LOOP) {
-                chainMaxLength = Options.getInstance().getRestrictNiceLoopLength();
+                chainMaxLength = finder.getConfig().getRestrictNiceLoopLength();
             } else {
-                chainMaxLength = Options.getInstance().getRestrictChainLength();
+                chainMaxLength = finder.getConfig().getRestrictChainLength();
             }
         }
         if (type == TURBOT_FISH) {
@@ -606,21 +603,20 @@ public class ChainSolver extends AbstractSolver {
         }
         globalStep.addValue(startCandidate);
         checkBuddies.set(m1, m2);
-        for (int i = 0; i < checkBuddies.size(); i++) {
-            globalStep.addCandidateToDelete(checkBuddies.get(i), startCandidate);
+        for (int i = checkBuddies.nextSetBit(0); i >= 0; i = checkBuddies.nextSetBit(i + 1)) {
+            globalStep.addCandidateToDelete(i, startCandidate);
         }
         
         // check if the chain has already been found
         // dont do the check for Turbot fishes
         if (isTurbot == false) {
-            String del = globalStep.getCandidateString();
-            Integer oldLength = deletesMap.get(del);
-            if (oldLength != null && oldLength.intValue() <= stackLevel) {
+            int oldLength = deletesMap.setKey(globalStep).get();
+            if (oldLength != -1 && oldLength <= stackLevel) {
                 // a chain already exists that delete the same candidate(s) and it was shorter than the new one
 
                 return;
             }
-            deletesMap.put(del, stackLevel);
+            deletesMap.put(stackLevel);
         }
 
         // dont forget to copy the chain
@@ -649,18 +645,17 @@ public class ChainSolver extends AbstractSolver {
         globalStep.setType(SolutionType.XY_CHAIN);
         globalStep.addValue(startCandidate);
         checkBuddies.set(m1, m2);
-        for (int i = 0; i < checkBuddies.size(); i++) {
-            globalStep.addCandidateToDelete(checkBuddies.get(i), startCandidate);
+        for (int i = checkBuddies.nextSetBit(0); i >= 0; i = checkBuddies.nextSetBit(i + 1)) {
+            globalStep.addCandidateToDelete(i, startCandidate);
         }
         
         // check if the chain has already been found
-        String del = globalStep.getCandidateString();
-        Integer oldLength = deletesMap.get(del);
-        if (oldLength != null && oldLength.intValue() <= stackLevel) {
+        int oldLength = deletesMap.setKey(globalStep).get();
+        if (oldLength != -1 && oldLength <= stackLevel) {
             // a chain for this set of eliminations already exists and is shorter than the new one
             return;
         }
-        deletesMap.put(del, stackLevel);
+        deletesMap.put(stackLevel);
 
         // dont forget to copy the chain
         int[] newChain = new int[stackLevel + 1];
@@ -719,21 +714,20 @@ public class ChainSolver extends AbstractSolver {
         // no create the step
         globalStep.addValue(startCandidate);
         globalStep.addValue(startCandidate2);
-        for (int i = 0; i < rpCand1.size(); i++) {
-            globalStep.addCandidateToDelete(rpCand1.get(i), startCandidate);
+        for (int i = rpCand1.nextSetBit(0); i >= 0; i = rpCand1.nextSetBit(i + 1)) {
+            globalStep.addCandidateToDelete(i, startCandidate);
         }
-        for (int i = 0; i < rpCand2.size(); i++) {
-            globalStep.addCandidateToDelete(rpCand2.get(i), startCandidate2);
+        for (int i = rpCand2.nextSetBit(0); i >= 0; i = rpCand2.nextSetBit(i + 1)) {
+            globalStep.addCandidateToDelete(i, startCandidate2);
         }
 
         // check if the chain has already been found
-        String del = globalStep.getCandidateString();
-        Integer oldLength = deletesMap.get(del);
-        if (oldLength != null && oldLength.intValue() <= stackLevel) {
+        int oldLength = deletesMap.setKey(globalStep).get();
+        if (oldLength != -1 && oldLength <= stackLevel) {
             // a chain for this set of eliminations already exists and is shorter than the new one
             return;
         }
-        deletesMap.put(del, stackLevel);
+        deletesMap.put(stackLevel);
 
         // dont forget to copy the chain
         int[] newChain = new int[stackLevel + 1];
@@ -845,9 +839,9 @@ public class ChainSolver extends AbstractSolver {
                     //checkBuddies.and(sudoku.getCandidates()[chain[i] % 10]);
                     checkBuddies.and(finder.getCandidates()[Chain.getSCandidate(chain[i])]);
                     if (!checkBuddies.isEmpty()) {
-                        for (int j = 0; j < checkBuddies.size(); j++) {
-                            //globalStep.addCandidateToDelete(checkBuddies.get(j), chain[i] % 10);
-                            globalStep.addCandidateToDelete(checkBuddies.get(j), Chain.getSCandidate(chain[i]));
+                        for (int j = checkBuddies.nextSetBit(0); j >= 0; j = checkBuddies.nextSetBit(j + 1)) {
+                            //globalStep.addCandidateToDelete(j, chain[i] % 10);
+                            globalStep.addCandidateToDelete(j, Chain.getSCandidate(chain[i]));
                         }
                     }
                 }
@@ -856,13 +850,12 @@ public class ChainSolver extends AbstractSolver {
 
         if (globalStep.getCandidatesToDelete().size() > 0) {
             // ok, Loop ist nicht redundant -> einschreiben, wenn es die Kombination nicht schon gibt
-            String del = globalStep.getCandidateString();
-            Integer oldLength = deletesMap.get(del);
-            if (oldLength != null && oldLength.intValue() <= chainIndex) {
+            int oldLength = deletesMap.setKey(globalStep).get();
+            if (oldLength != -1 && oldLength <= chainIndex) {
                 // F�r diese Kandidaten gibt es schon eine Chain und sie ist k�rzer als die neue
                 return;
             }
-            deletesMap.put(del, chainIndex);
+            deletesMap.put(chainIndex);
             // Die Chain muss kopiert werden
             int[] newChain = new int[chainIndex + 1];
 //            for (int i = 0; i < newChain.length; i++) {
@@ -57,6 +57,8 @@ public class ColoringSolver extends AbstractSolver {
     private List<SolutionStep> steps = new ArrayList<SolutionStep>();
     /** One global step for optimization. */
     private SolutionStep globalStep = new SolutionStep();
+    /** One solver per candidate for the parallel search in the "find all" methods. */
+    private ColoringSolver[] candidateSolvers = null;
 
     public ColoringSolver(SudokuStepFinder finder) {
         super(finder);
@@ -119,7 +121,11 @@ public class ColoringSolver extends AbstractSolver {
         List<SolutionStep> newList = new ArrayList<SolutionStep>();
         steps = newList;
 //        long ticks = System.currentTimeMillis();
-        findSimpleColorSteps(false);
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            findAllForCandidates(false);
+        } else {
+            findSimpleColorSteps(false);
+        }
 //        ticks = System.currentTimeMillis() - ticks;
 //        Logger.getLogger(getClass().getName()).log(Level.FINE, "end of findAllSimpleColors() (" + ticks + "ms)");
         Collections.sort(steps);
@@ -133,7 +139,11 @@ public class ColoringSolver extends AbstractSolver {
         List<SolutionStep> newList = new ArrayList<SolutionStep>();
         steps = newList;
 //        long ticks = System.currentTimeMillis();
-        findMultiColorSteps(false);
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            findAllForCandidates(true);
+        } else {
+            findMultiColorSteps(false);
+        }
 //        ticks = System.currentTimeMillis() - ticks;
 //        Logger.getLogger(getClass().getName()).log(Level.FINE, "end of findAllMultiColors() (" + ticks + "ms)");
         Collections.sort(steps);
@@ -141,6 +151,47 @@ public class ColoringSolver extends AbstractSolver {
         return newList;
     }
 
+    /**
+     * Searches all candidates in parallel (see {@link SudokuStepFinder#runParallel(java.lang.Runnable[])}).
+     * Every candidate gets its own solver (with its own coloring), the steps are added
+     * to {@link #steps} in the order of the candidates. The result is the same
+     * as for the sequential search.
+     * @param multiColors <code>true</code> for Multi Colors, <code>false</code> for Simple Colors
+     */
+    private void findAllForCandidates(final boolean multiColors) {
+        // the candidates are calculated lazily: do it now
+        finder.getCandidates();
+        if (candidateSolvers == null) {
+            candidateSolvers = new ColoringSolver[10];
+            for (int i = 1; i <= 9; i++) {
+                candidateSolvers[i] = new ColoringSolver(finder);
+            }
+        }
+        Runnable[] tasks = new Runnable[9];
+        for (int i = 1; i <= 9; i++) {
+            final ColoringSolver solver = candidateSolvers[i];
+            final int cand = i;
+            solver.sudoku = sudoku;
+            tasks[i - 1] = new Runnable() {
+
+                @Override
+                public void run() {
+                    if (multiColors) {
+                        solver.findMultiColorStepsForCandidate(cand, false);
+                    } else {
+                        solver.findSimpleColorStepsForCandidate(cand, false);
+                    }
+                }
+            };
+        }
+        SudokuStepFinder.runParallel(tasks);
+        for (int i = 1; i <= 9; i++) {
+            steps.addAll(candidateSolvers[i].steps);
+            candidateSolvers[i].steps.clear();
+            candidateSolvers[i].sudoku = null;
+        }
+    }
+
     /**
      * Finds the next SC step.
      * @param onlyOne
@@ -191,14 +242,14 @@ public class ColoringSolver extends AbstractSolver {
             // all candidates with that color can be removed
             globalStep.reset();
             if (checkColorWrap(set1)) {
-                for (int j = 0; j < set1.size(); j++) {
-                    globalStep.addCandidateToDelete(set1.get(j), cand);
+                for (int j = set1.nextSetBit(0); j >= 0; j = set1.nextSetBit(j + 1)) {
+                    globalStep.addCandidateToDelete(j, cand);
                     //System.out.println("add: " + onSet.get(j) + "/" + cand);
                 }
             }
             if (checkColorWrap(set2)) {
-                for (int j = 0; j < set2.size(); j++) {
-                    globalStep.addCandidateToDelete(set2.get(j), cand);
+                for (int j = set2.nextSetBit(0); j >= 0; j = set2.nextSetBit(j + 1)) {
+                    globalStep.addCandidateToDelete(j, cand);
                 }
             }
             if (!globalStep.getCandidatesToDelete().isEmpty()) {
@@ -263,10 +314,10 @@ public class ColoringSolver extends AbstractSolver {
      */
     private void checkCandidateToDelete(SudokuSet set1, SudokuSet set2, int cand) {
         deleteSet.clear();
-        for (int i = 0; i < set1.size(); i++) {
-            for (int j = 0; j < set2.size(); j++) {
-                tmpSet1.set(Sudoku2.buddies[set1.get(i)]);
-                tmpSet1.and(Sudoku2.buddies[set2.get(j)]);
+        for (int i = set1.nextSetBit(0); i >= 0; i = set1.nextSetBit(i + 1)) {
+            for (int j = set2.nextSetBit(0); j >= 0; j = set2.nextSetBit(j + 1)) {
+                tmpSet1.set(Sudoku2.buddies[i]);
+                tmpSet1.and(Sudoku2.buddies[j]);
                 tmpSet1.and(finder.getCandidates()[cand]);
                 deleteSet.or(tmpSet1);
 //                if (!tmpSet1.isEmpty()) {
@@ -277,8 +328,8 @@ public class ColoringSolver extends AbstractSolver {
             }
         }
         if (!deleteSet.isEmpty()) {
-            for (int i = 0; i < deleteSet.size(); i++) {
-                globalStep.addCandidateToDelete(deleteSet.get(i), cand);
+            for (int i = deleteSet.nextSetBit(0); i >= 0; i = deleteSet.nextSetBit(i + 1)) {
+                globalStep.addCandidateToDelete(i, cand);
             }
         }
     }
@@ -338,13 +389,13 @@ public class ColoringSolver extends AbstractSolver {
                 SudokuSet set22 = sets[cand][j][C2];
                 globalStep.reset();
                 if (checkMultiColor1(set11, set21, set22)) {
-                    for (int k = 0; k < set11.size(); k++) {
-                        globalStep.addCandidateToDelete(set11.get(k), cand);
+                    for (int k = set11.nextSetBit(0); k >= 0; k = set11.nextSetBit(k + 1)) {
+                        globalStep.addCandidateToDelete(k, cand);
                     }
                 }
                 if (checkMultiColor1(set12, set21, set22)) {
-                    for (int k = 0; k < set12.size(); k++) {
-                        globalStep.addCandidateToDelete(set12.get(k), cand);
+                    for (int k = set12.nextSetBit(0); k >= 0; k = set12.nextSetBit(k + 1)) {
+                        globalStep.addCandidateToDelete(k, cand);
                     }
                 }
                 if (!globalStep.getCandidatesToDelete().isEmpty()) {
@@ -407,8 +458,8 @@ public class ColoringSolver extends AbstractSolver {
     private boolean checkMultiColor1(SudokuSet set, SudokuSet s21, SudokuSet s22) {
         boolean seeS21 = false;
         boolean seeS22 = false;
-        for (int i = 0; i < set.size(); i++) {
-            tmpSet1.set(Sudoku2.buddies[set.get(i)]);
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+            tmpSet1.set(Sudoku2.buddies[i]);
             if (!tmpSet1.andEmpty(s21)) {
                 seeS21 = true;
             }
@@ -429,9 +480,9 @@ public class ColoringSolver extends AbstractSolver {
      * @return
      */
     private boolean checkMultiColor2(SudokuSet set1, SudokuSet set2) {
-        for (int i = 0; i < set1.size(); i++) {
-            for (int j = 0; j < set2.size(); j++) {
-                if (Sudoku2.buddies[set1.get(i)].contains(set2.get(j))) {
+        for (int i = set1.nextSetBit(0); i >= 0; i = set1.nextSetBit(i + 1)) {
+            for (int j = set2.nextSetBit(0); j >= 0; j = set2.nextSetBit(j + 1)) {
+                if (Sudoku2.buddies[i].contains(j)) {
                     return true;
                 }
             }
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2008-12  Bernhard Hobiger
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package solver;
+
+import java.util.Arrays;
+import java.util.List;
+import sudoku.Candidate;
+import sudoku.SolutionStep;
+
+/**
+ * Index used by the solvers to find steps with identical eliminations
+ * (<code>deletesMap</code>) without building candidate strings.<br>
+ * The key of an entry is a fingerprint of the step: the candidates to
+ * delete as two longs per digit (the same layout as {@link sudoku.SudokuSetBase})
+ * plus a tag holding the step type. The table uses open addressing; entries
+ * are stamped with a generation counter, so {@link #clear()} doesn't have
+ * to touch the arrays.<br>
+ * Usage: set the key for a step, then call {@link #get()} and/or
+ * {@link #put(int)}:
+ * <pre>
+ *   int oldIndex = deletesMap.setKey(globalStep).get();
+ *   ...
+ *   deletesMap.put(steps.size() - 1);
+ * </pre>
+ * Not thread safe; every solver has its own instance.
+ *
+ * @author hobiwan
+ */
+final class EliminationIndex {
+
+    /** Number of longs in a key: 2 per digit plus the tag. */
+    private static final int KEY_LONGS = 19;
+    /** Position of the tag within a key. */
+    private static final int TAG = 18;
+    /** Tag bit: the key holds cells to set instead of candidates to delete. */
+    private static final long CELL_KEY = 2;
+    /** Initial number of slots (must be a power of 2). */
+    private static final int INITIAL_CAPACITY = 256;
+    /** The key for the next {@link #get()}/{@link #put(int)}. */
+    private final long[] key = new long[KEY_LONGS];
+    /** All keys, <code>KEY_LONGS</code> longs per slot. */
+    private long[] keys;
+    /** The values for all slots. */
+    private int[] values;
+    /** A slot is in use, if its stamp equals {@link #generation}. */
+    private int[] stamps;
+    /** The current generation; incremented by {@link #clear()}. */
+    private int generation = 1;
+    /** Number of entries in the current generation. */
+    private int size;
+    /** <code>capacity - 1</code> */
+    private int mask;
+
+    /**
+     * Creates an empty index.
+     */
+    EliminationIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    void clear() {
+        size = 0;
+        generation++;
+        if (generation == 0) {
+            // overflow: stamps of old generations could become valid again
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Number of entries in the index.
+     * @return
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Uses the candidates to delete, the type and the siamese flag
+     * of <code>step</code> as key (equivalent to <code>step.getCandidateString()</code>).<br>
+     * Like {@link SolutionStep#getCandidateString()} the candidates to delete
+     * of <code>step</code> are sorted.
+     * @param step
+     * @return
+     */
+    EliminationIndex setKey(SolutionStep step) {
+        setCandidateKey(step);
+        key[TAG] = ((long) (step.getType().ordinal() + 1) << 2) | (step.isIsSiamese() ? 1 : 0);
+        return this;
+    }
+
+    /**
+     * Uses only the candidates to delete of <code>step</code> as key. The
+     * candidates to delete are sorted.
+     * @param step
+     * @return
+     */
+    EliminationIndex setCandidateKey(SolutionStep step) {
+        step.sortCandidatesToDelete();
+        Arrays.fill(key, 0);
+        List<Candidate> cands = step.getCandidatesToDelete();
+        for (int i = 0; i < cands.size(); i++) {
+            Candidate cand = cands.get(i);
+            setBit(cand.getValue(), cand.getIndex());
+        }
+        return this;
+    }
+
+    /**
+     * Uses the type, the cells and the first value of <code>step</code> as key
+     * (equivalent to <code>step.getSingleCandidateString()</code>).
+     * @param step
+     * @return
+     */
+    EliminationIndex setCellKey(SolutionStep step) {
+        Arrays.fill(key, 0);
+        int value = step.getValues().get(0);
+        List<Integer> indices = step.getIndices();
+        for (int i = 0; i < indices.size(); i++) {
+            setBit(value, indices.get(i));
+        }
+        key[TAG] = ((long) (step.getType().ordinal() + 1) << 2) | CELL_KEY;
+        return this;
+    }
+
+    /**
+     * Adds an additional value to the current key.
+     * @param extra
+     * @return
+     */
+    EliminationIndex addToKey(int extra) {
+        key[TAG] |= (long) extra << 32;
+        return this;
+    }
+
+    /**
+     * Gets the value stored for the current key.
+     * @return The value or -1, if the key is not in the index.
+     */
+    int get() {
+        int slot = findSlot();
+        return stamps[slot] == generation ? values[slot] : -1;
+    }
+
+    /**
+     * Stores <code>value</code> for the current key.
+     * @param value Must not be negative.
+     */
+    void put(int value) {
+        int slot = findSlot();
+        if (stamps[slot] != generation) {
+            System.arraycopy(key, 0, keys, slot * KEY_LONGS, KEY_LONGS);
+            stamps[slot] = generation;
+            size++;
+        }
+        values[slot] = value;
+        if (size * 2 > stamps.length) {
+            grow();
+        }
+    }
+
+    private void setBit(int digit, int index) {
+        int off = (digit - 1) * 2;
+        if (index < 64) {
+            key[off] |= 1L << index;
+        } else {
+            key[off + 1] |= 1L << (index - 64);
+        }
+    }
+
+    /**
+     * Finds the slot holding the current key or the empty slot where it has
+     * to be inserted.
+     * @return
+     */
+    private int findSlot() {
+        int slot = hash(key, 0) & mask;
+        while (stamps[slot] == generation) {
+            int off = slot * KEY_LONGS;
+            int i = 0;
+            while (i < KEY_LONGS && keys[off + i] == key[i]) {
+                i++;
+            }
+            if (i == KEY_LONGS) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long[] data, int off) {
+        long h = 0;
+        for (int i = off; i < off + KEY_LONGS; i++) {
+            h = (h + data[i]) * 0x9E3779B97F4A7C15L;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity * KEY_LONGS];
+        values = new int[capacity];
+        stamps = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Doubles the capacity; the entries of the current generation are rehashed.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldStamps = stamps;
+        int oldGeneration = generation;
+        allocate(oldStamps.length * 2);
+        generation = 1;
+        for (int i = 0; i < oldStamps.length; i++) {
+            if (oldStamps[i] != oldGeneration) {
+                continue;
+            }
+            int slot = hash(oldKeys, i * KEY_LONGS) & mask;
+            while (stamps[slot] == generation) {
+                slot = (slot + 1) & mask;
+            }
+            System.arraycopy(oldKeys, i * KEY_LONGS, keys, slot * KEY_LONGS, KEY_LONGS);
+            values[slot] = oldValues[i];
+            stamps[slot] = generation;
+        }
+    }
+}
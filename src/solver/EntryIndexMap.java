@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2008-12  Bernhard Hobiger
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * Maps table entries (packed ints, see {@link sudoku.Chain}) to indices
+ * (see {@link TableEntry#indices} and {@link TablingSolver}).<br>
+ * The map uses open addressing on primitive arrays, so nothing has to be boxed.
+ * Slots are stamped with a generation counter: {@link #clear()} doesn't have
+ * to touch the arrays. The map starts small and grows when necessary.<br>
+ * Not thread safe.
+ *
+ * @author hobiwan
+ */
+final class EntryIndexMap {
+
+    /** Initial number of slots (must be a power of 2). */
+    private static final int INITIAL_CAPACITY = 16;
+    /** The keys for all slots. */
+    private int[] keys;
+    /** The values for all slots. */
+    private int[] values;
+    /** A slot is in use, if its stamp equals {@link #generation}. */
+    private int[] stamps;
+    /** The current generation; incremented by {@link #clear()}. */
+    private int generation = 1;
+    /** Number of entries in the current generation. */
+    private int size;
+    /** <code>capacity - 1</code> */
+    private int mask;
+
+    /**
+     * Creates an empty map.
+     */
+    EntryIndexMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    void clear() {
+        size = 0;
+        generation++;
+        if (generation == 0) {
+            // overflow: stamps of old generations could become valid again
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Number of entries in the map.
+     * @return
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Checks, if <code>key</code> is contained in the map.
+     * @param key
+     * @return
+     */
+    boolean containsKey(int key) {
+        return stamps[findSlot(key)] == generation;
+    }
+
+    /**
+     * Gets the value for <code>key</code>.
+     * @param key
+     * @return The value or -1, if <code>key</code> is not in the map.
+     */
+    int get(int key) {
+        int slot = findSlot(key);
+        return stamps[slot] == generation ? values[slot] : -1;
+    }
+
+    /**
+     * Stores <code>value</code> for <code>key</code>; an old value
+     * is replaced.
+     * @param key
+     * @param value Must not be negative.
+     */
+    void put(int key, int value) {
+        int slot = findSlot(key);
+        if (stamps[slot] != generation) {
+            keys[slot] = key;
+            stamps[slot] = generation;
+            size++;
+        }
+        values[slot] = value;
+        if (size * 2 > stamps.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Finds the slot holding <code>key</code> or the empty slot where it has
+     * to be inserted.
+     * @param key
+     * @return
+     */
+    private int findSlot(int key) {
+        int slot = hash(key) & mask;
+        while (stamps[slot] == generation && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        stamps = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Doubles the capacity; the entries of the current generation are rehashed.
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldStamps = stamps;
+        int oldGeneration = generation;
+        allocate(oldStamps.length * 2);
+        generation = 1;
+        for (int i = 0; i < oldStamps.length; i++) {
+            if (oldStamps[i] != oldGeneration) {
+                continue;
+            }
+            int slot = hash(oldKeys[i]) & mask;
+            while (stamps[slot] == generation) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+            stamps[slot] = generation;
+        }
+    }
+}
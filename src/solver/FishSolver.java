@@ -25,12 +25,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import sudoku.Candidate;
 import sudoku.Chain;
 import sudoku.FindAllStepsProgressDialog;
-import sudoku.Options;
 import sudoku.SolutionStep;
 import sudoku.SolutionType;
 import sudoku.Sudoku2;
@@ -195,6 +192,10 @@ public class FishSolver extends AbstractSolver {
     private long[] coverCandidatesM2 = new long[Sudoku2.UNITS * 3];
     /** The number of cover units in this cover search */
     private int numberOfCoverUnits = 0;
+    /** All candidates in {@link #coverUnits}[i] and all following cover units (low order DWORD). */
+    private long[] coverRestM1 = new long[Sudoku2.UNITS * 3 + 1];
+    /** All candidates in {@link #coverUnits}[i] and all following cover units (high order DWORD). */
+    private long[] coverRestM2 = new long[Sudoku2.UNITS * 3 + 1];
     /** True for all base units that are currently used */
     private boolean[] baseUnitsUsed = new boolean[baseUnits.length];
     /** The recursion stack for the base unit search */
@@ -208,7 +209,7 @@ public class FishSolver extends AbstractSolver {
     /** The index of the current level in the {@link #coverStack}. */
     private int coverLevel = 0;
     /** Contains one entry for every step (number and indices of eliminations) */
-    private SortedMap<String, Integer> deletesMap = new TreeMap<String, Integer>();
+    private EliminationIndex deletesMap = new EliminationIndex();
     /** A set to incrementally check for endo fins (low order DWORD) */
     private long aktEndoFinSetM1;
     /** A set to incrementally check for endo fins (high order DWORD) */
@@ -231,6 +232,8 @@ public class FishSolver extends AbstractSolver {
     private SolutionStep globalStep = new SolutionStep(SolutionType.HIDDEN_SINGLE);
     /** A {@link TablingSolver} for Kraken Fish search */
     private TablingSolver tablingSolver = null;
+    /** One solver per candidate for the parallel search in {@link #getAllFishes(int, int, int, int, sudoku.FindAllStepsProgressDialog, int, int)} */
+    private FishSolver[] candidateSolvers = null;
     /** for various checks (low order DWORD) */
     private long tmpSetM1;
     /** for various checks (high order DWORD) */
@@ -488,29 +491,32 @@ public class FishSolver extends AbstractSolver {
             int maxFins, int maxEndoFins, FindAllStepsProgressDialog dlg, int forCandidate, int type) {
         this.dlg = dlg;
         sudoku = finder.getSudoku();
-        int oldMaxFins = Options.getInstance().getMaxFins();
-        int oldEndoFins = Options.getInstance().getMaxEndoFins();
-        Options.getInstance().setMaxFins(maxFins);
-        Options.getInstance().setMaxEndoFins(maxEndoFins);
+        SolverConfig oldConfig = finder.getConfig();
+        finder.setConfig(oldConfig.withFins(maxFins, maxEndoFins));
         List<SolutionStep> oldSteps = steps;
         steps = new ArrayList<SolutionStep>();
         kraken = false;
         searchAll = true;
         fishType = UNDEFINED;
         long millis1 = System.currentTimeMillis();
-        for (int i = 1; i <= 9; i++) {
-            if (forCandidate != -1 && forCandidate != i) {
-                // not now
-                continue;
+        if (forCandidate == -1 && dlg == null && Runtime.getRuntime().availableProcessors() > 1) {
+            // no progress bar: all candidates can be searched at once
+            getAllFishesParallel(minSize, maxSize, type);
+        } else {
+            for (int i = 1; i <= 9; i++) {
+                if (forCandidate != -1 && forCandidate != i) {
+                    // not now
+                    continue;
+                }
+//                /*K*/System.out.println("getAllFishes() for Candidate " + i);
+                long millis = System.currentTimeMillis();
+                baseGesamt = 0;
+                baseShowGesamt = 0;
+                getFishes(i, minSize, maxSize, true, true, false, true, type);
+                millis = System.currentTimeMillis() - millis;
+//                /*K*/System.out.println("getAllFishes(" + i + "): " + millis + "ms");
+//                /*K*/System.out.println(steps.size() + " fishes found!");
             }
-//            /*K*/System.out.println("getAllFishes() for Candidate " + i);
-            long millis = System.currentTimeMillis();
-            baseGesamt = 0;
-            baseShowGesamt = 0;
-            getFishes(i, minSize, maxSize, true, true, false, true, type);
-            millis = System.currentTimeMillis() - millis;
-//            /*K*/System.out.println("getAllFishes(" + i + "): " + millis + "ms");
-//            /*K*/System.out.println(steps.size() + " fishes found!");
         }
         millis1 = System.currentTimeMillis() - millis1;
 //        System.out.println("getAllFishes() gesamt: " + millis1 + "ms");
@@ -526,12 +532,69 @@ public class FishSolver extends AbstractSolver {
             Collections.sort(result);
         }
         steps = oldSteps;
-        Options.getInstance().setMaxFins(oldMaxFins);
-        Options.getInstance().setMaxEndoFins(oldEndoFins);
+        finder.setConfig(oldConfig);
         this.dlg = null;
         return result;
     }
 
+    /**
+     * Searches all candidates in parallel (see {@link SudokuStepFinder#runParallel(java.lang.Runnable[])}).
+     * Every candidate gets its own {@link FishSolver}; the search for one candidate
+     * is independent from all other candidates. The steps are added to {@link #steps} in
+     * the order of the candidates, the result is the same as for the sequential search.
+     * @param minSize
+     * @param maxSize
+     * @param type
+     */
+    private void getAllFishesParallel(final int minSize, final int maxSize, final int type) {
+        // candidates and templates are calculated lazily: do it now,
+        // the workers must not change the finder
+        finder.getCandidates();
+        if (finder.getConfig().isCheckTemplates() && useTemplates(type, maxSize)) {
+            finder.getDelCandTemplates(false);
+        }
+        if (candidateSolvers == null) {
+            candidateSolvers = new FishSolver[10];
+            for (int i = 1; i <= 9; i++) {
+                candidateSolvers[i] = new FishSolver(finder);
+            }
+        }
+        Runnable[] tasks = new Runnable[9];
+        for (int i = 1; i <= 9; i++) {
+            final FishSolver solver = candidateSolvers[i];
+            final int cand = i;
+            solver.sudoku = sudoku;
+            solver.steps = new ArrayList<SolutionStep>();
+            solver.kraken = false;
+            solver.searchAll = true;
+            solver.fishType = UNDEFINED;
+            tasks[i - 1] = new Runnable() {
+
+                @Override
+                public void run() {
+                    solver.getFishes(cand, minSize, maxSize, true, true, false, true, type);
+                }
+            };
+        }
+        SudokuStepFinder.runParallel(tasks);
+        for (int i = 1; i <= 9; i++) {
+            steps.addAll(candidateSolvers[i].steps);
+            candidateSolvers[i].steps.clear();
+            candidateSolvers[i].sudoku = null;
+        }
+    }
+
+    /**
+     * Templates need a lot of time to be computed, so they are only used for
+     * really large fish.
+     * @param fishType
+     * @param maxSize
+     * @return
+     */
+    private static boolean useTemplates(int fishType, int maxSize) {
+        return !((fishType == BASIC && maxSize <= 5) || (fishType == FRANKEN && maxSize <= 4) || (fishType == MUTANT && maxSize <= 3));
+    }
+
     /**
      * Search for a fish of a given size and shape.
      * @param size
@@ -603,12 +666,8 @@ public class FishSolver extends AbstractSolver {
             //System.out.println("getAllKrakenFishes: " + minSize + "/" + maxSize + "/" + forCandidate);
             this.dlg = dlg;
             sudoku = finder.getSudoku();
-            boolean oldCheckTemplates = Options.getInstance().isCheckTemplates();
-            Options.getInstance().setCheckTemplates(false);
-            int oldMaxFins = Options.getInstance().getMaxFins();
-            int oldEndoFins = Options.getInstance().getMaxEndoFins();
-            Options.getInstance().setMaxFins(maxFins);
-            Options.getInstance().setMaxEndoFins(maxEndoFins);
+            SolverConfig oldConfig = finder.getConfig();
+            finder.setConfig(oldConfig.withCheckTemplates(false).withFins(maxFins, maxEndoFins));
             List<SolutionStep> oldSteps = steps;
             steps = new ArrayList<SolutionStep>();
             kraken = true;
@@ -644,9 +703,7 @@ public class FishSolver extends AbstractSolver {
                 Collections.sort(result);
             }
             steps = oldSteps;
-            Options.getInstance().setCheckTemplates(oldCheckTemplates);
-            Options.getInstance().setMaxFins(oldMaxFins);
-            Options.getInstance().setMaxEndoFins(oldEndoFins);
+            finder.setConfig(oldConfig);
             kraken = false;
             this.dlg = null;
             //System.out.println("   " + result.size() + " steps!");
@@ -655,7 +712,7 @@ public class FishSolver extends AbstractSolver {
     }
 
     /**
-     * Find a Kraken Fish. All options are taken from {@link Options}.
+     * Find a Kraken Fish. All options are taken from {@link SolverConfig}.
      * @return
      */
     private SolutionStep getKrakenFish() {
@@ -664,28 +721,23 @@ public class FishSolver extends AbstractSolver {
             baseGesamt = 0;
             baseShowGesamt = 0;
             steps = new ArrayList<SolutionStep>();
-            boolean oldCheckTemplates = Options.getInstance().isCheckTemplates();
-            Options.getInstance().setCheckTemplates(false);
-            int oldMaxFins = Options.getInstance().getMaxFins();
-            int oldEndoFins = Options.getInstance().getMaxEndoFins();
-            Options.getInstance().setMaxFins(Options.getInstance().getMaxKrakenFins());
-            Options.getInstance().setMaxEndoFins(Options.getInstance().getMaxKrakenEndoFins());
+            SolverConfig oldConfig = finder.getConfig();
+            finder.setConfig(oldConfig.withCheckTemplates(false).withFins(
+                    oldConfig.getMaxKrakenFins(), oldConfig.getMaxKrakenEndoFins()));
             kraken = true;
 //        fishType = UNDEFINED;
             tablingSolver.initForKrakenSearch();
             // Endo fins are only searched if the fish type is other than basic and if the max endo fin size > 0
-            withEndoFins = Options.getInstance().getMaxKrakenEndoFins() != 0 && Options.getInstance().getKrakenMaxFishType() > 0;
-            int size = Options.getInstance().getKrakenMaxFishSize();
+            withEndoFins = finder.getConfig().getMaxKrakenEndoFins() != 0 && finder.getConfig().getKrakenMaxFishType() > 0;
+            int size = finder.getConfig().getKrakenMaxFishSize();
             for (int i = 1; i <= 9; i++) {
-                getFishes(i, 2, size, false, true, true, withEndoFins, Options.getInstance().getKrakenMaxFishType());
+                getFishes(i, 2, size, false, true, true, withEndoFins, finder.getConfig().getKrakenMaxFishType());
                 if (steps.size() > 0) {
                     break;
                 }
             }
             kraken = false;
-            Options.getInstance().setCheckTemplates(oldCheckTemplates);
-            Options.getInstance().setMaxFins(oldMaxFins);
-            Options.getInstance().setMaxEndoFins(oldEndoFins);
+            finder.setConfig(oldConfig);
             if (steps.size() > 0) {
                 findSiameseFish(steps);
                 Collections.sort(steps);
@@ -712,18 +764,15 @@ public class FishSolver extends AbstractSolver {
             boolean withoutFins, boolean withFins, boolean sashimi, boolean withEndoFins, int fishType) {
         // init attributes
         this.deletesMap.clear();
-        this.siamese = Options.getInstance().isAllowDualsAndSiamese();
+        this.siamese = finder.getConfig().isAllowDualsAndSiamese();
         this.fishType = fishType;
         this.candidate = candidate;
 //        this.candidates = finder.getCandidates()[candidate];
         this.candidatesM1 = finder.getCandidates()[candidate].getMask1();
         this.candidatesM2 = finder.getCandidates()[candidate].getMask2();
-        this.doTemplates = Options.getInstance().isCheckTemplates();
         // put some restrictions on templates: they need a lot of time to be computed
         // so only use them for really large fish
-        if ((fishType == BASIC && maxSize <= 5) || (fishType == FRANKEN && maxSize <= 4) || (fishType == MUTANT && maxSize <= 3)) {
-            doTemplates = false;
-        }
+        this.doTemplates = finder.getConfig().isCheckTemplates() && useTemplates(fishType, maxSize);
         this.withoutFins = withoutFins;
         this.withFins = withFins;
         this.withEndoFins = withEndoFins;
@@ -831,7 +880,7 @@ public class FishSolver extends AbstractSolver {
                 // intersects() == true means: there are endoFins!
 //                if (!withFins || !withEndoFins || (baseStack[baseLevel - 1].endoFins.size() + aktEndoFinSet.size()) > Options.getInstance().maxEndoFins) {
                 if (!withFins || !withEndoFins || (getSize(baseStack[baseLevel - 1].endoFinsM1, baseStack[baseLevel - 1].endoFinsM2)
-                        + getSize(aktEndoFinSetM1, aktEndoFinSetM2)) > Options.getInstance().getMaxEndoFins()) {
+                        + getSize(aktEndoFinSetM1, aktEndoFinSetM2)) > finder.getConfig().getMaxEndoFins()) {
                     // every invalid combination eliminates a lot of possibilities:
                     // (all non-zero baseUnits greater than i) over (maxSize - aktSize)
                     if (dlg != null) {
@@ -928,6 +977,15 @@ public class FishSolver extends AbstractSolver {
             coverCandidatesM1[numberOfCoverUnits] = allCoverCandidatesM1[i];
             coverCandidatesM2[numberOfCoverUnits++] = allCoverCandidatesM2[i];
         }
+        // coverRest[i] contains all candidates, that can be covered by cover unit i or one
+        // of the units following it; all base candidates outside coverRest have to become fins
+        coverRestM1[numberOfCoverUnits] = 0;
+        coverRestM2[numberOfCoverUnits] = 0;
+        for (int i = numberOfCoverUnits - 1; i >= 0; i--) {
+            coverRestM1[i] = coverRestM1[i + 1] | coverCandidatesM1[i];
+            coverRestM2[i] = coverRestM2[i + 1] | coverCandidatesM2[i];
+        }
+        int maxFins = withFins ? finder.getConfig().getMaxFins() : 0;
         // try all combinations of cover units
         Arrays.fill(coverUnitsUsed, false);
         // start with level one (level zero is a stopper)
@@ -964,6 +1022,15 @@ public class FishSolver extends AbstractSolver {
             cEntry = coverStack[coverLevel];
             // get the next cover set; there must be one left or we would have fallen back
             aktCoverIndex = cEntry.aktIndex++;
+            // base candidates that are not covered yet and cannot be covered by this
+            // or any following unit are fins: if there are already too many of them, no
+            // fish can be found with the current cover set -> fall back
+            tmpSetM1 = (baseSetM1 & ~coverStack[coverLevel - 1].candidatesM1 & ~coverRestM1[aktCoverIndex]) | endoFinSetM1;
+            tmpSetM2 = (baseSetM2 & ~coverStack[coverLevel - 1].candidatesM2 & ~coverRestM2[aktCoverIndex]) | endoFinSetM2;
+            if (getSize(tmpSetM1, tmpSetM2) > maxFins) {
+                cEntry.aktIndex = numberOfCoverUnits;
+                continue;
+            }
 //            System.out.println("try cover: " + aktCoverIndex + "/" + coverLevel);
             // if the new unit has common candidates with the current cover set, those candidates
             // have to be treated as possible eliminations (cannibalistic eliminations)
@@ -1034,7 +1101,7 @@ public class FishSolver extends AbstractSolver {
                             return step;
                         }
                     }
-                } else if (withFins && (finSize = getSize(finsM1, finsM2)) > 0 && finSize <= Options.getInstance().getMaxFins()) {
+                } else if (withFins && (finSize = getSize(finsM1, finsM2)) > 0 && finSize <= finder.getConfig().getMaxFins()) {
 //                    System.out.println("finned fish");
                     /*********** POSSIBLE FINNED/SASHIMI-FISCH **********/
                     versucheFins++;
@@ -1091,8 +1158,8 @@ public class FishSolver extends AbstractSolver {
                     }
                 }
             }
-            // and on to the next level
-            if (coverLevel < maxSize) {
+            // and on to the next level (no more cover units than base units)
+            if (coverLevel < baseLevel) {
                 coverLevel++;
                 cEntry = coverStack[coverLevel];
                 cEntry.aktIndex = aktCoverIndex + 1;
@@ -1253,24 +1320,20 @@ public class FishSolver extends AbstractSolver {
                 return null;
             }
         }
-        if (Options.getInstance().isOnlyOneFishPerStep()) {
-            //String del = globalStep.getCandidateString() + " " + globalStep.getValues().get(0);
-            String delOrg = globalStep.getCandidateString();
-            int startIndex = delOrg.indexOf(')');
-            startIndex = delOrg.indexOf('(', startIndex);
-            String del = delOrg.substring(0, startIndex);
-            Integer oldIndex = deletesMap.get(del);
+        if (finder.getConfig().isOnlyOneFishPerStep()) {
+            // only the eliminations count, not the type of the fish
+            int oldIndex = deletesMap.setCandidateKey(globalStep).get();
             SolutionStep tmpStep = null;
-            if (oldIndex != null) {
-                tmpStep = steps.get(oldIndex.intValue());
+            if (oldIndex != -1) {
+                tmpStep = steps.get(oldIndex);
             }
             if (tmpStep == null || globalStep.getType().compare(tmpStep.getType()) < 0) {
-                if (oldIndex != null) {
-                    steps.remove(oldIndex.intValue());
-                    steps.add(oldIndex.intValue(), (SolutionStep) globalStep.clone());
+                if (oldIndex != -1) {
+                    steps.remove(oldIndex);
+                    steps.add(oldIndex, (SolutionStep) globalStep.clone());
                 } else {
                     steps.add((SolutionStep) globalStep.clone());
-                    deletesMap.put(del, steps.size() - 1);
+                    deletesMap.put(steps.size() - 1);
                 }
             }
         } else {
@@ -1286,17 +1349,16 @@ public class FishSolver extends AbstractSolver {
      * @return 
      */
     private SolutionStep addKrakenStep(SolutionStep step) {
-        String del = step.getCandidateString() + " " + step.getValues().get(0);
-        Integer oldIndex = deletesMap.get(del);
+        int oldIndex = deletesMap.setKey(step).addToKey(step.getValues().get(0)).get();
         SolutionStep tmpStep = null;
-        if (oldIndex != null) {
+        if (oldIndex != -1) {
             tmpStep = steps.get(oldIndex);
         }
         if (tmpStep == null || step.getSubType().compare(tmpStep.getSubType()) < 0
                 || (step.getSubType().compare(tmpStep.getSubType()) == 0
                 && step.getChainLength() < tmpStep.getChainLength())) {
             steps.add(step);
-            deletesMap.put(del, steps.size() - 1);
+            deletesMap.put(steps.size() - 1);
             return step;
         }
         return null;
@@ -1314,7 +1376,7 @@ public class FishSolver extends AbstractSolver {
      * @param fishes All available fishes
      */
     private void findSiameseFish(List<SolutionStep> fishes) {
-        if (!Options.getInstance().isAllowDualsAndSiamese()) {
+        if (!finder.getConfig().isAllowDualsAndSiamese()) {
             // not allowed!
             return;
         }
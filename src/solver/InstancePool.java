@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2008-12  Bernhard Hobiger
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ */
+package solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A pool for instances that are expensive to create (used by
+ * {@link SudokuSolverFactory} and <code>SudokuGeneratorFactory</code>).<br><br>
+ *
+ * The unused instances are held in a lock-free queue. The instances that
+ * have been handed out are only remembered (by identity), so that an instance
+ * cannot be given back twice or be given back without having been handed out:
+ * otherwise two threads could get the same instance. At most
+ * {@link #maxIdle} unused instances are kept; instances that have not been
+ * used for {@link #timeout} ms are removed by a cleanup task. The cleanup
+ * tasks of all pools run in one shared daemon thread.<br><br>
+ *
+ * Only the unused instances are bounded: {@link #getInstance()} never waits,
+ * it creates a new instance if no unused one is available. A bound on the
+ * leased instances could deadlock, since one thread often holds more than one
+ * instance (e.g. a solver and a generator) and pools are used from nested
+ * calls. Therefore the checkout time in the statistics is mostly the time
+ * for creating new instances, not a waiting time.<br><br>
+ *
+ * Every instance gotten by {@link #getInstance()} has to be given back
+ * exactly once by {@link #giveBack(java.lang.Object) } (in a
+ * <code>finally</code> block); an instance that is never given back
+ * stays leased.
+ *
+ * @param <T>
+ * @author hobiwan
+ */
+public abstract class InstancePool<T> {
+    /** The thread that runs the cleanup tasks of all pools. */
+    private static ScheduledExecutorService scheduler = null;
+
+    /** The name of the pool (for logging). */
+    private final String name;
+    /** The maximum number of unused instances held by the pool. */
+    private final int maxIdle;
+    /** Unused instances are removed after this time (ms). */
+    private final long timeout;
+    /** All unused instances. */
+    private final ConcurrentLinkedQueue<IdleInstance<T>> idle = new ConcurrentLinkedQueue<IdleInstance<T>>();
+    /** The number of entries in {@link #idle}. */
+    private final AtomicInteger anzIdle = new AtomicInteger();
+    /** All instances currently handed out. */
+    private final Set<T> leased = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+    /** statistics: number of instances created. */
+    private final AtomicInteger anzCreated = new AtomicInteger();
+    /** statistics: number of calls to {@link #getInstance()}. */
+    private final AtomicLong anzCheckouts = new AtomicLong();
+    /** statistics: time spent in {@link #getInstance()} in ns (mostly creation of new instances, checkouts never wait). */
+    private final AtomicLong checkoutNanos = new AtomicLong();
+
+    /**
+     * One entry in {@link #idle}.
+     *
+     * @param <T>
+     */
+    private static class IdleInstance<T> {
+        /** The unused instance. */
+        final T instance;
+        /** Time, when the instance was given back. */
+        final long lastUsedAt;
+
+        /**
+         * Creates a new entry for {@link #idle}.
+         *
+         * @param instance
+         * @param lastUsedAt
+         */
+        IdleInstance(T instance, long lastUsedAt) {
+            this.instance = instance;
+            this.lastUsedAt = lastUsedAt;
+        }
+    }
+
+    /**
+     * Creates a new pool and schedules its cleanup task.
+     *
+     * @param name
+     * @param maxIdle
+     * @param timeout
+     */
+    protected InstancePool(String name, int maxIdle, long timeout) {
+        this.name = name;
+        this.maxIdle = maxIdle;
+        this.timeout = timeout;
+        getScheduler().scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    cleanUp();
+                } catch (Exception ex) {
+                    Logger.getLogger(InstancePool.class.getName()).log(Level.SEVERE, "Error cleaning up pool", ex);
+                }
+            }
+        }, timeout, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @return
+     */
+    protected abstract T create();
+
+    /**
+     * Called by the cleanup task for every unused instance that is kept
+     * in the pool. The instance is not available for {@link #getInstance()},
+     * while the method is running.
+     *
+     * @param instance
+     */
+    protected void cleanUp(T instance) {
+        // nothing to do
+    }
+
+    /**
+     * Hands out an unused instance or creates a new one if necessary.
+     *
+     * @return
+     */
+    public T getInstance() {
+        long nanos = System.nanoTime();
+        T ret = null;
+        IdleInstance<T> entry = idle.poll();
+        if (entry != null) {
+            anzIdle.decrementAndGet();
+            ret = entry.instance;
+        } else {
+            ret = create();
+            anzCreated.incrementAndGet();
+        }
+        synchronized (leased) {
+            leased.add(ret);
+        }
+        anzCheckouts.incrementAndGet();
+        checkoutNanos.addAndGet(System.nanoTime() - nanos);
+        return ret;
+    }
+
+    /**
+     * Gives an instance back to the pool. If the pool already holds
+     * {@link #maxIdle} unused instances, the instance is dropped. Instances
+     * that are not handed out by this pool (or that have already been given
+     * back) are ignored.
+     *
+     * @param instance
+     */
+    public void giveBack(T instance) {
+        if (instance == null) {
+            return;
+        }
+        synchronized (leased) {
+            if (!leased.remove(instance)) {
+                Logger.getLogger(getClass().getName()).log(Level.WARNING, "{0}: instance given back, that is not leased",
+                        name);
+                return;
+            }
+        }
+        if (anzIdle.incrementAndGet() > maxIdle) {
+            anzIdle.decrementAndGet();
+            return;
+        }
+        idle.add(new IdleInstance<T>(instance, System.currentTimeMillis()));
+    }
+
+    /**
+     * The cleanup task: removes all instances that have not been used
+     * for {@link #timeout} ms and calls {@link #cleanUp(java.lang.Object) }
+     * for all others.
+     */
+    protected void cleanUp() {
+        long now = System.currentTimeMillis();
+        int anzRemoved = 0;
+        // entries that are kept are added again: work on a copy
+        List<IdleInstance<T>> entries = new ArrayList<IdleInstance<T>>(idle);
+        for (IdleInstance<T> entry : entries) {
+            // only entries that are still in the pool may be touched
+            if (!idle.remove(entry)) {
+                continue;
+            }
+            if (now - entry.lastUsedAt > timeout) {
+                anzIdle.decrementAndGet();
+                anzRemoved++;
+            } else {
+                cleanUp(entry.instance);
+                idle.add(entry);
+            }
+        }
+        if (anzRemoved > 0) {
+            Logger.getLogger(getClass().getName()).log(Level.FINE, "{0}: {1} instances removed ({2})",
+                    new Object[]{name, anzRemoved, getStatistics()});
+        }
+    }
+
+    /**
+     * @return The number of unused instances held by the pool.
+     */
+    public int getAnzIdle() {
+        return anzIdle.get();
+    }
+
+    /**
+     * @return The number of instances currently handed out.
+     */
+    public int getAnzLeased() {
+        synchronized (leased) {
+            return leased.size();
+        }
+    }
+
+    /**
+     * @return The number of instances created by the pool.
+     */
+    public int getAnzCreated() {
+        return anzCreated.get();
+    }
+
+    /**
+     * @return The average time of a call to {@link #getInstance()} in ns
+     *   (including the creation of new instances).
+     */
+    public long getAverageCheckoutNanos() {
+        long anz = anzCheckouts.get();
+        return anz == 0 ? 0 : checkoutNanos.get() / anz;
+    }
+
+    /**
+     * @return A short description of the state of the pool.
+     */
+    public String getStatistics() {
+        return name + ": " + getAnzIdle() + " idle, " + getAnzLeased() + " leased, "
+                + getAnzCreated() + " created, " + anzCheckouts.get() + " checkouts ("
+                + getAverageCheckoutNanos() + "ns)";
+    }
+
+    /**
+     * Creates {@link #scheduler} if necessary. The thread is a daemon
+     * thread and doesn't keep the program alive.
+     *
+     * @return
+     */
+    private static synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "InstancePoolCleaner");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return scheduler;
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2008-12  Bernhard Hobiger
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package solver;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import sudoku.Sudoku2;
+import sudoku.SudokuSet;
+import sudoku.SudokuSinglesQueue;
+
+/**
+ * Fills the tables of {@link TablingSolver} for a range of cells when
+ * searching for nets: for every candidate in every cell of the range the
+ * candidate is set and deleted and all consequences are recorded (see
+ * {@link #getTableEntry(solver.TableEntry, int, int, boolean) }).<br>
+ * The premises are independent of each other, every instance has its own
+ * working copy of the sudoku, so ranges
+ * can be filled in different threads. Every premise writes only into its own
+ * {@link TableEntry}.
+ *
+ * @author hobiwan
+ */
+final class NetTableFiller implements Runnable {
+
+    /** The sudoku in its original state. */
+    private Sudoku2 savedSudoku;
+    /** The original candidates (must not be changed while the tables are filled). */
+    private SudokuSet[] candidates;
+    /** The tables for "candidate set". */
+    private TableEntry[] onTable;
+    /** The tables for "candidate deleted". */
+    private TableEntry[] offTable;
+    /** First cell to fill. */
+    private int from;
+    /** Last cell to fill + 1. */
+    private int to;
+    /** The number of look ahead rounds (see {@link SolverConfig#getAnzTableLookAhead()}). */
+    private int anzTableLookAhead;
+    /** The working copy of {@link #savedSudoku}. */
+    private final Sudoku2 sudoku = new Sudoku2();
+    /** Cells of the Naked and Hidden Singles of one look ahead round. */
+    private final int[] singleIndices = new int[Sudoku2.LENGTH * 4];
+    /** Values of the Naked and Hidden Singles of one look ahead round. */
+    private final int[] singleValues = new int[Sudoku2.LENGTH * 4];
+    /** <code>true</code> for Naked Singles in {@link #singleIndices}. */
+    private final boolean[] singleNaked = new boolean[Sudoku2.LENGTH * 4];
+    /** Only one Hidden Single per cell and round. */
+    private final boolean[] singleFound = new boolean[Sudoku2.LENGTH];
+    /** The entries responsible for an ON operation. */
+    private final int[] retIndices = new int[5];
+    /** For temporary checks. */
+    private final SudokuSet tmpSet = new SudokuSet();
+    /** For temporary checks. */
+    private final SudokuSet tmpSet1 = new SudokuSet();
+
+    /**
+     * Sets up the next run.
+     * @param savedSudoku
+     * @param candidates
+     * @param onTable
+     * @param offTable
+     * @param from
+     * @param to
+     * @param anzTableLookAhead
+     */
+    void init(Sudoku2 savedSudoku, SudokuSet[] candidates, TableEntry[] onTable,
+            TableEntry[] offTable, int from, int to, int anzTableLookAhead) {
+        this.savedSudoku = savedSudoku;
+        this.candidates = candidates;
+        this.onTable = onTable;
+        this.offTable = offTable;
+        this.from = from;
+        this.to = to;
+        this.anzTableLookAhead = anzTableLookAhead;
+    }
+
+    /**
+     * Iterates through all cells and candidates in the range: sets and deletes
+     * the candidate and records all dependencies.
+     */
+    @Override
+    public void run() {
+        for (int i = from; i < to; i++) {
+            if (savedSudoku.getValue(i) != 0) {
+                // cell is already set -> ignore it
+                continue;
+            }
+            int[] cands = savedSudoku.getAllCandidates(i);
+            for (int j = 0; j < cands.length; j++) {
+                // once for every candidate
+                int cand = cands[j];
+                // candidate is ON
+                sudoku.set(savedSudoku);
+                getTableEntry(onTable[i * 10 + cand], i, cand, true);
+                // candidate is OFF
+                sudoku.set(savedSudoku);
+                getTableEntry(offTable[i * 10 + cand], i, cand, false);
+            }
+        }
+        // the references are not needed anymore
+        savedSudoku = null;
+        candidates = null;
+        onTable = null;
+        offTable = null;
+    }
+
+    /**
+     * Collects all dependencies on one specific action (cell is set/candidate
+     * is deleted). To detect nets, the whole operation is repeated {@link #anzTableLookAhead}
+     * times.<br>
+     *
+     * All operations are done on {@link #sudoku}, a copy of the original sudoku.
+     *
+     * If
+     * <code>set</code> is
+     * <code>true</code>, the cell is set and all newly created Hidden and Naked
+     * Singles are collected and executed. If it is
+     * <code>false</code>, it is eliminated. If that creates single(s), they are
+     * executed and handled as well.<br>
+     *
+     * If a cell is set, this is delegated to {@link #setCell(int, int, solver.TableEntry, boolean, boolean, int)
+     * }.
+     *
+     * @param entry The {@link TableEntry}
+     * @param cellIndex the index of the current cell
+     * @param cand The current candidate
+     * @param set
+     * <code>true</code> if the candidate is to be set, else
+     * <code>false</code>
+     */
+    void getTableEntry(TableEntry entry, int cellIndex, int cand, boolean set) {
+        if (set) {
+            // set the cell and record all dependencies
+            setCell(cellIndex, cand, entry, false, false);
+        } else {
+            // eliminate the candidate and set the cell if necessary
+            sudoku.delCandidate(cellIndex, cand);
+            entry.addEntry(cellIndex, cand, false, 0);
+            if (sudoku.getAnzCandidates(cellIndex) == 1) {
+                int setCand = sudoku.getAllCandidates(cellIndex)[0];
+                // getRetIndices == false causes retIndex == 0
+                setCell(cellIndex, setCand, entry, false, true);
+            }
+        }
+        // now look ahead
+        for (int j = 0; j < anzTableLookAhead; j++) {
+            int anz = collectSingles();
+            for (int i = 0; i < anz; i++) {
+                setCell(singleIndices[i], singleValues[i], entry, true, singleNaked[i]);
+            }
+        }
+    }
+
+    /**
+     * Takes all singles found so far from the queues of {@link #sudoku}: first
+     * all Naked Singles, then all Hidden Singles (only one per cell). Singles,
+     * that are not valid anymore, are dropped. The singles found while they are
+     * set are handled in the next look ahead round.
+     *
+     * @return The number of singles in {@link #singleIndices}.
+     */
+    private int collectSingles() {
+        int anz = 0;
+        SudokuSinglesQueue nsQueue = sudoku.getNsQueue();
+        int queueIndex = -1;
+        while ((queueIndex = nsQueue.getSingle()) != -1) {
+            int index = nsQueue.getIndex(queueIndex);
+            if (sudoku.getValue(index) == 0) {
+                singleIndices[anz] = index;
+                singleValues[anz] = nsQueue.getValue(queueIndex);
+                singleNaked[anz++] = true;
+            }
+        }
+        Arrays.fill(singleFound, false);
+        byte[][] free = sudoku.getFree();
+        SudokuSinglesQueue hsQueue = sudoku.getHsQueue();
+        while ((queueIndex = hsQueue.getSingle()) != -1) {
+            int index = hsQueue.getIndex(queueIndex);
+            int value = hsQueue.getValue(queueIndex);
+            if (sudoku.getValue(index) == 0 && !singleFound[index]) {
+                // still a Hidden Single in one of its houses?
+                for (int i = 0; i < Sudoku2.CONSTRAINTS[index].length; i++) {
+                    if (free[Sudoku2.CONSTRAINTS[index][i]][value] == 1) {
+                        singleIndices[anz] = index;
+                        singleValues[anz] = value;
+                        singleNaked[anz++] = false;
+                        singleFound[index] = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return anz;
+    }
+
+    /**
+     * Setting a value in a cell is surprisingly complicated: Not only must all
+     * consequences be found but the sources of all actions have to be recorded
+     * as well (from the ORIGINAL sudoku!).
+     *
+     * @param cellIndex
+     * @param cand
+     * @param entry
+     * @param getRetIndices
+     * @param nakedSingle
+     */
+    private void setCell(int cellIndex, int cand, TableEntry entry, boolean getRetIndices, boolean nakedSingle) {
+        // find all candidates that are eliminated by the set operation (dont forget
+        // the candidates in the cell itself). The reason for the elimination is the
+        // ON entry.
+        // candidates holds the original candidates
+        tmpSet.set(candidates[cand]);
+        tmpSet.remove(cellIndex);
+        tmpSet.and(Sudoku2.buddies[cellIndex]);
+        int[] cands = sudoku.getAllCandidates(cellIndex);
+        // get the house with the smallest number of original candidates (needed for ret indices,
+        // but must be done before the cell is set)
+        int entityType = Sudoku2.LINE;
+        int entityNumberFree = sudoku.getFree()[Sudoku2.CONSTRAINTS[cellIndex][0]][cand];
+        int dummy = sudoku.getFree()[Sudoku2.CONSTRAINTS[cellIndex][1]][cand];
+        if (dummy < entityNumberFree) {
+            entityType = Sudoku2.COL;
+            entityNumberFree = dummy;
+        }
+        dummy = sudoku.getFree()[Sudoku2.CONSTRAINTS[cellIndex][2]][cand];
+        if (dummy < entityNumberFree) {
+            entityType = Sudoku2.BLOCK;
+            entityNumberFree = dummy;
+        }
+        // now set the cell
+        sudoku.setCell(cellIndex, cand);
+        int retIndex = entry.index;
+        if (getRetIndices) {
+            // find the candidate(s) that are responsible for the ON operation
+            for (int i = 0; i < retIndices.length; i++) {
+                retIndices[i] = 0;
+            }
+            if (nakedSingle) {
+                // all other candidates in the cell
+                int[] cellCands = savedSudoku.getAllCandidates(cellIndex);
+                if (cellCands.length > retIndices.length + 1) {
+                    Logger.getLogger(NetTableFiller.class.getName()).log(Level.WARNING, "Too many candidates (setCell() - Naked Single");
+                }
+                int ri = 0;
+                for (int i = 0; i < cellCands.length && ri < retIndices.length; i++) {
+                    if (cellCands[i] == cand) {
+                        continue;
+                    }
+                    retIndices[ri++] = entry.getEntryIndex(cellIndex, false, cellCands[i]);
+                }
+            } else {
+                // all other candidates in the house with the smallest number of original candidates
+                if (entityType == Sudoku2.LINE) {
+                    getRetIndicesForHouse(cellIndex, cand, Sudoku2.LINE_TEMPLATES[Sudoku2.getLine(cellIndex)], entry);
+                } else if (entityType == Sudoku2.COL) {
+                    getRetIndicesForHouse(cellIndex, cand, Sudoku2.COL_TEMPLATES[Sudoku2.getCol(cellIndex)], entry);
+                } else {
+                    getRetIndicesForHouse(cellIndex, cand, Sudoku2.BLOCK_TEMPLATES[Sudoku2.getBlock(cellIndex)], entry);
+                }
+            }
+            // ON entry for set operation including retIndices
+            entry.addEntry(cellIndex, cand, true, retIndices[0], retIndices[1], retIndices[2],
+                    retIndices[3], retIndices[4]);
+        } else {
+            // ON entry for set operation without retIndices
+            entry.addEntry(cellIndex, cand, true);
+        }
+        // OFF entries for all candidates that can see cellIndex
+        for (int i = tmpSet.nextSetBit(0); i >= 0; i = tmpSet.nextSetBit(i + 1)) {
+            entry.addEntry(i, cand, false, retIndex);
+        }
+        // OFF entries for all other candidates in the cell
+        for (int i = 0; i < cands.length; i++) {
+            if (cands[i] != cand) {
+                entry.addEntry(cellIndex, cands[i], false, retIndex);
+            }
+        }
+    }
+
+    /**
+     * Collect the entries for all candidates in a given house. All those
+     * canddiates have to be eliminated before the cell can be set. Used by {@link #setCell(int, int, solver.TableEntry, boolean, boolean)
+     * }.
+     *
+     * @param cellIndex
+     * @param cand
+     * @param houseSet
+     * @param entry
+     */
+    private void getRetIndicesForHouse(int cellIndex, int cand, SudokuSet houseSet, TableEntry entry) {
+        // get all original candidates in the house (cell itself excluded)
+        tmpSet1.set(candidates[cand]);
+        tmpSet1.remove(cellIndex);
+        tmpSet1.and(houseSet);
+        if (tmpSet1.size() > retIndices.length + 1) {
+            Logger.getLogger(NetTableFiller.class.getName()).log(Level.WARNING, "Too many candidates (setCell() - Hidden Single");
+        }
+        int ri = 0;
+        for (int i = 0; i < tmpSet1.size() && ri < retIndices.length; i++) {
+            retIndices[ri++] = entry.getEntryIndex(tmpSet1.get(i), false, cand);
+        }
+    }
+}
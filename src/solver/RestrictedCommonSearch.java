@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2008-12  Bernhard Hobiger
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package solver;
+
+import java.util.Arrays;
+import java.util.List;
+import sudoku.Sudoku2;
+import sudoku.SudokuSet;
+
+/**
+ * Searches the RCs for a range of ALS (see {@link SudokuStepFinder#getRestrictedCommons(java.util.List, boolean) }).<br>
+ * An ALS can only have an RC with another ALS, if the other ALS has
+ * a candidate in a cell that sees all instances of that candidate
+ * in the first ALS. These partners are looked up in an inverted index
+ * (all ALS per candidate and cell, see {@link #buildIndex(java.util.List) }),
+ * only they are checked in detail.<br>
+ * The RCs are stored packed in an int array: the index of the second ALS,
+ * <code>cand1</code> and <code>cand2</code> (see {@link #pack(int, int, int)}).
+ * All RCs for an ALS are stored consecutively, the first ALS is implied by
+ * the order.<br>
+ * Every instance has its own temporary sets, so ranges can be searched in
+ * different threads.
+ *
+ * @author hobiwan
+ */
+final class RestrictedCommonSearch implements Runnable {
+
+    /** All ALS */
+    private final List<Als> alses;
+    /** Start index into {@link #index} for every candidate/cell combination (<code>(cand - 1) * 81 + cell</code>). */
+    private final int[] indexStart;
+    /** Inverted index: all ALS for every candidate/cell combination. */
+    private final int[] index;
+    /** Overlapping ALS allowed? */
+    private final boolean withOverlap;
+    /** Only RCs with ALS that have a greater index? */
+    private final boolean onlyForward;
+    /** First ALS to check. */
+    private final int from;
+    /** Last ALS to check + 1. */
+    private final int to;
+    /** The RCs found, packed. */
+    private int[] rcs = new int[256];
+    /** Number of RCs in {@link #rcs}. */
+    private int anzRcs;
+    /** Number of RCs for every ALS from {@link #from} to {@link #to}. */
+    private final int[] anzRcsPerAls;
+    /** Possible partners for the current ALS. */
+    private int[] partners;
+    /** <code>stamps[j] == i</code>: ALS j is already a partner of ALS i. */
+    private int[] stamps;
+    /** Holds all buddies of all candidate cells for one RC (including the candidate cells themselves). */
+    private SudokuSet restrictedCommonBuddiesSet = new SudokuSet();
+    /** All cells containing a specific candidate in two ALS. */
+    private SudokuSet restrictedCommonIndexSet = new SudokuSet();
+    /** Contains the indices of all overlapping cells in two ALS. */
+    private SudokuSet intersectionSet = new SudokuSet();
+
+    /**
+     * Creates a search for the ALS <code>from</code> to <code>to - 1</code>.
+     * @param alses
+     * @param indexData The result of {@link #buildIndex(java.util.List) }.
+     * @param withOverlap
+     * @param onlyForward
+     * @param from
+     * @param to
+     */
+    RestrictedCommonSearch(List<Als> alses, int[][] indexData, boolean withOverlap,
+            boolean onlyForward, int from, int to) {
+        this.alses = alses;
+        this.indexStart = indexData[0];
+        this.index = indexData[1];
+        this.withOverlap = withOverlap;
+        this.onlyForward = onlyForward;
+        this.from = from;
+        this.to = to;
+        anzRcsPerAls = new int[to - from];
+        partners = new int[alses.size()];
+        stamps = new int[alses.size()];
+        Arrays.fill(stamps, -1);
+    }
+
+    /**
+     * Builds the inverted index for <code>alses</code>: for every candidate
+     * and cell all ALS that have that candidate in that cell.
+     * @param alses
+     * @return Two arrays: the start indices and the index itself.
+     */
+    static int[][] buildIndex(List<Als> alses) {
+        int[] indexStart = new int[9 * Sudoku2.LENGTH + 1];
+        // count first
+        int total = 0;
+        for (int i = 0; i < alses.size(); i++) {
+            Als als = alses.get(i);
+            int[] cands = Sudoku2.POSSIBLE_VALUES[als.candidates];
+            for (int k = 0; k < cands.length; k++) {
+                SudokuSet cells = als.indicesPerCandidat[cands[k]];
+                int off = (cands[k] - 1) * Sudoku2.LENGTH;
+                for (int c = cells.nextSetBit(0); c >= 0; c = cells.nextSetBit(c + 1)) {
+                    indexStart[off + c + 1]++;
+                    total++;
+                }
+            }
+        }
+        for (int i = 1; i < indexStart.length; i++) {
+            indexStart[i] += indexStart[i - 1];
+        }
+        // now fill in the ALS (in ascending order)
+        int[] index = new int[total];
+        int[] pos = Arrays.copyOf(indexStart, indexStart.length - 1);
+        for (int i = 0; i < alses.size(); i++) {
+            Als als = alses.get(i);
+            int[] cands = Sudoku2.POSSIBLE_VALUES[als.candidates];
+            for (int k = 0; k < cands.length; k++) {
+                SudokuSet cells = als.indicesPerCandidat[cands[k]];
+                int off = (cands[k] - 1) * Sudoku2.LENGTH;
+                for (int c = cells.nextSetBit(0); c >= 0; c = cells.nextSetBit(c + 1)) {
+                    index[pos[off + c]++] = i;
+                }
+            }
+        }
+        return new int[][]{indexStart, index};
+    }
+
+    /**
+     * Checks all ALS in the range.
+     */
+    @Override
+    public void run() {
+        for (int i = from; i < to; i++) {
+            Als als1 = alses.get(i);
+            int anzPartners = getPartners(i, als1);
+            int startRcs = anzRcs;
+            for (int p = 0; p < anzPartners; p++) {
+                int j = partners[p];
+                Als als2 = alses.get(j);
+                // check whether the ALS overlap (intersectionSet is needed later on anyway)
+                intersectionSet.set(als1.indices);
+                intersectionSet.and(als2.indices);
+                if (!withOverlap && !intersectionSet.isEmpty()) {
+                    // overlap is not allowed!
+                    continue;
+                }
+                // possibleRestrictedCommons contains all candidates common to both ALS
+                short possibleRestrictedCommonsSet = (short) (als1.candidates & als2.candidates);
+                // number of RC candidates found for this ALS combination
+                int rcAnz = 0;
+                int cand1 = 0;
+                int cand2 = 0;
+                int[] prcs = Sudoku2.POSSIBLE_VALUES[possibleRestrictedCommonsSet];
+                for (int k = 0; k < prcs.length; k++) {
+                    int cand = prcs[k];
+                    // Get all positions of cand in both ALS
+                    restrictedCommonIndexSet.set(als1.indicesPerCandidat[cand]);
+                    restrictedCommonIndexSet.or(als2.indicesPerCandidat[cand]);
+                    // non of these positions may be in the overlapping area of the two ALS
+                    if (!restrictedCommonIndexSet.andEmpty(intersectionSet)) {
+                        // at least on occurence of cand is in overlap -> forbidden
+                        continue;
+                    }
+                    // now check if all those candidates see each other
+                    restrictedCommonBuddiesSet.setAnd(als1.buddiesAlsPerCandidat[cand],
+                            als2.buddiesAlsPerCandidat[cand]);
+                    // we now know all common buddies, all common candidates must be in that set
+                    if (restrictedCommonIndexSet.andEquals(restrictedCommonBuddiesSet)) {
+                        // found -> cand is RC
+                        if (rcAnz == 0) {
+                            cand1 = cand;
+                        } else {
+                            cand2 = cand;
+                        }
+                        rcAnz++;
+                    }
+                }
+                if (rcAnz > 0) {
+                    addRc(pack(j, cand1, cand2));
+                }
+            }
+            anzRcsPerAls[i - from] = anzRcs - startRcs;
+        }
+    }
+
+    /**
+     * Collects all ALS that could have an RC with <code>als1</code> in
+     * {@link #partners} (sorted ascending).
+     * @param i
+     * @param als1
+     * @return The number of partners.
+     */
+    private int getPartners(int i, Als als1) {
+        int anz = 0;
+        int[] cands = Sudoku2.POSSIBLE_VALUES[als1.candidates];
+        for (int k = 0; k < cands.length; k++) {
+            // all cand cells of the other ALS must see all cand cells of als1
+            SudokuSet buddies = als1.buddiesPerCandidat[cands[k]];
+            int off = (cands[k] - 1) * Sudoku2.LENGTH;
+            for (int c = buddies.nextSetBit(0); c >= 0; c = buddies.nextSetBit(c + 1)) {
+                for (int p = indexStart[off + c]; p < indexStart[off + c + 1]; p++) {
+                    int j = index[p];
+                    if (stamps[j] != i && j != i && (!onlyForward || j > i)) {
+                        stamps[j] = i;
+                        partners[anz++] = j;
+                    }
+                }
+            }
+        }
+        Arrays.sort(partners, 0, anz);
+        return anz;
+    }
+
+    private void addRc(int rc) {
+        if (anzRcs == rcs.length) {
+            rcs = Arrays.copyOf(rcs, rcs.length * 2);
+        }
+        rcs[anzRcs++] = rc;
+    }
+
+    /**
+     * Packs an RC: the first ALS is implied by the position in {@link #rcs}.
+     * @param als2
+     * @param cand1
+     * @param cand2 0 if only one RC exists
+     * @return
+     */
+    static int pack(int als2, int cand1, int cand2) {
+        return (als2 << 8) | (cand1 << 4) | cand2;
+    }
+
+    /**
+     * Index of the second ALS in a packed RC.
+     * @param rc
+     * @return
+     */
+    static int getAls2(int rc) {
+        return rc >>> 8;
+    }
+
+    /**
+     * First candidate of a packed RC.
+     * @param rc
+     * @return
+     */
+    static int getCand1(int rc) {
+        return (rc >> 4) & 0x0F;
+    }
+
+    /**
+     * Second candidate of a packed RC (0 if only one RC exists).
+     * @param rc
+     * @return
+     */
+    static int getCand2(int rc) {
+        return rc & 0x0F;
+    }
+
+    /**
+     * The packed RCs (only the first {@link #getAnzRcs()} entries are valid).
+     * @return
+     */
+    int[] getRcs() {
+        return rcs;
+    }
+
+    /**
+     * Number of RCs found.
+     * @return
+     */
+    int getAnzRcs() {
+        return anzRcs;
+    }
+
+    /**
+     * Number of RCs for the ALS <code>i</code> (must be within the range).
+     * @param i
+     * @return
+     */
+    int getAnzRcs(int i) {
+        return anzRcsPerAls[i - from];
+    }
+}
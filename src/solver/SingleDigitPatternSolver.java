@@ -118,6 +118,8 @@ public class SingleDigitPatternSolver extends AbstractSolver {
     private int[][] only2Indices = new int[2 * Sudoku2.UNITS][2];
     /** A set to check for eliminations */
     private SudokuSet firstUnit = new SudokuSet();
+    /** One solver per candidate for the parallel search in the "find all" methods */
+    private SingleDigitPatternSolver[] candidateSolvers = null;
 
     /** Creates a new instance of SimpleSolver
      * @param finder 
@@ -204,13 +206,65 @@ public class SingleDigitPatternSolver extends AbstractSolver {
         List<SolutionStep> oldList = steps;
         List<SolutionStep> newList = new ArrayList<SolutionStep>();
         steps = newList;
-        findEmptyRectangles(false);
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            findAllForCandidates(SolutionType.EMPTY_RECTANGLE, true);
+        } else {
+            findEmptyRectangles(false);
+        }
         findDualEmptyRectangles(steps);
         Collections.sort(steps);
         steps = oldList;
         return newList;
     }
 
+    /**
+     * Searches all candidates in parallel (see {@link SudokuStepFinder#runParallel(java.lang.Runnable[])}).
+     * Every candidate gets its own solver with its own sets, the steps are added
+     * to {@link #steps} in the order of the candidates. The result is the same
+     * as for the sequential search.
+     * @param type {@link SolutionType#EMPTY_RECTANGLE}, {@link SolutionType#SKYSCRAPER} or {@link SolutionType#TWO_STRING_KITE}
+     * @param lines Only for Skyscrapers: search the lines or the columns
+     */
+    private void findAllForCandidates(final SolutionType type, final boolean lines) {
+        // the candidates are calculated lazily: do it now
+        finder.getCandidates();
+        if (candidateSolvers == null) {
+            candidateSolvers = new SingleDigitPatternSolver[10];
+            for (int i = 1; i <= 9; i++) {
+                candidateSolvers[i] = new SingleDigitPatternSolver(finder);
+            }
+        }
+        Runnable[] tasks = new Runnable[9];
+        for (int i = 1; i <= 9; i++) {
+            final SingleDigitPatternSolver solver = candidateSolvers[i];
+            final int cand = i;
+            solver.sudoku = sudoku;
+            tasks[i - 1] = new Runnable() {
+
+                @Override
+                public void run() {
+                    switch (type) {
+                        case EMPTY_RECTANGLE:
+                            solver.findEmptyRectanglesForCandidate(cand, false);
+                            break;
+                        case SKYSCRAPER:
+                            solver.findSkyscraperForCandidate(cand, lines, false);
+                            break;
+                        case TWO_STRING_KITE:
+                            solver.findTwoStringKiteForCandidate(cand, false);
+                            break;
+                    }
+                }
+            };
+        }
+        SudokuStepFinder.runParallel(tasks);
+        for (int i = 1; i <= 9; i++) {
+            steps.addAll(candidateSolvers[i].steps);
+            candidateSolvers[i].steps.clear();
+            candidateSolvers[i].sudoku = null;
+        }
+    }
+
     /**
      * Find a single ER. If {@link Options#allowDualsAndSiamese} is set, Dual ERs
      * are found as well.
@@ -219,10 +273,10 @@ public class SingleDigitPatternSolver extends AbstractSolver {
     protected SolutionStep findEmptyRectangle() {
         steps.clear();
         SolutionStep step = findEmptyRectangles(true);
-        if (step != null && ! Options.getInstance().isAllowDualsAndSiamese()) {
+        if (step != null && ! finder.getConfig().isAllowDualsAndSiamese()) {
             return step;
         }
-        if (steps.size() > 0 && Options.getInstance().isAllowDualsAndSiamese()) {
+        if (steps.size() > 0 && finder.getConfig().isAllowDualsAndSiamese()) {
             findDualEmptyRectangles(steps);
             Collections.sort(steps);
             return steps.get(0);
@@ -240,7 +294,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
     private SolutionStep findEmptyRectangles(boolean onlyOne) {
         for (int i = 1; i <= 9; i++) {
             SolutionStep step = findEmptyRectanglesForCandidate(i, onlyOne);
-            if (step != null && onlyOne && ! Options.getInstance().isAllowDualsAndSiamese()) {
+            if (step != null && onlyOne && ! finder.getConfig().isAllowDualsAndSiamese()) {
                 return step;
             }
         }
@@ -307,7 +361,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
                     continue;
                 }
                 erCol = erCols[i][j];
-                if (notEnoughCandidates && Options.getInstance().isAllowErsWithOnlyTwoCandidates() == false) {
+                if (notEnoughCandidates && finder.getConfig().isAllowErsWithOnlyTwoCandidates() == false) {
                     // both row and col have only one candidate -> invalid
                     continue;
                 }
@@ -316,12 +370,12 @@ public class SingleDigitPatternSolver extends AbstractSolver {
                 // a candidate, check whether it forms a conjugate pair in the respective col
                 SolutionStep step = checkEmptyRectangle(cand, i, blockCands, Sudoku2.LINES[erLine], Sudoku2.LINE_TEMPLATES,
                         Sudoku2.COL_TEMPLATES, erCol, false, onlyOne);
-                if (onlyOne && step != null && ! Options.getInstance().isAllowDualsAndSiamese()) {
+                if (onlyOne && step != null && ! finder.getConfig().isAllowDualsAndSiamese()) {
                     return step;
                 }
                 step = checkEmptyRectangle(cand, i, blockCands, Sudoku2.COLS[erCol], Sudoku2.COL_TEMPLATES,
                         Sudoku2.LINE_TEMPLATES, erLine, true, onlyOne);
-                if (onlyOne && step != null && ! Options.getInstance().isAllowDualsAndSiamese()) {
+                if (onlyOne && step != null && ! finder.getConfig().isAllowDualsAndSiamese()) {
                     return step;
                 }
             }
@@ -412,7 +466,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
                             globalStep.addCandidateToDelete(indexDel, cand);
                             SolutionStep step = (SolutionStep) globalStep.clone();
                             // only one elimination per conjugate pair possible
-                            if (onlyOne && ! Options.getInstance().isAllowDualsAndSiamese()) {
+                            if (onlyOne && ! finder.getConfig().isAllowDualsAndSiamese()) {
                                 return step;
                             } else {
                                 steps.add(step);
@@ -439,7 +493,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
      * @param kites All available 2-String-Kites
      */
     private void findDualEmptyRectangles(List<SolutionStep> ers) {
-        if (! Options.getInstance().isAllowDualsAndSiamese()) {
+        if (! finder.getConfig().isAllowDualsAndSiamese()) {
             // do nothing
             return;
         }
@@ -495,8 +549,13 @@ public class SingleDigitPatternSolver extends AbstractSolver {
         List<SolutionStep> oldList = steps;
         List<SolutionStep> newList = new ArrayList<SolutionStep>();
         steps = newList;
-        findSkyscraper(true, false);
-        findSkyscraper(false, false);
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            findAllForCandidates(SolutionType.SKYSCRAPER, true);
+            findAllForCandidates(SolutionType.SKYSCRAPER, false);
+        } else {
+            findSkyscraper(true, false);
+            findSkyscraper(false, false);
+        }
         Collections.sort(steps);
         steps = oldList;
         return newList;
@@ -530,6 +589,25 @@ public class SingleDigitPatternSolver extends AbstractSolver {
      * @return
      */
     private SolutionStep findSkyscraper(boolean lines, boolean onlyOne) {
+        // try every candidate
+        for (int cand = 1; cand <= 9; cand++) {
+            SolutionStep step = findSkyscraperForCandidate(cand, lines, onlyOne);
+            if (step != null) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Search for Skyscrapers with candidate <code>cand</code> in the lines
+     * or in the columns.
+     * @param cand
+     * @param lines
+     * @param onlyOne
+     * @return
+     */
+    private SolutionStep findSkyscraperForCandidate(int cand, boolean lines, boolean onlyOne) {
         // indices in free
         int cStart = 0;
         int cEnd = 9;
@@ -539,88 +617,85 @@ public class SingleDigitPatternSolver extends AbstractSolver {
             cEnd += 9;
         }
         byte[][] free = sudoku.getFree();
-        // try every candidate
-        for (int cand = 1; cand <= 9; cand++) {
-            // get all constraints with only two candidates and the indices of the cells
-            int constrCount = 0;
-            for (int constr = cStart; constr < cEnd; constr++) {
-                if (free[constr][cand] == 2) {
-                    // constraint has only two candidates left -> get the indices of the cells
-                    int[] indices = Sudoku2.ALL_UNITS[constr];
-                    int candIndex = 0;
-                    for (int i = 0; i < indices.length; i++) {
-                        if (sudoku.isCandidate(indices[i], cand)) {
-                            only2Indices[constrCount][candIndex++] = indices[i];
-                            if (candIndex >= 2) {
-                                break;
-                            }
+        // get all constraints with only two candidates and the indices of the cells
+        int constrCount = 0;
+        for (int constr = cStart; constr < cEnd; constr++) {
+            if (free[constr][cand] == 2) {
+                // constraint has only two candidates left -> get the indices of the cells
+                int[] indices = Sudoku2.ALL_UNITS[constr];
+                int candIndex = 0;
+                for (int i = 0; i < indices.length; i++) {
+                    if (sudoku.isCandidate(indices[i], cand)) {
+                        only2Indices[constrCount][candIndex++] = indices[i];
+                        if (candIndex >= 2) {
+                            break;
                         }
                     }
-                    constrCount++;
                 }
+                constrCount++;
             }
-            // ok: now try all combinations of those constraints
-            for (int i = 0; i < constrCount; i++) {
-                for (int j = i + 1; j < constrCount; j++) {
-                    // one end has to be in the same line/col
-                    boolean found = false;
-                    int otherIndex = 1;
-                    if (lines) {
-                        // must be in the same col
-                        if (Sudoku2.getCol(only2Indices[i][0]) == Sudoku2.getCol(only2Indices[j][0])) {
-                            found = true;
-                        }
-                        if (! found && Sudoku2.getCol(only2Indices[i][1]) == Sudoku2.getCol(only2Indices[j][1])) {
-                            found = true;
-                            otherIndex = 0;
-                        }
-                    } else {
-                        // must be in the same line
-                        if (Sudoku2.getLine(only2Indices[i][0]) == Sudoku2.getLine(only2Indices[j][0])) {
-                            found = true;
-                        }
-                        if (! found && Sudoku2.getLine(only2Indices[i][1]) == Sudoku2.getLine(only2Indices[j][1])) {
-                            found = true;
-                            otherIndex = 0;
-                        }
+        }
+        // ok: now try all combinations of those constraints
+        for (int i = 0; i < constrCount; i++) {
+            for (int j = i + 1; j < constrCount; j++) {
+                // one end has to be in the same line/col
+                boolean found = false;
+                int otherIndex = 1;
+                if (lines) {
+                    // must be in the same col
+                    if (Sudoku2.getCol(only2Indices[i][0]) == Sudoku2.getCol(only2Indices[j][0])) {
+                        found = true;
                     }
-                    if (! found) {
-                        // invalid combination
-                        continue;
+                    if (! found && Sudoku2.getCol(only2Indices[i][1]) == Sudoku2.getCol(only2Indices[j][1])) {
+                        found = true;
+                        otherIndex = 0;
                     }
-                    // the "free ends" must not be in the same unit or it would be an X-Wing
-                    if (lines && Sudoku2.getCol(only2Indices[i][otherIndex]) == Sudoku2.getCol(only2Indices[j][otherIndex]) ||
-                            ! lines && Sudoku2.getLine(only2Indices[i][otherIndex]) == Sudoku2.getLine(only2Indices[j][otherIndex])) {
-                        // step is X-Wing -> ignore
-                        continue;
+                } else {
+                    // must be in the same line
+                    if (Sudoku2.getLine(only2Indices[i][0]) == Sudoku2.getLine(only2Indices[j][0])) {
+                        found = true;
                     }
-                    // can something be eliminated?
-                    firstUnit.setAnd(finder.getCandidates()[cand], Sudoku2.buddies[only2Indices[i][otherIndex]]);
-                    firstUnit.and(Sudoku2.buddies[only2Indices[j][otherIndex]]);
-                    if (! firstUnit.isEmpty()) {
-                        // Skyscraper found!
-                        SolutionStep step = new SolutionStep(SolutionType.SKYSCRAPER);
-                        step.addValue(cand);
-                        if (otherIndex == 0) {
-                            step.addIndex(only2Indices[i][0]);
-                            step.addIndex(only2Indices[j][0]);
-                            step.addIndex(only2Indices[i][1]);
-                            step.addIndex(only2Indices[j][1]);
-                        } else {
-                            step.addIndex(only2Indices[i][1]);
-                            step.addIndex(only2Indices[j][1]);
-                            step.addIndex(only2Indices[i][0]);
-                            step.addIndex(only2Indices[j][0]);
-                        }
-                        for (int k = 0; k < firstUnit.size(); k++) {
-                            step.addCandidateToDelete(firstUnit.get(k), cand);
-                        }
-//                        if (onlyOne && ! Options.getInstance().isAllowDualsAndSiamese()) {
-                        if (onlyOne) {
-                            return step;
-                        } else {
-                            steps.add(step);
-                        }
+                    if (! found && Sudoku2.getLine(only2Indices[i][1]) == Sudoku2.getLine(only2Indices[j][1])) {
+                        found = true;
+                        otherIndex = 0;
+                    }
+                }
+                if (! found) {
+                    // invalid combination
+                    continue;
+                }
+                // the "free ends" must not be in the same unit or it would be an X-Wing
+                if (lines && Sudoku2.getCol(only2Indices[i][otherIndex]) == Sudoku2.getCol(only2Indices[j][otherIndex]) ||
+                        ! lines && Sudoku2.getLine(only2Indices[i][otherIndex]) == Sudoku2.getLine(only2Indices[j][otherIndex])) {
+                    // step is X-Wing -> ignore
+                    continue;
+                }
+                // can something be eliminated?
+                firstUnit.setAnd(finder.getCandidates()[cand], Sudoku2.buddies[only2Indices[i][otherIndex]]);
+                firstUnit.and(Sudoku2.buddies[only2Indices[j][otherIndex]]);
+                if (! firstUnit.isEmpty()) {
+                    // Skyscraper found!
+                    SolutionStep step = new SolutionStep(SolutionType.SKYSCRAPER);
+                    step.addValue(cand);
+                    if (otherIndex == 0) {
+                        step.addIndex(only2Indices[i][0]);
+                        step.addIndex(only2Indices[j][0]);
+                        step.addIndex(only2Indices[i][1]);
+                        step.addIndex(only2Indices[j][1]);
+                    } else {
+                        step.addIndex(only2Indices[i][1]);
+                        step.addIndex(only2Indices[j][1]);
+                        step.addIndex(only2Indices[i][0]);
+                        step.addIndex(only2Indices[j][0]);
+                    }
+                    for (int k = 0; k < firstUnit.size(); k++) {
+                        step.addCandidateToDelete(firstUnit.get(k), cand);
+                    }
+//                        if (onlyOne && ! finder.getConfig().isAllowDualsAndSiamese()) {
+                    if (onlyOne) {
+                        return step;
+                    } else {
+                        steps.add(step);
                     }
                 }
             }
@@ -637,8 +712,12 @@ public class SingleDigitPatternSolver extends AbstractSolver {
         List<SolutionStep> oldList = steps;
         List<SolutionStep> newList = new ArrayList<SolutionStep>();
         steps = newList;
-        findTwoStringKite(false);
-        if (Options.getInstance().isAllowDualsAndSiamese()) {
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            findAllForCandidates(SolutionType.TWO_STRING_KITE, true);
+        } else {
+            findTwoStringKite(false);
+        }
+        if (finder.getConfig().isAllowDualsAndSiamese()) {
             findDualTwoStringKites(steps);
         }
         Collections.sort(steps);
@@ -653,7 +732,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
     protected SolutionStep findTwoStringKite() {
         steps.clear();
         SolutionStep step = findTwoStringKite(true);
-        if (step != null && ! Options.getInstance().isAllowDualsAndSiamese()) {
+        if (step != null && ! finder.getConfig().isAllowDualsAndSiamese()) {
             return step;
         }
         findDualTwoStringKites(steps);
@@ -673,88 +752,102 @@ public class SingleDigitPatternSolver extends AbstractSolver {
      * @return
      */
     private SolutionStep findTwoStringKite(boolean onlyOne) {
-        // search for lines and columns with exactly two candidates
-        byte[][] free = sudoku.getFree();
         // try every candidate
         for (int cand = 1; cand <= 9; cand++) {
-            // get all constraints with only two candidates and the indices of the cells
-            // all lines are in only2Indices[0 .. constr1Count - 1], all cols
-            // are in only2Indices[constr1Count .. constr2Count - 1]
-            int constr1Count = 0;
-            int constr2Count = 0;
-            for (int constr = 0; constr < 18; constr++) {
-                if (free[constr][cand] == 2) {
-                    // constraint has only two candidates left -> get the indices of the cells
-                    int[] indices = Sudoku2.ALL_UNITS[constr];
-                    int candIndex = 0;
-                    for (int i = 0; i < indices.length; i++) {
-                        if (sudoku.isCandidate(indices[i], cand)) {
-                            only2Indices[constr1Count + constr2Count][candIndex++] = indices[i];
-                            if (candIndex >= 2) {
-                                break;
-                            }
+            SolutionStep step = findTwoStringKiteForCandidate(cand, onlyOne);
+            if (step != null) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Search for 2-String-Kites with candidate <code>cand</code>.
+     * @param cand
+     * @param onlyOne
+     * @return
+     */
+    private SolutionStep findTwoStringKiteForCandidate(int cand, boolean onlyOne) {
+        // search for lines and columns with exactly two candidates
+        byte[][] free = sudoku.getFree();
+        // get all constraints with only two candidates and the indices of the cells
+        // all lines are in only2Indices[0 .. constr1Count - 1], all cols
+        // are in only2Indices[constr1Count .. constr2Count - 1]
+        int constr1Count = 0;
+        int constr2Count = 0;
+        for (int constr = 0; constr < 18; constr++) {
+            if (free[constr][cand] == 2) {
+                // constraint has only two candidates left -> get the indices of the cells
+                int[] indices = Sudoku2.ALL_UNITS[constr];
+                int candIndex = 0;
+                for (int i = 0; i < indices.length; i++) {
+                    if (sudoku.isCandidate(indices[i], cand)) {
+                        only2Indices[constr1Count + constr2Count][candIndex++] = indices[i];
+                        if (candIndex >= 2) {
+                            break;
                         }
                     }
-                    if (constr < 9) {
-                        constr1Count++;
-                    } else {
-                        constr2Count++;
-                    }
+                }
+                if (constr < 9) {
+                    constr1Count++;
+                } else {
+                    constr2Count++;
                 }
             }
-            // ok: now try all combinations of those constraints
-            for (int i = 0; i < constr1Count; i++) {
-                for (int j = constr1Count; j < constr1Count + constr2Count; j++) {
-                    // one end has to be in the same line/col, but: all 4 combinations are possible
-                    // the indices in the same block end up in only2Indices[][0], the "free ends"
-                    // in only2indices[][1]
-                    if (Sudoku2.getBlock(only2Indices[i][0]) == Sudoku2.getBlock(only2Indices[j][0])) {
-                        // everything is as it should be -> do nothing
-                    } else if (Sudoku2.getBlock(only2Indices[i][0]) == Sudoku2.getBlock(only2Indices[j][1])) {
-                        int tmp = only2Indices[j][0];
-                        only2Indices[j][0] = only2Indices[j][1];
-                        only2Indices[j][1] = tmp;
-                    } else if (Sudoku2.getBlock(only2Indices[i][1]) == Sudoku2.getBlock(only2Indices[j][0])) {
-                        int tmp = only2Indices[i][0];
-                        only2Indices[i][0] = only2Indices[i][1];
-                        only2Indices[i][1] = tmp;
-                    } else if (Sudoku2.getBlock(only2Indices[i][1]) == Sudoku2.getBlock(only2Indices[j][1])) {
-                        int tmp = only2Indices[j][0];
-                        only2Indices[j][0] = only2Indices[j][1];
-                        only2Indices[j][1] = tmp;
-                        tmp = only2Indices[i][0];
-                        only2Indices[i][0] = only2Indices[i][1];
-                        only2Indices[i][1] = tmp;
+        }
+        // ok: now try all combinations of those constraints
+        for (int i = 0; i < constr1Count; i++) {
+            for (int j = constr1Count; j < constr1Count + constr2Count; j++) {
+                // one end has to be in the same line/col, but: all 4 combinations are possible
+                // the indices in the same block end up in only2Indices[][0], the "free ends"
+                // in only2indices[][1]
+                if (Sudoku2.getBlock(only2Indices[i][0]) == Sudoku2.getBlock(only2Indices[j][0])) {
+                    // everything is as it should be -> do nothing
+                } else if (Sudoku2.getBlock(only2Indices[i][0]) == Sudoku2.getBlock(only2Indices[j][1])) {
+                    int tmp = only2Indices[j][0];
+                    only2Indices[j][0] = only2Indices[j][1];
+                    only2Indices[j][1] = tmp;
+                } else if (Sudoku2.getBlock(only2Indices[i][1]) == Sudoku2.getBlock(only2Indices[j][0])) {
+                    int tmp = only2Indices[i][0];
+                    only2Indices[i][0] = only2Indices[i][1];
+                    only2Indices[i][1] = tmp;
+                } else if (Sudoku2.getBlock(only2Indices[i][1]) == Sudoku2.getBlock(only2Indices[j][1])) {
+                    int tmp = only2Indices[j][0];
+                    only2Indices[j][0] = only2Indices[j][1];
+                    only2Indices[j][1] = tmp;
+                    tmp = only2Indices[i][0];
+                    only2Indices[i][0] = only2Indices[i][1];
+                    only2Indices[i][1] = tmp;
+                } else {
+                    // nothing found -> continue with next column
+                    continue;
+                }
+                // the indices within the connecting box could be the same -> not a 2-String-Kite
+                if (only2Indices[i][0] == only2Indices[j][0] || only2Indices[i][0] == only2Indices[j][1] ||
+                        only2Indices[i][1] == only2Indices[j][0] || only2Indices[i][1] == only2Indices[j][1]) {
+                    // invalid!
+                    continue;
+                }
+                // ok: two strong links, connected in a box; can anything be deleted?
+                int crossIndex = Sudoku2.getIndex(Sudoku2.getLine(only2Indices[j][1]), Sudoku2.getCol(only2Indices[i][1]));
+                if (sudoku.isCandidate(crossIndex, cand)) {
+                    // valid 2-String-Kite!
+                    SolutionStep step = new SolutionStep(SolutionType.TWO_STRING_KITE);
+                    step.addValue(cand);
+                    step.addIndex(only2Indices[i][1]);
+                    step.addIndex(only2Indices[j][1]);
+                    step.addIndex(only2Indices[i][0]);
+                    step.addIndex(only2Indices[j][0]);
+                    step.addCandidateToDelete(crossIndex, cand);
+                    // the candidates in the connecting block are added as fins (will be painted
+                    // in a different color)
+                    step.addFin(only2Indices[i][0], cand);
+                    step.addFin(only2Indices[j][0], cand);
+                    if (onlyOne && ! finder.getConfig().isAllowDualsAndSiamese()) {
+                        return step;
                     } else {
-                        // nothing found -> continue with next column
-                        continue;
-                    }
-                    // the indices within the connecting box could be the same -> not a 2-String-Kite
-                    if (only2Indices[i][0] == only2Indices[j][0] || only2Indices[i][0] == only2Indices[j][1] ||
-                            only2Indices[i][1] == only2Indices[j][0] || only2Indices[i][1] == only2Indices[j][1]) {
-                        // invalid!
-                        continue;
-                    }
-                    // ok: two strong links, connected in a box; can anything be deleted?
-                    int crossIndex = Sudoku2.getIndex(Sudoku2.getLine(only2Indices[j][1]), Sudoku2.getCol(only2Indices[i][1]));
-                    if (sudoku.isCandidate(crossIndex, cand)) {
-                        // valid 2-String-Kite!
-                        SolutionStep step = new SolutionStep(SolutionType.TWO_STRING_KITE);
-                        step.addValue(cand);
-                        step.addIndex(only2Indices[i][1]);
-                        step.addIndex(only2Indices[j][1]);
-                        step.addIndex(only2Indices[i][0]);
-                        step.addIndex(only2Indices[j][0]);
-                        step.addCandidateToDelete(crossIndex, cand);
-                        // the candidates in the connecting block are added as fins (will be painted
-                        // in a different color)
-                        step.addFin(only2Indices[i][0], cand);
-                        step.addFin(only2Indices[j][0], cand);
-                        if (onlyOne && ! Options.getInstance().isAllowDualsAndSiamese()) {
-                            return step;
-                        } else {
-                            steps.add(step);
-                        }
+                        steps.add(step);
                     }
                 }
             }
@@ -774,7 +867,7 @@ public class SingleDigitPatternSolver extends AbstractSolver {
      * @param kites All available 2-String-Kites
      */
     private void findDualTwoStringKites(List<SolutionStep> kites) {
-        if (! Options.getInstance().isAllowDualsAndSiamese()) {
+        if (! finder.getConfig().isAllowDualsAndSiamese()) {
             // do nothing
             return;
         }
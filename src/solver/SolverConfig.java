@@ -0,0 +1,421 @@
+/*
+ * Copyright (C) 2008-12  Bernhard Hobiger
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ */
+package solver;
+
+import sudoku.DifficultyLevel;
+import sudoku.Options;
+import sudoku.SolutionType;
+import sudoku.StepConfig;
+
+/**
+ * An immutable snapshot of all settings from {@link Options}, that are
+ * used by the solvers. Snapshots are created by {@link Options#createSolverConfig() }.<br><br>
+ *
+ * Every {@link SudokuStepFinder} holds its own snapshot: it is taken, when the
+ * finder is created, and renewed by {@link SudokuSolver} at the start of every
+ * solver run. Settings that are changed for one search only (e.g. the fins
+ * for "find all fishes") are set by replacing the snapshot of the finder
+ * with a modified copy. The global {@link Options} are never changed
+ * by the solvers, so solvers with different settings can run concurrently.<br><br>
+ *
+ * The step configurations are copied: the configuration dialogs change
+ * the {@link StepConfig} objects in {@link Options} in place. The
+ * {@link DifficultyLevel} objects are shared.
+ *
+ * @author hobiwan
+ */
+public final class SolverConfig {
+    /** The step configuration for solving. */
+    private final StepConfig[] solverSteps;
+    /** The step configuration for the progress measurement. */
+    private final StepConfig[] solverStepsProgress;
+    /** The array in {@link Options}, from which {@link #solverSteps} was copied (see {@link #getSolverSteps(sudoku.StepConfig[]) }). */
+    private final StepConfig[] optionsSolverSteps;
+    /** The array in {@link Options}, from which {@link #solverStepsProgress} was copied. */
+    private final StepConfig[] optionsSolverStepsProgress;
+    /** All difficulty levels. */
+    private final DifficultyLevel[] difficultyLevels;
+    /** Fish: maximum number of fins. */
+    private final int maxFins;
+    /** Fish: maximum number of endo fins. */
+    private final int maxEndoFins;
+    /** Fish: check templates before searching. */
+    private final boolean checkTemplates;
+    /** Fish: only one fish per step. */
+    private final boolean onlyOneFishPerStep;
+    /** Kraken Fish: 0 .. basic, 1 .. franken, 2 .. mutant. */
+    private final int krakenMaxFishType;
+    /** Kraken Fish: maximum size. */
+    private final int krakenMaxFishSize;
+    /** Kraken Fish: maximum number of fins. */
+    private final int maxKrakenFins;
+    /** Kraken Fish: maximum number of endo fins. */
+    private final int maxKrakenEndoFins;
+    /** Single digit patterns and fish: allow duals and siamese steps. */
+    private final boolean allowDualsAndSiamese;
+    /** Empty Rectangles with only two candidates in the box. */
+    private final boolean allowErsWithOnlyTwoCandidates;
+    /** Uniqueness: allow missing candidates. */
+    private final boolean allowUniquenessMissingCandidates;
+    /** Chains: restrict the length of chains and loops. */
+    private final boolean restrictChainSize;
+    /** Chains: maximum length, if {@link #restrictChainSize} is set. */
+    private final int restrictChainLength;
+    /** Nice Loops: maximum length, if {@link #restrictChainSize} is set. */
+    private final int restrictNiceLoopLength;
+    /** Chains: only one chain per step. */
+    private final boolean onlyOneChainPerStep;
+    /** Tabling: maximum number of entries in one table. */
+    private final int maxTableEntryLength;
+    /** Tabling: maximum number of entries in all tables. */
+    private final int maxTableArenaSize;
+    /** Forcing Nets: number of look ahead rounds. */
+    private final int anzTableLookAhead;
+    /** Tabling: use ALS nodes. */
+    private final boolean allowAlsInTablingChains;
+    /** ALS: allow overlapping ALS. */
+    private final boolean allowAlsOverlap;
+    /** ALS: only one ALS step per step. */
+    private final boolean onlyOneAlsPerStep;
+    /** ALS-Chains in "find all steps": only forward references. */
+    private final boolean allStepsAlsChainForwardOnly;
+    /** ALS-Chains in "find all steps": maximum length. */
+    private final int allStepsAlsChainLength;
+
+    /**
+     * Creates a snapshot of <code>options</code>.
+     *
+     * @param options
+     */
+    public SolverConfig(Options options) {
+        optionsSolverSteps = options.solverSteps;
+        optionsSolverStepsProgress = options.solverStepsProgress;
+        solverSteps = options.copyStepConfigs(optionsSolverSteps, false, false, true);
+        solverStepsProgress = options.copyStepConfigs(optionsSolverStepsProgress, false, false, true);
+        difficultyLevels = options.getDifficultyLevels().clone();
+        maxFins = options.getMaxFins();
+        maxEndoFins = options.getMaxEndoFins();
+        checkTemplates = options.isCheckTemplates();
+        onlyOneFishPerStep = options.isOnlyOneFishPerStep();
+        krakenMaxFishType = options.getKrakenMaxFishType();
+        krakenMaxFishSize = options.getKrakenMaxFishSize();
+        maxKrakenFins = options.getMaxKrakenFins();
+        maxKrakenEndoFins = options.getMaxKrakenEndoFins();
+        allowDualsAndSiamese = options.isAllowDualsAndSiamese();
+        allowErsWithOnlyTwoCandidates = options.isAllowErsWithOnlyTwoCandidates();
+        allowUniquenessMissingCandidates = options.isAllowUniquenessMissingCandidates();
+        restrictChainSize = options.isRestrictChainSize();
+        restrictChainLength = options.getRestrictChainLength();
+        restrictNiceLoopLength = options.getRestrictNiceLoopLength();
+        onlyOneChainPerStep = options.isOnlyOneChainPerStep();
+        maxTableEntryLength = options.getMaxTableEntryLength();
+        maxTableArenaSize = options.getMaxTableArenaSize();
+        anzTableLookAhead = options.getAnzTableLookAhead();
+        allowAlsInTablingChains = options.isAllowAlsInTablingChains();
+        allowAlsOverlap = options.isAllowAlsOverlap();
+        onlyOneAlsPerStep = options.isOnlyOneAlsPerStep();
+        allStepsAlsChainForwardOnly = options.isAllStepsAlsChainForwardOnly();
+        allStepsAlsChainLength = options.getAllStepsAlsChainLength();
+    }
+
+    /**
+     * Creates a copy of <code>other</code> with different fish settings.
+     *
+     * @param other
+     * @param maxFins
+     * @param maxEndoFins
+     * @param checkTemplates
+     */
+    private SolverConfig(SolverConfig other, int maxFins, int maxEndoFins, boolean checkTemplates) {
+        solverSteps = other.solverSteps;
+        solverStepsProgress = other.solverStepsProgress;
+        optionsSolverSteps = other.optionsSolverSteps;
+        optionsSolverStepsProgress = other.optionsSolverStepsProgress;
+        difficultyLevels = other.difficultyLevels;
+        this.maxFins = maxFins;
+        this.maxEndoFins = maxEndoFins;
+        this.checkTemplates = checkTemplates;
+        onlyOneFishPerStep = other.onlyOneFishPerStep;
+        krakenMaxFishType = other.krakenMaxFishType;
+        krakenMaxFishSize = other.krakenMaxFishSize;
+        maxKrakenFins = other.maxKrakenFins;
+        maxKrakenEndoFins = other.maxKrakenEndoFins;
+        allowDualsAndSiamese = other.allowDualsAndSiamese;
+        allowErsWithOnlyTwoCandidates = other.allowErsWithOnlyTwoCandidates;
+        allowUniquenessMissingCandidates = other.allowUniquenessMissingCandidates;
+        restrictChainSize = other.restrictChainSize;
+        restrictChainLength = other.restrictChainLength;
+        restrictNiceLoopLength = other.restrictNiceLoopLength;
+        onlyOneChainPerStep = other.onlyOneChainPerStep;
+        maxTableEntryLength = other.maxTableEntryLength;
+        maxTableArenaSize = other.maxTableArenaSize;
+        anzTableLookAhead = other.anzTableLookAhead;
+        allowAlsInTablingChains = other.allowAlsInTablingChains;
+        allowAlsOverlap = other.allowAlsOverlap;
+        onlyOneAlsPerStep = other.onlyOneAlsPerStep;
+        allStepsAlsChainForwardOnly = other.allStepsAlsChainForwardOnly;
+        allStepsAlsChainLength = other.allStepsAlsChainLength;
+    }
+
+    /**
+     * A copy of this snapshot with different fins.
+     *
+     * @param newMaxFins
+     * @param newMaxEndoFins
+     * @return
+     */
+    public SolverConfig withFins(int newMaxFins, int newMaxEndoFins) {
+        return new SolverConfig(this, newMaxFins, newMaxEndoFins, checkTemplates);
+    }
+
+    /**
+     * A copy of this snapshot with a different {@link #checkTemplates}.
+     *
+     * @param newCheckTemplates
+     * @return
+     */
+    public SolverConfig withCheckTemplates(boolean newCheckTemplates) {
+        return new SolverConfig(this, maxFins, maxEndoFins, newCheckTemplates);
+    }
+
+    /**
+     * Find a {@link DifficultyLevel} via its ordinal.
+     *
+     * @param ordinal
+     * @return
+     */
+    public DifficultyLevel getDifficultyLevel(int ordinal) {
+        for (int i = 0; i < difficultyLevels.length; i++) {
+            if (ordinal == difficultyLevels[i].getOrdinal()) {
+                return difficultyLevels[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the difficultyLevels
+     */
+    public DifficultyLevel[] getDifficultyLevels() {
+        return difficultyLevels;
+    }
+
+    /**
+     * Callers outside the solver pass the step configurations from
+     * {@link Options}: they are replaced by the copies of this snapshot.
+     * All other arrays are returned unchanged.
+     *
+     * @param steps
+     * @return
+     */
+    public StepConfig[] getSolverSteps(StepConfig[] steps) {
+        if (steps == optionsSolverSteps) {
+            return solverSteps;
+        } else if (steps == optionsSolverStepsProgress) {
+            return solverStepsProgress;
+        }
+        return steps;
+    }
+
+    /**
+     * The {@link StepConfig} for <code>type</code> from {@link #solverSteps}
+     * (see {@link SolutionType#getStepConfig(sudoku.SolutionType) }).
+     *
+     * @param type
+     * @return
+     */
+    public StepConfig getStepConfig(SolutionType type) {
+        return SolutionType.getStepConfig(type, solverSteps);
+    }
+
+    /**
+     * @return the solverSteps
+     */
+    public StepConfig[] getSolverSteps() {
+        return solverSteps;
+    }
+
+    /**
+     * @return the solverStepsProgress
+     */
+    public StepConfig[] getSolverStepsProgress() {
+        return solverStepsProgress;
+    }
+
+    /**
+     * @return the maxFins
+     */
+    public int getMaxFins() {
+        return maxFins;
+    }
+
+    /**
+     * @return the maxEndoFins
+     */
+    public int getMaxEndoFins() {
+        return maxEndoFins;
+    }
+
+    /**
+     * @return the checkTemplates
+     */
+    public boolean isCheckTemplates() {
+        return checkTemplates;
+    }
+
+    /**
+     * @return the onlyOneFishPerStep
+     */
+    public boolean isOnlyOneFishPerStep() {
+        return onlyOneFishPerStep;
+    }
+
+    /**
+     * @return the krakenMaxFishType
+     */
+    public int getKrakenMaxFishType() {
+        return krakenMaxFishType;
+    }
+
+    /**
+     * @return the krakenMaxFishSize
+     */
+    public int getKrakenMaxFishSize() {
+        return krakenMaxFishSize;
+    }
+
+    /**
+     * @return the maxKrakenFins
+     */
+    public int getMaxKrakenFins() {
+        return maxKrakenFins;
+    }
+
+    /**
+     * @return the maxKrakenEndoFins
+     */
+    public int getMaxKrakenEndoFins() {
+        return maxKrakenEndoFins;
+    }
+
+    /**
+     * @return the allowDualsAndSiamese
+     */
+    public boolean isAllowDualsAndSiamese() {
+        return allowDualsAndSiamese;
+    }
+
+    /**
+     * @return the allowErsWithOnlyTwoCandidates
+     */
+    public boolean isAllowErsWithOnlyTwoCandidates() {
+        return allowErsWithOnlyTwoCandidates;
+    }
+
+    /**
+     * @return the allowUniquenessMissingCandidates
+     */
+    public boolean isAllowUniquenessMissingCandidates() {
+        return allowUniquenessMissingCandidates;
+    }
+
+    /**
+     * @return the restrictChainSize
+     */
+    public boolean isRestrictChainSize() {
+        return restrictChainSize;
+    }
+
+    /**
+     * @return the restrictChainLength
+     */
+    public int getRestrictChainLength() {
+        return restrictChainLength;
+    }
+
+    /**
+     * @return the restrictNiceLoopLength
+     */
+    public int getRestrictNiceLoopLength() {
+        return restrictNiceLoopLength;
+    }
+
+    /**
+     * @return the onlyOneChainPerStep
+     */
+    public boolean isOnlyOneChainPerStep() {
+        return onlyOneChainPerStep;
+    }
+
+    /**
+     * @return the maxTableEntryLength
+     */
+    public int getMaxTableEntryLength() {
+        return maxTableEntryLength;
+    }
+
+    /**
+     * @return the maxTableArenaSize
+     */
+    public int getMaxTableArenaSize() {
+        return maxTableArenaSize;
+    }
+
+    /**
+     * @return the anzTableLookAhead
+     */
+    public int getAnzTableLookAhead() {
+        return anzTableLookAhead;
+    }
+
+    /**
+     * @return the allowAlsInTablingChains
+     */
+    public boolean isAllowAlsInTablingChains() {
+        return allowAlsInTablingChains;
+    }
+
+    /**
+     * @return the allowAlsOverlap
+     */
+    public boolean isAllowAlsOverlap() {
+        return allowAlsOverlap;
+    }
+
+    /**
+     * @return the onlyOneAlsPerStep
+     */
+    public boolean isOnlyOneAlsPerStep() {
+        return onlyOneAlsPerStep;
+    }
+
+    /**
+     * @return the allStepsAlsChainForwardOnly
+     */
+    public boolean isAllStepsAlsChainForwardOnly() {
+        return allStepsAlsChainForwardOnly;
+    }
+
+    /**
+     * @return the allStepsAlsChainLength
+     */
+    public int getAllStepsAlsChainLength() {
+        return allStepsAlsChainLength;
+    }
+}
@@ -24,6 +24,7 @@ import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import sudoku.DifficultyLevel;
@@ -45,21 +46,47 @@ import sudoku.SudokuUtil;
  * @author hobiwan
  */
 public class SudokuSolver {
+    /** Minimum number of steps per task for calculating progress scores in more than one thread. */
+    private static final int PROGRESS_STEPS_PER_TASK = 20;
     private SudokuStepFinder stepFinder = new SudokuStepFinder();
+    /** The settings for the current run (see {@link #refreshConfig()}); always the same as in {@link #stepFinder}. */
+    private SolverConfig config = stepFinder.getConfig();
     private Sudoku2 sudoku;
     private List<SolutionStep> steps = new ArrayList<SolutionStep>();
     private List<SolutionStep> tmpSteps = new ArrayList<SolutionStep>(); // can be freely changed
-    private DifficultyLevel level = Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal());
-    private DifficultyLevel maxLevel = Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal());
+    private DifficultyLevel level = config.getDifficultyLevel(DifficultyType.EXTREME.ordinal());
+    private DifficultyLevel maxLevel = config.getDifficultyLevel(DifficultyType.EXTREME.ordinal());
     private int score;
-    private int[] anzSteps = new int[Options.getInstance().solverSteps.length];
-    private int[] anzStepsProgress = new int[Options.getInstance().solverSteps.length];
-    private long[] stepsNanoTime = new long[Options.getInstance().solverSteps.length];
+    private int[] anzSteps = new int[config.getSolverSteps().length];
+    private int[] anzStepsProgress = new int[config.getSolverSteps().length];
+    private long[] stepsNanoTime = new long[config.getSolverSteps().length];
+    /** For every step in the current step configuration: the lowest level of this and all following steps (see {@link #getHint(boolean, sudoku.StepConfig[], boolean)}). */
+    private int[] restLevels = new int[config.getSolverSteps().length];
+    /** For every step in the current step configuration: the lowest base score of this and all following steps. */
+    private int[] restScores = new int[config.getSolverSteps().length];
 
     /** Creates a new instance of SudokuSolver */
     public SudokuSolver() {
     }
 
+    /**
+     * Takes a new snapshot of the settings in {@link Options}. Called at the
+     * start of every public entry point, so that changes in the options are
+     * seen by the next run; the global options are never changed by the solver.
+     */
+    private void refreshConfig() {
+        setConfig(Options.getInstance().createSolverConfig());
+    }
+
+    /**
+     * Sets the settings for the solver and its {@link SudokuStepFinder}.
+     * @param config
+     */
+    private void setConfig(SolverConfig config) {
+        this.config = config;
+        stepFinder.setConfig(config);
+    }
+
     /**
      * If the time to solve the sudoku exceeds a certain limit (2s),
      * a progress dialog is displayed. The dialog is created anyway,
@@ -102,7 +129,9 @@ public class SudokuSolver {
      * @return
      */
     public boolean solve() {
-        return solve(Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal()), null, false, null, false);
+        refreshConfig();
+        return doSolve(config.getDifficultyLevel(DifficultyType.EXTREME.ordinal()), null, false, null, false,
+                config.getSolverSteps(), GameMode.PLAYING);
     }
 
     /**
@@ -118,7 +147,9 @@ public class SudokuSolver {
         setSudoku(newSudoku);
         steps = tmpSteps;
         SudokuUtil.clearStepListWithNullify(steps);
-        boolean solved = solve(Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal()), null, false, null, true);
+        refreshConfig();
+        boolean solved = doSolve(config.getDifficultyLevel(DifficultyType.EXTREME.ordinal()), null, false, null, true,
+                config.getSolverSteps(), GameMode.PLAYING);
         steps = oldList;
         //sudoku = tmpSudoku;
         setSudoku(tmpSudoku);
@@ -140,8 +171,9 @@ public class SudokuSolver {
         steps = tmpSteps;
         SudokuUtil.clearStepListWithNullify(steps);
 //        boolean solved = solve(Options.getInstance().getDifficultyLevels()[DifficultyType.EXTREME.ordinal()], null, false, null, true);
-        boolean solved = solve(Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal()),
-                    null, false, null, false, stepConfigs, GameMode.PLAYING);
+        refreshConfig();
+        boolean solved = doSolve(config.getDifficultyLevel(DifficultyType.EXTREME.ordinal()),
+                    null, false, null, false, config.getSolverSteps(stepConfigs), GameMode.PLAYING);
         steps = oldList;
         //sudoku = tmpSudoku;
         setSudoku(tmpSudoku);
@@ -172,15 +204,16 @@ public class SudokuSolver {
      */
     public boolean solve(DifficultyLevel maxLevel, Sudoku2 tmpSudoku, boolean rejectTooLowScore,
             final SolverProgressDialog dlg, boolean singlesOnly) {
-        return solve(maxLevel, tmpSudoku, rejectTooLowScore, dlg, singlesOnly, 
-                Options.getInstance().solverSteps, GameMode.PLAYING);
+        refreshConfig();
+        return doSolve(maxLevel, tmpSudoku, rejectTooLowScore, dlg, singlesOnly, 
+                config.getSolverSteps(), GameMode.PLAYING);
     }
     
     /**
      * The real solver method. Can reject a possible solution if the {@link DifficultyLevel}
      * doesnt match or if the score of the sudoku is too low. If a progress dialog
      * is passed in, the counters in the dialog are updated.<br>
-     * If <code>stepConfig</code> is {@link Options#solverStepsProgress}, the method can
+     * If <code>stepConfig</code> is {@link SolverConfig#getSolverStepsProgress()}, the method can
      * be used to measure progress or find backdoors.<br>
      * If the <code>gameMode</code> is any other than <code>PLAYING</code>,
      * any puzzle is accepted, that contains at least one step with
@@ -197,6 +230,27 @@ public class SudokuSolver {
     public boolean solve(DifficultyLevel maxLevel, Sudoku2 tmpSudoku, boolean rejectTooLowScore,
             final SolverProgressDialog dlg, boolean singlesOnly, StepConfig[] stepConfigs,
             GameMode gameMode) {
+        refreshConfig();
+        return doSolve(maxLevel, tmpSudoku, rejectTooLowScore, dlg, singlesOnly,
+                config.getSolverSteps(stepConfigs), gameMode);
+    }
+
+    /**
+     * Does the work for all <code>solve()</code> methods with the snapshot
+     * in {@link #config}, that has already been taken by the public entry point.
+     * <code>stepConfigs</code> must belong to that snapshot.
+     * @param maxLevel
+     * @param tmpSudoku
+     * @param rejectTooLowScore
+     * @param dlg
+     * @param singlesOnly
+     * @param stepConfigs
+     * @param gameMode
+     * @return
+     */
+    private boolean doSolve(DifficultyLevel maxLevel, Sudoku2 tmpSudoku, boolean rejectTooLowScore,
+            final SolverProgressDialog dlg, boolean singlesOnly, StepConfig[] stepConfigs,
+            GameMode gameMode) {
         if (tmpSudoku != null) {
             setSudoku(tmpSudoku);
         }
@@ -216,7 +270,7 @@ public class SudokuSolver {
 
         this.maxLevel = maxLevel;
         score = 0;
-        level = Options.getInstance().getDifficultyLevel(DifficultyType.EASY.ordinal());
+        level = config.getDifficultyLevel(DifficultyType.EASY.ordinal());
 
         //SudokuUtil.clearStepList(steps);
         SolutionStep step = null;
@@ -239,7 +293,7 @@ public class SudokuSolver {
             if (step != null) {
 //                System.out.println("Step: " + step.toString(2));
                 //System.out.println(sudoku.getSudoku(ClipboardMode.LIBRARY, step));
-                if (gameMode != GameMode.PLAYING && step.getType().getStepConfig().isEnabledTraining()) {
+                if (gameMode != GameMode.PLAYING && config.getStepConfig(step.getType()).isEnabledTraining()) {
 //                    System.out.println("        acceptAnyway = true!");
                     acceptAnyway = true;
                 }
@@ -253,7 +307,7 @@ public class SudokuSolver {
         // wenn der Score größer als der MaxScore der aktuellen Stufe, dann wird das
         // Puzzle höhergestuft.
         while (score > level.getMaxScore()) {
-            level = Options.getInstance().getDifficultyLevel(level.getOrdinal() + 1);
+            level = config.getDifficultyLevel(level.getOrdinal() + 1);
         }
         // Puzzle zu schwer -> ungültig
         if (level.getOrdinal() > maxLevel.getOrdinal() && acceptAnyway == false) {
@@ -264,7 +318,7 @@ public class SudokuSolver {
         // als der MaxScore einer geringeren Stufe
         if (rejectTooLowScore && level.getOrdinal() > DifficultyType.EASY.ordinal() && acceptAnyway == false) {
 
-            if (score < Options.getInstance().getDifficultyLevel(level.getOrdinal() - 1).getMaxScore()) {
+            if (score < config.getDifficultyLevel(level.getOrdinal() - 1).getMaxScore()) {
 //                System.out.println("        rejected: score too low");
                 return false;
             }
@@ -275,7 +329,7 @@ public class SudokuSolver {
 //            System.out.println("        puzzle accepted!");
             return true;
         } else {
-            sudoku.setLevel(Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal()));
+            sudoku.setLevel(config.getDifficultyLevel(DifficultyType.EXTREME.ordinal()));
 //            System.out.println("        rejected: puzzle not solved!");
             return false;
         }
@@ -284,11 +338,16 @@ public class SudokuSolver {
     /**
      * Calculates the progress scores of all steps in <code>steps</code>
      * (see {@link #getProgressScoreSingles(sudoku.Sudoku2, sudoku.SolutionStep) }).
+     * The steps are independent of each other: if there are enough of them,
+     * they are distributed over solvers from {@link SudokuSolverFactory} and
+     * checked in parallel.
      * @param tmpSudoku
      * @param stepsTocheck 
      * @param dlg
      */
-    public void getProgressScore(Sudoku2 tmpSudoku, List<SolutionStep> stepsTocheck, FindAllStepsProgressDialog dlg) {
+    public void getProgressScore(final Sudoku2 tmpSudoku, final List<SolutionStep> stepsTocheck,
+            final FindAllStepsProgressDialog dlg) {
+        refreshConfig();
         if (dlg != null) {
             dlg.resetFishProgressBar(stepsTocheck.size());
         }
@@ -298,20 +357,33 @@ public class SudokuSolver {
             // avoid exceptions
             delta = 1;
         }
-        boolean oldCheckTemplates = Options.getInstance().isCheckTemplates();
-        Options.getInstance().setCheckTemplates(false);
         long nanos = System.nanoTime();
-        Sudoku2 workingSudoku = tmpSudoku.clone();
-        for (int i = 0; i < stepsTocheck.size(); i++) {
-            SolutionStep step = stepsTocheck.get(i);
-            workingSudoku.set(tmpSudoku);
-            getProgressScore(workingSudoku, step);
-            if ((i % delta) == 0 && dlg != null) {
-                dlg.updateFishProgressBar(i);
+        final AtomicInteger nextStep = new AtomicInteger();
+        int anzTasks = Math.min(Runtime.getRuntime().availableProcessors(), stepsTocheck.size() / PROGRESS_STEPS_PER_TASK);
+        if (anzTasks > 1) {
+            final int taskDelta = delta;
+            // all tasks use the same settings
+            final SolverConfig taskConfig = config;
+            Runnable[] tasks = new Runnable[anzTasks];
+            for (int i = 0; i < anzTasks; i++) {
+                tasks[i] = new Runnable() {
+
+                    @Override
+                    public void run() {
+                        SudokuSolver solver = SudokuSolverFactory.getInstance();
+                        try {
+                            solver.setConfig(taskConfig);
+                            solver.getProgressScore(tmpSudoku, stepsTocheck, nextStep, dlg, taskDelta);
+                        } finally {
+                            SudokuSolverFactory.giveBack(solver);
+                        }
+                    }
+                };
             }
+            SudokuStepFinder.runParallel(tasks);
+        } else {
+            getProgressScore(tmpSudoku, stepsTocheck, nextStep, dlg, delta);
         }
-        Options.getInstance().setCheckTemplates(oldCheckTemplates);
-        workingSudoku = null;
         nanos = System.nanoTime() - nanos;
 //        System.out.println("getProgressScore(): " + (nanos / 1000000) + "ms (" + steps.size() + ")");
 //        for (SolutionStep step : steps) {
@@ -322,15 +394,50 @@ public class SudokuSolver {
 //        for (int i = 0; i < Options.getInstance().solverStepsProgress.length; i++) {
 //            if (anzStepsProgress[i] > 0) {
 //                System.out.printf("  %5d/%8.2fus/%12.2fms: %s\r\n", anzStepsProgress[i], (stepsNanoTime[i] / anzStepsProgress[i] / 1000.0),
-//                        (stepsNanoTime[i] / 1000000.0), Options.getInstance().solverStepsProgress[i].getType().getStepName());
+//                        (stepsNanoTime[i] / 1000000.0), config.getSolverStepsProgress()[i].getType().getStepName());
 //            }
 //        }
     }
 
+    /**
+     * Calculates the progress scores for the steps in <code>stepsTocheck</code>:
+     * the index of the next step is taken from <code>nextStep</code> until all steps
+     * are done. The steps are checked without templates and up to
+     * {@link DifficultyType#EXTREME}, the state of the solver is restored afterwards.
+     * @param tmpSudoku
+     * @param stepsTocheck
+     * @param nextStep
+     * @param dlg
+     * @param delta
+     */
+    private void getProgressScore(Sudoku2 tmpSudoku, List<SolutionStep> stepsTocheck,
+            AtomicInteger nextStep, FindAllStepsProgressDialog dlg, int delta) {
+        SolverConfig oldConfig = config;
+        DifficultyLevel oldMaxLevel = maxLevel;
+        DifficultyLevel oldLevel = level;
+        int oldScore = score;
+        setConfig(oldConfig.withCheckTemplates(false));
+        maxLevel = config.getDifficultyLevel(DifficultyType.EXTREME.ordinal());
+        Sudoku2 workingSudoku = tmpSudoku.clone();
+        int i = 0;
+        while ((i = nextStep.getAndIncrement()) < stepsTocheck.size()) {
+            SolutionStep step = stepsTocheck.get(i);
+            workingSudoku.set(tmpSudoku);
+            getProgressScore(workingSudoku, step);
+            if ((i % delta) == 0 && dlg != null) {
+                dlg.updateFishProgressBar(i);
+            }
+        }
+        setConfig(oldConfig);
+        maxLevel = oldMaxLevel;
+        level = oldLevel;
+        score = oldScore;
+    }
+
     /**
      * Calculates the progress score for <code>step</code>. The progress score is
      * defined as the number of singles the step unlocks in the sudoku, if
-     * {@link Options#solverStepsProgress} is used.
+     * {@link SolverConfig#getSolverStepsProgress()} is used.
      * @param tmpSudoku
      * @param orgStep  
      */
@@ -361,7 +468,7 @@ public class SudokuSolver {
         SolutionStep step = null;
         do {
             // jetzt eine Methode nach der anderen, aber immer nur einmal; wenn etwas gefunden wurde continue
-            step = getHint(false, Options.getInstance().solverStepsProgress, false);
+            step = getHint(false, config.getSolverStepsProgress(), false);
             if (step != null) {
 //                System.out.println("   step = " + step.toString(2));
 //                System.out.println("       " + tmpSudoku.getSudoku(ClipboardMode.LIBRARY));
@@ -373,7 +480,7 @@ public class SudokuSolver {
                 } else {
                     direct = false;
                 }
-                progressScore += step.getType().getStepConfig().getBaseScore();
+                progressScore += config.getStepConfig(step.getType()).getBaseScore();
                 //System.out.println("        " + step);
                 getStepFinder().doStep(step);
                 if (step.getType() == SolutionType.GIVE_UP) {
@@ -402,8 +509,9 @@ public class SudokuSolver {
         Sudoku2 save = this.sudoku;
         DifficultyLevel oldMaxLevel = maxLevel;
         DifficultyLevel oldLevel = level;
-        maxLevel = Options.getInstance().getDifficultyLevel(DifficultyType.EXTREME.ordinal());
-        level = Options.getInstance().getDifficultyLevel(DifficultyType.EASY.ordinal());
+        refreshConfig();
+        maxLevel = config.getDifficultyLevel(DifficultyType.EXTREME.ordinal());
+        level = config.getDifficultyLevel(DifficultyType.EASY.ordinal());
         setSudoku(sudoku);
         SolutionStep step = getHint(singlesOnly);
         maxLevel = oldMaxLevel;
@@ -419,7 +527,7 @@ public class SudokuSolver {
      * @return
      */
     private SolutionStep getHint(boolean singlesOnly) {
-        return getHint(singlesOnly, Options.getInstance().solverSteps, false);
+        return getHint(singlesOnly, config.getSolverSteps(), false);
     }
 
     /**
@@ -443,23 +551,24 @@ public class SudokuSolver {
         SolutionStep hint = null;
         //System.out.println("  sudoku: " + getStepFinder().getSudoku().getSudoku(ClipboardMode.VALUES_ONLY));
 
+        if (!acceptAnyway) {
+            initRestLevels(singlesOnly, solverSteps);
+        }
         for (int i = 0; i < solverSteps.length; i++) {
-            if (solverSteps == Options.getInstance().solverStepsProgress) {
-                if (solverSteps[i].isEnabledProgress() == false) {
-                    continue;
-                }
-            } else {
-                if (solverSteps[i].isEnabled() == false) {
-                    // diesen Schritt nicht ausführen
-                    continue;
+            if (!isStepUsable(singlesOnly, solverSteps, i)) {
+                continue;
+            }
+            // staged rating: if every step that is left would make the puzzle
+            // too difficult, they dont have to be tried at all
+            if (!acceptAnyway && (restLevels[i] > maxLevel.getOrdinal()
+                    || score + restScores[i] >= maxLevel.getMaxScore())) {
+                score += restScores[i];
+                if (restLevels[i] > level.getOrdinal()) {
+                    level = config.getDifficultyLevel(restLevels[i]);
                 }
+                return null;
             }
             SolutionType type = solverSteps[i].getType();
-            if (singlesOnly &&
-                    (type != SolutionType.HIDDEN_SINGLE && type != SolutionType.NAKED_SINGLE &&
-                    type != SolutionType.FULL_HOUSE)) {
-                continue;
-            }
             Logger.getLogger(getClass().getName()).log(Level.FINER, "trying {0}: ", SolutionStep.getStepName(type));
             long nanos = System.nanoTime();
             hint = getStepFinder().getStep(type);
@@ -473,8 +582,8 @@ public class SudokuSolver {
             if (hint != null) {
                 anzSteps[i]++;
                 score += solverSteps[i].getBaseScore();
-                if (Options.getInstance().getDifficultyLevels()[solverSteps[i].getLevel()].getOrdinal() > level.getOrdinal()) {
-                    level = Options.getInstance().getDifficultyLevels()[solverSteps[i].getLevel()];
+                if (config.getDifficultyLevels()[solverSteps[i].getLevel()].getOrdinal() > level.getOrdinal()) {
+                    level = config.getDifficultyLevels()[solverSteps[i].getLevel()];
                 }
                 // Wenn das Puzzle zu schwer ist, gleich abbrechen
                 if (!acceptAnyway) {
@@ -489,6 +598,63 @@ public class SudokuSolver {
         return null;
     }
 
+    /**
+     * Checks, if step <code>i</code> of <code>solverSteps</code> has to be
+     * tried by {@link #getHint(boolean, sudoku.StepConfig[], boolean) }.
+     * @param singlesOnly
+     * @param solverSteps
+     * @param i
+     * @return
+     */
+    private boolean isStepUsable(boolean singlesOnly, StepConfig[] solverSteps, int i) {
+        if (solverSteps == config.getSolverStepsProgress()) {
+            if (solverSteps[i].isEnabledProgress() == false) {
+                return false;
+            }
+        } else {
+            if (solverSteps[i].isEnabled() == false) {
+                // diesen Schritt nicht ausführen
+                return false;
+            }
+        }
+        SolutionType type = solverSteps[i].getType();
+        if (singlesOnly &&
+                (type != SolutionType.HIDDEN_SINGLE && type != SolutionType.NAKED_SINGLE &&
+                type != SolutionType.FULL_HOUSE)) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Fills {@link #restLevels} and {@link #restScores}: every step found
+     * adds at least <code>restScores[i]</code> to the score and raises the
+     * level to at least <code>restLevels[i]</code>, if the search gets to step <code>i</code>.
+     * Since the steps are always tried in the same order, the puzzle can be
+     * rejected as soon as these bounds exceed {@link #maxLevel}; the expensive
+     * techniques at the end of the list are then never tried for puzzles
+     * that are too difficult.
+     * @param singlesOnly
+     * @param solverSteps
+     */
+    private void initRestLevels(boolean singlesOnly, StepConfig[] solverSteps) {
+        if (restLevels.length < solverSteps.length) {
+            restLevels = new int[solverSteps.length];
+            restScores = new int[solverSteps.length];
+        }
+        DifficultyLevel[] levels = config.getDifficultyLevels();
+        int minLevel = Integer.MAX_VALUE;
+        int minScore = Integer.MAX_VALUE;
+        for (int i = solverSteps.length - 1; i >= 0; i--) {
+            if (isStepUsable(singlesOnly, solverSteps, i)) {
+                minLevel = Math.min(minLevel, levels[solverSteps[i].getLevel()].getOrdinal());
+                minScore = Math.min(minScore, solverSteps[i].getBaseScore());
+            }
+            restLevels[i] = minLevel;
+            restScores[i] = minScore;
+        }
+    }
+
     public void doStep(Sudoku2 sudoku, SolutionStep step) {
         // we mustnt call setSudoku() here or all internal 
         // data structures get changed -> just set the field itself
@@ -555,7 +721,7 @@ public class SudokuSolver {
     }
 
     public SolutionCategory getCategory(SolutionType type) {
-        for (StepConfig configStep : Options.getInstance().solverSteps) {
+        for (StepConfig configStep : config.getSolverSteps()) {
             if (type == configStep.getType()) {
                 return configStep.getCategory();
             }
@@ -642,6 +808,26 @@ public class SudokuSolver {
         }
     }
 
+    /**
+     * Resets the timing statistics of the solver.
+     */
+    public void resetStatistics() {
+        resetProgressStepCounters();
+    }
+
+    /**
+     * Adds the timing statistics of <code>other</code> to the statistics
+     * of this solver. Used to merge the statistics of solvers that have
+     * been working in parallel.
+     * @param other
+     */
+    public void addStatistics(SudokuSolver other) {
+        for (int i = 0; i < anzStepsProgress.length; i++) {
+            anzStepsProgress[i] += other.anzStepsProgress[i];
+            stepsNanoTime[i] += other.stepsNanoTime[i];
+        }
+    }
+
     /**
      * @return the stepsNanoTime
      */
@@ -665,10 +851,10 @@ public class SudokuSolver {
     public void printStatistics(PrintStream out) {
         out.println();
         out.println("Timing:");
-        for (int i = 0; i < Options.getInstance().solverSteps.length; i++) {
+        for (int i = 0; i < config.getSolverSteps().length; i++) {
             if (anzStepsProgress[i] > 0) {
                 out.printf("  %10d/%12.2fus/%12.2fms: %s\r\n", anzStepsProgress[i], (stepsNanoTime[i] / anzStepsProgress[i] / 1000.0),
-                        (stepsNanoTime[i] / 1000000.0), Options.getInstance().solverStepsProgress[i].getType().getStepName());
+                        (stepsNanoTime[i] / 1000000.0), config.getSolverStepsProgress()[i].getType().getStepName());
             }
         }
         out.println();
@@ -684,10 +870,10 @@ public class SudokuSolver {
     public void printStatistics(PrintWriter out) {
         out.println();
         out.println("Timing:");
-        for (int i = 0; i < Options.getInstance().solverSteps.length; i++) {
+        for (int i = 0; i < config.getSolverSteps().length; i++) {
             if (anzStepsProgress[i] > 0) {
                 out.printf("  %10d/%12.2fus/%12.2fms: %s\r\n", anzStepsProgress[i], (stepsNanoTime[i] / anzStepsProgress[i] / 1000.0),
-                        (stepsNanoTime[i] / 1000000.0), Options.getInstance().solverStepsProgress[i].getType().getStepName());
+                        (stepsNanoTime[i] / 1000000.0), config.getSolverStepsProgress()[i].getType().getStepName());
             }
         }
         out.println();
@@ -702,4 +888,11 @@ public class SudokuSolver {
     public SudokuStepFinder getStepFinder() {
         return stepFinder;
     }
+
+    /**
+     * @return The settings of the last run (see {@link #refreshConfig()}).
+     */
+    public SolverConfig getConfig() {
+        return config;
+    }
 }
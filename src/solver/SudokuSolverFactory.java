@@ -19,15 +19,11 @@
 
 package solver;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-
 /**
  * HoDoKu uses one instance of class {@link SudokuSolver} from within the
  * GUI. This instance is called the <b>defaultSolver</b>. For use in background
  * threads an arbitrary number of additional solver instances can be gotten
- * from this factory.<br>
+ * from this factory (they are held in an {@link InstancePool}).<br>
  * Solvers have to be released after they are used.
  * 
  * @author hobiwan
@@ -35,64 +31,32 @@ import java.util.List;
 public class SudokuSolverFactory {
     /** The <b>defaultSolver</b> for use by the GUI. */
     private static final SudokuSolver defaultSolver = new SudokuSolver();
-    /** All SudokuSolver instances created by this factory. */
-    private static List<SolverInstance> instances = new ArrayList<SolverInstance>();
-    /** A background thread that cleans up unused SudokuSolver instances. */
-    private static final Thread thread = new Thread( new Runnable() {
-        @Override
-        @SuppressWarnings("SleepWhileInLoop")
-        public void run() {
-            while (true) {
-                synchronized (thread) {
-                    // cleanup for defaultSolver
-                    defaultSolver.getStepFinder().cleanUp();
-                    
-                    // now check all other solvers
-                    Iterator<SolverInstance> iterator = instances.iterator();
-                    while (iterator.hasNext()) {
-                        SolverInstance act = iterator.next();
-                        if (act.inUse == false && (System.currentTimeMillis() - act.lastUsedAt) > SOLVER_TIMEOUT) {
-                            iterator.remove();
-                        } else {
-                            act.instance.getStepFinder().cleanUp();
-                        }
-                    }
-                }
-                try {
-                    Thread.sleep(SOLVER_TIMEOUT);
-                } catch (InterruptedException ex) {
-                    // do nothing
-                }
-            }
-        }
-    });
     /** The default cleanup time for SudokuSolver instances. */
     private static final long SOLVER_TIMEOUT = 5 * 60 * 1000;
+    /** The maximum number of unused SudokuSolver instances kept by the factory. */
+    private static final int MAX_IDLE = 2 * Runtime.getRuntime().availableProcessors() + 2;
+    /** All unused SudokuSolver instances. */
+    private static final InstancePool<SudokuSolver> pool =
+            new InstancePool<SudokuSolver>("SudokuSolverFactory", MAX_IDLE, SOLVER_TIMEOUT) {
 
-    /**
-     * One entry in {@link #instances}.
-     */
-    private static class SolverInstance {
-        /** The solver held in this entry. */
-        SudokuSolver instance = null;
-        /** <code>true</code>, if the solver has been handed out by the factory. */
-        boolean inUse = true;
-        /** Last time the solver was returned to the factory. */
-        long lastUsedAt = -1;
+        @Override
+        protected SudokuSolver create() {
+            return new SudokuSolver();
+        }
 
-        /**
-         * Create a new entry for {@link #instances}.
-         * @param instance
-         */
-        private SolverInstance(SudokuSolver instance) {
-            this.instance = instance;
+        @Override
+        protected void cleanUp() {
+            // cleanup for defaultSolver
+            defaultSolver.getStepFinder().cleanUp();
+            // now check all other solvers
+            super.cleanUp();
         }
-    }
 
-    /** Start the thread */
-    static {
-        thread.start();
-    }
+        @Override
+        protected void cleanUp(SudokuSolver instance) {
+            instance.getStepFinder().cleanUp();
+        }
+    };
 
     /**
      * This class is a utility class that cannot be instantiated.
@@ -111,21 +75,7 @@ public class SudokuSolverFactory {
      * @return
      */
     public static SudokuSolver getInstance() {
-        SudokuSolver ret = null;
-        synchronized (thread) {
-            for (SolverInstance act : instances) {
-                if (act.inUse == false) {
-                    act.inUse = true;
-                    ret = act.instance;
-                    break;
-                }
-            }
-            if (ret == null) {
-                ret = new SudokuSolver();
-                instances.add(new SolverInstance(ret));
-            }
-        }
-        return ret;
+        return pool.getInstance();
     }
 
     /**
@@ -133,14 +83,14 @@ public class SudokuSolverFactory {
      * @param solver
      */
     public static void giveBack(SudokuSolver solver) {
-        synchronized (thread) {
-            for (SolverInstance act : instances) {
-                if (act.instance == solver) {
-                    act.inUse = false;
-                    act.lastUsedAt = System.currentTimeMillis();
-                    break;
-                }
-            }
-        }
+        pool.giveBack(solver);
+    }
+
+    /**
+     * The pool holding the solvers (for statistics).
+     * @return
+     */
+    public static InstancePool<SudokuSolver> getPool() {
+        return pool;
     }
 }
@@ -20,10 +20,14 @@
 package solver;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import sudoku.FindAllStepsProgressDialog;
+import sudoku.Options;
 import sudoku.SolutionStep;
 import sudoku.SolutionType;
 import sudoku.StepConfig;
@@ -91,6 +95,8 @@ public class SudokuStepFinder {
     private boolean initialized = false;
     /** If set to <code>true</code>, the StepFinder contains only one {@link SimpleSolver} instance. */
     private boolean simpleOnly = false;
+    /** The settings used by all solvers of this finder (see {@link SolverConfig}). */
+    private SolverConfig config;
 
     // Data that is used by more than one specialized solver
     /** One set with all positions left for each candidate. */
@@ -111,8 +117,10 @@ public class SudokuStepFinder {
     private SudokuSet[] setValueTemplates = new SudokuSet[10];
     /** One template per candidate with all positions from which the candidate can be eliminated immediately. */
     private SudokuSet[] delCandTemplates = new SudokuSet[10];
-    /** The lists with all valid templates for each candidate. */
-    private List<List<SudokuSetBase>> candTemplates;
+    /** The lists with all valid templates for each candidate (indices into {@link Sudoku2#templatesM1}/{@link Sudoku2#templatesM2}). */
+    private int[][] candTemplates = new int[10][];
+    /** Number of valid templates in {@link #candTemplates} for each candidate. */
+    private int[] anzCandTemplates = new int[10];
     /** Dirty flag for templates (without refinements). */
     private boolean templatesDirty = true;
     /** Dirty flag for templates (with refinements). */
@@ -143,27 +151,23 @@ public class SudokuStepFinder {
     private boolean rcOnlyForward = true;
 
     // temporary varibles for calculating ALS and RC
-    /** Temporary set for recursion: all cells of each try */
-    private SudokuSet indexSet = new SudokuSet();
-    /** Temporary set for recursion: all numbers contained in {@link #indexSet}. */
-    private short[] candSets = new short[10];
+    /** Incremental ALS search (only ALS with more than one cell). */
+    private AlsCache alsCacheOnlyLargerThanOne = new AlsCache(true);
+    /** Incremental ALS search (ALS with one cell allowed). */
+    private AlsCache alsCacheWithOne = new AlsCache(false);
     /** statistics: total time for all calls */
     private long alsNanos;
     /** statistics: number of calls */
     private int anzAlsCalls;
-    /** statistics: number of ALS found */
-    private int anzAls;
-    /** statistics: number of ALS found more than once */
-    private int doubleAls;
-
-    /** All candidates common to two ALS. */
-    private short possibleRestrictedCommonsSet = 0;
-    /** Holds all buddies of all candidate cells for one RC (including the candidate cells themselves). */
-    private SudokuSet restrictedCommonBuddiesSet = new SudokuSet();
-    /** All cells containing a specific candidate in two ALS. */
-    private SudokuSet restrictedCommonIndexSet = new SudokuSet();
-    /** Contains the indices of all overlapping cells in two ALS. */
-    private SudokuSet intersectionSet = new SudokuSet();
+
+    /** Minimum number of ALS for searching RCs in more than one thread. */
+    private static final int RC_PARALLEL_MIN_ALS = 500;
+    /** Number of ALS checked by one RC search task. */
+    private static final int RC_ALS_PER_TASK = 64;
+    /** Minimum number of templates for refining them in more than one thread. */
+    private static final int TEMPLATES_PARALLEL_MIN = 20000;
+    /** Thread pool for parallel searches; shared by all step finders, created on demand. */
+    private static ExecutorService executor = null;
     /** statistics: total time for all calls */
     private long rcNanos;
     /** statistics: number of calls */
@@ -188,6 +192,7 @@ public class SudokuStepFinder {
     public SudokuStepFinder(boolean simpleOnly) {
         this.simpleOnly = simpleOnly;
         initialized = false;
+        config = Options.getInstance().createSolverConfig();
     }
     
     private void initialize() {
@@ -201,11 +206,9 @@ public class SudokuStepFinder {
             candidatesAllowed[i] = new SudokuSet();
         }
         // Create all templates
-        candTemplates = new ArrayList<List<SudokuSetBase>>(10);
         for (int i = 0; i < setValueTemplates.length; i++) {
             setValueTemplates[i] = new SudokuSet();
             delCandTemplates[i] = new SudokuSet();
-            candTemplates.add(i, new LinkedList<SudokuSetBase>());
         }
         // Create the solvers
         simpleSolver = new SimpleSolver(this);
@@ -334,6 +337,18 @@ public class SudokuStepFinder {
         return tablingSolver;
     }
 
+    /**
+     * Gets the memory used by the tables of the {@link TablingSolver}
+     * (0, if the solver has not been used or has been cleaned up).
+     * @return The size in bytes.
+     */
+    public long getTableFootprint() {
+        if (tablingSolver == null) {
+            return 0;
+        }
+        return tablingSolver.getTableFootprint();
+    }
+
     /******************************************************************************************************************/
     /* EXPOSE PUBLIC APIs                                                                                             */
     /******************************************************************************************************************/
@@ -911,72 +926,62 @@ public class SudokuStepFinder {
         if ((initLists && templatesListDirty) || (!initLists && templatesDirty)) {
             SudokuSetBase[] allowedPositions = getCandidates();
             SudokuSet[] setPositions = getPositions();
-            SudokuSetBase[] templates = Sudoku2.templates;
-            SudokuSetBase[] forbiddenPositions = new SudokuSetBase[10]; // eine 1 an jeder Position, an der Wert nicht mehr sein darf
-
-//        SudokuSetBase setMask = new SudokuSetBase();
-//        SudokuSetBase delMask = new SudokuSetBase();
-//        SudokuSetBase temp = new SudokuSetBase();
+            long[] templatesM1 = Sudoku2.templatesM1;
+            long[] templatesM2 = Sudoku2.templatesM2;
+            long[] setM1 = new long[10];
+            long[] setM2 = new long[10];
+            // eine 1 an jeder Position, an der Wert nicht mehr sein darf: ~(positions | allowedPositions)
+            long[] forbiddenM1 = new long[10];
+            long[] forbiddenM2 = new long[10];
+            // setValueTemplates and delCandTemplates
+            final long[] setValueM1 = new long[10];
+            final long[] setValueM2 = new long[10];
+            final long[] delCandM1 = new long[10];
+            final long[] delCandM2 = new long[10];
             for (int i = 1; i <= 9; i++) {
-                setValueTemplates[i].setAll();
-                delCandTemplates[i].clear();
-                candTemplates.get(i).clear();
-
-                // eine 1 an jeder verbotenen Position ~(positions | allowedPositions)
-                forbiddenPositions[i] = new SudokuSetBase();
-                forbiddenPositions[i].set(setPositions[i]);
-                forbiddenPositions[i].or(allowedPositions[i]);
-                forbiddenPositions[i].not();
+                setM1[i] = setPositions[i].getMask1();
+                setM2[i] = setPositions[i].getMask2();
+                forbiddenM1[i] = ~(setM1[i] | allowedPositions[i].getMask1());
+                forbiddenM2[i] = ~(setM2[i] | allowedPositions[i].getMask2());
+                setValueM1[i] = SudokuSetBase.MAX_MASK1;
+                setValueM2[i] = SudokuSetBase.MAX_MASK2;
+                anzCandTemplates[i] = 0;
+                if (initLists && candTemplates[i] == null) {
+                    candTemplates[i] = new int[Sudoku2.TEMPLATE_COUNT];
+                }
             }
-            for (int i = 0; i < templates.length; i++) {
+            // one pass over all templates for all candidates
+            for (int i = 0; i < Sudoku2.TEMPLATE_COUNT; i++) {
+                long t1 = templatesM1[i];
+                long t2 = templatesM2[i];
                 for (int j = 1; j <= 9; j++) {
-                    if (!setPositions[j].andEquals(templates[i])) {
+                    if ((setM1[j] & ~t1) != 0 || (setM2[j] & ~t2) != 0) {
                         // Template hat keine 1 an einer bereits gesetzten Position
                         continue;
                     }
-                    if (!forbiddenPositions[j].andEmpty(templates[i])) {
+                    if ((forbiddenM1[j] & t1) != 0 || (forbiddenM2[j] & t2) != 0) {
                         // Template hat eine 1 an einer verbotenen Position
                         continue;
                     }
                     // Template ist für Kandidaten erlaubt!
-                    setValueTemplates[j].and(templates[i]);
-                    delCandTemplates[j].or(templates[i]);
+                    setValueM1[j] &= t1;
+                    setValueM2[j] &= t2;
+                    delCandM1[j] |= t1;
+                    delCandM2[j] |= t2;
                     if (initLists) {
-                        candTemplates.get(j).add(templates[i]);
+                        candTemplates[j][anzCandTemplates[j]++] = i;
                     }
                 }
             }
 
             // verfeinern
             if (initLists) {
-                int removals = 0;
-                do {
-                    removals = 0;
-                    for (int j = 1; j <= 9; j++) {
-                        setValueTemplates[j].setAll();
-                        delCandTemplates[j].clear();
-                        ListIterator<SudokuSetBase> it = candTemplates.get(j).listIterator();
-                        while (it.hasNext()) {
-                            SudokuSetBase template = it.next();
-                            boolean removed = false;
-                            for (int k = 1; k <= 9; k++) {
-                                if (k != j && !template.andEmpty(setValueTemplates[k])) {
-                                    it.remove();
-                                    removed = true;
-                                    removals++;
-                                    break;
-                                }
-                            }
-                            if (!removed) {
-                                setValueTemplates[j].and(template);
-                                delCandTemplates[j].or(template);
-                            }
-                        }
-                    }
-                } while (removals > 0);
+                refineCandTemplates(setValueM1, setValueM2, delCandM1, delCandM2);
             }
 
             for (int i = 1; i <= 9; i++) {
+                setValueTemplates[i].set(setValueM1[i], setValueM2[i]);
+                delCandTemplates[i].set(delCandM1[i], delCandM2[i]);
                 delCandTemplates[i].not();
             }
             templatesDirty = false;
@@ -987,12 +992,130 @@ public class SudokuStepFinder {
         templateNanos += System.nanoTime() - nanos;
     }
 
+    /**
+     * Removes all templates from {@link #candTemplates}, that have a 1 at a
+     * position where another candidate has to be set (AND of all templates
+     * of that candidate). Repeated until no template can be removed anymore.<br>
+     * Every round uses the result of the previous round for all candidates,
+     * so the candidates can be checked in parallel. Removing templates never
+     * allows a template that has already been removed, so the result is the
+     * same as when the candidates are checked one after another.
+     * 
+     * @param setValueM1 In: AND of all templates per candidate; out: the same after refinement
+     * @param setValueM2
+     * @param delCandM1 Out: OR of all remaining templates per candidate
+     * @param delCandM2
+     */
+    private void refineCandTemplates(final long[] setValueM1, final long[] setValueM2,
+            final long[] delCandM1, final long[] delCandM2) {
+        int anzTemplates = 0;
+        for (int i = 1; i <= 9; i++) {
+            anzTemplates += anzCandTemplates[i];
+        }
+        boolean parallel = anzTemplates >= TEMPLATES_PARALLEL_MIN && Runtime.getRuntime().availableProcessors() > 1;
+        final int[] removals = new int[10];
+        int anzRemovals = 0;
+        do {
+            final long[] oldM1 = setValueM1.clone();
+            final long[] oldM2 = setValueM2.clone();
+            if (parallel) {
+                Runnable[] tasks = new Runnable[9];
+                for (int j = 1; j <= 9; j++) {
+                    final int cand = j;
+                    tasks[j - 1] = new Runnable() {
+
+                        @Override
+                        public void run() {
+                            removals[cand] = refineCandTemplates(cand, oldM1, oldM2, setValueM1, setValueM2, delCandM1, delCandM2);
+                        }
+                    };
+                }
+                runParallel(tasks);
+            } else {
+                for (int j = 1; j <= 9; j++) {
+                    removals[j] = refineCandTemplates(j, oldM1, oldM2, setValueM1, setValueM2, delCandM1, delCandM2);
+                }
+            }
+            anzRemovals = 0;
+            for (int j = 1; j <= 9; j++) {
+                anzRemovals += removals[j];
+            }
+        } while (anzRemovals > 0);
+    }
+
+    /**
+     * One round of {@link #refineCandTemplates(long[], long[], long[], long[]) } for
+     * candidate <code>cand</code>. Only the entries for <code>cand</code> are written.
+     * 
+     * @param cand
+     * @param oldM1 AND of all templates per candidate from the last round
+     * @param oldM2
+     * @param setValueM1
+     * @param setValueM2
+     * @param delCandM1
+     * @param delCandM2
+     * @return The number of templates removed
+     */
+    private int refineCandTemplates(int cand, long[] oldM1, long[] oldM2, long[] setValueM1, long[] setValueM2,
+            long[] delCandM1, long[] delCandM2) {
+        long[] templatesM1 = Sudoku2.templatesM1;
+        long[] templatesM2 = Sudoku2.templatesM2;
+        int[] templates = candTemplates[cand];
+        int anz = anzCandTemplates[cand];
+        int newAnz = 0;
+        long s1 = SudokuSetBase.MAX_MASK1;
+        long s2 = SudokuSetBase.MAX_MASK2;
+        long d1 = 0;
+        long d2 = 0;
+        for (int i = 0; i < anz; i++) {
+            long t1 = templatesM1[templates[i]];
+            long t2 = templatesM2[templates[i]];
+            boolean removed = false;
+            for (int k = 1; k <= 9; k++) {
+                if (k != cand && ((t1 & oldM1[k]) != 0 || (t2 & oldM2[k]) != 0)) {
+                    removed = true;
+                    break;
+                }
+            }
+            if (!removed) {
+                templates[newAnz++] = templates[i];
+                s1 &= t1;
+                s2 &= t2;
+                d1 |= t1;
+                d2 |= t2;
+            }
+        }
+        anzCandTemplates[cand] = newAnz;
+        setValueM1[cand] = s1;
+        setValueM2[cand] = s2;
+        delCandM1[cand] = d1;
+        delCandM2[cand] = d2;
+        return anz - newAnz;
+    }
+
     /**
      * @return the stepNumber
      */
     public int getStepNumber() {
         return stepNumber;
     }
+
+    /**
+     * @return the config
+     */
+    public SolverConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Replaces the settings of all solvers. Sizes of internal
+     * data structures (e.g. the tables of the {@link TablingSolver}) are
+     * fixed when the solvers are created and are not changed.
+     * @param config the config to set
+     */
+    public void setConfig(SolverConfig config) {
+        this.config = config;
+    }
     /******************************************************************************************************************/
     /* END TEMPLATES                                                                                                  */
     /******************************************************************************************************************/
@@ -1040,7 +1163,8 @@ public class SudokuStepFinder {
     }
 
     /**
-     * Does some statistics and starts the recursive search for every house.
+     * Does some statistics and gets the ALS from the incremental
+     * search in {@link AlsCache}.
      * 
      * @param onlyLargerThanOne
      * @return
@@ -1048,23 +1172,8 @@ public class SudokuStepFinder {
     private List<Als> doGetAlses(boolean onlyLargerThanOne) {
         long actNanos = System.nanoTime();
 
-        // this is the list we will be working with
-        List<Als> alses = new ArrayList<Als>(300);
-        alses.clear();
-
-        // recursion is started once for every cell in every house
-        for (int i = 0; i < Sudoku2.ALL_UNITS.length; i++) {
-            for (int j = 0; j < Sudoku2.ALL_UNITS[i].length; j++) {
-                indexSet.clear();
-                candSets[0] = 0;
-                checkAlsRecursive(0, j, Sudoku2.ALL_UNITS[i], alses, onlyLargerThanOne);
-            }
-        }
-
-        // compute fields
-        for (Als als : alses) {
-            als.computeFields(this);
-        }
+        AlsCache cache = onlyLargerThanOne ? alsCacheOnlyLargerThanOne : alsCacheWithOne;
+        List<Als> alses = cache.getAlses(sudoku, this);
 
         alsNanos += (System.nanoTime() - actNanos);
         anzAlsCalls++;
@@ -1072,58 +1181,13 @@ public class SudokuStepFinder {
         return alses;
     }
 
-    /**
-     * Does a recursive ALS search over one house (<code>indexe</code>).
-     * @param anzahl Number of cells already contained in {@link #indexSet}.
-     * @param startIndex First index in <code>indexe</code> to check.
-     * @param indexe Array with all the cells of the current house.
-     * @param alses List for all newly found ALS
-     * @param onlyLargerThanOne Allow ALS with only one cell (bivalue cells)
-     */
-    private void checkAlsRecursive(int anzahl, int startIndex, int[] indexe,
-            List<Als> alses, boolean onlyLargerThanOne) {
-        anzahl++;
-        if (anzahl > indexe.length - 1) {
-            // end recursion (no more than 8 cells in an ALS possible)
-            return;
-        }
-        for (int i = startIndex; i < indexe.length; i++) {
-            int houseIndex = indexe[i];
-            if (sudoku.getValue(houseIndex) != 0) {
-                // cell already set -> ignore
-                continue;
-            }
-            indexSet.add(houseIndex);
-            candSets[anzahl] = (short)(candSets[anzahl - 1] | sudoku.getCell(houseIndex));
-
-            // if the number of candidates is excatly one larger than the number
-            // of cells, an ALS was found
-            if (Sudoku2.ANZ_VALUES[candSets[anzahl]] - anzahl == 1) {
-                if (!onlyLargerThanOne || indexSet.size() > 1) {
-                    // found one -> save it if it doesnt exist already
-                    anzAls++;
-                    Als newAls = new Als(indexSet, candSets[anzahl]);
-                    if (!alses.contains(newAls)) {
-                        alses.add(newAls);
-                    } else {
-                        doubleAls++;
-                    }
-                }
-            }
-
-            // continue recursion
-            checkAlsRecursive(anzahl, i + 1, indexe, alses, onlyLargerThanOne);
-
-            // remove current cell
-            indexSet.remove(houseIndex);
-        }
-    }
-
     /**
      * Do some statistics.
      * @return
      */
     public String getAlsStatistics() {
+        int anzAls = alsCacheOnlyLargerThanOne.anzAls + alsCacheWithOne.anzAls;
+        int doubleAls = alsCacheOnlyLargerThanOne.doubleAls + alsCacheWithOne.doubleAls;
         return "Statistic for getAls(): number of calls: " + anzAlsCalls + ", total time: " +
                 (alsNanos / 1000) + "us, average: " + (alsNanos / anzAlsCalls / 1000) + "us\r\n" +
                 "    anz: " + anzAls + "/" + (anzAls / anzAlsCalls) +
@@ -1202,7 +1266,10 @@ public class SudokuStepFinder {
      * index are collected. For ALS-XZ und ALS-XY-Wing this is irrelevant. For ALS-Chains
      * it greatly improves performance, but not all chains are found. This is the default
      * when solving puzzles, {@link #rcOnlyForward} <code>false</code> is the default for
-     * search for all steps.
+     * search for all steps.<br><br>
+     * 
+     * The actual search is done by {@link RestrictedCommonSearch}; if there are
+     * many ALS, ranges of ALS are checked in parallel (see {@link #runParallel(java.lang.Runnable[]) }).
      *
      * @param withOverlap If <code>false</code> overlapping ALS are not allowed
      */
@@ -1212,80 +1279,122 @@ public class SudokuStepFinder {
         actNanos = System.nanoTime();
         // store the calculation mode
         lastRcOnlyForward = rcOnlyForward;
-        // delete all RCs from the last run
-        List<RestrictedCommon> rcs = new ArrayList<RestrictedCommon>(2000);
-        // Try all combinations of alses
-        for (int i = 0; i < alses.size(); i++) {
-            Als als1 = alses.get(i);
-            startIndices[i] = rcs.size();
-            //if (DEBUG) System.out.println("als1: " + SolutionStep.getAls(als1));
-            int start = 0;
-            if (rcOnlyForward) {
-                start = i + 1;
-            }
-            for (int j = start; j < alses.size(); j++) {
-                if (i == j) {
-                    continue;
-                }
-                Als als2 = alses.get(j);
-                // check whether the ALS overlap (intersectionSet is needed later on anyway)
-                intersectionSet.set(als1.indices);
-                intersectionSet.and(als2.indices);
-                if (!withOverlap && !intersectionSet.isEmpty()) {
-                    // overlap is not allowed!
-                    continue;
-                }
-                //if (DEBUG) System.out.println("als2: " + SolutionStep.getAls(als2));
-                // restricted common: all buddies + the positions of the candidates themselves ANDed
-                // check whether als1 and als2 have common candidates
-                possibleRestrictedCommonsSet = als1.candidates;
-                possibleRestrictedCommonsSet &= als2.candidates;
-                // possibleRestrictedCommons now contains all candidates common to both ALS
-                if (possibleRestrictedCommonsSet == 0) {
-                    // nothing to do!
-                    continue;
-                }
-                // number of RC candidates found for this ALS combination
-                int rcAnz = 0;
-                RestrictedCommon newRC = null;
-                int[] prcs = Sudoku2.POSSIBLE_VALUES[possibleRestrictedCommonsSet];
-                for (int k = 0; k < prcs.length; k++) {
-                    int cand = prcs[k];
-                    // Get all positions of cand in both ALS
-                    restrictedCommonIndexSet.set(als1.indicesPerCandidat[cand]);
-                    restrictedCommonIndexSet.or(als2.indicesPerCandidat[cand]);
-                    // non of these positions may be in the overlapping area of the two ALS
-                    if (!restrictedCommonIndexSet.andEmpty(intersectionSet)) {
-                        // at least on occurence of cand is in overlap -> forbidden
-                        continue;
-                    }
-                    // now check if all those candidates see each other
-                    restrictedCommonBuddiesSet.setAnd(als1.buddiesAlsPerCandidat[cand],
-                            als2.buddiesAlsPerCandidat[cand]);
-                    // we now know all common buddies, all common candidates must be in that set
-                    if (restrictedCommonIndexSet.andEquals(restrictedCommonBuddiesSet)) {
-                        // found -> cand is RC
-                        if (rcAnz == 0) {
-                            newRC = new RestrictedCommon(i, j, cand);
-                            rcs.add(newRC);
-                            anzRcs++;
-                        } else {
-                            newRC.setCand2(cand);
-                        }
-                        rcAnz++;
-                    }
-                }
-                if (rcAnz > 0) {
-                    //if (DEBUG) System.out.println(newRC + ": " + rcAnz + " RCs for ALS " + SolutionStep.getAls(als1) + "/" + SolutionStep.getAls(als2));
+        // all ALS per candidate and cell: only ALS found here can have an RC with an ALS
+        int[][] indexData = RestrictedCommonSearch.buildIndex(alses);
+        int anzTasks = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (alses.size() >= RC_PARALLEL_MIN_ALS && threads > 1) {
+            anzTasks = (alses.size() + RC_ALS_PER_TASK - 1) / RC_ALS_PER_TASK;
+        }
+        RestrictedCommonSearch[] searches = new RestrictedCommonSearch[anzTasks];
+        int perTask = (alses.size() + anzTasks - 1) / anzTasks;
+        for (int i = 0; i < anzTasks; i++) {
+            searches[i] = new RestrictedCommonSearch(alses, indexData, withOverlap, rcOnlyForward,
+                    Math.min(i * perTask, alses.size()), Math.min((i + 1) * perTask, alses.size()));
+        }
+        if (anzTasks == 1) {
+            searches[0].run();
+        } else {
+            runParallel(searches);
+        }
+        // collect the RCs in the order of the ALS
+        int anz = 0;
+        for (int i = 0; i < anzTasks; i++) {
+            anz += searches[i].getAnzRcs();
+        }
+        List<RestrictedCommon> rcs = new ArrayList<RestrictedCommon>(Math.max(anz, 2000));
+        int alsIndex = 0;
+        for (int i = 0; i < anzTasks; i++) {
+            int[] packed = searches[i].getRcs();
+            int rcIndex = 0;
+            for (int j = 0; j < perTask && alsIndex < alses.size(); j++, alsIndex++) {
+                startIndices[alsIndex] = rcs.size();
+                int end = rcIndex + searches[i].getAnzRcs(alsIndex);
+                for (; rcIndex < end; rcIndex++) {
+                    int rc = packed[rcIndex];
+                    rcs.add(new RestrictedCommon(alsIndex, RestrictedCommonSearch.getAls2(rc),
+                            RestrictedCommonSearch.getCand1(rc), RestrictedCommonSearch.getCand2(rc)));
                 }
+                endIndices[alsIndex] = rcs.size();
             }
-            endIndices[i] = rcs.size();
         }
+        anzRcs += anz;
         actNanos = System.nanoTime() - actNanos;
         rcNanos += actNanos;
         return rcs;
     }
 
+    /**
+     * Runs all <code>tasks</code> in {@link #executor} and waits
+     * until they are finished. If the caller is itself a thread of
+     * {@link #executor}, the tasks are run in the calling thread: waiting
+     * for them could block all threads of the pool.
+     * @param tasks
+     */
+    static void runParallel(Runnable[] tasks) {
+        if (Thread.currentThread() instanceof StepFinderThread) {
+            for (int i = 0; i < tasks.length; i++) {
+                tasks[i].run();
+            }
+            return;
+        }
+        ExecutorService pool = getExecutor();
+        List<Future<?>> futures = new ArrayList<Future<?>>(tasks.length);
+        for (int i = 0; i < tasks.length; i++) {
+            futures.add(pool.submit(tasks[i]));
+        }
+        boolean interrupted = false;
+        for (int i = 0; i < futures.size(); i++) {
+            while (true) {
+                try {
+                    futures.get(i).get();
+                    break;
+                } catch (InterruptedException ex) {
+                    // the results are needed: wait anyway
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    throw new RuntimeException(ex.getCause());
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates {@link #executor} if necessary. The threads are daemon
+     * threads and don't keep the program alive.
+     * @return
+     */
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                    new ThreadFactory() {
+
+                        private int anz = 0;
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new StepFinderThread(r, "StepFinderThread-" + anz++);
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        return executor;
+    }
+
+    /**
+     * The threads of {@link #executor}; see {@link #runParallel(java.lang.Runnable[])}.
+     */
+    private static class StepFinderThread extends Thread {
+
+        StepFinderThread(Runnable target, String name) {
+            super(target, name);
+        }
+    }
+
     /**
      * Do some statistics.
      * @return
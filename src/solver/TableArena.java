@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2008-12  Bernhard Hobiger
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package solver;
+
+/**
+ * Holds the entries and retIndices of all {@link TableEntry TableEntries}
+ * of one {@link TablingSolver} in flat arrays.<br>
+ * The storage is divided into pages of {@link #PAGE_SIZE} slots; pages are
+ * only allocated when they are needed and are never moved, so tables can be
+ * filled from more than one thread (see {@link NetTableFiller}). A table
+ * gets its slots in chunks of {@link #CHUNK_SIZE} entries, which means, that
+ * small tables use only little memory.<br><br>
+ *
+ * All tables are rebuilt for every search: {@link #clear()} makes all chunks
+ * available again without releasing the pages. The maximum number of slots
+ * is configurable (see {@link sudoku.Options#getMaxTableArenaSize()}).
+ *
+ * @author hobiwan
+ */
+final class TableArena {
+
+    /** Number of entries in one chunk (must be a power of 2). */
+    static final int CHUNK_SIZE = 32;
+    /** <code>log2(CHUNK_SIZE)</code> */
+    static final int CHUNK_SHIFT = 5;
+    /** <code>CHUNK_SIZE - 1</code> */
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    /** <code>log2(PAGE_SIZE)</code> */
+    static final int PAGE_SHIFT = 13;
+    /** Number of slots in one page (multiple of {@link #CHUNK_SIZE}). */
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    /** <code>PAGE_SIZE - 1</code> */
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+    /** Bytes needed for one slot (one int and one long). */
+    private static final int SLOT_SIZE = 12;
+    /** The entries of all tables, one array per page. */
+    final int[][] entries;
+    /** The retIndices of all tables, one array per page. */
+    final long[][] retIndices;
+    /** Number of pages already allocated. */
+    private int anzPages = 0;
+    /** The next free slot. */
+    private int nextSlot = 0;
+
+    /**
+     * Creates a new arena.
+     *
+     * @param maxSize The maximum number of slots (rounded up to a multiple
+     * of {@link #PAGE_SIZE}).
+     */
+    TableArena(int maxSize) {
+        int pages = Math.max(1, (maxSize + PAGE_MASK) >> PAGE_SHIFT);
+        entries = new int[pages][];
+        retIndices = new long[pages][];
+    }
+
+    /**
+     * Allocates a new chunk.
+     *
+     * @return The first slot of the chunk or -1, if the arena is full.
+     */
+    synchronized int allocateChunk() {
+        int page = nextSlot >> PAGE_SHIFT;
+        if (page == entries.length) {
+            return -1;
+        }
+        if (page == anzPages) {
+            entries[page] = new int[PAGE_SIZE];
+            retIndices[page] = new long[PAGE_SIZE];
+            anzPages++;
+        }
+        int slot = nextSlot;
+        nextSlot += CHUNK_SIZE;
+        return slot;
+    }
+
+    /**
+     * Makes all chunks available again. All tables that use the arena have
+     * to be reset.
+     */
+    synchronized void clear() {
+        nextSlot = 0;
+    }
+
+    /**
+     * Number of slots currently in use.
+     *
+     * @return
+     */
+    synchronized int getSize() {
+        return nextSlot;
+    }
+
+    /**
+     * The memory allocated by the arena in bytes.
+     *
+     * @return
+     */
+    synchronized long getFootprint() {
+        return (long) anzPages * PAGE_SIZE * SLOT_SIZE;
+    }
+}
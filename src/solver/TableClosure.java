@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2008-12  Bernhard Hobiger
+ *
+ * This file is part of HoDoKu.
+ *
+ * HoDoKu is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * HoDoKu is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with HoDoKu. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package solver;
+
+import java.util.Arrays;
+import java.util.List;
+import sudoku.Chain;
+import sudoku.Sudoku2;
+
+/**
+ * Computes the transitive closure of all tables in {@link TablingSolver}
+ * as bitmaps: every node (an entry that is the premise of a table) is
+ * represented by one bit, the direct implications of a node are stored
+ * as one row of bits.<br>
+ * The node numbering is: <code>cellIndex * 10 + cand</code> for normal nodes
+ * that are set, <code>OFF_OFFSET + cellIndex * 10 + cand</code> for normal nodes
+ * that are deleted, and <code>EXTENDED_OFFSET + index</code> for all entries
+ * in {@link TablingSolver#extendedTable}.<br><br>
+ *
+ * The closure is built before the tables are expanded. It contains exactly
+ * the nodes, that {@link TablingSolver#expandTables()} would write into
+ * a table, so the {@link TableEntry#onSets}/{@link TableEntry#offSets} of
+ * a table can be filled without creating the entries themselves.<br>
+ * Not thread safe.
+ *
+ * @author hobiwan
+ */
+final class TableClosure {
+
+    /** Offset of the nodes for {@link TablingSolver#offTable}. */
+    private static final int OFF_OFFSET = Sudoku2.LENGTH * 10;
+    /** Offset of the nodes for {@link TablingSolver#extendedTable}. */
+    private static final int EXTENDED_OFFSET = 2 * OFF_OFFSET;
+    /** Number of nodes in the current closure. */
+    private int nodes;
+    /** Number of longs per row. */
+    private int words;
+    /** The direct implications for every node, <code>words</code> longs per node. */
+    private long[] rows = new long[0];
+    /** All nodes reachable from the current table. */
+    private long[] reach = new long[0];
+    /** Nodes in {@link #reach}, whose implications have already been added. */
+    private long[] done = new long[0];
+
+    /**
+     * Builds the rows for all tables. Only the direct implications (all
+     * entries of not yet expanded tables) are used.
+     *
+     * @param onTable
+     * @param offTable
+     * @param extendedTable
+     * @param extendedTableIndex Number of valid entries in <code>extendedTable</code>
+     * @param extendedTableMap
+     * @return <code>false</code>, if an entry without a table exists (the closure
+     *   cannot be used in that case).
+     */
+    boolean init(TableEntry[] onTable, TableEntry[] offTable, List<TableEntry> extendedTable,
+            int extendedTableIndex, EntryIndexMap extendedTableMap) {
+        nodes = EXTENDED_OFFSET + extendedTableIndex;
+        words = (nodes + 63) >> 6;
+        int size = nodes * words;
+        if (rows.length < size) {
+            rows = new long[size];
+        } else {
+            Arrays.fill(rows, 0, size, 0L);
+        }
+        if (reach.length < words) {
+            reach = new long[words];
+            done = new long[words];
+        }
+        for (int i = 0; i < onTable.length; i++) {
+            if (!addRow(i, onTable[i], extendedTableMap)
+                    || !addRow(OFF_OFFSET + i, offTable[i], extendedTableMap)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < extendedTableIndex; i++) {
+            if (!addRow(EXTENDED_OFFSET + i, extendedTable.get(i), extendedTableMap)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects all nodes reachable from <code>node</code>: the rows of all
+     * reached nodes are ORed in, until no new nodes are found.
+     *
+     * @param node
+     * @return The number of nodes reachable from <code>node</code>.
+     */
+    int computeReach(int node) {
+        int base = node * words;
+        int anz = 0;
+        for (int i = 0; i < words; i++) {
+            reach[i] = rows[base + i];
+            done[i] = 0;
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < words; i++) {
+                long todo = reach[i] & ~done[i];
+                while (todo != 0) {
+                    long bit = todo & -todo;
+                    todo ^= bit;
+                    done[i] |= bit;
+                    int from = ((i << 6) + Long.numberOfTrailingZeros(bit)) * words;
+                    for (int j = 0; j < words; j++) {
+                        reach[j] |= rows[from + j];
+                    }
+                    changed = true;
+                }
+            }
+        }
+        for (int i = 0; i < words; i++) {
+            anz += Long.bitCount(reach[i]);
+        }
+        return anz;
+    }
+
+    /**
+     * Adds all normal nodes of the last {@link #computeReach(int)} to
+     * the {@link TableEntry#onSets}/{@link TableEntry#offSets} of <code>entry</code>.
+     *
+     * @param entry
+     */
+    void addToSets(TableEntry entry) {
+        int normalWords = EXTENDED_OFFSET >> 6;
+        for (int i = 0; i <= normalWords && i < words; i++) {
+            long act = reach[i];
+            while (act != 0) {
+                int node = (i << 6) + Long.numberOfTrailingZeros(act);
+                act &= act - 1;
+                if (node >= EXTENDED_OFFSET) {
+                    break;
+                }
+                if (node >= OFF_OFFSET) {
+                    node -= OFF_OFFSET;
+                    entry.offSets[node % 10].add(node / 10);
+                } else {
+                    entry.onSets[node % 10].add(node / 10);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the node number for a table entry.
+     *
+     * @param entry
+     * @param extendedTableMap
+     * @return The node or -1, if no table exists for <code>entry</code>.
+     */
+    static int getNode(int entry, EntryIndexMap extendedTableMap) {
+        if (Chain.getSNodeType(entry) != Chain.NORMAL_NODE) {
+            int index = extendedTableMap.get(entry);
+            return index == -1 ? -1 : EXTENDED_OFFSET + index;
+        }
+        int node = Chain.getSCellIndex(entry) * 10 + Chain.getSCandidate(entry);
+        return Chain.isSStrong(entry) ? node : OFF_OFFSET + node;
+    }
+
+    /**
+     * Stores the direct implications of <code>table</code> in the row for
+     * <code>node</code>.
+     *
+     * @param node
+     * @param table
+     * @param extendedTableMap
+     * @return <code>false</code>, if an entry without a table was found.
+     */
+    private boolean addRow(int node, TableEntry table, EntryIndexMap extendedTableMap) {
+        int base = node * words;
+        for (int i = 1; i < table.index; i++) {
+            int dest = getNode(table.getEntry(i), extendedTableMap);
+            if (dest == -1) {
+                return false;
+            }
+            rows[base + (dest >> 6)] |= 1L << dest;
+        }
+        return true;
+    }
+}
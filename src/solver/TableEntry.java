@@ -19,12 +19,9 @@
 
 package solver;
 
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import sudoku.Chain;
-import sudoku.Options;
 import sudoku.SudokuSet;
 
 /**
@@ -36,10 +33,12 @@ import sudoku.SudokuSet;
  * the entry decides cell and candidate (<code>cell * 100 + candidate</code>), one
  * table is for "candidate is deleted from cell" and one is for "cell is set to that number".<br><br>
  *
- * A <code>TableEntry</code> consists mainly of two synchronized arrays: {@link #entries} contains
- * the possible conclusions, {@link #retIndices} contains up to five indices of {@link #entries}, that
+ * A <code>TableEntry</code> consists mainly of two synchronized arrays: the entries contain
+ * the possible conclusions, the retIndices contain up to five indices of entries, that
  * have to be true to reach that conclusion (used to reconstruct the chain from the table). If
- * an entry has more than one return index, the result has to be a net instead of a chain.<br><br>
+ * an entry has more than one return index, the result has to be a net instead of a chain.
+ * The storage for both arrays is taken from a {@link TableArena} in chunks of
+ * {@link TableArena#CHUNK_SIZE} entries.<br><br>
  *
  * Two arrays of sets, {@link #onSets} and {@link #offSets}, hold bitmaps that summarize all
  * possible conclusions for the premise. A set bit in <code>onSets[cand]</code> means that
@@ -47,7 +46,7 @@ import sudoku.SudokuSet;
  * that <code>cand</code> can be eliminated from that cell. The sets are used to check for possible
  * outcomes.<br><br>
  *
- * In {@link #retIndices} references are stored to the chain elements that made
+ * In the retIndices references are stored to the chain elements that made
  * the current chain entry possible (index in the current table). Each retIndex 
  * can hold a maximum of five references to predecessors thus limiting
  * the complexity of networks.<br><br>
@@ -95,22 +94,36 @@ public class TableEntry {
     private static final long EXTENDED_TABLE = 0x8000000000000000L;
 //    private static final long RAW_ENTRY      = 0x1fffffffffffffffL;
 
-    /** Index into {@link #entries} and {@link #retIndices}. */
+    /** Number of entries in the table (index of the next entry). */
     int index = 0;
-    /** The actual table, holding all resulting links. Synchronized with {@link #retIndices}. */
-    int[] entries = new int[Options.getInstance().getMaxTableEntryLength()];
-    /** Contains up to 5 reverse indices plus the distance of the entry to the root assumption. Synchronized with {@link #entries}. */
-    long[] retIndices = new long[Options.getInstance().getMaxTableEntryLength()];
+    /** The arena that holds entries and retIndices. */
+    private final TableArena arena;
+    /** Maximum number of entries in this table. */
+    private final int capacity;
+    /** The first slot in {@link #arena} for every chunk of the table. */
+    private final int[] chunks;
+    /** Number of chunks in use. */
+    private int anzChunks = 0;
     /** Array of sets holding all cells for every candidate that can be set as a result of the assumption. */
     SudokuSet[] onSets = new SudokuSet[10];
     /** Array of sets holding all cells for every candidate that can be deleted as a result of the assumption. */
     SudokuSet[] offSets = new SudokuSet[10];
-    /** Reverse lookup cache: hold the index in {@link #entries} for every entry. Used when constructing the chain from the result
+    /** Reverse lookup cache: hold the index in the table for every entry. Used when constructing the chain from the result
      * and when expanding tables. */
-    SortedMap<Integer,Integer> indices = new TreeMap<Integer,Integer>();
+    EntryIndexMap indices = new EntryIndexMap();
+    /** The table has not been expanded yet, but {@link #onSets} and {@link #offSets} already
+     * hold the complete closure (see {@link TableClosure}). */
+    boolean expansionPending = false;
 
-    /** Creates a new instance. */
-    TableEntry() {
+    /**
+     * Creates a new instance.
+     * @param arena The arena for entries and retIndices.
+     * @param capacity Maximum number of entries in this table.
+     */
+    TableEntry(TableArena arena, int capacity) {
+        this.arena = arena;
+        this.capacity = capacity;
+        chunks = new int[(capacity + TableArena.CHUNK_MASK) >> TableArena.CHUNK_SHIFT];
         for (int i = 0; i < onSets.length; i++) {
             onSets[i] = new SudokuSet();
             offSets[i] = new SudokuSet();
@@ -122,17 +135,13 @@ public class TableEntry {
      */
     void reset() {
         index = 0;
-        entries[0] = 0;
-        retIndices[0] = 0;
+        anzChunks = 0;
         indices.clear();
+        expansionPending = false;
         for (int i = 0; i < onSets.length; i++) {
             onSets[i].clear();
             offSets[i].clear();
         }
-        for (int i = 0; i < entries.length; i++) {
-            entries[i] = 0;
-            retIndices[i] = 0;
-        }
     }
 
     /**
@@ -225,7 +234,7 @@ public class TableEntry {
      */
     void addEntry(int cellIndex1, int cellIndex2, int cellIndex3, int nodeType, int cand, boolean set, int ri1,
             int ri2, int ri3, int ri4, int ri5, int penalty) {
-        if (index >= entries.length) {
+        if (index >= capacity) {
             // already full, some possible outcomes will be missed...
             Logger.getLogger(getClass().getName()).log(Level.WARNING, "addEntry(): TableEntry is already full!");
             return;
@@ -238,18 +247,27 @@ public class TableEntry {
                 return;
             }
         }
+        if (index == anzChunks << TableArena.CHUNK_SHIFT) {
+            int chunk = arena.allocateChunk();
+            if (chunk == -1) {
+                Logger.getLogger(getClass().getName()).log(Level.WARNING, "addEntry(): TableArena is full!");
+                return;
+            }
+            chunks[anzChunks++] = chunk;
+        }
         // construct the entry and store it
         int entry = Chain.makeSEntry(cellIndex1, cellIndex2, cellIndex3, cand, set, nodeType);
-        entries[index] = entry;
-        retIndices[index] = makeSRetIndex(ri1, ri2, ri3, ri4, ri5);
+        int slot = getSlot(index);
+        arena.entries[slot >> TableArena.PAGE_SHIFT][slot & TableArena.PAGE_MASK] = entry;
+        setRetIndices(index, makeSRetIndex(ri1, ri2, ri3, ri4, ri5));
         // when expanding ri1 is the index of the original table for the entry;
         // setting the distance doesn't make any sense in this context (distance
         // is set by the expansion routine). Since we don't know here, whether we
         // are expanding or not, we just try to avoid exceptions
         // NOTE: for initial entries the code works correctly; for expanded entries
         //       the distance is overridden immediately by the expansion code.
-        if (ri1 < retIndices.length) {
-            setDistance(index, getDistance(ri1) + 1);
+        if (ri1 < capacity) {
+            setDistance(index, (ri1 < index ? getDistance(ri1) : 0) + 1);
         }
 
         // chains end only in normal links (in this implementation)
@@ -276,7 +294,37 @@ public class TableEntry {
      * @return
      */
     int getEntry(int index) {
-        return entries[index];
+        int slot = getSlot(index);
+        return arena.entries[slot >> TableArena.PAGE_SHIFT][slot & TableArena.PAGE_MASK];
+    }
+
+    /**
+     * Returns the reverse indices of the entry with index <code>index</code>.
+     * @param index
+     * @return
+     */
+    long getRetIndices(int index) {
+        int slot = getSlot(index);
+        return arena.retIndices[slot >> TableArena.PAGE_SHIFT][slot & TableArena.PAGE_MASK];
+    }
+
+    /**
+     * Sets the reverse indices of the entry with index <code>index</code>.
+     * @param index
+     * @param retIndex
+     */
+    void setRetIndices(int index, long retIndex) {
+        int slot = getSlot(index);
+        arena.retIndices[slot >> TableArena.PAGE_SHIFT][slot & TableArena.PAGE_MASK] = retIndex;
+    }
+
+    /**
+     * Returns the slot in {@link #arena} for the entry with index <code>index</code>.
+     * @param index
+     * @return
+     */
+    private int getSlot(int index) {
+        return chunks[index >> TableArena.CHUNK_SHIFT] + (index & TableArena.CHUNK_MASK);
     }
 
     /**
@@ -291,29 +339,26 @@ public class TableEntry {
      * @return
      */
     int getEntryIndex(int cellIndex, boolean set, int cand) {
-        ///*K*/ returns null???
-        Integer ret = indices.get(Chain.makeSEntry(cellIndex, cand, set));
-        if (ret == null) {
+        int ret = indices.get(Chain.makeSEntry(cellIndex, cand, set));
+        if (ret == -1) {
             //Logger.getLogger(getClass().getName()).log(Level.SEVERE, "entry not found: " + cellIndex + ", " + cand + ", " + set);
             return 0;
-        } else {
-            return ret.intValue();
         }
-//        return indices.get(Chain.makeSEntry(cellIndex, cand, set));
+        return ret;
     }
 
     /**
-     * Tries to find <code>entry</code> in {@link #entries} using {@link #indices}.
-     * The index into {@link #entries} is returned.
+     * Tries to find <code>entry</code> in the table using {@link #indices}.
+     * The index of the entry is returned.
      * @param entry
      * @return
      */
     int getEntryIndex(int entry) {
-        Integer tmp = indices.get(entry);
-        if (tmp == null) {
+        int ret = indices.get(entry);
+        if (ret == -1) {
             Logger.getLogger(getClass().getName()).log(Level.SEVERE, "tmp == null: {0}", entry);
         }
-        return indices.get(entry);
+        return ret;
     }
 
     /**
@@ -321,7 +366,15 @@ public class TableEntry {
      * @return
      */
     boolean isFull() {
-        return index == entries.length;
+        return index == capacity;
+    }
+
+    /**
+     * Returns the maximum number of entries in the table.
+     * @return
+     */
+    int getCapacity() {
+        return capacity;
     }
 
     /**
@@ -330,7 +383,7 @@ public class TableEntry {
      * @return
      */
     public int getCellIndex(int index) {
-        return Chain.getSCellIndex(entries[index]);
+        return Chain.getSCellIndex(getEntry(index));
     }
 
     /**
@@ -339,7 +392,7 @@ public class TableEntry {
      * @return
      */
     public boolean isStrong(int index) {
-        return Chain.isSStrong(entries[index]);
+        return Chain.isSStrong(getEntry(index));
     }
 
     /**
@@ -348,11 +401,11 @@ public class TableEntry {
      * @return
      */
     public int getCandidate(int index) {
-        return Chain.getSCandidate(entries[index]);
+        return Chain.getSCandidate(getEntry(index));
     }
     
     /**
-     * Constructs the data for {@link #retIndices}: Every entry contains up to
+     * Constructs the data for the retIndices: Every entry contains up to
      * 5 reverse indices (indices of entries on which the entry depends). For every
      * index 10 bits are reserved, which makes the largest value for every index 1023.
      * The first index has 12 bits, allowing for a maximum of 4095.<br><br>
@@ -450,7 +503,7 @@ public class TableEntry {
      * @return
      */
     public int getRetIndexAnz(int index) {
-        return getSRetIndexAnz(retIndices[index]);
+        return getSRetIndexAnz(getRetIndices(index));
     }
     
     /**
@@ -481,7 +534,7 @@ public class TableEntry {
      * @return
      */
     public int getRetIndex(int index, int which) {
-        return getSRetIndex(retIndices[index], which);
+        return getSRetIndex(getRetIndices(index), which);
     }
 
     /**
@@ -492,8 +545,7 @@ public class TableEntry {
     public void setDistance(int index, int distance) {
         // delete old distance (52 times 1)
         long tmp = distance & 0x1ff;
-        retIndices[index] &= 0xE00FFFFFFFFFFFFFL;
-        retIndices[index] |= (tmp << 52);
+        setRetIndices(index, (getRetIndices(index) & 0xE00FFFFFFFFFFFFFL) | (tmp << 52));
     }
 
     /**
@@ -502,7 +554,7 @@ public class TableEntry {
      * @return
      */
     public int getDistance(int index) {
-        return getSRetIndex(retIndices[index], 5) & 0x1ff;
+        return getSRetIndex(getRetIndices(index), 5) & 0x1ff;
     }
     
     /**
@@ -520,7 +572,7 @@ public class TableEntry {
      * @return
      */
     public boolean isExpanded(int index) {
-        return (retIndices[index] & EXPANDED) != 0;
+        return (getRetIndices(index) & EXPANDED) != 0;
     }
 
     /**
@@ -528,7 +580,7 @@ public class TableEntry {
      * @param index
      */
     public void setExpanded(int index) {
-        retIndices[index] |= EXPANDED;
+        setRetIndices(index, getRetIndices(index) | EXPANDED);
     }
     
     /**
@@ -538,7 +590,7 @@ public class TableEntry {
      * @return
      */
     public boolean isOnTable(int index) {
-        return (retIndices[index] & ON_TABLE) != 0;
+        return (getRetIndices(index) & ON_TABLE) != 0;
     }
 
     /**
@@ -547,7 +599,7 @@ public class TableEntry {
      * @param index
      */
     public void setOnTable(int index) {
-        retIndices[index] |= ON_TABLE;
+        setRetIndices(index, getRetIndices(index) | ON_TABLE);
     }
     
     /**
@@ -557,7 +609,7 @@ public class TableEntry {
      * @return
      */
     public boolean isExtendedTable(int index) {
-        return (retIndices[index] & EXTENDED_TABLE) != 0;
+        return (getRetIndices(index) & EXTENDED_TABLE) != 0;
     }
 
     /**
@@ -566,7 +618,7 @@ public class TableEntry {
      * @param index
      */
     public void setExtendedTable(int index) {
-        retIndices[index] |= EXTENDED_TABLE;
+        setRetIndices(index, getRetIndices(index) | EXTENDED_TABLE);
     }
 
     /**
@@ -574,7 +626,7 @@ public class TableEntry {
      * {@link TablingSolver#extendedTable}.
      */
     public void setExtendedTable() {
-        retIndices[index - 1] |= EXTENDED_TABLE;
+        setRetIndices(index - 1, getRetIndices(index - 1) | EXTENDED_TABLE);
     }
     
     /**
@@ -583,7 +635,7 @@ public class TableEntry {
      * @return  
      */
     public int getNodeType(int index) {
-        return Chain.getSNodeType(entries[index]);
+        return Chain.getSNodeType(getEntry(index));
     }
     
 }
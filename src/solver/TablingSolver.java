@@ -22,18 +22,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import sudoku.Candidate;
 import sudoku.Chain;
-import sudoku.Options;
 import sudoku.SolutionStep;
 import sudoku.SolutionType;
 import sudoku.Sudoku2;
 import sudoku.SudokuSet;
-import sudoku.SudokuSetBase;
 
 /**
  * Implements Trebors Tables for finding Nice Loops, AICs, Forcing Chains and
@@ -93,9 +90,9 @@ public class TablingSolver extends AbstractSolver {
      */
     private static boolean DEBUG = false;
     /**
-     * Maximum recursion depth in buildung the tables.
+     * Minimum number of candidates for filling the net tables in parallel.
      */
-    private static final int MAX_REC_DEPTH = 50;
+    private static final int NET_PARALLEL_MIN_CANDIDATES = 100;
     /**
      * A special comparator for comparing chains and nets.
      */
@@ -111,7 +108,7 @@ public class TablingSolver extends AbstractSolver {
     /**
      * All chains already found: eliminations + index in {@link #steps}.
      */
-    private SortedMap<String, Integer> deletesMap = new TreeMap<String, Integer>();
+    private EliminationIndex deletesMap = new EliminationIndex();
     /**
      * Search only for chains, not for nets.
      */
@@ -177,27 +174,30 @@ public class TablingSolver extends AbstractSolver {
      * value is the new index of the ALS stored in the {@link SolutionStep}.
      */
     private TreeMap<Integer, Integer> chainAlses = new TreeMap<Integer, Integer>();
-    private Sudoku2 savedSudoku;            // Sudoku2 im Ausgangszustand (für Erstellen der Tables)
-    private int[][] retIndices = new int[MAX_REC_DEPTH][5]; // indices ermitteln
-//    private int[][] retIndices1 = new int[MAX_REC_DEPTH][5]; // indices ermitteln
     private List<GroupNode> groupNodes = null;  // a list with all group nodes for a given sudoku
     private List<Als> alses = null; // a list with all available ALS for a given sudoku
 //    private SudokuSet alsBuddies = new SudokuSet(); // cells that can see all the cells of the als
     private SudokuSet[] alsEliminations = new SudokuSet[10]; // all cells with elminations for an als, sorted by candidate
-    private SudokuStepFinder simpleFinder;
-    private List<SolutionStep> singleSteps = new ArrayList<SolutionStep>();  // für Naked und Hidden Singles
-    private int[] chain = new int[Options.getInstance().getMaxTableEntryLength()]; // globale chain für buildChain()
+    private NetTableFiller[] netFillers = null; // fill the tables for nets (one per task)
+    private int[] chain = new int[finder.getConfig().getMaxTableEntryLength()]; // globale chain für buildChain()
     private int chainIndex = 0; // Index des nächsten Elements in chain[]
-    private int[][] mins = new int[200][Options.getInstance().getMaxTableEntryLength()]; // globale chains für networks
+    private int[][] mins = new int[200][finder.getConfig().getMaxTableEntryLength()]; // globale chains für networks
     private int[] minIndexes = new int[mins.length]; // Indexe der nächsten Elemente in mins[]
     private int actMin = 0;                          // derzeit aktuelles min
-    private int[] tmpChain = new int[Options.getInstance().getMaxTableEntryLength()]; // globale chain für addChain()
+    private int[] tmpChain = new int[finder.getConfig().getMaxTableEntryLength()]; // globale chain für addChain()
     private Chain[] tmpChains = new Chain[9];
     private int tmpChainsIndex = 0;
     private SudokuSet lassoSet = new SudokuSet();  // für addChain: enthält alle Zellen-Indices der Chain
     private List<TableEntry> extendedTable = null; // Tables for group nodes, ALS, AUR...
-    private SortedMap<Integer, Integer> extendedTableMap = null; // entry -> index in extendedTable
+    private EntryIndexMap extendedTableMap = null; // entry -> index in extendedTable
+    private TableArena tableArena = null; // storage for all tables
     private int extendedTableIndex = 0; // current index in extendedTable
+    private TableClosure tableClosure = null; // reachability of all tables, used for lazy expansion
+    private Sudoku2 tablesSudoku = null; // the sudoku for which the tables were built (null: tables invalid)
+    private int tablesStepNumber = -1; // the step number for which the tables were built
+    private boolean tablesChainsOnly = false; // chainsOnly used for the tables
+    private boolean tablesWithGroupNodes = false; // withGroupNodes used for the tables
+    private boolean tablesWithAlsNodes = false; // withAlsNodes used for the tables
     private boolean initialized = false;
     private long lastUsed = -1;
 
@@ -209,8 +209,6 @@ public class TablingSolver extends AbstractSolver {
     public TablingSolver(SudokuStepFinder finder) {
         super(finder);
 
-        simpleFinder = new SudokuStepFinder(true);
-
         for (int i = 0; i < tmpOnSets.length; i++) {
             tmpOnSets[i] = new SudokuSet();
             tmpOffSets[i] = new SudokuSet();
@@ -221,7 +219,7 @@ public class TablingSolver extends AbstractSolver {
         }
         for (int i = 0; i < tmpChains.length; i++) {
             tmpChains[i] = new Chain();
-            tmpChains[i].setChain(new int[Options.getInstance().getMaxTableEntryLength()]);
+            tmpChains[i].setChain(new int[finder.getConfig().getMaxTableEntryLength()]);
         }
 
         for (int i = 0; i < alsEliminations.length; i++) {
@@ -239,16 +237,19 @@ public class TablingSolver extends AbstractSolver {
      */
     private void initialize() {
         if (!initialized) {
+            tableArena = new TableArena(finder.getConfig().getMaxTableArenaSize());
             onTable = new TableEntry[810];
             offTable = new TableEntry[810];
             for (int i = 0; i < onTable.length; i++) {
-                onTable[i] = new TableEntry();
-                offTable[i] = new TableEntry();
+                onTable[i] = new TableEntry(tableArena, chain.length);
+                offTable[i] = new TableEntry(tableArena, chain.length);
             }
 
             extendedTable = new ArrayList<TableEntry>();
-            extendedTableMap = new TreeMap<Integer, Integer>();
+            extendedTableMap = new EntryIndexMap();
             extendedTableIndex = 0;
+            tableClosure = new TableClosure();
+            tablesSudoku = null;
 
             initialized = true;
         }
@@ -286,6 +287,10 @@ public class TablingSolver extends AbstractSolver {
                 extendedTableMap = null;
             }
             extendedTableIndex = 0;
+            tableClosure = null;
+            tableArena = null;
+            tablesSudoku = null;
+            netFillers = null;
 
             initialized = false;
         }
@@ -319,7 +324,7 @@ public class TablingSolver extends AbstractSolver {
             case GROUPED_DISCONTINUOUS_NICE_LOOP:
             case GROUPED_AIC:
                 withGroupNodes = true;
-                withAlsNodes = Options.getInstance().isAllowAlsInTablingChains();
+                withAlsNodes = finder.getConfig().isAllowAlsInTablingChains();
                 result = getNiceLoops();
                 break;
             case FORCING_CHAIN:
@@ -327,7 +332,7 @@ public class TablingSolver extends AbstractSolver {
             case FORCING_CHAIN_VERITY:
                 steps.clear();
                 withGroupNodes = true;
-                withAlsNodes = Options.getInstance().isAllowAlsInTablingChains();
+                withAlsNodes = finder.getConfig().isAllowAlsInTablingChains();
                 getForcingChains();
                 if (steps.size() > 0) {
                     Collections.sort(steps, tablingComparator);
@@ -339,7 +344,7 @@ public class TablingSolver extends AbstractSolver {
             case FORCING_NET_VERITY:
                 steps.clear();
                 withGroupNodes = true;
-                withAlsNodes = Options.getInstance().isAllowAlsInTablingChains();
+                withAlsNodes = finder.getConfig().isAllowAlsInTablingChains();
                 getForcingNets();
                 if (steps.size() > 0) {
                     Collections.sort(steps, tablingComparator);
@@ -424,7 +429,7 @@ public class TablingSolver extends AbstractSolver {
         long ticks = System.currentTimeMillis();
         steps = new ArrayList<SolutionStep>();
         withGroupNodes = true;
-        withAlsNodes = Options.getInstance().isAllowAlsInTablingChains();
+        withAlsNodes = finder.getConfig().isAllowAlsInTablingChains();
         onlyGroupedNiceLoops = true;
         doGetNiceLoops();
         onlyGroupedNiceLoops = false;
@@ -448,7 +453,7 @@ public class TablingSolver extends AbstractSolver {
         steps = new ArrayList<SolutionStep>();
         long millis1 = System.currentTimeMillis();
         withGroupNodes = true;
-        withAlsNodes = Options.getInstance().isAllowAlsInTablingChains();
+        withAlsNodes = finder.getConfig().isAllowAlsInTablingChains();
         getForcingChains();
         Collections.sort(steps, tablingComparator);
         millis1 = System.currentTimeMillis() - millis1;
@@ -473,7 +478,7 @@ public class TablingSolver extends AbstractSolver {
         long millis1 = System.currentTimeMillis();
         //withGroupNodes = true;
         withGroupNodes = true;
-        withAlsNodes = Options.getInstance().isAllowAlsInTablingChains();
+        withAlsNodes = finder.getConfig().isAllowAlsInTablingChains();
         getForcingNets();
         Collections.sort(steps, tablingComparator);
         millis1 = System.currentTimeMillis() - millis1;
@@ -496,32 +501,11 @@ public class TablingSolver extends AbstractSolver {
         initialize();
         sudoku = finder.getSudoku();
         deletesMap.clear();
-        // fill tables
-        long ticks = System.currentTimeMillis();
+        // search for everything (same tables as for Grouped Nice Loops and Forcing Chains)
         chainsOnly = true;
-        // search for everything
-        fillTables();
-        fillTablesWithGroupNodes();
-        if (Options.getInstance().isAllowAlsInTablingChains()) {
-            fillTablesWithAls();
-        }
-        ticks = System.currentTimeMillis() - ticks;
-        if (DEBUG) {
-            System.out.println("fillTables(): " + ticks + "ms");
-        }
-        printTableAnz();
-        //printTable("r1c6=6 fill", onTable[56]);
-        //printTable("r3c2<>8 fill", offTable[198]);
-
-        // expand tables
-        ticks = System.currentTimeMillis();
-        expandTables(onTable);
-        expandTables(offTable);
-        ticks = System.currentTimeMillis() - ticks;
-        if (DEBUG) {
-            System.out.println("expandTables(): " + ticks + "ms");
-        }
-        printTableAnz();
+        withGroupNodes = true;
+        withAlsNodes = finder.getConfig().isAllowAlsInTablingChains();
+        getTables();
         //printTable("r1c6=6 expand", onTable[56]);
         //printTable("r3c2<>8 expand", offTable[198]);
     }
@@ -537,8 +521,8 @@ public class TablingSolver extends AbstractSolver {
      * @return true if a KF exists, false otherwise
      */
     protected boolean checkKrakenTypeOne(SudokuSet fins, int index, int candidate) {
-        for (int i = 0; i < fins.size(); i++) {
-            int tableIndex = fins.get(i) * 10 + candidate;
+        for (int i = fins.nextSetBit(0); i >= 0; i = fins.nextSetBit(i + 1)) {
+            int tableIndex = i * 10 + candidate;
             if (!onTable[tableIndex].offSets[candidate].contains(index)) {
                 return false;
             }
@@ -560,8 +544,8 @@ public class TablingSolver extends AbstractSolver {
     protected boolean checkKrakenTypeTwo(SudokuSet indices, SudokuSet result, int startCandidate, int endCandidate) {
         result.set(finder.getCandidates()[endCandidate]);
         result.andNot(indices);
-        for (int i = 0; i < indices.size(); i++) {
-            int tableIndex = indices.get(i) * 10 + startCandidate;
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+            int tableIndex = i * 10 + startCandidate;
             result.and(onTable[tableIndex].offSets[endCandidate]);
         }
         return !result.isEmpty();
@@ -623,38 +607,13 @@ public class TablingSolver extends AbstractSolver {
      */
     private void doGetNiceLoops() {
         deletesMap.clear();
-        // fill tables
-        long ticks = System.currentTimeMillis();
         chainsOnly = true;
-        fillTables();
-        if (withGroupNodes) {
-            fillTablesWithGroupNodes();
-        }
-        if (withAlsNodes) {
-            fillTablesWithAls();
-        }
-        ticks = System.currentTimeMillis() - ticks;
-        if (DEBUG) {
-            System.out.println("fillTables(): " + ticks + "ms");
-        }
-        printTableAnz();
-        //printTable("r5c6=2 fill", onTable[412]);
-        //printTable("r8c6<>4 fill", offTable[684]);
-
-        // expand the tables
-        ticks = System.currentTimeMillis();
-        expandTables(onTable);
-        expandTables(offTable);
-        ticks = System.currentTimeMillis() - ticks;
-        if (DEBUG) {
-            System.out.println("expandTables(): " + ticks + "ms");
-        }
-        printTableAnz();
+        getTables();
         //printTable("r5c6=2 expand", onTable[412]);
         //printTable("r8c6<>4 expand", offTable[684]);
 
         // ok, here it starts!
-        ticks = System.currentTimeMillis();
+        long ticks = System.currentTimeMillis();
         checkNiceLoops(onTable);
         checkNiceLoops(offTable);
         checkAics(offTable);
@@ -670,6 +629,50 @@ public class TablingSolver extends AbstractSolver {
      */
     private void doGetForcingChains() {
         deletesMap.clear();
+        getTables();
+        //printTable("r6c8=1 expand", onTable[521]);
+        //printTable("r6c8<>1 expand", offTable[521]);
+
+        // ok, hier beginnt der Spass!
+        long ticks = System.currentTimeMillis();
+        checkForcingChains();
+//        // TODO: DEBUG
+//        for (SolutionStep step : steps) {
+//            if (step.getCandidatesToDelete().get(0).getIndex() == 3 && step.getCandidatesToDelete().get(0).getValue() == 5) {
+//                System.out.println("==================================");
+//                System.out.println("   " + step.toString(2));
+//                List<Chain> chains = step.getChains();
+//                for (Chain chain : chains) {
+//                    System.out.println("   chain: " + chain);
+//                }
+//                System.out.println("==================================");
+//            }
+//        }
+        ticks = System.currentTimeMillis() - ticks;
+        if (DEBUG) {
+            System.out.println("checkChains(): " + ticks + "ms");
+        }
+    }
+
+    /**
+     * Fills and expands the tables for {@link #chainsOnly}, {@link #withGroupNodes}
+     * and {@link #withAlsNodes}. Nice Loops, Forcing Chains/Nets and Kraken Fish
+     * are searched one after another on the same sudoku, Grouped Nice Loops,
+     * Forcing Chains and Kraken Fish even use the same tables: if the sudoku
+     * has not changed since the last call (same {@link SudokuStepFinder#getStepNumber() })
+     * and the configuration is the same, the tables are reused.<br><br>
+     *
+     * Reusing the tables is possible, because the searches don't change them
+     * (tables that are expanded lazily give the same result, see {@link #expandTables() }).
+     */
+    private void getTables() {
+        if (tablesStepNumber == finder.getStepNumber() && tablesSudoku == sudoku
+                && tablesChainsOnly == chainsOnly && tablesWithGroupNodes == withGroupNodes
+                && tablesWithAlsNodes == withAlsNodes) {
+            // tables are still valid
+            return;
+        }
+        tablesSudoku = null;
         // fill tables
         long ticks = System.currentTimeMillis();
         fillTables();
@@ -684,40 +687,20 @@ public class TablingSolver extends AbstractSolver {
             System.out.println("fillTables(): " + ticks + "ms");
         }
         printTableAnz();
-        //printTable("r6c8=1 fill", onTable[521]);
-        //printTable("r6c8<>1 fill", offTable[521]);
 
         // expand tables
         ticks = System.currentTimeMillis();
-        expandTables(onTable);
-        expandTables(offTable);
+        expandTables();
         ticks = System.currentTimeMillis() - ticks;
         if (DEBUG) {
             System.out.println("expandTables(): " + ticks + "ms");
         }
         printTableAnz();
-        //printTable("r6c8=1 expand", onTable[521]);
-        //printTable("r6c8<>1 expand", offTable[521]);
-
-        // ok, hier beginnt der Spass!
-        ticks = System.currentTimeMillis();
-        checkForcingChains();
-//        // TODO: DEBUG
-//        for (SolutionStep step : steps) {
-//            if (step.getCandidatesToDelete().get(0).getIndex() == 3 && step.getCandidatesToDelete().get(0).getValue() == 5) {
-//                System.out.println("==================================");
-//                System.out.println("   " + step.toString(2));
-//                List<Chain> chains = step.getChains();
-//                for (Chain chain : chains) {
-//                    System.out.println("   chain: " + chain);
-//                }
-//                System.out.println("==================================");
-//            }
-//        }
-        ticks = System.currentTimeMillis() - ticks;
-        if (DEBUG) {
-            System.out.println("checkChains(): " + ticks + "ms");
-        }
+        tablesStepNumber = finder.getStepNumber();
+        tablesSudoku = sudoku;
+        tablesChainsOnly = chainsOnly;
+        tablesWithGroupNodes = withGroupNodes;
+        tablesWithAlsNodes = withAlsNodes;
     }
 
     /**
@@ -783,8 +766,8 @@ public class TablingSolver extends AbstractSolver {
                     if (!tmpSet.isEmpty()) {
                         // get the table entries
                         entryList.clear();
-                        for (int k = 0; k < tmpSet.size(); k++) {
-                            entryList.add(onTable[tmpSet.get(k) * 10 + j]);
+                        for (int k = tmpSet.nextSetBit(0); k >= 0; k = tmpSet.nextSetBit(k + 1)) {
+                            entryList.add(onTable[k * 10 + j]);
                         }
                         // do the checks
                         checkEntryList(entryList);
@@ -1012,19 +995,20 @@ public class TablingSolver extends AbstractSolver {
         // adjust the ALS nodes
         adjustChains(globalStep);
 //        System.out.println("replaceorcopystep: " + globalStep.toString(2));
-        String del = null;
-        if (Options.getInstance().isOnlyOneChainPerStep()) {
+        boolean del = false;
+        if (finder.getConfig().isOnlyOneChainPerStep()) {
+            del = true;
             if (globalStep.getCandidatesToDelete().size() > 0) {
                 // candidates can be deleted
-                del = globalStep.getCandidateString();
+                deletesMap.setKey(globalStep);
             } else {
                 // cells can be set
-                del = globalStep.getSingleCandidateString();
+                deletesMap.setCellKey(globalStep);
             }
-            Integer oldIndex = deletesMap.get(del);
+            int oldIndex = deletesMap.get();
             SolutionStep actStep = null;
-            if (oldIndex != null) {
-                actStep = steps.get(oldIndex.intValue());
+            if (oldIndex != -1) {
+                actStep = steps.get(oldIndex);
             }
             if (actStep != null) {
                 if (actStep.getChainLength() > globalStep.getChainLength()) {
@@ -1044,9 +1028,9 @@ public class TablingSolver extends AbstractSolver {
             oldChains.add((Chain) tmpChains[i].clone());
         }
         steps.add((SolutionStep) globalStep.clone());
-        if (del != null) {
+        if (del) {
             // "only one chain" is set -> store the new step
-            deletesMap.put(del, steps.size() - 1);
+            deletesMap.put(steps.size() - 1);
         }
     }
 
@@ -1063,7 +1047,7 @@ public class TablingSolver extends AbstractSolver {
             if (i != 0) {
                 tmp.append(", ");
             }
-            tmp.append(printTableEntry(entryList.get(i).entries[0]));
+            tmp.append(printTableEntry(entryList.get(i).getEntry(0)));
         }
         return tmp.toString();
     }
@@ -1094,14 +1078,14 @@ public class TablingSolver extends AbstractSolver {
             tmpSet.remove(on.getCellIndex(0));
             if (!tmpSet.isEmpty()) {
                 // we have found at least one
-                for (int j = 0; j < tmpSet.size(); j++) {
+                for (int j = tmpSet.nextSetBit(0); j >= 0; j = tmpSet.nextSetBit(j + 1)) {
                     globalStep.reset();
                     globalStep.setType(SolutionType.FORCING_CHAIN_VERITY);
-                    globalStep.addIndex(tmpSet.get(j));
+                    globalStep.addIndex(j);
                     globalStep.addValue(i);
                     resetTmpChains();
-                    addChain(on, tmpSet.get(j), i, true);
-                    addChain(off, tmpSet.get(j), i, true);
+                    addChain(on, j, i, true);
+                    addChain(off, j, i, true);
                     replaceOrCopyStep();
                 }
             }
@@ -1114,13 +1098,13 @@ public class TablingSolver extends AbstractSolver {
             tmpSet.remove(on.getCellIndex(0));
             if (!tmpSet.isEmpty()) {
                 // found a few
-                for (int j = 0; j < tmpSet.size(); j++) {
+                for (int j = tmpSet.nextSetBit(0); j >= 0; j = tmpSet.nextSetBit(j + 1)) {
                     globalStep.reset();
                     globalStep.setType(SolutionType.FORCING_CHAIN_VERITY);
-                    globalStep.addCandidateToDelete(tmpSet.get(j), i);
+                    globalStep.addCandidateToDelete(j, i);
                     resetTmpChains();
-                    addChain(on, tmpSet.get(j), i, false);
-                    addChain(off, tmpSet.get(j), i, false);
+                    addChain(on, j, i, false);
+                    addChain(off, j, i, false);
                     replaceOrCopyStep();
                 }
             }
@@ -1161,7 +1145,7 @@ public class TablingSolver extends AbstractSolver {
                 globalStep.addValue(entry.getCandidate(0));
             }
             globalStep.setEntity(Sudoku2.CELL);
-            globalStep.setEntityNumber(tmpSet.get(0));
+            globalStep.setEntityNumber(tmpSet.nextSetBit(0));
             resetTmpChains();
             addChain(entry, entry.getCellIndex(0), entry.getCandidate(0), !entry.isStrong(0));
             replaceOrCopyStep();
@@ -1181,10 +1165,10 @@ public class TablingSolver extends AbstractSolver {
                     globalStep.addValue(entry.getCandidate(0));
                 }
                 globalStep.setEntity(Sudoku2.CELL);
-                globalStep.setEntityNumber(tmpSet.get(0));
+                globalStep.setEntityNumber(tmpSet.nextSetBit(0));
                 resetTmpChains();
-                addChain(entry, tmpSet.get(0), i, false);
-                addChain(entry, tmpSet.get(0), i, true);
+                addChain(entry, tmpSet.nextSetBit(0), i, false);
+                addChain(entry, tmpSet.nextSetBit(0), i, true);
                 replaceOrCopyStep();
             }
         }
@@ -1203,10 +1187,10 @@ public class TablingSolver extends AbstractSolver {
                         globalStep.addValue(entry.getCandidate(0));
                     }
                     globalStep.setEntity(Sudoku2.CELL);
-                    globalStep.setEntityNumber(tmpSet.get(0));
+                    globalStep.setEntityNumber(tmpSet.nextSetBit(0));
                     resetTmpChains();
-                    addChain(entry, tmpSet.get(0), i, true);
-                    addChain(entry, tmpSet.get(0), j, true);
+                    addChain(entry, tmpSet.nextSetBit(0), i, true);
+                    addChain(entry, tmpSet.nextSetBit(0), j, true);
                     replaceOrCopyStep();
                 }
             }
@@ -1235,7 +1219,7 @@ public class TablingSolver extends AbstractSolver {
         }
         tmpSet.andNot(tmpSet2);
         if (!tmpSet.isEmpty()) {
-            for (int i = 0; i < tmpSet.size(); i++) {
+            for (int i = tmpSet.nextSetBit(0); i >= 0; i = tmpSet.nextSetBit(i + 1)) {
                 globalStep.reset();
                 globalStep.setType(SolutionType.FORCING_CHAIN_CONTRADICTION);
                 if (entry.isStrong(0)) {
@@ -1245,11 +1229,11 @@ public class TablingSolver extends AbstractSolver {
                     globalStep.addValue(entry.getCandidate(0));
                 }
                 globalStep.setEntity(Sudoku2.CELL);
-                globalStep.setEntityNumber(tmpSet.get(i));
+                globalStep.setEntityNumber(i);
                 resetTmpChains();
-                int[] cands = sudoku.getAllCandidates(tmpSet.get(i));
+                int[] cands = sudoku.getAllCandidates(i);
                 for (int j = 0; j < cands.length; j++) {
-                    addChain(entry, tmpSet.get(i), cands[j], false);
+                    addChain(entry, i, cands[j], false);
                 }
                 if (entry.isStrong(0)) {
                     replaceOrCopyStep();
@@ -1293,8 +1277,8 @@ public class TablingSolver extends AbstractSolver {
                     globalStep.setEntity(entityTyp);
                     globalStep.setEntityNumber(j);
                     resetTmpChains();
-                    for (int k = 0; k < tmpSet.size(); k++) {
-                        addChain(entry, tmpSet.get(k), i, false);
+                    for (int k = tmpSet.nextSetBit(0); k >= 0; k = tmpSet.nextSetBit(k + 1)) {
+                        addChain(entry, k, i, false);
                     }
                     if (entry.isStrong(0)) {
                         replaceOrCopyStep();
@@ -1329,8 +1313,8 @@ public class TablingSolver extends AbstractSolver {
                     globalStep.setEntity(entityTyp);
                     globalStep.setEntityNumber(j);
                     resetTmpChains();
-                    for (int k = 0; k < tmpSet.size(); k++) {
-                        addChain(entry, tmpSet.get(k), i, true);
+                    for (int k = tmpSet.nextSetBit(0); k >= 0; k = tmpSet.nextSetBit(k + 1)) {
+                        addChain(entry, k, i, true);
                     }
                     if (entry.isStrong(0)) {
                         replaceOrCopyStep();
@@ -1353,6 +1337,10 @@ public class TablingSolver extends AbstractSolver {
         // check all table entries
         for (int i = 0; i < tables.length; i++) {
             int startIndex = tables[i].getCellIndex(0);
+            if (tables[i].expansionPending && hasNewEntryInCell(tables[i], startIndex)) {
+                // the loop needs entries from other tables
+                ensureExpanded(tables[i]);
+            }
             for (int j = 1; j < tables[i].index; j++) {
                 if (tables[i].getNodeType(j) == Chain.NORMAL_NODE
                         && tables[i].getCellIndex(j) == startIndex) {
@@ -1378,37 +1366,96 @@ public class TablingSolver extends AbstractSolver {
         for (int i = 0; i < tables.length; i++) {
             int startIndex = tables[i].getCellIndex(0);
             int startCandidate = tables[i].getCandidate(0);
-            SudokuSetBase buddies = Sudoku2.buddies[startIndex];
+            if (tables[i].expansionPending && hasNewAicEnd(tables[i])) {
+                // the AIC needs entries from other tables
+                ensureExpanded(tables[i]);
+            }
             for (int j = 1; j < tables[i].index; j++) {
                 if (tables[i].getNodeType(j) != Chain.NORMAL_NODE
                         || !tables[i].isStrong(j) || tables[i].getCellIndex(j) == startIndex) {
                     // not now
                     continue;
                 }
-                if (startCandidate == tables[i].getCandidate(j)) {
-                    // check Type 1
-                    tmpSet.set(buddies);
-                    tmpSet.and(Sudoku2.buddies[tables[i].getCellIndex(j)]);
-                    tmpSet.and(finder.getCandidates()[startCandidate]);
-                    if (!tmpSet.isEmpty() && tmpSet.size() >= 2) {
-                        // everything else is already covered by a Nice Loop
-                        checkAic(tables[i], j);
-                    }
-                } else {
-                    if (!buddies.contains(tables[i].getCellIndex(j))) {
-                        // cant be Type 2
-                        continue;
-                    }
-                    if (sudoku.isCandidate(tables[i].getCellIndex(j), startCandidate)
-                            && sudoku.isCandidate(startIndex, tables[i].getCandidate(j))) {
-                        // Type 2
-                        checkAic(tables[i], j);
-                    }
+                if (isAicEnd(startIndex, startCandidate, tables[i].getCellIndex(j), tables[i].getCandidate(j))) {
+                    checkAic(tables[i], j);
                 }
             }
         }
     }
 
+    /**
+     * Checks whether an AIC from <code>startIndex</code>/<code>startCandidate</code>
+     * to <code>endIndex</code>/<code>endCandidate</code> could eliminate something.
+     *
+     * @param startIndex
+     * @param startCandidate
+     * @param endIndex
+     * @param endCandidate
+     * @return
+     */
+    private boolean isAicEnd(int startIndex, int startCandidate, int endIndex, int endCandidate) {
+        if (startCandidate == endCandidate) {
+            // check Type 1
+            tmpSet.set(Sudoku2.buddies[startIndex]);
+            tmpSet.and(Sudoku2.buddies[endIndex]);
+            tmpSet.and(finder.getCandidates()[startCandidate]);
+            // everything else is already covered by a Nice Loop
+            return !tmpSet.isEmpty() && tmpSet.size() >= 2;
+        }
+        if (!Sudoku2.buddies[startIndex].contains(endIndex)) {
+            // cant be Type 2
+            return false;
+        }
+        // Type 2
+        return sudoku.isCandidate(endIndex, startCandidate)
+                && sudoku.isCandidate(startIndex, endCandidate);
+    }
+
+    /**
+     * Checks whether the closure of a not yet expanded table contains a link
+     * to <code>cellIndex</code>, that is not a direct implication.
+     *
+     * @param entry
+     * @param cellIndex
+     * @return
+     */
+    private boolean hasNewEntryInCell(TableEntry entry, int cellIndex) {
+        for (int cand = 1; cand <= 9; cand++) {
+            if (entry.onSets[cand].contains(cellIndex)
+                    && !entry.indices.containsKey(Chain.makeSEntry(cellIndex, cand, true))) {
+                return true;
+            }
+            if (entry.offSets[cand].contains(cellIndex)
+                    && !entry.indices.containsKey(Chain.makeSEntry(cellIndex, cand, false))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the closure of a not yet expanded table contains a
+     * possible end for an AIC, that is not a direct implication (see
+     * {@link #checkAics(solver.TableEntry[]) }).
+     *
+     * @param entry
+     * @return
+     */
+    private boolean hasNewAicEnd(TableEntry entry) {
+        int startIndex = entry.getCellIndex(0);
+        int startCandidate = entry.getCandidate(0);
+        for (int cand = 1; cand <= 9; cand++) {
+            SudokuSet ends = entry.onSets[cand];
+            for (int i = ends.nextSetBit(0); i >= 0; i = ends.nextSetBit(i + 1)) {
+                if (i != startIndex && !entry.indices.containsKey(Chain.makeSEntry(i, cand, true))
+                        && isAicEnd(startIndex, startCandidate, i, cand)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * If the first and the last cell of the chain are identical, the chain is a
      * Nice Loop.<br><br>
@@ -1576,8 +1623,8 @@ public class TablingSolver extends AbstractSolver {
                     tmpSet.remove(startIndex);
                     tmpSet.and(finder.getCandidates()[actCand]);
                     if (!tmpSet.isEmpty()) {
-                        for (int j = 0; j < tmpSet.size(); j++) {
-                            globalStep.addCandidateToDelete(tmpSet.get(j), actCand);
+                        for (int j = tmpSet.nextSetBit(0); j >= 0; j = tmpSet.nextSetBit(j + 1)) {
+                            globalStep.addCandidateToDelete(j, actCand);
                         }
                     }
                     if (Chain.getSNodeType(nlChain[i]) == Chain.ALS_NODE) {
@@ -1611,8 +1658,8 @@ public class TablingSolver extends AbstractSolver {
                             //tmpSet.remove(startIndex);
                             tmpSet.and(finder.getCandidates()[j]);
                             if (!tmpSet.isEmpty()) {
-                                for (int k = 0; k < tmpSet.size(); k++) {
-                                    globalStep.addCandidateToDelete(tmpSet.get(k), j);
+                                for (int k = tmpSet.nextSetBit(0); k >= 0; k = tmpSet.nextSetBit(k + 1)) {
+                                    globalStep.addCandidateToDelete(k, j);
                                 }
                             }
                         }
@@ -1621,16 +1668,16 @@ public class TablingSolver extends AbstractSolver {
                             // for all exit candidates: eliminate everything that sees all instances
                             // of that cand in the als and in the next cell
                             tmpSet1.set(Sudoku2.buddies[nextCellIndex]);
-                            for (int j = 0; j < tmpSet2.size(); j++) {
-                                int actExitCand = tmpSet2.get(j);
+                            for (int j = tmpSet2.nextSetBit(0); j >= 0; j = tmpSet2.nextSetBit(j + 1)) {
+                                int actExitCand = j;
                                 tmpSet.set(als.buddiesPerCandidat[actExitCand]);
                                 tmpSet.and(tmpSet1);
                                 //tmpSet.andNot(tmpSetC);
                                 //tmpSet.remove(startIndex);
                                 tmpSet.and(finder.getCandidates()[actExitCand]);
                                 if (!tmpSet.isEmpty()) {
-                                    for (int k = 0; k < tmpSet.size(); k++) {
-                                        globalStep.addCandidateToDelete(tmpSet.get(k), actExitCand);
+                                    for (int k = tmpSet.nextSetBit(0); k >= 0; k = tmpSet.nextSetBit(k + 1)) {
+                                        globalStep.addCandidateToDelete(k, actExitCand);
                                     }
                                 }
                             }
@@ -1666,13 +1713,12 @@ public class TablingSolver extends AbstractSolver {
                 return;
             }
             // only one Nice Loop per set of eliminations
-            String del = globalStep.getCandidateString();
-            Integer oldIndex = deletesMap.get(del);
-            if (oldIndex != null && steps.get(oldIndex.intValue()).getChainLength() <= nlChainLength) {
+            int oldIndex = deletesMap.setKey(globalStep).get();
+            if (oldIndex != -1 && steps.get(oldIndex).getChainLength() <= nlChainLength) {
                 // an eqivalent does exist and is shorter than the new one
                 return;
             }
-            deletesMap.put(del, steps.size());
+            deletesMap.put(steps.size());
             // the chain has to be copied
             newChain = (Chain) globalStep.getChains().get(0).clone();
             globalStep.getChains().clear();
@@ -1710,9 +1756,9 @@ public class TablingSolver extends AbstractSolver {
             tmpSet.and(Sudoku2.buddies[endIndex]);
             tmpSet.and(finder.getCandidates()[startCandidate]);
             if (tmpSet.size() > 1) {
-                for (int i = 0; i < tmpSet.size(); i++) {
-                    if (tmpSet.get(i) != startIndex) {
-                        globalStep.addCandidateToDelete(tmpSet.get(i), startCandidate);
+                for (int i = tmpSet.nextSetBit(0); i >= 0; i = tmpSet.nextSetBit(i + 1)) {
+                    if (i != startIndex) {
+                        globalStep.addCandidateToDelete(i, startCandidate);
                     }
                 }
             }
@@ -1760,13 +1806,12 @@ public class TablingSolver extends AbstractSolver {
             return;
         }
         // check for steps with the same eliminations
-        String del = globalStep.getCandidateString();
-        Integer oldIndex = deletesMap.get(del);
-        if (oldIndex != null && steps.get(oldIndex.intValue()).getChainLength() <= globalStep.getChains().get(0).getLength()) {
+        int oldIndex = deletesMap.setKey(globalStep).get();
+        if (oldIndex != -1 && steps.get(oldIndex).getChainLength() <= globalStep.getChains().get(0).getLength()) {
             // a similar chain already exists and is shorter than the new one -> ignore it
             return;
         }
-        deletesMap.put(del, steps.size());
+        deletesMap.put(steps.size());
         // chain must be copied
         newChain = (Chain) globalStep.getChains().get(0).clone();
         globalStep.getChains().clear();
@@ -1779,7 +1824,7 @@ public class TablingSolver extends AbstractSolver {
      * Fills the tables with all initial consequences. One table exists for
      * every outcome (set/not set) of every candidate in the sudoku. If {@link #chainsOnly}
      * is set, only direct dependencies are recorded. If it is not set,
-     * {@link #getTableEntry(solver.TableEntry, int, int, boolean) } is used to
+     * {@link NetTableFiller#getTableEntry(solver.TableEntry, int, int, boolean) } is used to
      * dig a little deeper.<br><br>
      *
      * All consequences depend on the original sudoku. Especially when searching
@@ -1789,6 +1834,7 @@ public class TablingSolver extends AbstractSolver {
      */
     private void fillTables() {
         // initalize tables
+        tableArena.clear();
         for (int i = 0; i < onTable.length; i++) {
             onTable[i].reset();
             offTable[i].reset();
@@ -1853,13 +1899,13 @@ public class TablingSolver extends AbstractSolver {
                             // no candidates left...
                             continue;
                         }
-                        for (int k = 0; k < tmpSet.size(); k++) {
+                        for (int k = tmpSet.nextSetBit(0); k >= 0; k = tmpSet.nextSetBit(k + 1)) {
                             // if cand is ON, all other candidates are OFF
-                            onTable[i * 10 + cand].addEntry(tmpSet.get(k), cand, false);
+                            onTable[i * 10 + cand].addEntry(k, cand, false);
                         }
                         if (anzCands == 2) {
                             // strong link: if cand is OFF, the other candidate has to be ON
-                            offTable[i * 10 + cand].addEntry(tmpSet.get(0), cand, true);
+                            offTable[i * 10 + cand].addEntry(tmpSet.nextSetBit(0), cand, true);
                         }
                     }
                 }
@@ -1868,33 +1914,47 @@ public class TablingSolver extends AbstractSolver {
             // we are looking for nets!
             // iterate through all cells and candidates: set and delete the
             // candidate and record all dependencies (look ahead more than one iteration).
-            // one copy is enough, Sudoku2.set() copies the contents of the sudoku
-            savedSudoku = sudoku.clone();
-            simpleFinder.setSudoku(savedSudoku);
-            for (int i = 0; i < savedSudoku.getCells().length; i++) {
-//            if (i != 52) {
-//                // debugging only
-//                continue;
-//            }
-                if (savedSudoku.getValue(i) != 0) {
-                    // cell is already set -> ignore it
-                    continue;
-                }
-                int[] cands = savedSudoku.getAllCandidates(i);
-                for (int j = 0; j < cands.length; j++) {
-                    // once for every candidate
-                    int cand = cands[j];
-                    // candidate is ON
-                    sudoku.set(savedSudoku);
-                    simpleFinder.setSudoku(sudoku);
-                    getTableEntry(onTable[i * 10 + cand], i, cand, true);
-                    // candidate is OFF
-                    sudoku.set(savedSudoku);
-                    simpleFinder.setSudoku(sudoku);
-                    getTableEntry(offTable[i * 10 + cand], i, cand, false);
-                }
+            // the premises are independent of each other: the cells are split
+            // into ranges with roughly the same number of candidates, every
+            // range is filled by its own NetTableFiller (see there)
+            Sudoku2 savedSudoku = sudoku.clone();
+            // finder.getCandidates() gets the original candidates
+            SudokuSet[] candidates = finder.getCandidates();
+            int anzTasks = 1;
+            int threads = Runtime.getRuntime().availableProcessors();
+            int lookAhead = finder.getConfig().getAnzTableLookAhead();
+            int anzCands = sudoku.getUnsolvedCandidatesAnz();
+            if (threads > 1 && anzCands >= NET_PARALLEL_MIN_CANDIDATES) {
+                anzTasks = threads;
+            }
+            if (netFillers == null || netFillers.length < anzTasks) {
+                NetTableFiller[] newFillers = new NetTableFiller[anzTasks];
+                for (int i = 0; i < newFillers.length; i++) {
+                    newFillers[i] = netFillers != null && i < netFillers.length ? netFillers[i] : new NetTableFiller();
+                }
+                netFillers = newFillers;
+            }
+            int from = 0;
+            int sum = 0;
+            int task = 0;
+            for (int i = 0; i < Sudoku2.LENGTH && task < anzTasks - 1; i++) {
+                sum += savedSudoku.getAnzCandidates(i);
+                if (sum * anzTasks >= anzCands * (task + 1)) {
+                    netFillers[task++].init(savedSudoku, candidates, onTable, offTable, from, i + 1, lookAhead);
+                    from = i + 1;
+                }
+            }
+            while (task < anzTasks) {
+                netFillers[task++].init(savedSudoku, candidates, onTable, offTable, from, Sudoku2.LENGTH, lookAhead);
+                from = Sudoku2.LENGTH;
+            }
+            if (anzTasks == 1) {
+                netFillers[0].run();
+            } else {
+                Runnable[] tasks = new Runnable[anzTasks];
+                System.arraycopy(netFillers, 0, tasks, 0, anzTasks);
+                SudokuStepFinder.runParallel(tasks);
             }
-            sudoku.set(savedSudoku);
         }
     }
 
@@ -1935,12 +1995,12 @@ public class TablingSolver extends AbstractSolver {
             // one table for ON
             TableEntry onEntry = getNextExtendedTableEntry(extendedTableIndex);
             onEntry.addEntry(gn.index1, gn.index2, gn.index3, Chain.GROUP_NODE, gn.cand, true, 0, 0, 0, 0, 0, 0);
-            extendedTableMap.put(onEntry.entries[0], extendedTableIndex);
+            extendedTableMap.put(onEntry.getEntry(0), extendedTableIndex);
             extendedTableIndex++;
             // and one for OFF
             TableEntry offEntry = getNextExtendedTableEntry(extendedTableIndex);
             offEntry.addEntry(gn.index1, gn.index2, gn.index3, Chain.GROUP_NODE, gn.cand, false, 0, 0, 0, 0, 0, 0);
-            extendedTableMap.put(offEntry.entries[0], extendedTableIndex);
+            extendedTableMap.put(offEntry.getEntry(0), extendedTableIndex);
             extendedTableIndex++;
 
             // ok: collect candidates that can see the group node
@@ -1949,8 +2009,8 @@ public class TablingSolver extends AbstractSolver {
             if (!tmpSet.isEmpty()) {
                 // every candidate that can see the group node is turned of by the on-entry
                 // every candidate's onTable triggers the offEntry
-                for (int j = 0; j < tmpSet.size(); j++) {
-                    int index = tmpSet.get(j);
+                for (int j = tmpSet.nextSetBit(0); j >= 0; j = tmpSet.nextSetBit(j + 1)) {
+                    int index = j;
                     onEntry.addEntry(index, gn.cand, false);
                     TableEntry tmp = onTable[index * 10 + gn.cand];
                     tmp.addEntry(gn.index1, gn.index2, gn.index3, Chain.GROUP_NODE, gn.cand, false, 0, 0, 0, 0, 0, 0);
@@ -1960,8 +2020,8 @@ public class TablingSolver extends AbstractSolver {
                 tmpSet1.set(tmpSet);
                 tmpSet1.and(Sudoku2.BLOCK_TEMPLATES[gn.block]);
                 if (!tmpSet1.isEmpty() && tmpSet1.size() == 1) {
-                    offEntry.addEntry(tmpSet1.get(0), gn.cand, true);
-                    TableEntry tmp = offTable[tmpSet1.get(0) * 10 + gn.cand];
+                    offEntry.addEntry(tmpSet1.nextSetBit(0), gn.cand, true);
+                    TableEntry tmp = offTable[tmpSet1.nextSetBit(0) * 10 + gn.cand];
                     tmp.addEntry(gn.index1, gn.index2, gn.index3, Chain.GROUP_NODE, gn.cand, true, 0, 0, 0, 0, 0, 0);
                 }
                 tmpSet1.set(tmpSet);
@@ -1971,8 +2031,8 @@ public class TablingSolver extends AbstractSolver {
                     tmpSet1.and(Sudoku2.COL_TEMPLATES[gn.col]);
                 }
                 if (!tmpSet1.isEmpty() && tmpSet1.size() == 1) {
-                    offEntry.addEntry(tmpSet1.get(0), gn.cand, true);
-                    TableEntry tmp = offTable[tmpSet1.get(0) * 10 + gn.cand];
+                    offEntry.addEntry(tmpSet1.nextSetBit(0), gn.cand, true);
+                    TableEntry tmp = offTable[tmpSet1.nextSetBit(0) * 10 + gn.cand];
                     tmp.addEntry(gn.index1, gn.index2, gn.index3, Chain.GROUP_NODE, gn.cand, true, 0, 0, 0, 0, 0, 0);
                 }
             }
@@ -2171,7 +2231,7 @@ public class TablingSolver extends AbstractSolver {
                 if ((offEntry = getAlsTableEntry(entryIndex, i, j)) == null) {
                     offEntry = getNextExtendedTableEntry(extendedTableIndex);
                     offEntry.addEntry(entryIndex, i, Chain.ALS_NODE, j, false, 0);
-                    extendedTableMap.put(offEntry.entries[0], extendedTableIndex);
+                    extendedTableMap.put(offEntry.getEntry(0), extendedTableIndex);
                     extendedTableIndex++;
                 }
                 // put the ALS into the onTables of all entry candidates:
@@ -2181,8 +2241,8 @@ public class TablingSolver extends AbstractSolver {
                 //tmpSet.and(alsBuddies);
                 tmpSet.and(als.buddiesPerCandidat[j]);
                 int alsEntry = Chain.makeSEntry(entryIndex, i, j, false, Chain.ALS_NODE);
-                for (int k = 0; k < tmpSet.size(); k++) {
-                    int actIndex = tmpSet.get(k);
+                for (int k = tmpSet.nextSetBit(0); k >= 0; k = tmpSet.nextSetBit(k + 1)) {
+                    int actIndex = k;
                     TableEntry tmp = onTable[actIndex * 10 + j];
                     tmp.addEntry(entryIndex, i, Chain.ALS_NODE, j, false, 0);
                     // every group node in which the candidate is a member and which doesn't overlap
@@ -2224,10 +2284,10 @@ public class TablingSolver extends AbstractSolver {
                         continue;
                     }
                     // every single elimination must be recorded
-                    for (int l = 0; l < alsEliminations[k].size(); l++) {
+                    for (int l = alsEliminations[k].nextSetBit(0); l >= 0; l = alsEliminations[k].nextSetBit(l + 1)) {
                         // 20090213: add ALS penalty to distance
-                        offEntry.addEntry(alsEliminations[k].get(l), k, als.getChainPenalty(), false);
-//                        offEntry.addEntry(alsEliminations[k].get(l), k, false);
+                        offEntry.addEntry(l, k, als.getChainPenalty(), false);
+//                        offEntry.addEntry(l, k, false);
                     }
                     // if a group node is a subset of the eliminations, it is turned off as well
                     for (int l = 0; l < groupNodes.size(); l++) {
@@ -2283,7 +2343,7 @@ public class TablingSolver extends AbstractSolver {
                         if (getAlsTableEntry(tmpAlsIndex, k, l) == null) {
                             TableEntry tmpAlsEntry = getNextExtendedTableEntry(extendedTableIndex);
                             tmpAlsEntry.addEntry(tmpAlsIndex, k, Chain.ALS_NODE, l, false, 0);
-                            extendedTableMap.put(tmpAlsEntry.entries[0], extendedTableIndex);
+                            extendedTableMap.put(tmpAlsEntry.getEntry(0), extendedTableIndex);
                             extendedTableIndex++;
                         }
                         // 20090213: adjust for ALS penalty
@@ -2297,8 +2357,8 @@ public class TablingSolver extends AbstractSolver {
                 // 20090220: use the correct buddies
                 // only necessary, if the cell contains more than 2 candidates (its
                 // handled correctly with only two candidates)
-                for (int k = 0; k < als.buddies.size(); k++) {
-                    int cellIndex = als.buddies.get(k);
+                for (int k = als.buddies.nextSetBit(0); k >= 0; k = als.buddies.nextSetBit(k + 1)) {
+                    int cellIndex = k;
                     if (sudoku.getValue(cellIndex) != 0 || sudoku.getAnzCandidates(cellIndex) == 2) {
                         // cell already set
                         continue;
@@ -2313,8 +2373,8 @@ public class TablingSolver extends AbstractSolver {
                     if (tmpSet1.size() == 1) {
                         // forcing!
                         // 20090213: adjust for ALS penalty (plus the extra omitted link)
-                        offEntry.addEntry(cellIndex, tmpSet1.get(0), als.getChainPenalty() + 1, true);
-//                        offEntry.addEntry(cellIndex, tmpSet1.get(0), true);
+                        offEntry.addEntry(cellIndex, tmpSet1.nextSetBit(0), als.getChainPenalty() + 1, true);
+//                        offEntry.addEntry(cellIndex, tmpSet1.nextSetBit(0), true);
                     }
                 }
             }
@@ -2332,8 +2392,9 @@ public class TablingSolver extends AbstractSolver {
      */
     private TableEntry getAlsTableEntry(int entryCellIndex, int alsIndex, int cand) {
         int entry = Chain.makeSEntry(entryCellIndex, alsIndex, cand, false, Chain.ALS_NODE);
-        if (extendedTableMap.containsKey(entry)) {
-            return extendedTable.get(extendedTableMap.get(entry));
+        int tableIndex = extendedTableMap.get(entry);
+        if (tableIndex != -1) {
+            return extendedTable.get(tableIndex);
         }
         return null;
     }
@@ -2349,7 +2410,7 @@ public class TablingSolver extends AbstractSolver {
     private TableEntry getNextExtendedTableEntry(int tableIndex) {
         TableEntry entry = null;
         if (tableIndex >= extendedTable.size()) {
-            entry = new TableEntry();
+            entry = new TableEntry(tableArena, chain.length);
             extendedTable.add(entry);
         } else {
             entry = extendedTable.get(tableIndex);
@@ -2358,170 +2419,6 @@ public class TablingSolver extends AbstractSolver {
         return entry;
     }
 
-    /**
-     * Collects all dependencies on one specific action (cell is set/candidate
-     * is deleted). To detect nets, the whole operation is repeated {@link Options#anzTableLookAhead}
-     * times.<br>
-     *
-     * All operations have to be done on a copy of the original sudoku. The
-     * candidates in the {@link #finder} are not updated (they are not used and
-     * after the operation the sudoku has not changed).
-     *
-     * If
-     * <code>set</code> is
-     * <code>true</code>, the cell is set and all newly created Hidden and Naked
-     * Singles are collected and executed. If it is
-     * <code>false</code>, it is eliminated. If that creates single(s), they are
-     * executed and handled as well.<br>
-     *
-     * If a cell is set, this is delegated to {@link #setCell(int, int, solver.TableEntry, boolean, boolean, int)
-     * }.
-     *
-     * @param entry The {@link TableEntry}
-     * @param cellIndex the index of the current cell
-     * @param cand The current candidate
-     * @param set
-     * <code>true</code> if the candidate is to be set, else
-     * <code>false</code>
-     */
-    private void getTableEntry(TableEntry entry, int cellIndex, int cand, boolean set) {
-        if (set) {
-            // set the cell and record all dependencies
-            setCell(cellIndex, cand, entry, false, false);
-        } else {
-            // eliminate the candidate and set the cell if necessary
-            sudoku.delCandidate(cellIndex, cand);
-            entry.addEntry(cellIndex, cand, false, 0);
-            if (sudoku.getAnzCandidates(cellIndex) == 1) {
-                int setCand = sudoku.getAllCandidates(cellIndex)[0];
-                // getRetIndices == false causes retIndex == 0
-                setCell(cellIndex, setCand, entry, false, true);
-            }
-        }
-        // now look ahead
-        for (int j = 0; j < Options.getInstance().getAnzTableLookAhead(); j++) {
-            singleSteps.clear();
-            List<SolutionStep> dummyList = simpleFinder.findAllNakedSingles(sudoku);
-            singleSteps.addAll(dummyList);
-            dummyList = simpleFinder.findAllHiddenSingles(sudoku);
-            singleSteps.addAll(dummyList);
-            for (int i = 0; i < singleSteps.size(); i++) {
-                SolutionStep step = singleSteps.get(i);
-                int index = step.getIndices().get(0);
-                setCell(index, step.getValues().get(0), entry, true,
-                        step.getType() == SolutionType.NAKED_SINGLE);
-            }
-        }
-    }
-
-    /**
-     * Setting a value in a cell is surprisingly complicated: Not only must all
-     * consequences be found but the sources of all actions have to be recorded
-     * as well (from the ORIGINAL sudoku!).
-     *
-     * @param cellIndex
-     * @param cand
-     * @param entry
-     * @param getRetIndices
-     * @param nakedSingle
-     */
-    private void setCell(int cellIndex, int cand, TableEntry entry, boolean getRetIndices, boolean nakedSingle) {
-        // find all candidates that are eliminated by the set operation (dont forget
-        // the candidates in the cell itself). The reason for the elimination is the
-        // ON entry.
-        // finder.getCandidates() gets the original candidates (even in a net search)
-        tmpSet.set(finder.getCandidates()[cand]);
-        tmpSet.remove(cellIndex);
-        tmpSet.and(Sudoku2.buddies[cellIndex]);
-        int[] cands = sudoku.getAllCandidates(cellIndex);
-        // get the house with the smallest number of original candidates (needed for ret indices,
-        // but must be done before the cell is set)
-        int entityType = Sudoku2.LINE;
-        int entityNumberFree = sudoku.getFree()[Sudoku2.CONSTRAINTS[cellIndex][0]][cand];
-        int dummy = sudoku.getFree()[Sudoku2.CONSTRAINTS[cellIndex][1]][cand];
-        if (dummy < entityNumberFree) {
-            entityType = Sudoku2.COL;
-            entityNumberFree = dummy;
-        }
-        dummy = sudoku.getFree()[Sudoku2.CONSTRAINTS[cellIndex][2]][cand];
-        if (dummy < entityNumberFree) {
-            entityType = Sudoku2.BLOCK;
-            entityNumberFree = dummy;
-        }
-        // now set the cell
-        sudoku.setCell(cellIndex, cand);
-        int retIndex = entry.index;
-        if (getRetIndices) {
-            // find the candidate(s) that are responsible for the ON operation
-            for (int i = 0; i < retIndices[0].length; i++) {
-                retIndices[0][i] = 0;
-            }
-            if (nakedSingle) {
-                // all other candidates in the cell
-                int[] cellCands = savedSudoku.getAllCandidates(cellIndex);
-                if (cellCands.length > retIndices[0].length + 1) {
-                    Logger.getLogger(getClass().getName()).log(Level.WARNING, "Too many candidates (setCell() - Naked Single");
-                }
-                int ri = 0;
-                for (int i = 0; i < cellCands.length && ri < retIndices[0].length; i++) {
-                    if (cellCands[i] == cand) {
-                        continue;
-                    }
-                    retIndices[0][ri++] = entry.getEntryIndex(cellIndex, false, cellCands[i]);
-                }
-            } else {
-                // all other candidates in the house with the smallest number of original candidates
-                if (entityType == Sudoku2.LINE) {
-                    getRetIndicesForHouse(cellIndex, cand, Sudoku2.LINE_TEMPLATES[Sudoku2.getLine(cellIndex)], entry);
-                } else if (entityType == Sudoku2.COL) {
-                    getRetIndicesForHouse(cellIndex, cand, Sudoku2.COL_TEMPLATES[Sudoku2.getCol(cellIndex)], entry);
-                } else {
-                    getRetIndicesForHouse(cellIndex, cand, Sudoku2.BLOCK_TEMPLATES[Sudoku2.getBlock(cellIndex)], entry);
-                }
-            }
-            // ON entry for set operation including retIndices
-            entry.addEntry(cellIndex, cand, true, retIndices[0][0], retIndices[0][1], retIndices[0][2],
-                    retIndices[0][3], retIndices[0][4]);
-        } else {
-            // ON entry for set operation without retIndices
-            entry.addEntry(cellIndex, cand, true);
-        }
-        // OFF entries for all candidates that can see cellIndex
-        for (int i = 0; i < tmpSet.size(); i++) {
-            entry.addEntry(tmpSet.get(i), cand, false, retIndex);
-        }
-        // OFF entries for all other candidates in the cell
-        for (int i = 0; i < cands.length; i++) {
-            if (cands[i] != cand) {
-                entry.addEntry(cellIndex, cands[i], false, retIndex);
-            }
-        }
-    }
-
-    /**
-     * Collect the entries for all candidates in a given house. All those
-     * canddiates have to be eliminated before the cell can be set. Used by {@link #setCell(int, int, solver.TableEntry, boolean, boolean)
-     * }.
-     *
-     * @param cellIndex
-     * @param cand
-     * @param houseSet
-     * @param entry
-     */
-    private void getRetIndicesForHouse(int cellIndex, int cand, SudokuSet houseSet, TableEntry entry) {
-        // get all original candidates in the house (cell itself excluded)
-        tmpSet1.set(finder.getCandidates()[cand]);
-        tmpSet1.remove(cellIndex);
-        tmpSet1.and(houseSet);
-        if (tmpSet1.size() > retIndices[0].length + 1) {
-            Logger.getLogger(getClass().getName()).log(Level.WARNING, "Too many candidates (setCell() - Hidden Single");
-        }
-        int ri = 0;
-        for (int i = 0; i < tmpSet1.size() && ri < retIndices[0].length; i++) {
-            retIndices[0][ri++] = entry.getEntryIndex(tmpSet1.get(i), false, cand);
-        }
-    }
-
     /**
      * Expands the tables: every {@link TableEntry } contains all direct
      * implications for a given premise. Now every implication is expanded with
@@ -2539,120 +2436,176 @@ public class TablingSolver extends AbstractSolver {
      *
      * Group node table entries are never expanded (since we dont start or end
      * with a group node, that wouldnt make any sense). They are however used as
-     * possible implications.
+     * possible implications.<br><br>
+     *
+     * Most tables never produce a step, so the entries are not created here:
+     * {@link TableClosure} computes all implications of every table as bitmaps
+     * and writes them into {@link TableEntry#onSets}/{@link TableEntry#offSets}.
+     * The real expansion is done by {@link #ensureExpanded(solver.TableEntry) },
+     * when a chain has to be built. Since the expansion of a table only uses
+     * the unexpanded entries of other tables, the result is the same.<br>
+     * Tables that could become full are expanded immediately (which entries
+     * are dropped depends on the order of the expansion).
+     */
+    private void expandTables() {
+        boolean lazy = tableClosure.init(onTable, offTable, extendedTable, extendedTableIndex, extendedTableMap);
+        expandTables(onTable, lazy);
+        expandTables(offTable, lazy);
+    }
+
+    /**
+     * Expands all tables in <code>table</code> or fills their sets with the
+     * closure (see {@link #expandTables() }).
      *
      * @param table
+     * @param lazy
      */
-    private void expandTables(TableEntry[] table) {
-        // for every entry in tables do...
+    private void expandTables(TableEntry[] table, boolean lazy) {
         for (int i = 0; i < table.length; i++) {
-//            if (i != 521) {
-//                continue;
-//            }
-            if (table[i].index == 0) {
+            TableEntry dest = table[i];
+            if (dest.index == 0) {
                 // cell is set -> no implications
                 continue;
             }
-            // table that should be expanded
-            TableEntry dest = table[i];
+            if (lazy) {
+                int anz = tableClosure.computeReach(TableClosure.getNode(dest.getEntry(0), extendedTableMap));
+                if (dest.index + anz < dest.getCapacity()) {
+                    tableClosure.addToSets(dest);
+                    dest.expansionPending = true;
+                    continue;
+                }
+            }
+            expandTable(dest);
+        }
+    }
 
-            boolean isFromOnTable = false;
-            boolean isFromExtendedTable = false;
-            // check every entry except the first (thats the premise)
-            for (int j = 1; j < dest.entries.length; j++) {
-                if (dest.entries[j] == 0) {
-                    // ok -> done
-                    break;
+    /**
+     * Expands a table, for which {@link #expandTables() } has only computed
+     * the sets. The sets are reduced to the direct implications first,
+     * otherwise {@link TableEntry#addEntry(int, int, boolean, int) } would
+     * drop all new entries.
+     *
+     * @param dest
+     */
+    private void ensureExpanded(TableEntry dest) {
+        if (!dest.expansionPending) {
+            return;
+        }
+        dest.expansionPending = false;
+        for (int i = 0; i < dest.onSets.length; i++) {
+            dest.onSets[i].clear();
+            dest.offSets[i].clear();
+        }
+        for (int i = 0; i < dest.index; i++) {
+            if (Chain.getSNodeType(dest.getEntry(i)) == Chain.NORMAL_NODE) {
+                if (dest.isStrong(i)) {
+                    dest.onSets[dest.getCandidate(i)].add(dest.getCellIndex(i));
+                } else {
+                    dest.offSets[dest.getCandidate(i)].add(dest.getCellIndex(i));
                 }
-                if (dest.isFull()) {
-                    // nothing left to do...
-                    Logger.getLogger(getClass().getName()).log(Level.WARNING, "TableEntry full!");
-                    break;
+            }
+        }
+        expandTable(dest);
+    }
+
+    /**
+     * Expands one table (see {@link #expandTables() }).
+     *
+     * @param dest
+     */
+    private void expandTable(TableEntry dest) {
+        boolean isFromOnTable = false;
+        boolean isFromExtendedTable = false;
+        // check every entry except the first (thats the premise)
+        for (int j = 1; j < dest.index; j++) {
+            if (dest.isFull()) {
+                // nothing left to do...
+                Logger.getLogger(getClass().getName()).log(Level.WARNING, "TableEntry full!");
+                break;
+            }
+            // table for the current entry -> all entries in src have to be written into dest
+            TableEntry src = null;
+
+            // find the table, where the current implication is the premise
+            int srcTableIndex = dest.getCellIndex(j) * 10 + dest.getCandidate(j);
+            isFromExtendedTable = false;
+            isFromOnTable = false;
+            if (Chain.getSNodeType(dest.getEntry(j)) != Chain.NORMAL_NODE) {
+                int tmpSI = extendedTableMap.get(dest.getEntry(j));
+                if (tmpSI == -1) {
+                    Logger.getLogger(getClass().getName()).log(Level.WARNING, "Table for {0} not found!", printTableEntry(dest.getEntry(j)));
+                    continue;
                 }
-                // table for the current entry -> all entries in src have to be written into dest
-                TableEntry src = null;
-
-                // find the table, where the current implication is the premise
-                int srcTableIndex = dest.getCellIndex(j) * 10 + dest.getCandidate(j);
-                isFromExtendedTable = false;
-                isFromOnTable = false;
-                if (Chain.getSNodeType(dest.entries[j]) != Chain.NORMAL_NODE) {
-                    Integer tmpSI = extendedTableMap.get(dest.entries[j]);
-                    if (tmpSI == null) {
-                        Logger.getLogger(getClass().getName()).log(Level.WARNING, "Table for {0} not found!", printTableEntry(dest.entries[j]));
-                        continue;
-                    }
-                    srcTableIndex = tmpSI.intValue();
-                    src = extendedTable.get(srcTableIndex);
-                    isFromExtendedTable = true;
+                srcTableIndex = tmpSI;
+                src = extendedTable.get(srcTableIndex);
+                isFromExtendedTable = true;
+            } else {
+                if (dest.isStrong(j)) {
+                    src = onTable[srcTableIndex];
                 } else {
-                    if (dest.isStrong(j)) {
-                        src = onTable[srcTableIndex];
-                    } else {
-                        src = offTable[srcTableIndex];
-                    }
-                    isFromOnTable = dest.isStrong(j);
-                }
-                if (src.index == 0) {
-                    // should not be possible
-                    StringBuilder tmpBuffer = new StringBuilder();
-                    tmpBuffer.append("TableEntry for ").append(dest.entries[j]).append(" not found!\r\n");
-                    tmpBuffer.append("i == ").append(i).append(", j == ").append(j).append(", dest.entries[j] == ").append(dest.entries[j]).append(": ");
-                    tmpBuffer.append(printTableEntry(dest.entries[j]));
-                    Logger.getLogger(getClass().getName()).log(Level.WARNING, tmpBuffer.toString());
+                    src = offTable[srcTableIndex];
+                }
+                isFromOnTable = dest.isStrong(j);
+            }
+            if (src.index == 0) {
+                // should not be possible
+                StringBuilder tmpBuffer = new StringBuilder();
+                tmpBuffer.append("TableEntry for ").append(dest.getEntry(j)).append(" not found!\r\n");
+                tmpBuffer.append("premise == ").append(printTableEntry(dest.getEntry(0))).append(", j == ").append(j).append(", entry == ").append(dest.getEntry(j)).append(": ");
+                tmpBuffer.append(printTableEntry(dest.getEntry(j)));
+                Logger.getLogger(getClass().getName()).log(Level.WARNING, tmpBuffer.toString());
+                continue;
+            }
+            // ok -> expand it
+            int srcBaseDistance = dest.getDistance(j);
+            // check all entries from src
+            for (int k = 1; k < src.index; k++) {
+                // we take only entries, that have not been expanded themselves
+                if (src.isExpanded(k)) {
+                    // ignore it!
                     continue;
                 }
-                // ok -> expand it
-                int srcBaseDistance = dest.getDistance(j);
-                // check all entries from src
-                for (int k = 1; k < src.index; k++) {
-                    // we take only entries, that have not been expanded themselves
-                    if (src.isExpanded(k)) {
-                        // ignore it!
-                        continue;
-                    }
-                    int srcDistance = src.getDistance(k);
-                    if (dest.indices.containsKey(src.entries[k])) {
-                        // entry from src already exists in dest -> check path length
-                        int orgIndex = dest.getEntryIndex(src.entries[k]);
-                        // 20090213: prefer normal nodes to group nodes or als
+                int srcDistance = src.getDistance(k);
+                if (dest.indices.containsKey(src.getEntry(k))) {
+                    // entry from src already exists in dest -> check path length
+                    int orgIndex = dest.getEntryIndex(src.getEntry(k));
+                    // 20090213: prefer normal nodes to group nodes or als
 //                        if (dest.isExpanded(orgIndex) && dest.getDistance(orgIndex) > (srcBaseDistance + srcDistance)) {
-                        if (dest.isExpanded(orgIndex)
-                                && (dest.getDistance(orgIndex) > (srcBaseDistance + srcDistance)
-                                || dest.getDistance(orgIndex) == (srcBaseDistance + srcDistance)
-                                && dest.getNodeType(orgIndex) > src.getNodeType(k))) {
-                            // Alter Eintrag war länger oder komplizierter als neuer -> umschreiben
-                            // old entry had a longer path or was more complicated -> rewrite
-                            dest.retIndices[orgIndex] = TableEntry.makeSRetIndex(srcTableIndex, 0, 0, 0, 0);
-                            // expanded flag was lost -> set it again
-                            dest.setExpanded(orgIndex);
-                            if (isFromExtendedTable) {
-                                dest.setExtendedTable(orgIndex);
-                            } else if (isFromOnTable) {
-                                dest.setOnTable(orgIndex);
-                            }
-                            dest.setDistance(orgIndex, srcBaseDistance + srcDistance);
-                        }
-                    } else {
-                        // new entry
-                        int srcCellIndex = src.getCellIndex(k);
-                        int srcCand = src.getCandidate(k);
-                        boolean srcStrong = src.isStrong(k);
-                        if (Chain.getSNodeType(src.entries[k]) == Chain.NORMAL_NODE) {
-                            dest.addEntry(srcCellIndex, srcCand, srcStrong, srcTableIndex);
-                        } else {
-                            int tmp = src.entries[k];
-                            dest.addEntry(Chain.getSCellIndex(tmp), Chain.getSCellIndex2(tmp), Chain.getSCellIndex3(tmp),
-                                    Chain.getSNodeType(tmp), srcCand, srcStrong, srcTableIndex, 0, 0, 0, 0, 0);
-                        }
-                        dest.setExpanded(dest.index - 1);
+                    if (dest.isExpanded(orgIndex)
+                            && (dest.getDistance(orgIndex) > (srcBaseDistance + srcDistance)
+                            || dest.getDistance(orgIndex) == (srcBaseDistance + srcDistance)
+                            && dest.getNodeType(orgIndex) > src.getNodeType(k))) {
+                        // Alter Eintrag war länger oder komplizierter als neuer -> umschreiben
+                        // old entry had a longer path or was more complicated -> rewrite
+                        dest.setRetIndices(orgIndex, TableEntry.makeSRetIndex(srcTableIndex, 0, 0, 0, 0));
+                        // expanded flag was lost -> set it again
+                        dest.setExpanded(orgIndex);
                         if (isFromExtendedTable) {
-                            dest.setExtendedTable(dest.index - 1);
+                            dest.setExtendedTable(orgIndex);
                         } else if (isFromOnTable) {
-                            dest.setOnTable(dest.index - 1);
+                            dest.setOnTable(orgIndex);
                         }
-                        dest.setDistance(dest.index - 1, srcBaseDistance + srcDistance);
+                        dest.setDistance(orgIndex, srcBaseDistance + srcDistance);
+                    }
+                } else {
+                    // new entry
+                    int srcCellIndex = src.getCellIndex(k);
+                    int srcCand = src.getCandidate(k);
+                    boolean srcStrong = src.isStrong(k);
+                    if (Chain.getSNodeType(src.getEntry(k)) == Chain.NORMAL_NODE) {
+                        dest.addEntry(srcCellIndex, srcCand, srcStrong, srcTableIndex);
+                    } else {
+                        int tmp = src.getEntry(k);
+                        dest.addEntry(Chain.getSCellIndex(tmp), Chain.getSCellIndex2(tmp), Chain.getSCellIndex3(tmp),
+                                Chain.getSNodeType(tmp), srcCand, srcStrong, srcTableIndex, 0, 0, 0, 0, 0);
                     }
+                    dest.setExpanded(dest.index - 1);
+                    if (isFromExtendedTable) {
+                        dest.setExtendedTable(dest.index - 1);
+                    } else if (isFromOnTable) {
+                        dest.setOnTable(dest.index - 1);
+                    }
+                    dest.setDistance(dest.index - 1, srcBaseDistance + srcDistance);
                 }
             }
         }
@@ -2708,6 +2661,7 @@ public class TablingSolver extends AbstractSolver {
 //            return;
 //        }
         // construct the new chain
+        ensureExpanded(entry);
         buildChain(entry, cellIndex, cand, set);
 
         // now check it and add it to the step if plssible
@@ -2808,13 +2762,7 @@ public class TablingSolver extends AbstractSolver {
         // find the entry for the implication in the TableEntry
         chainIndex = 0;
         int chainEntry = Chain.makeSEntry(cellIndex, cand, set);
-        int index = -1;
-        for (int i = 0; i < entry.entries.length; i++) {
-            if (entry.entries[i] == chainEntry) {
-                index = i;
-                break;
-            }
-        }
+        int index = entry.indices.get(chainEntry);
         if (index == -1) {
             Logger.getLogger(getClass().getName()).log(Level.WARNING, "No chain entry for {0}/{1}/{2}/{3}", new Object[]{cellIndex, SolutionStep.getCellPrint(cellIndex), cand, set});
             return;
@@ -2866,7 +2814,7 @@ public class TablingSolver extends AbstractSolver {
      */
     private int buildChain(TableEntry entry, int entryIndex, int[] actChain, boolean isMin, SudokuSet chainSet) {
         int actChainIndex = 0;
-        actChain[actChainIndex++] = entry.entries[entryIndex];
+        actChain[actChainIndex++] = entry.getEntry(entryIndex);
         int firstEntryIndex = entryIndex;
         boolean expanded = false;
         TableEntry orgEntry = entry;
@@ -2881,7 +2829,7 @@ public class TablingSolver extends AbstractSolver {
                     entry = offTable[orgEntry.getRetIndex(firstEntryIndex, 0)];
                 }
                 expanded = true;
-                firstEntryIndex = entry.getEntryIndex(orgEntry.entries[firstEntryIndex]);
+                firstEntryIndex = entry.getEntryIndex(orgEntry.getEntry(firstEntryIndex));
             }
             int tmpEntryIndex = firstEntryIndex;
             for (int i = 0; i < 5; i++) {
@@ -2890,32 +2838,32 @@ public class TablingSolver extends AbstractSolver {
                     // the first retIndex points to the next element -> store it
                     // and set it in the chainSet if isMin is false.
                     firstEntryIndex = entryIndex;
-                    actChain[actChainIndex++] = entry.entries[entryIndex];
+                    actChain[actChainIndex++] = entry.getEntry(entryIndex);
                     if (!isMin) {
                         // record all cells of the main chain
                         chainSet.add(entry.getCellIndex(entryIndex));
                         // group nodes
-                        if (Chain.getSNodeType(entry.entries[entryIndex]) == Chain.GROUP_NODE) {
-                            int tmp = Chain.getSCellIndex2(entry.entries[entryIndex]);
+                        if (Chain.getSNodeType(entry.getEntry(entryIndex)) == Chain.GROUP_NODE) {
+                            int tmp = Chain.getSCellIndex2(entry.getEntry(entryIndex));
                             if (tmp != -1) {
                                 chainSet.add(tmp);
                             }
-                            tmp = Chain.getSCellIndex3(entry.entries[entryIndex]);
+                            tmp = Chain.getSCellIndex3(entry.getEntry(entryIndex));
                             if (tmp != -1) {
                                 chainSet.add(tmp);
                             }
-                        } else if (Chain.getSNodeType(entry.entries[entryIndex]) == Chain.ALS_NODE) {
-                            if (Chain.getSAlsIndex(entry.entries[entryIndex]) == -1) {
-                                Logger.getLogger(getClass().getName()).log(Level.WARNING, "INVALID ALS_NODE: {0}", Chain.toString(entry.entries[entryIndex]));
+                        } else if (Chain.getSNodeType(entry.getEntry(entryIndex)) == Chain.ALS_NODE) {
+                            if (Chain.getSAlsIndex(entry.getEntry(entryIndex)) == -1) {
+                                Logger.getLogger(getClass().getName()).log(Level.WARNING, "INVALID ALS_NODE: {0}", Chain.toString(entry.getEntry(entryIndex)));
                             }
-                            chainSet.or(alses.get(Chain.getSAlsIndex(entry.entries[entryIndex])).indices);
+                            chainSet.or(alses.get(Chain.getSAlsIndex(entry.getEntry(entryIndex))).indices);
                         }
                     } else {
                         // if the current chain is a min, check if we have reached the main chain
                         if (chainSet.contains(entry.getCellIndex(entryIndex))) {
                             // preselection: the current cell is part of the main chain -> search the main chain
                             for (int j = 0; j < chainIndex; j++) {
-                                if (chain[j] == entry.entries[entryIndex]) {
+                                if (chain[j] == entry.getEntry(entryIndex)) {
                                     // done!
                                     return actChainIndex;
                                 }
@@ -2927,7 +2875,7 @@ public class TablingSolver extends AbstractSolver {
                     // we dont show nets in nets; they can exist, but are not spelled out
                     if (entryIndex != 0 && !isMin) {
                         // 0 is not allowed, only possible for first retIndex!
-                        mins[actMin][0] = entry.entries[entryIndex];
+                        mins[actMin][0] = entry.getEntry(entryIndex);
                         minIndexes[actMin++] = 1;
                     }
                 }
@@ -2935,7 +2883,7 @@ public class TablingSolver extends AbstractSolver {
             if (expanded && firstEntryIndex == 0) {
                 // we jumped to another TableEntry and have reached its start ->
                 // jump back to the original
-                int retEntry = entry.entries[0];
+                int retEntry = entry.getEntry(0);
                 entry = orgEntry;
                 firstEntryIndex = entry.getEntryIndex(retEntry);
                 expanded = false;
@@ -2958,24 +2906,24 @@ public class TablingSolver extends AbstractSolver {
             if (!entry.isStrong(i)) {
                 //continue;
             }
-            tmp.append(printTableEntry(entry.entries[i]));
+            tmp.append(printTableEntry(entry.getEntry(i)));
             for (int j = 0; j < entry.getRetIndexAnz(i); j++) {
                 int retIndex = entry.getRetIndex(i, j);
                 tmp.append(" (");
                 if (entry.isExpanded(i)) {
                     tmp.append("EX:").append(retIndex).append(":").append(entry.isExtendedTable(i)).append("/").append(entry.isOnTable(i)).append("/");
 //                    TableEntry actEntry = entry.isOnTable(i) ? onTable[retIndex] : offTable[retIndex];
-//                    int index1 = actEntry.getEntryIndex(entry.entries[i]);
+//                    int index1 = actEntry.getEntryIndex(entry.getEntry(i));
 //                    // go back one level
 //                    for (int k = 0; k < actEntry.getRetIndexAnz(index1); k++) {
 //                        int retIndex1 = actEntry.getRetIndex(index1, k);
 //                        if (actEntry.isExpanded(index1)) {
 //                            tmp.append("EEX/");
 //                        }
-//                        tmp.append(retIndex1 + "/" + printTableEntry(actEntry.entries[retIndex1]) + ")");
+//                        tmp.append(retIndex1 + "/" + printTableEntry(actEntry.getEntry(retIndex1)) + ")");
 //                    }
                 } else {
-                    tmp.append(retIndex).append("/").append(printTableEntry(entry.entries[retIndex])).append(")");
+                    tmp.append(retIndex).append("/").append(printTableEntry(entry.getEntry(retIndex))).append(")");
                 }
             }
             tmp.append(" ");
@@ -3043,6 +2991,20 @@ public class TablingSolver extends AbstractSolver {
         }
         System.out.println("Tables: " + onAnz + " onTableEntries, " + offAnz + " offTableEntries, "
                 + entryAnz + " Implikationen (" + maxEntryAnz + " max)");
+        System.out.println("Arena: " + tableArena.getSize() + " slots used, " + tableArena.getFootprint() + " bytes");
+    }
+
+    /**
+     * Returns the memory currently allocated for the entries of all tables
+     * (see {@link TableArena}).
+     *
+     * @return The size in bytes or 0, if no tables exist.
+     */
+    protected synchronized long getTableFootprint() {
+        if (tableArena == null) {
+            return 0;
+        }
+        return tableArena.getFootprint();
     }
 
     /**
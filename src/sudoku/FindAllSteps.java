@@ -20,7 +20,17 @@
 package sudoku;
 
 import java.awt.EventQueue;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import solver.SolverConfig;
 import solver.SudokuSolverFactory;
 import solver.SudokuStepFinder;
 
@@ -29,6 +39,30 @@ import solver.SudokuStepFinder;
  * @author hobiwan
  */
 public class FindAllSteps implements Runnable {
+    /** The keys for the progress labels of all steps of the search (fish and kraken fish get the candidate appended) */
+    private static final String[] PROGRESS_LABELS = {
+        "simple_solutions",
+        "fish", "fish", "fish", "fish", "fish", "fish", "fish", "fish", "fish",
+        "kraken_fish", "kraken_fish", "kraken_fish", "kraken_fish", "kraken_fish",
+        "kraken_fish", "kraken_fish", "kraken_fish", "kraken_fish",
+        "uniqueness", "chains", "nice_loops", "grouped_nice_loops", "templates", "als",
+        "forcing_Chains", "forcing_Nets", "progress_Score"
+    };
+    /** The step that calculates the progress measures: needs all other steps and is done last. */
+    private static final int PROGRESS_SCORE_STEP = 27;
+    /** The technique families for the concurrent search: the steps in one family are searched
+     *  one after another. Every family has its own {@link SudokuStepFinder} with its own copy
+     *  of the settings, so fish and kraken fish can run in parallel. */
+    private static final int[][] FAMILIES = {
+        {0},
+        {1, 2, 3, 4, 5, 6, 7, 8, 9},
+        {10, 11, 12, 13, 14, 15, 16, 17, 18},
+        {19}, {20}, {21}, {22}, {23}, {24}, {25}, {26}
+    };
+    /** The thread pool for the concurrent search. A separate pool is needed, since the
+     *  families themselves use the pool in {@link SudokuStepFinder}: if the families ran in
+     *  that pool, they could block all its threads while waiting for their own tasks. */
+    private static ExecutorService executor = null;
     private FindAllStepsProgressDialog dlg = null;
     private List<SolutionStep> steps;
     private List<SolutionType> testTypes = null;
@@ -42,6 +76,9 @@ public class FindAllSteps implements Runnable {
 //    private boolean krakenFish;
 
     private SudokuStepFinder stepFinder;
+    /** <code>true</code> while the technique families are searched in parallel:
+     *  progress is reported when a family is finished */
+    private volatile boolean concurrent = false;
     
     public FindAllSteps() {
         stepFinder = SudokuSolverFactory.getDefaultSolverInstance().getStepFinder();
@@ -59,11 +96,26 @@ public class FindAllSteps implements Runnable {
     }
 
     private void updateProgress(final String label, final int step) {
-        if (dlg != null) {
+        if (dlg != null && ! concurrent) {
             dlg.updateProgress(label, step);
         }
     }
 
+    /**
+     * Gets the label for the progress dialog.
+     * @param actStep
+     * @return
+     */
+    private String getProgressLabel(int actStep) {
+        String label = java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog." + PROGRESS_LABELS[actStep]);
+        if (actStep >= 1 && actStep <= 9) {
+            label += " " + actStep;
+        } else if (actStep >= 10 && actStep <= 18) {
+            label += " " + (actStep - 9);
+        }
+        return label;
+    }
+
     /**
      * The class can be called by FindAllStepsProgressDialog in which case the
      * configuration from Options.solverSteps has to be read. If it is called
@@ -104,206 +156,229 @@ public class FindAllSteps implements Runnable {
         }
     }
     
-    @Override
-    public void run() {
-        int actStep = 0;
+    /**
+     * Searches one group of steps (see {@link #FAMILIES}) in <code>sudoku</code>
+     * and adds them to <code>steps</code>. For the concurrent search every technique
+     * family uses its own {@link SudokuStepFinder} and its own copy of the sudoku.
+     *
+     * @param actStep The step of the search (index into {@link #PROGRESS_LABELS})
+     * @param stepFinder
+     * @param sudoku
+     * @param steps
+     * @return <code>false</code>, if <code>actStep</code> is beyond the last step
+     */
+    private boolean findSteps(int actStep, SudokuStepFinder stepFinder, Sudoku2 sudoku, List<SolutionStep> steps) {
         //boolean[] tmpCands = new boolean[9];
         List<SolutionStep> steps1 = null;
-        //while (! Thread.currentThread().isInterrupted()) {
-        while (! Thread.interrupted()) {
-            switch (actStep) {
-                case 0:
-                    updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog.simple_solutions"), actStep);
-                    steps1 = stepFinder.findAllFullHouses(sudoku);
+        switch (actStep) {
+            case 0:
+                updateProgress(getProgressLabel(actStep), actStep);
+                steps1 = stepFinder.findAllFullHouses(sudoku);
+                steps.addAll(steps1);
+                steps1 = stepFinder.findAllHiddenXle(sudoku);
+                steps.addAll(steps1);
+                steps1 = stepFinder.findAllNakedXle(sudoku);
+                steps.addAll(steps1);
+                filterSteps(steps);
+                if (isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_1) && isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_2)) {
+                    steps1 = stepFinder.findAllLockedCandidates(sudoku);
                     steps.addAll(steps1);
-                    steps1 = stepFinder.findAllHiddenXle(sudoku);
+                } else if (isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_1)) {
+                    steps1 = stepFinder.findAllLockedCandidates1(sudoku);
                     steps.addAll(steps1);
-                    steps1 = stepFinder.findAllNakedXle(sudoku);
+                } else if (isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_2)) {
+                    steps1 = stepFinder.findAllLockedCandidates2(sudoku);
                     steps.addAll(steps1);
-                    filterSteps(steps);
-                    if (isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_1) && isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_2)) {
-                        steps1 = stepFinder.findAllLockedCandidates(sudoku);
-                        steps.addAll(steps1);
-                    } else if (isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_1)) {
-                        steps1 = stepFinder.findAllLockedCandidates1(sudoku);
-                        steps.addAll(steps1);
-                    } else if (isAllStepsEnabled(SolutionType.LOCKED_CANDIDATES_2)) {
-                        steps1 = stepFinder.findAllLockedCandidates2(sudoku);
-                        steps.addAll(steps1);
-                    }
-                    if (isAllStepsEnabled(SolutionType.SKYSCRAPER)) {
-                        steps1 = stepFinder.findAllSkyScrapers(sudoku);
-                        steps.addAll(steps1);
-                    }
-                    if (isAllStepsEnabled(SolutionType.EMPTY_RECTANGLE)) {
-                        steps1 = stepFinder.findAllEmptyRectangles(sudoku);
-                        steps.addAll(steps1);
-                    }
-                    if (isAllStepsEnabled(SolutionType.TWO_STRING_KITE)) {
-                        steps1 = stepFinder.findAllTwoStringKites(sudoku);
-                        steps.addAll(steps1);
-                    }
-                    if (isAllStepsEnabled(SolutionType.SUE_DE_COQ)) {
-                        steps1 = stepFinder.getAllSueDeCoqs(sudoku);
-                        steps.addAll(steps1);
-                    }
-                    break;
-                case 1:
-                case 2:
-                case 3:
-                case 4:
-                case 5:
-                case 6:
-                case 7:
-                case 8:
-                case 9:
-                    //System.out.println("Fish search cand " + (actStep) + ": " + Options.getInstance().allStepsFishCandidates.charAt(actStep - 1));
-                    updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog.fish") + " " + actStep, actStep);
-                    if ((testTypes == null && Options.getInstance().isAllStepsSearchFish() && 
-                            Options.getInstance().getAllStepsFishCandidates().charAt(actStep - 1) == '1') ||
-                            testTypes != null && isFishTestTypes()) {
-                        boolean oldCheckTemplates = Options.getInstance().isCheckTemplates();
-                        Options.getInstance().setCheckTemplates(Options.getInstance().isAllStepsCheckTemplates());
-                        steps1 = stepFinder.getAllFishes(sudoku, Options.getInstance().getAllStepsMinFishSize(),
-                                Options.getInstance().getAllStepsMaxFishSize(), 
-                                Options.getInstance().getAllStepsMaxFins(), 
-                                Options.getInstance().getAllStepsMaxEndoFins(), dlg, actStep,
-                                Options.getInstance().getAllStepsMaxFishType());
-                        steps.addAll(steps1);
-                        Options.getInstance().setCheckTemplates(oldCheckTemplates);
-                    }
-                    break;
-                case 10:
-                case 11:
-                case 12:
-                case 13:
-                case 14:
-                case 15:
-                case 16:
-                case 17:
-                case 18:
-                    //System.out.println("Kraken Fish search cand " + (actStep - 9) + ": " + Options.getInstance().allStepsFishCandidates.charAt(actStep - 10));
-                    if (isAllStepsEnabled(SolutionType.KRAKEN_FISH) && 
-                            Options.getInstance().getAllStepsKrakenFishCandidates().charAt(actStep - 10) == '1') {
-                        updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog.kraken_fish") + " " + (actStep - 9), actStep);
-                        steps1 = stepFinder.getAllKrakenFishes(sudoku, Options.getInstance().getAllStepsKrakenMinFishSize(),
-                                Options.getInstance().getAllStepsKrakenMaxFishSize(), 
-                                Options.getInstance().getAllStepsMaxKrakenFins(), 
-                                Options.getInstance().getAllStepsMaxKrakenEndoFins(), dlg, actStep - 9,
-                                Options.getInstance().getAllStepsKrakenMaxFishType());
-                        steps.addAll(steps1);
-                    }
-                    break;
-                case 19:
-                    updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog.uniqueness"), actStep);
-                    if (isAllStepsEnabled(SolutionType.UNIQUENESS_1) || 
-                            isAllStepsEnabled(SolutionType.UNIQUENESS_2) ||
-                            isAllStepsEnabled(SolutionType.UNIQUENESS_3) ||
-                            isAllStepsEnabled(SolutionType.UNIQUENESS_4) ||
-                            isAllStepsEnabled(SolutionType.UNIQUENESS_5) ||
-                            isAllStepsEnabled(SolutionType.UNIQUENESS_6) ||
-                            isAllStepsEnabled(SolutionType.HIDDEN_RECTANGLE) ||
-                            isAllStepsEnabled(SolutionType.AVOIDABLE_RECTANGLE_1) ||
-                            isAllStepsEnabled(SolutionType.AVOIDABLE_RECTANGLE_2)) {
-                        steps1 = stepFinder.getAllUniqueness(sudoku);
-                        filterSteps(steps1);
-                        steps.addAll(steps1);
-                    }
-                    if (isAllStepsEnabled(SolutionType.BUG_PLUS_1)) {
-                        stepFinder.setSudoku(sudoku);
-                        SolutionStep result = stepFinder.getStep(SolutionType.BUG_PLUS_1);
-                        if (result != null) {
-                            steps.add(result);
-                        }
-                    }
-                    steps1 = stepFinder.getAllWings(sudoku);
+                }
+                if (isAllStepsEnabled(SolutionType.SKYSCRAPER)) {
+                    steps1 = stepFinder.findAllSkyScrapers(sudoku);
+                    steps.addAll(steps1);
+                }
+                if (isAllStepsEnabled(SolutionType.EMPTY_RECTANGLE)) {
+                    steps1 = stepFinder.findAllEmptyRectangles(sudoku);
+                    steps.addAll(steps1);
+                }
+                if (isAllStepsEnabled(SolutionType.TWO_STRING_KITE)) {
+                    steps1 = stepFinder.findAllTwoStringKites(sudoku);
+                    steps.addAll(steps1);
+                }
+                if (isAllStepsEnabled(SolutionType.SUE_DE_COQ)) {
+                    steps1 = stepFinder.getAllSueDeCoqs(sudoku);
+                    steps.addAll(steps1);
+                }
+                break;
+            case 1:
+            case 2:
+            case 3:
+            case 4:
+            case 5:
+            case 6:
+            case 7:
+            case 8:
+            case 9:
+                //System.out.println("Fish search cand " + (actStep) + ": " + Options.getInstance().allStepsFishCandidates.charAt(actStep - 1));
+                updateProgress(getProgressLabel(actStep), actStep);
+                if ((testTypes == null && Options.getInstance().isAllStepsSearchFish() && 
+                        Options.getInstance().getAllStepsFishCandidates().charAt(actStep - 1) == '1') ||
+                        testTypes != null && isFishTestTypes()) {
+                    SolverConfig oldConfig = stepFinder.getConfig();
+                    stepFinder.setConfig(oldConfig.withCheckTemplates(Options.getInstance().isAllStepsCheckTemplates()));
+                    steps1 = stepFinder.getAllFishes(sudoku, Options.getInstance().getAllStepsMinFishSize(),
+                            Options.getInstance().getAllStepsMaxFishSize(), 
+                            Options.getInstance().getAllStepsMaxFins(), 
+                            Options.getInstance().getAllStepsMaxEndoFins(), dlg, actStep,
+                            Options.getInstance().getAllStepsMaxFishType());
+                    steps.addAll(steps1);
+                    stepFinder.setConfig(oldConfig);
+                }
+                break;
+            case 10:
+            case 11:
+            case 12:
+            case 13:
+            case 14:
+            case 15:
+            case 16:
+            case 17:
+            case 18:
+                //System.out.println("Kraken Fish search cand " + (actStep - 9) + ": " + Options.getInstance().allStepsFishCandidates.charAt(actStep - 10));
+                if (isAllStepsEnabled(SolutionType.KRAKEN_FISH) && 
+                        Options.getInstance().getAllStepsKrakenFishCandidates().charAt(actStep - 10) == '1') {
+                    updateProgress(getProgressLabel(actStep), actStep);
+                    steps1 = stepFinder.getAllKrakenFishes(sudoku, Options.getInstance().getAllStepsKrakenMinFishSize(),
+                            Options.getInstance().getAllStepsKrakenMaxFishSize(), 
+                            Options.getInstance().getAllStepsMaxKrakenFins(), 
+                            Options.getInstance().getAllStepsMaxKrakenEndoFins(), dlg, actStep - 9,
+                            Options.getInstance().getAllStepsKrakenMaxFishType());
+                    steps.addAll(steps1);
+                }
+                break;
+            case 19:
+                updateProgress(getProgressLabel(actStep), actStep);
+                if (isAllStepsEnabled(SolutionType.UNIQUENESS_1) || 
+                        isAllStepsEnabled(SolutionType.UNIQUENESS_2) ||
+                        isAllStepsEnabled(SolutionType.UNIQUENESS_3) ||
+                        isAllStepsEnabled(SolutionType.UNIQUENESS_4) ||
+                        isAllStepsEnabled(SolutionType.UNIQUENESS_5) ||
+                        isAllStepsEnabled(SolutionType.UNIQUENESS_6) ||
+                        isAllStepsEnabled(SolutionType.HIDDEN_RECTANGLE) ||
+                        isAllStepsEnabled(SolutionType.AVOIDABLE_RECTANGLE_1) ||
+                        isAllStepsEnabled(SolutionType.AVOIDABLE_RECTANGLE_2)) {
+                    steps1 = stepFinder.getAllUniqueness(sudoku);
                     filterSteps(steps1);
                     steps.addAll(steps1);
-                    if (isAllStepsEnabled(SolutionType.SIMPLE_COLORS)) {
-                        steps1 = stepFinder.findAllSimpleColors(sudoku);
-                        steps.addAll(steps1);
-                    }
-                    if (isAllStepsEnabled(SolutionType.MULTI_COLORS)) {
-                        steps1 = stepFinder.findAllMultiColors(sudoku);
-                        steps.addAll(steps1);
-                    }
-                    break;
-                case 20:
-                    updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog.chains"), actStep);
-                    if (isAllStepsEnabled(SolutionType.X_CHAIN) || isAllStepsEnabled(SolutionType.XY_CHAIN) ||
-                            isAllStepsEnabled(SolutionType.REMOTE_PAIR) || isAllStepsEnabled(SolutionType.TURBOT_FISH)) {
-                        steps1 = stepFinder.getAllChains(sudoku);
-                        filterSteps(steps1);
-                        steps.addAll(steps1);
-                    }
-                    break;
-                case 21:
-                    updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog.nice_loops"), actStep);
-                    if (isAllStepsEnabled(SolutionType.NICE_LOOP)) {
-                        steps1 = stepFinder.getAllNiceLoops(sudoku);
-                        steps.addAll(steps1);
-                    }
-                    break;
-                case 22:
-                    updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog.grouped_nice_loops"), actStep);
-                    if (isAllStepsEnabled(SolutionType.GROUPED_NICE_LOOP)) {
-                        steps1 = stepFinder.getAllGroupedNiceLoops(sudoku);
-                        steps.addAll(steps1);
-                    }
-                    break;
-                case 23:
-                    updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog.templates"), actStep);
-                    if (isAllStepsEnabled(SolutionType.TEMPLATE_DEL) || isAllStepsEnabled(SolutionType.TEMPLATE_SET)) {
-                        steps1 = stepFinder.getAllTemplates(sudoku);
-                        filterSteps(steps1);
-                        steps.addAll(steps1);
-                    }
-                    break;
-                case 24:
-                    updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog.als"), actStep);
-                    if (isAllStepsEnabled(SolutionType.ALS_XZ) || isAllStepsEnabled(SolutionType.ALS_XY_WING) ||
-                            isAllStepsEnabled(SolutionType.ALS_XY_CHAIN)) {
-                        steps1 = stepFinder.getAllAlses(sudoku, isAllStepsEnabled(SolutionType.ALS_XZ),
-                                isAllStepsEnabled(SolutionType.ALS_XY_WING),
-                                isAllStepsEnabled(SolutionType.ALS_XY_CHAIN));
-                        filterSteps(steps1);
-                        steps.addAll(steps1);
-                    }
-                    if (isAllStepsEnabled(SolutionType.DEATH_BLOSSOM)) {
-                        steps1 = stepFinder.getAllDeathBlossoms(sudoku);
-                        filterSteps(steps1);
-                        steps.addAll(steps1);
-                    }
-                    break;
-                case 25:
-                    if (isAllStepsEnabled(SolutionType.FORCING_CHAIN)) {
-                        updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog.forcing_Chains"), actStep);
-                        steps1 = stepFinder.getAllForcingChains(sudoku);
-                        steps.addAll(steps1);
-                    }
-                    break;
-                case 26:
-                    if (isAllStepsEnabled(SolutionType.FORCING_NET)) {
-                        updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog.forcing_Nets"), actStep);
-                        steps1 = stepFinder.getAllForcingNets(sudoku);
-                        steps.addAll(steps1);
+                }
+                if (isAllStepsEnabled(SolutionType.BUG_PLUS_1)) {
+                    stepFinder.setSudoku(sudoku);
+                    SolutionStep result = stepFinder.getStep(SolutionType.BUG_PLUS_1);
+                    if (result != null) {
+                        steps.add(result);
                     }
-                    break;
-                case 27:
-                    updateProgress(java.util.ResourceBundle.getBundle("intl/FindAllStepsProgressDialog").getString("FindAllStepsProgressDialog.progress_Score"), actStep);
-                    // calculate progress measure
-                    SudokuSolverFactory.getDefaultSolverInstance().getProgressScore(sudoku, steps, dlg);
-                    break;
-                default:
+                }
+                steps1 = stepFinder.getAllWings(sudoku);
+                filterSteps(steps1);
+                steps.addAll(steps1);
+                if (isAllStepsEnabled(SolutionType.SIMPLE_COLORS)) {
+                    steps1 = stepFinder.findAllSimpleColors(sudoku);
+                    steps.addAll(steps1);
+                }
+                if (isAllStepsEnabled(SolutionType.MULTI_COLORS)) {
+                    steps1 = stepFinder.findAllMultiColors(sudoku);
+                    steps.addAll(steps1);
+                }
+                break;
+            case 20:
+                updateProgress(getProgressLabel(actStep), actStep);
+                if (isAllStepsEnabled(SolutionType.X_CHAIN) || isAllStepsEnabled(SolutionType.XY_CHAIN) ||
+                        isAllStepsEnabled(SolutionType.REMOTE_PAIR) || isAllStepsEnabled(SolutionType.TURBOT_FISH)) {
+                    steps1 = stepFinder.getAllChains(sudoku);
+                    filterSteps(steps1);
+                    steps.addAll(steps1);
+                }
+                break;
+            case 21:
+                updateProgress(getProgressLabel(actStep), actStep);
+                if (isAllStepsEnabled(SolutionType.NICE_LOOP)) {
+                    steps1 = stepFinder.getAllNiceLoops(sudoku);
+                    steps.addAll(steps1);
+                }
+                break;
+            case 22:
+                updateProgress(getProgressLabel(actStep), actStep);
+                if (isAllStepsEnabled(SolutionType.GROUPED_NICE_LOOP)) {
+                    steps1 = stepFinder.getAllGroupedNiceLoops(sudoku);
+                    steps.addAll(steps1);
+                }
+                break;
+            case 23:
+                updateProgress(getProgressLabel(actStep), actStep);
+                if (isAllStepsEnabled(SolutionType.TEMPLATE_DEL) || isAllStepsEnabled(SolutionType.TEMPLATE_SET)) {
+                    steps1 = stepFinder.getAllTemplates(sudoku);
+                    filterSteps(steps1);
+                    steps.addAll(steps1);
+                }
+                break;
+            case 24:
+                updateProgress(getProgressLabel(actStep), actStep);
+                if (isAllStepsEnabled(SolutionType.ALS_XZ) || isAllStepsEnabled(SolutionType.ALS_XY_WING) ||
+                        isAllStepsEnabled(SolutionType.ALS_XY_CHAIN)) {
+                    steps1 = stepFinder.getAllAlses(sudoku, isAllStepsEnabled(SolutionType.ALS_XZ),
+                            isAllStepsEnabled(SolutionType.ALS_XY_WING),
+                            isAllStepsEnabled(SolutionType.ALS_XY_CHAIN));
+                    filterSteps(steps1);
+                    steps.addAll(steps1);
+                }
+                if (isAllStepsEnabled(SolutionType.DEATH_BLOSSOM)) {
+                    steps1 = stepFinder.getAllDeathBlossoms(sudoku);
+                    filterSteps(steps1);
+                    steps.addAll(steps1);
+                }
+                break;
+            case 25:
+                if (isAllStepsEnabled(SolutionType.FORCING_CHAIN)) {
+                    updateProgress(getProgressLabel(actStep), actStep);
+                    steps1 = stepFinder.getAllForcingChains(sudoku);
+                    steps.addAll(steps1);
+                }
+                break;
+            case 26:
+                if (isAllStepsEnabled(SolutionType.FORCING_NET)) {
+                    updateProgress(getProgressLabel(actStep), actStep);
+                    steps1 = stepFinder.getAllForcingNets(sudoku);
+                    steps.addAll(steps1);
+                }
+                break;
+            case PROGRESS_SCORE_STEP:
+                updateProgress(getProgressLabel(actStep), actStep);
+                // calculate progress measure
+                SudokuSolverFactory.getDefaultSolverInstance().getProgressScore(sudoku, steps, dlg);
+                break;
+            default:
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        // the family finders take their own snapshots when they are created
+        stepFinder.setConfig(Options.getInstance().createSolverConfig());
+        if (testTypes == null && Runtime.getRuntime().availableProcessors() > 1) {
+            runConcurrent();
+        } else {
+            int actStep = 0;
+            //while (! Thread.currentThread().isInterrupted()) {
+            while (! Thread.interrupted()) {
+                if (! findSteps(actStep, stepFinder, sudoku, steps)) {
                     if (testTypes == null) {
                         Thread.currentThread().interrupt();
                     } else {
                         // called directly -> dont interrupt!
                         return;
                     }
-                    break;
+                }
+                actStep++;
             }
-            actStep++;
         }
         // done!
         if (dlg != null) {
@@ -318,6 +393,94 @@ public class FindAllSteps implements Runnable {
         }
     }
 
+    /**
+     * Searches all technique families (see {@link #FAMILIES}) in parallel.
+     * Every family gets its own {@link SudokuStepFinder} and its own copy of
+     * the sudoku; the results are added to {@link #steps} in the order
+     * of the sequential search. The progress score is calculated at the end.
+     */
+    private void runConcurrent() {
+        CompletionService<List<SolutionStep>> completionService =
+                new ExecutorCompletionService<List<SolutionStep>>(getExecutor());
+        List<Future<List<SolutionStep>>> futures = new ArrayList<Future<List<SolutionStep>>>(FAMILIES.length);
+        concurrent = true;
+        for (int i = 0; i < FAMILIES.length; i++) {
+            final int[] family = FAMILIES[i];
+            final SudokuStepFinder familyFinder = new SudokuStepFinder();
+            final Sudoku2 familySudoku = sudoku.clone();
+            futures.add(completionService.submit(new Callable<List<SolutionStep>>() {
+
+                @Override
+                public List<SolutionStep> call() {
+                    List<SolutionStep> familySteps = new ArrayList<SolutionStep>();
+                    for (int j = 0; j < family.length; j++) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            // cancelled: give the thread back to the pool
+                            break;
+                        }
+                        findSteps(family[j], familyFinder, familySudoku, familySteps);
+                    }
+                    return familySteps;
+                }
+            }));
+        }
+        List<List<SolutionStep>> results = new ArrayList<List<SolutionStep>>(FAMILIES.length);
+        for (int i = 0; i < FAMILIES.length; i++) {
+            results.add(null);
+        }
+        try {
+            int anzSteps = 0;
+            for (int i = 0; i < FAMILIES.length; i++) {
+                Future<List<SolutionStep>> future = completionService.take();
+                int index = futures.indexOf(future);
+                results.set(index, future.get());
+                anzSteps += FAMILIES[index].length;
+                if (dlg != null) {
+                    dlg.updateProgress(getProgressLabel(FAMILIES[index][0]), anzSteps);
+                }
+            }
+        } catch (InterruptedException ex) {
+            // search was cancelled: the families stop before their next search
+            // step (a step that is already running is finished), their results
+            // are discarded
+            for (int i = 0; i < futures.size(); i++) {
+                futures.get(i).cancel(true);
+            }
+            concurrent = false;
+            return;
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        }
+        concurrent = false;
+        for (int i = 0; i < results.size(); i++) {
+            steps.addAll(results.get(i));
+        }
+        findSteps(PROGRESS_SCORE_STEP, stepFinder, sudoku, steps);
+    }
+
+    /**
+     * Creates {@link #executor} if necessary. The threads are daemon
+     * threads and don't keep the program alive.
+     * @return
+     */
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                    new ThreadFactory() {
+
+                        private int anz = 0;
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "FindAllStepsThread-" + anz++);
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        return executor;
+    }
+
     public List<SolutionStep> getSteps() {
         return steps;
     }
@@ -170,7 +170,7 @@ public class GenerateSudokuProgressDialog extends javax.swing.JDialog implements
      */
     @Override
     public void run() {
-        generator = new BackgroundGenerator();
+        generator = new BackgroundGenerator(Runtime.getRuntime().availableProcessors());
         sudoku = generator.generate(level, mode, this);
         EventQueue.invokeLater(new Runnable() {
             @Override
@@ -24,12 +24,20 @@ import generator.SudokuGeneratorFactory;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -41,6 +49,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
@@ -120,12 +131,36 @@ public class Main {
         batchSolve(fileName, puzzleString, printSolution, printSolutionPath, printStatistic, cMode, types, outFile, findAllSteps, false, null);
     }
 
-    @SuppressWarnings("CallToThreadDumpStack")
     public void batchSolve(String fileName, String puzzleString, boolean printSolution, boolean printSolutionPath,
             boolean printStatistic, ClipboardMode cMode, Set<SolutionType> types, String outFile, boolean findAllSteps,
             boolean bruteForceTest, List<SolutionType> testTypes) {
+        batchSolve(fileName, puzzleString, printSolution, printSolutionPath, printStatistic, cMode, types, outFile,
+                findAllSteps, bruteForceTest, testTypes, 1);
+    }
+
+    /**
+     * Solves all puzzles in <code>fileName</code> or <code>puzzleString</code>. If
+     * <code>threads</code> is greater than 1, the puzzles are solved in parallel
+     * (only possible for /bs).
+     * @param fileName
+     * @param puzzleString
+     * @param printSolution
+     * @param printSolutionPath
+     * @param printStatistic
+     * @param cMode
+     * @param types
+     * @param outFile
+     * @param findAllSteps
+     * @param bruteForceTest
+     * @param testTypes
+     * @param threads
+     */
+    @SuppressWarnings("CallToThreadDumpStack")
+    public void batchSolve(String fileName, String puzzleString, boolean printSolution, boolean printSolutionPath,
+            boolean printStatistic, ClipboardMode cMode, Set<SolutionType> types, String outFile, boolean findAllSteps,
+            boolean bruteForceTest, List<SolutionType> testTypes, int threads) {
         BatchSolveThread thread = new BatchSolveThread(fileName, puzzleString, printSolution, printSolutionPath, printStatistic,
-                cMode, types, outFile, findAllSteps, bruteForceTest, testTypes);
+                cMode, types, outFile, findAllSteps, bruteForceTest, testTypes, threads);
         thread.start();
         ShutDownThread st = new ShutDownThread(thread);
         Runtime.getRuntime().addShutdownHook(st);
@@ -158,7 +193,7 @@ public class Main {
         if (printStatistic) {
             System.out.println();
             try {
-                thread.printStatistic(null, false);
+                thread.printStatistic(null);
             } catch (IOException ex) {
                 ex.printStackTrace();
             }
@@ -529,6 +564,7 @@ public class Main {
                         || arg.equals("/so") || arg.equals("/c") || arg.equals("/o")
                         || arg.equals("/bsaf") || arg.equals("/bts") || arg.equals("/bt")
                         || arg.equals("/test") || arg.equals("/testf") || arg.equals("/vf")
+                        || arg.equals("/threads")
                         || (arg.equals("/s") && (i + 1 < options.size()) && options.get(i + 1).trim().charAt(0) != '/')) {
                     // args with parameters (only one parameter per arg permitted)
                     if (i + 1 >= options.size() || options.get(i + 1).trim().charAt(0) == '/') {
@@ -771,11 +807,24 @@ public class Main {
                 }
                 argMap.remove("/vg");
             }
+            int threads = 1;
+            if (argMap.containsKey("/threads")) {
+                String arg = argMap.get("/threads");
+                try {
+                    threads = Integer.parseInt(arg);
+                } catch (NumberFormatException ex) {
+                    System.out.println("Invalid argument for /threads ('" + arg + "'): '1' used instead!");
+                }
+                if (threads <= 0) {
+                    threads = Runtime.getRuntime().availableProcessors();
+                }
+                argMap.remove("/threads");
+            }
             if (argMap.containsKey("/bs")) {
                 printIgnoredOptions("/bs", argMap);
                 String fileName = argMap.get("/bs");
                 new Main().batchSolve(fileName, null, printSolution, printSolutionPath, printStatistics,
-                        clipboardMode, outTypes, outFile, false);
+                        clipboardMode, outTypes, outFile, false, false, null, threads);
                 if (consoleFrame == null) {
                     System.exit(0);
                 }
@@ -1024,6 +1073,8 @@ public class Main {
                 + "      0: easy; 1: medium; 2: hard; 3: unfair; 4: extreme\r\n"
                 + "  /bs <file>: batch solve puzzles in <file> (output written to <file>.out.txt\r\n"
                 + "       or a file given by /o)\r\n"
+                + "  /threads <n>: solve puzzles on <n> threads (only valid with /bs;\r\n"
+                + "       0: one thread per processor)\r\n"
                 + "  /bsaf <file>: batch process puzzles in <file> (output as in /bs);\r\n"
                 + "       for each puzzle \"Find all Steps\" is executed\r\n"
                 + "  /bsa: execute \"Find all Steps\" for [puzzle] (output written to\r\n"
@@ -1319,6 +1370,8 @@ class SearchForTypeThread extends Thread {
 
 class BatchSolveThread extends Thread {
 
+    /** Number of puzzles per worker that may be in flight in parallel mode. */
+    private static final int PUZZLES_PER_WORKER = 64;
     private String fileName;
     private String puzzleString;
     private boolean printSolution;
@@ -1331,7 +1384,6 @@ class BatchSolveThread extends Thread {
     private int givenUpAnz = 0;
     private int count;
     private long ticks;
-    private SudokuGenerator generator = SudokuGeneratorFactory.getDefaultGeneratorInstance();
     private ClipboardMode clipboardMode;
     private Set<SolutionType> types;
     private boolean outputGrid = false;
@@ -1340,12 +1392,19 @@ class BatchSolveThread extends Thread {
     private boolean bruteForceTest = false;
     private List<SolutionType> testTypes = null;
     private StepStatistic[] stepStatistics;
-    private StepStatistic[] singleStepStatistics;
     private FindAllSteps findAllStepsInstance = null;
+    /** Number of solver threads; 1 means the puzzles are solved in the batch thread itself. */
+    private int threads = 1;
 
     BatchSolveThread(String fn, String pStr, boolean ps, boolean pp, boolean pst,
             ClipboardMode cm, Set<SolutionType> t,
             String ofn, boolean fas, boolean bft, List<SolutionType> tt) {
+        this(fn, pStr, ps, pp, pst, cm, t, ofn, fas, bft, tt, 1);
+    }
+
+    BatchSolveThread(String fn, String pStr, boolean ps, boolean pp, boolean pst,
+            ClipboardMode cm, Set<SolutionType> t,
+            String ofn, boolean fas, boolean bft, List<SolutionType> tt, int th) {
         fileName = fn;
         puzzleString = pStr;
         printSolution = ps;
@@ -1363,57 +1422,30 @@ class BatchSolveThread extends Thread {
         if (bruteForceTest) {
             findAllStepsInstance = new FindAllSteps();
         }
+        threads = th;
+        if (threads > 1 && (findAllSteps || bruteForceTest || fileName == null)) {
+            // "Find all steps" always runs on the default solver
+            System.out.println("Parallel batch solving is only possible with /bs: /threads ignored!");
+            threads = 1;
+        }
 
         if (printStatistic) {
             stepStatistics = new StepStatistic[SolutionType.values().length];
-            singleStepStatistics = new StepStatistic[SolutionType.values().length];
             for (int i = 0; i < stepStatistics.length; i++) {
                 stepStatistics[i] = new StepStatistic(SolutionType.values()[i]);
-                singleStepStatistics[i] = new StepStatistic(SolutionType.values()[i]);
             }
         }
     }
 
-    private void adjustStatistics(SolutionStep step) {
-        int anzCand = step.getAnzCandidatesToDelete();
-        int anzSet = step.getAnzSet();
-        stepStatistics[step.getType().ordinal()].anzSteps++;
-        stepStatistics[step.getType().ordinal()].anzCandDel += anzCand;
-        stepStatistics[step.getType().ordinal()].anzSet += anzSet;
-        singleStepStatistics[step.getType().ordinal()].anzSteps++;
-        singleStepStatistics[step.getType().ordinal()].anzCandDel += anzCand;
-        singleStepStatistics[step.getType().ordinal()].anzSet += anzSet;
-    }
-
-    private void clearSingleStepStatistics() {
-        for (int i = 0; i < singleStepStatistics.length; i++) {
-            singleStepStatistics[i].anzCandDel = 0;
-            singleStepStatistics[i].anzSet = 0;
-            singleStepStatistics[i].anzSteps = 0;
-        }
-    }
-
-    public void printStatistic(PrintWriter out, boolean single) throws IOException {
+    public void printStatistic(PrintWriter out) throws IOException {
         if (out != null) {
-            if (!single) {
-                out.println();
-                out.println("Statistics total:");
-            } else {
-                out.println("    Statistics:");
-            }
+            out.println();
+            out.println("Statistics total:");
         } else {
-            if (!single) {
-                System.out.println();
-                System.out.println("Statistics total:");
-            } else {
-                System.out.println("    Statistics:");
-            }
-        }
-        if (single) {
-            printStatistic(out, singleStepStatistics, false);
-        } else {
-            printStatistic(out, stepStatistics, true);
+            System.out.println();
+            System.out.println("Statistics total:");
         }
+        printStatistic(out, stepStatistics, true);
     }
 
     private void printStatistic(PrintWriter out, StepStatistic[] stat, boolean total) throws IOException {
@@ -1493,9 +1525,11 @@ class BatchSolveThread extends Thread {
         unsolvedAnz = 0;
         givenUpAnz = 0;
         BufferedReader inFile = null;
+        FileOutputStream outStream = null;
         PrintWriter outFile = null;
         ticks = System.currentTimeMillis();
         count = 0;
+        List<BatchSolveWorker> workers = new ArrayList<BatchSolveWorker>();
         try {
             if (fileName != null) {
                 inFile = new BufferedReader(new FileReader(fileName));
@@ -1506,247 +1540,561 @@ class BatchSolveThread extends Thread {
             if (outFileName.equals("stdout")) {
                 outFile = null;
             } else {
-                outFile = new PrintWriter(new BufferedWriter(new FileWriter(outFileName)));
+                outStream = new FileOutputStream(outFileName);
+                outFile = new PrintWriter(new BufferedWriter(new OutputStreamWriter(outStream)));
             }
-            String line = null;
-            SudokuSolver solver = SudokuSolverFactory.getDefaultSolverInstance();
-            //Sudoku2 sudoku = new Sudoku2(true);
-            Sudoku2 sudoku = new Sudoku2();
-            Sudoku2 tmpSudoku = null;
-            Sudoku2 solvedSudoku = null;
-            List<SolutionStep> allSteps = null;
-            if (bruteForceTest) {
-                allSteps = new ArrayList<SolutionStep>();
+            if (threads > 1) {
+                for (int i = 0; i < threads; i++) {
+                    SudokuSolver solver = SudokuSolverFactory.getInstance();
+                    solver.resetStatistics();
+                    workers.add(new BatchSolveWorker(solver, SudokuGeneratorFactory.getInstance(), printStatistic));
+                }
+                // the results are written directly to the channel, outFile is only used for the statistics
+                runParallel(inFile, outStream != null ? outStream.getChannel() : Channels.newChannel(System.out), workers);
+            } else {
+                workers.add(new BatchSolveWorker(SudokuSolverFactory.getDefaultSolverInstance(),
+                        SudokuGeneratorFactory.getDefaultGeneratorInstance(), printStatistic));
+                runSequential(inFile, outFile, workers.get(0));
             }
-            long outTicks = 0;
-            while (!isInterrupted()
-                    && (inFile != null && (line = inFile.readLine()) != null)
-                    || (puzzleString != null)) {
-                if (puzzleString != null) {
-                    line = puzzleString;
-                    puzzleString = null;
+            for (BatchSolveWorker worker : workers) {
+                mergeWorker(worker);
+            }
+            if (printStatistic) {
+                printStatistic(outFile);
+            }
+        } catch (InterruptedException ex) {
+            // Ctrl-C: the shut down hook interrupts this thread
+            interrupt();
+        } catch (Exception ex) {
+            System.out.println("Error in batch solve:");
+            ex.printStackTrace();
+        } finally {
+            if (threads > 1) {
+                for (BatchSolveWorker worker : workers) {
+                    SudokuSolverFactory.giveBack(worker.solver);
+                    SudokuGeneratorFactory.giveBack(worker.generator);
                 }
+            }
+            try {
+                if (inFile != null) {
+                    inFile.close();
+                }
+                if (outFile != null) {
+                    outFile.close();
+                }
+            } catch (Exception ex) {
+                System.out.println("Error closing files:");
+                ex.printStackTrace();
+            }
+        }
+        if (isInterrupted()) {
+            System.out.println("Interrupted, shutting down...");
+        } else {
+            System.out.println("Done!");
+        }
+        ticks = System.currentTimeMillis() - getTicks();
+    }
+
+    /**
+     * Solves all puzzles in the batch thread itself using <code>worker</code>.
+     * @param inFile
+     * @param outFile
+     * @param worker
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void runSequential(BufferedReader inFile, PrintWriter outFile, BatchSolveWorker worker)
+            throws IOException, InterruptedException {
+        String line = null;
+        long outTicks = 0;
+        while (!isInterrupted()
+                && (inFile != null && (line = inFile.readLine()) != null)
+                || (puzzleString != null)) {
+            if (puzzleString != null) {
+                line = puzzleString;
+                puzzleString = null;
+            }
 //                System.out.println("solving: " + line);
+            line = line.trim();
+            if (line.length() == 0) {
+                continue;
+            }
+            count++;
+            writeResult(outFile, solvePuzzle(worker, line, count));
+            outTicks = printProgress(outTicks, count);
+        }
+    }
+
+    /**
+     * Solves all puzzles from <code>inFile</code> on {@link #threads} threads.<br>
+     * The work is done in a pipeline: this thread reads the puzzles and puts them
+     * into a bounded queue, every solver thread has its own {@link BatchSolveWorker}
+     * and hands the formatted results over to a {@link BatchSolveWriter}. The writer
+     * puts the results back into input order and writes them in large batches.<br>
+     * At most <code>threads * PUZZLES_PER_WORKER</code> puzzles are in flight at any
+     * time, regardless of the size of the input file. Slow output only stalls the
+     * solver threads, if that window is exhausted.
+     * @param inFile
+     * @param outChannel
+     * @param workers
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void runParallel(BufferedReader inFile, WritableByteChannel outChannel, List<BatchSolveWorker> workers)
+            throws IOException, InterruptedException {
+        int window = workers.size() * PUZZLES_PER_WORKER;
+        Semaphore inFlight = new Semaphore(window);
+        final BlockingQueue<BatchSolveJob> jobs = new ArrayBlockingQueue<BatchSolveJob>(window);
+        final BlockingQueue<BatchSolveJob> done = new ArrayBlockingQueue<BatchSolveJob>(window + 1);
+        List<Thread> solverThreads = new ArrayList<Thread>();
+        for (int i = 0; i < workers.size(); i++) {
+            final BatchSolveWorker worker = workers.get(i);
+            Thread solverThread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        BatchSolveJob job = null;
+                        while ((job = jobs.take()) != BatchSolveJob.END) {
+                            try {
+                                job.result = solvePuzzle(worker, job.puzzle, job.number);
+                            } catch (Throwable ex) {
+                                // every puzzle has to reach the writer, even after an Error
+                                Logger.getLogger(BatchSolveThread.class.getName()).log(Level.SEVERE,
+                                        "Error in batch solve (puzzle #" + job.number + ")", ex);
+                                job.result = getErrorResult(job.puzzle, job.number, ex);
+                            }
+                            done.put(job);
+                        }
+                    } catch (InterruptedException ex) {
+                        // shutting down
+                    }
+                }
+            }, "BatchSolveThread-" + i);
+            solverThreads.add(solverThread);
+            solverThread.start();
+        }
+        BatchSolveWriter writer = new BatchSolveWriter(done, outChannel, inFlight, window);
+        Thread writerThread = new Thread(writer, "BatchSolveWriter");
+        writerThread.start();
+
+        boolean interrupted = false;
+        try {
+            String line = null;
+            while (!isInterrupted() && (line = inFile.readLine()) != null) {
                 line = line.trim();
                 if (line.length() == 0) {
                     continue;
                 }
+                inFlight.acquire();
+                count++;
+                jobs.put(new BatchSolveJob(count, line));
+            }
+        } catch (InterruptedException ex) {
+            interrupted = true;
+        }
+        if (interrupted || isInterrupted()) {
+            // puzzles that have not been started yet are dropped
+            interrupted = true;
+            Thread.interrupted();
+            jobs.clear();
+        }
+        for (int i = 0; i < solverThreads.size(); i++) {
+            jobs.put(BatchSolveJob.END);
+        }
+        for (Thread solverThread : solverThreads) {
+            solverThread.join();
+        }
+        done.put(BatchSolveJob.END);
+        writerThread.join();
+        if (interrupted) {
+            interrupt();
+        }
+        if (writer.getError() != null) {
+            throw writer.getError();
+        }
+    }
+
+    /**
+     * The output for a puzzle that could not be solved because of an error:
+     * the output file keeps one entry per puzzle in input order.
+     * @param line
+     * @param puzzleNumber
+     * @param ex
+     * @return
+     */
+    private String getErrorResult(String line, int puzzleNumber, Throwable ex) {
+        StringWriter buffer = new StringWriter();
+        PrintWriter outFile = new PrintWriter(buffer);
+        outFile.println(line + " #" + puzzleNumber + " ERROR: " + ex);
+        outFile.flush();
+        return buffer.toString();
+    }
+
+    /**
+     * Solves one puzzle and returns the complete output for it.
+     * @param worker
+     * @param line
+     * @param puzzleNumber
+     * @return
+     * @throws InterruptedException
+     */
+    private String solvePuzzle(BatchSolveWorker worker, String line, int puzzleNumber)
+            throws InterruptedException {
+        StringWriter buffer = new StringWriter();
+        PrintWriter outFile = new PrintWriter(buffer);
+        SudokuSolver solver = worker.solver;
+        SudokuGenerator generator = worker.generator;
+        Sudoku2 sudoku = worker.sudoku;
+        Sudoku2 tmpSudoku = null;
+        Sudoku2 solvedSudoku = null;
 //                System.out.println(line);
-                sudoku.setSudoku(line);
+        sudoku.setSudoku(line);
 //                System.out.println("Sudoku: " + sudoku.getSudoku(ClipboardMode.VALUES_ONLY));
-                if (outputGrid || bruteForceTest) {
-                    tmpSudoku = sudoku.clone();
-                }
-                if (bruteForceTest) {
-                    solvedSudoku = sudoku.clone();
-                    generator.validSolution(solvedSudoku);
-                }
-                count++;
-                boolean needsGuessing = false;
-                boolean needsTemplates = false;
-                boolean givenUp = false;
-                boolean unsolved = false;
-                List<SolutionStep> steps = null;
-                if (findAllSteps) {
-                    steps = new ArrayList<SolutionStep>();
-                    Thread thread = new Thread(new FindAllSteps(steps, sudoku, null));
-                    thread.start();
-                    thread.join();
-                    //System.out.println("fas: " + steps.size());
-                } else {
-                    // only for now: check the solution
-                    generator.validSolution(sudoku);
-                    solver.setSudoku(sudoku);
-                    solver.solve();
+        if (outputGrid || bruteForceTest) {
+            tmpSudoku = sudoku.clone();
+        }
+        if (bruteForceTest) {
+            solvedSudoku = sudoku.clone();
+            generator.validSolution(solvedSudoku);
+        }
+        boolean needsGuessing = false;
+        boolean needsTemplates = false;
+        boolean givenUp = false;
+        boolean unsolved = false;
+        List<SolutionStep> steps = null;
+        if (findAllSteps) {
+            steps = new ArrayList<SolutionStep>();
+            Thread thread = new Thread(new FindAllSteps(steps, sudoku, null));
+            thread.start();
+            thread.join();
+            //System.out.println("fas: " + steps.size());
+        } else {
+            // only for now: check the solution
+            generator.validSolution(sudoku);
+            solver.setSudoku(sudoku);
+            solver.solve();
 //                    System.out.println("solved: " + sudoku.getSudoku(ClipboardMode.VALUES_ONLY));
-                    steps = solver.getSteps();
-                    for (int i = 0; i < steps.size(); i++) {
+            steps = solver.getSteps();
+            for (int i = 0; i < steps.size(); i++) {
 //                        System.out.println("      " + steps.get(i).toString(2));
-                        if (steps.get(i).getType() == SolutionType.BRUTE_FORCE && !needsGuessing) {
-                            needsGuessing = true;
-                            unsolved = true;
-                            bruteForceAnz++;
-                        }
-                        if ((steps.get(i).getType() == SolutionType.TEMPLATE_DEL
-                                || steps.get(i).getType() == SolutionType.TEMPLATE_SET) && !needsTemplates) {
-                            needsTemplates = true;
-                            unsolved = true;
-                            templateAnz++;
-                        }
-                        if (steps.get(i).getType() == SolutionType.GIVE_UP && !givenUp) {
-                            givenUp = true;
-                            unsolved = true;
-                            givenUpAnz++;
-                        }
-                    }
-                    if (unsolved) {
-                        unsolvedAnz++;
-                    }
-                    // only for now: check the solution!
-                    for (int i = 0; i < sudoku.getValues().length; i++) {
-                        if (sudoku.getValue(i) != sudoku.getSolution(i)) {
-                            System.out.println("Invalid solution: ");
-                            System.out.println("   Sudoku: " + line);
-                            System.out.println("   Solution:      " + Arrays.toString(sudoku.getValues()));
-                            System.out.println("   True Solution: " + Arrays.toString(sudoku.getSolution()));
-                        }
-                    }
-//                    System.out.println("solved!");
+                if (steps.get(i).getType() == SolutionType.BRUTE_FORCE && !needsGuessing) {
+                    needsGuessing = true;
+                    unsolved = true;
+                    worker.bruteForceAnz++;
                 }
-                String guess = needsGuessing ? " " + SolutionType.BRUTE_FORCE.getArgName() : "";
-                String template = needsTemplates ? " " + SolutionType.TEMPLATE_DEL.getArgName() : "";
-                String giveUp = givenUp ? " " + SolutionType.GIVE_UP.getArgName() : "";
-                if (printSolution || bruteForceTest) {
-                    solvedSudoku = sudoku.clone();
-                    if (sudoku.isSolved()) {
-                        line = sudoku.getSudoku(ClipboardMode.VALUES_ONLY);
-                    } else {
-                        //System.out.println("Sudoku2: " + sudoku.getSudoku(ClipboardMode.PM_GRID));
-                        //System.out.println("SolvedSudoku: " + solvedSudoku.getSudoku(ClipboardMode.PM_GRID));
-                        generator.validSolution(solvedSudoku);
-                        //System.out.println("SolvedSudoku2: " + solvedSudoku.getSudoku(ClipboardMode.PM_GRID));
-                        line = solvedSudoku.getSudoku(ClipboardMode.VALUES_ONLY);
-                        //System.out.println("line: " + line);
-                    }
+                if ((steps.get(i).getType() == SolutionType.TEMPLATE_DEL
+                        || steps.get(i).getType() == SolutionType.TEMPLATE_SET) && !needsTemplates) {
+                    needsTemplates = true;
+                    unsolved = true;
+                    worker.templateAnz++;
                 }
-                String out = line + " #" + count;
-                if (!findAllSteps) {
-                    out += " " + solver.getLevel().getName() + " (" + solver.getScore() + ")"
-                            + guess + template + giveUp;
-                    results[solver.getLevel().getOrdinal()]++;
+                if (steps.get(i).getType() == SolutionType.GIVE_UP && !givenUp) {
+                    givenUp = true;
+                    unsolved = true;
+                    worker.givenUpAnz++;
                 }
-                if (outFile != null) {
-                    outFile.println(out);
-                } else {
-                    System.out.println(out);
-                }
-
-                if (printSolutionPath || findAllSteps || printStatistic || bruteForceTest) {
-                    steps = new ArrayList<SolutionStep>(steps);
-                    for (int i = 0; i < steps.size(); i++) {
-                        if (outputGrid || bruteForceTest) {
-                            if (types != null && clipboardMode != null && types.contains(steps.get(i).getType())
-                                    && (printSolutionPath || findAllSteps)) {
-                                String grid = tmpSudoku.getSudoku(clipboardMode, steps.get(i));
-                                String[] gridLines = grid.split("\r\n");
-                                int end = clipboardMode == ClipboardMode.PM_GRID_WITH_STEP ? gridLines.length - 2 : gridLines.length;
-                                for (int j = 0; j < end; j++) {
-                                    if (outFile != null) {
-                                        outFile.println("   " + gridLines[j]);
-                                    } else {
-                                        System.out.println("   " + gridLines[j]);
-                                    }
-                                }
-                            }
-                            if (bruteForceTest && !steps.get(i).getType().isSingle()) {
-                                // get all steps for testType
+            }
+            if (unsolved) {
+                worker.unsolvedAnz++;
+            }
+            // only for now: check the solution!
+            for (int i = 0; i < sudoku.getValues().length; i++) {
+                if (sudoku.getValue(i) != sudoku.getSolution(i)) {
+                    System.out.println("Invalid solution: ");
+                    System.out.println("   Sudoku: " + line);
+                    System.out.println("   Solution:      " + Arrays.toString(sudoku.getValues()));
+                    System.out.println("   True Solution: " + Arrays.toString(sudoku.getSolution()));
+                }
+            }
+//                    System.out.println("solved!");
+        }
+        if (printSolution || bruteForceTest) {
+            solvedSudoku = sudoku.clone();
+            if (sudoku.isSolved()) {
+                line = sudoku.getSudoku(ClipboardMode.VALUES_ONLY);
+            } else {
+                //System.out.println("Sudoku2: " + sudoku.getSudoku(ClipboardMode.PM_GRID));
+                //System.out.println("SolvedSudoku: " + solvedSudoku.getSudoku(ClipboardMode.PM_GRID));
+                generator.validSolution(solvedSudoku);
+                //System.out.println("SolvedSudoku2: " + solvedSudoku.getSudoku(ClipboardMode.PM_GRID));
+                line = solvedSudoku.getSudoku(ClipboardMode.VALUES_ONLY);
+                //System.out.println("line: " + line);
+            }
+        }
+        StringBuilder out = worker.out;
+        out.setLength(0);
+        out.append(line).append(" #").append(puzzleNumber);
+        if (!findAllSteps) {
+            out.append(' ').append(solver.getLevel().getName()).append(" (").append(solver.getScore()).append(')');
+            if (needsGuessing) {
+                out.append(' ').append(SolutionType.BRUTE_FORCE.getArgName());
+            }
+            if (needsTemplates) {
+                out.append(' ').append(SolutionType.TEMPLATE_DEL.getArgName());
+            }
+            if (givenUp) {
+                out.append(' ').append(SolutionType.GIVE_UP.getArgName());
+            }
+            worker.results[solver.getLevel().getOrdinal()]++;
+        }
+        outFile.println(out);
+
+        if (printSolutionPath || findAllSteps || printStatistic || bruteForceTest) {
+            steps = new ArrayList<SolutionStep>(steps);
+            for (int i = 0; i < steps.size(); i++) {
+                if (outputGrid || bruteForceTest) {
+                    if (types != null && clipboardMode != null && types.contains(steps.get(i).getType())
+                            && (printSolutionPath || findAllSteps)) {
+                        String grid = tmpSudoku.getSudoku(clipboardMode, steps.get(i));
+                        String[] gridLines = grid.split("\r\n");
+                        int end = clipboardMode == ClipboardMode.PM_GRID_WITH_STEP ? gridLines.length - 2 : gridLines.length;
+                        for (int j = 0; j < end; j++) {
+                            outFile.println("   " + gridLines[j]);
+                        }
+                    }
+                    if (bruteForceTest && !steps.get(i).getType().isSingle()) {
+                        // get all steps for testType
 //                                System.out.println("Running: " + tmpSudoku.getSudoku(ClipboardMode.LIBRARY));
-                                allSteps.clear();
-                                findAllStepsInstance.setSteps(allSteps);
-                                findAllStepsInstance.setSudoku(tmpSudoku);
-                                findAllStepsInstance.setTestType(testTypes);
-                                findAllStepsInstance.run();
-                                // check them
-                                for (SolutionStep act : allSteps) {
+                        worker.allSteps.clear();
+                        findAllStepsInstance.setSteps(worker.allSteps);
+                        findAllStepsInstance.setSudoku(tmpSudoku);
+                        findAllStepsInstance.setTestType(testTypes);
+                        findAllStepsInstance.run();
+                        // check them
+                        for (SolutionStep act : worker.allSteps) {
 //                                    System.out.println("   " + act);
-                                    if (!testTypes.contains(act.getType())) {
-                                        continue;
-                                    }
-                                    boolean invalid = false;
-                                    adjustStatistics(act);
-                                    if (!act.getValues().isEmpty()) {
-                                        // Set
-                                        for (int index : act.getIndices()) {
-                                            if (sudoku.getValue(index) != solvedSudoku.getValue(index)) {
-                                                invalid = true;
-                                                stepStatistics[act.getType().ordinal()].anzInvalidSet++;
-                                            }
-                                        }
-                                    }
-                                    for (Candidate cand : act.getCandidatesToDelete()) {
-                                        if (cand.getValue() == solvedSudoku.getValue(cand.getIndex())) {
-                                            invalid = true;
-                                            stepStatistics[act.getType().ordinal()].anzInvalidCandDel++;
-                                        }
-                                    }
-                                    if (invalid) {
-                                        stepStatistics[act.getType().ordinal()].anzInvalidSteps++;
-                                        if (outFile != null) {
-                                            outFile.println("INVALID:");
-                                            outFile.println(sudoku.getSudoku(ClipboardMode.LIBRARY, act));
-                                        } else {
-                                            System.out.println("INVALID:");
-                                            System.out.println(sudoku.getSudoku(ClipboardMode.LIBRARY, act));
-                                        }
+                            if (!testTypes.contains(act.getType())) {
+                                continue;
+                            }
+                            boolean invalid = false;
+                            worker.adjustStatistics(act);
+                            if (!act.getValues().isEmpty()) {
+                                // Set
+                                for (int index : act.getIndices()) {
+                                    if (sudoku.getValue(index) != solvedSudoku.getValue(index)) {
+                                        invalid = true;
+                                        worker.stepStatistics[act.getType().ordinal()].anzInvalidSet++;
                                     }
                                 }
                             }
-                            solver.doStep(tmpSudoku, steps.get(i));
-                        }
-                        if (printStatistic && !bruteForceTest) {
-                            adjustStatistics(steps.get(i));
-                        }
-                        if (printSolutionPath || findAllSteps) {
-                            if (outFile != null) {
-                                outFile.write("   ");
-                                if (printStatistic) {
-                                    outFile.write(steps.get(i).getCandidateString(false, true) + ": ");
-                                }
-                                outFile.println(steps.get(i).toString(2));
-                            } else {
-                                System.out.print("   ");
-                                if (printStatistic) {
-                                    System.out.print(steps.get(i).getCandidateString(false, true) + ": ");
+                            for (Candidate cand : act.getCandidatesToDelete()) {
+                                if (cand.getValue() == solvedSudoku.getValue(cand.getIndex())) {
+                                    invalid = true;
+                                    worker.stepStatistics[act.getType().ordinal()].anzInvalidCandDel++;
                                 }
-                                System.out.println(steps.get(i).toString(2));
+                            }
+                            if (invalid) {
+                                worker.stepStatistics[act.getType().ordinal()].anzInvalidSteps++;
+                                outFile.println("INVALID:");
+                                outFile.println(sudoku.getSudoku(ClipboardMode.LIBRARY, act));
                             }
                         }
                     }
-                    if (printStatistic && (printSolutionPath || findAllSteps)) {
-                        printStatistic(outFile, true);
-                        clearSingleStepStatistics();
+                    solver.doStep(tmpSudoku, steps.get(i));
+                }
+                if (printStatistic && !bruteForceTest) {
+                    worker.adjustStatistics(steps.get(i));
+                }
+                if (printSolutionPath || findAllSteps) {
+                    outFile.write("   ");
+                    if (printStatistic) {
+                        outFile.write(steps.get(i).getCandidateString(false, true) + ": ");
                     }
+                    outFile.println(steps.get(i).toString(2));
+                }
+            }
+            if (printStatistic && (printSolutionPath || findAllSteps)) {
+                outFile.println("    Statistics:");
+                try {
+                    printStatistic(outFile, worker.singleStepStatistics, false);
+                } catch (IOException ex) {
+                    // cannot happen when writing to a StringWriter
                 }
+                worker.clearSingleStepStatistics();
+            }
+        }
 //                    if (printStatistic) {
 //                        System.out.print(count + " -");
 //                        printStatistic(null, true);
 //                        clearSingleStepStatistics();
 //                    }
+        outFile.flush();
+        return buffer.toString();
+    }
 
-                if ((count % 100) == 0) {
-                    if (System.currentTimeMillis() - outTicks > 2000) {
-                        outTicks = System.currentTimeMillis();
-                        double ticks2 = outTicks - getTicks();
+    /**
+     * Writes the output for one puzzle to <code>outFile</code> or
+     * to the console, if no output file is set.
+     * @param outFile
+     * @param result
+     */
+    private void writeResult(PrintWriter outFile, String result) {
+        if (outFile != null) {
+            outFile.write(result);
+        } else {
+            System.out.print(result);
+        }
+    }
+
+    /**
+     * Prints the current throughput every 100 puzzles (but not more often
+     * than every 2 seconds).
+     * @param outTicks The time of the last output
+     * @param anz The number of puzzles written so far
+     * @return The new time of the last output
+     */
+    private long printProgress(long outTicks, int anz) {
+        if ((anz % 100) == 0) {
+            if (System.currentTimeMillis() - outTicks > 2000) {
+                outTicks = System.currentTimeMillis();
+                double ticks2 = outTicks - getTicks();
 //                        System.out.println(count + " (" + (ticks2 / count) + "ms per puzzle)");
-                        System.out.printf("%d (%.03fms per puzzle\r\n", count, (ticks2 / count));
-                    }
-                }
+                System.out.printf("%d (%.03fms per puzzle\r\n", anz, (ticks2 / anz));
             }
-            if (printStatistic) {
-                printStatistic(outFile, false);
+        }
+        return outTicks;
+    }
+
+    /**
+     * Adds the counters and statistics of <code>worker</code> to the totals
+     * of the batch run. The timing statistics of worker solvers are added to
+     * the <b>defaultSolver</b>, which prints them with /vst.
+     * @param worker
+     */
+    private void mergeWorker(BatchSolveWorker worker) {
+        bruteForceAnz += worker.bruteForceAnz;
+        templateAnz += worker.templateAnz;
+        unsolvedAnz += worker.unsolvedAnz;
+        givenUpAnz += worker.givenUpAnz;
+        for (int i = 0; i < results.length; i++) {
+            results[i] += worker.results[i];
+        }
+        if (printStatistic) {
+            for (int i = 0; i < stepStatistics.length; i++) {
+                stepStatistics[i].add(worker.stepStatistics[i]);
             }
-        } catch (Exception ex) {
-            System.out.println("Error in batch solve:");
-            ex.printStackTrace();
-        } finally {
+        }
+        SudokuSolver defaultSolver = SudokuSolverFactory.getDefaultSolverInstance();
+        if (worker.solver != defaultSolver) {
+            defaultSolver.addStatistics(worker.solver);
+        }
+    }
+
+    /**
+     * One puzzle of a parallel batch run: the puzzle with its number in the
+     * input file and, once it has been solved, the complete output for it.
+     */
+    private static class BatchSolveJob {
+
+        /** Marks the end of the input. */
+        static final BatchSolveJob END = new BatchSolveJob(-1, null);
+        /** Number of the puzzle in the input file (starting with 1). */
+        final int number;
+        /** The puzzle as read from the input file. */
+        final String puzzle;
+        /** The formatted output for the puzzle. */
+        String result;
+
+        BatchSolveJob(int number, String puzzle) {
+            this.number = number;
+            this.puzzle = puzzle;
+        }
+    }
+
+    /**
+     * Writes the results of a parallel batch run. Results arrive in any
+     * order, they are put back into input order using their sequence numbers
+     * and collected in a buffer. The buffer is written to the output channel in
+     * one operation, when it is full or when no more results are waiting.
+     */
+    private class BatchSolveWriter implements Runnable {
+
+        /** Size of the output buffer in characters. */
+        private static final int BUFFER_SIZE = 256 * 1024;
+        /** The solved puzzles. */
+        private BlockingQueue<BatchSolveJob> done;
+        /** Destination for all results. */
+        private WritableByteChannel channel;
+        /** One permit is released for every result written. */
+        private Semaphore inFlight;
+        /** Results that cannot be written yet, indexed by <code>number % reorder.length</code>. */
+        private BatchSolveJob[] reorder;
+        /** Number of the next result to be written. */
+        private int next = 1;
+        /** Collects the results for the next write. */
+        private StringBuilder buffer = new StringBuilder(BUFFER_SIZE + 4096);
+        /** The charset used for the output (same as a <code>FileWriter</code>). */
+        private Charset charset = Charset.defaultCharset();
+        /** The first error that occured while writing. */
+        private IOException error = null;
+
+        /**
+         * Creates a new writer.
+         * @param done
+         * @param channel
+         * @param inFlight
+         * @param window Maximum number of puzzles in flight (size of the reorder buffer)
+         */
+        BatchSolveWriter(BlockingQueue<BatchSolveJob> done, WritableByteChannel channel,
+                Semaphore inFlight, int window) {
+            this.done = done;
+            this.channel = channel;
+            this.inFlight = inFlight;
+            reorder = new BatchSolveJob[window];
+        }
+
+        @Override
+        public void run() {
+            long outTicks = 0;
             try {
-                if (inFile != null) {
-                    inFile.close();
+                BatchSolveJob job = null;
+                while ((job = done.take()) != BatchSolveJob.END) {
+                    reorder[job.number % reorder.length] = job;
+                    while ((job = reorder[next % reorder.length]) != null && job.number == next) {
+                        reorder[next % reorder.length] = null;
+                        buffer.append(job.result);
+                        inFlight.release();
+                        outTicks = printProgress(outTicks, next);
+                        next++;
+                    }
+                    if (buffer.length() >= BUFFER_SIZE || done.isEmpty()) {
+                        flush();
+                    }
                 }
-                if (outFile != null) {
-                    outFile.close();
+            } catch (InterruptedException ex) {
+                // shutting down
+            }
+            flush();
+        }
+
+        /**
+         * Writes the contents of {@link #buffer} to {@link #channel}.
+         */
+        private void flush() {
+            if (buffer.length() == 0) {
+                return;
+            }
+            if (error == null) {
+                try {
+                    ByteBuffer bytes = charset.encode(CharBuffer.wrap(buffer));
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes);
+                    }
+                } catch (IOException ex) {
+                    error = ex;
                 }
-            } catch (Exception ex) {
-                System.out.println("Error closing files:");
-                ex.printStackTrace();
             }
+            buffer.setLength(0);
         }
-        if (isInterrupted()) {
-            System.out.println("Interrupted, shutting down...");
-        } else {
-            System.out.println("Done!");
+
+        /**
+         * Getter for {@link #error}.
+         * @return
+         */
+        IOException getError() {
+            return error;
         }
-        ticks = System.currentTimeMillis() - getTicks();
     }
 
     public int getBruteForceAnz() {
@@ -1786,6 +2134,61 @@ class BatchSolveThread extends Thread {
     }
 }
 
+/**
+ * Everything a {@link BatchSolveThread} needs to solve puzzles in one thread:
+ * a solver, a generator (for checking the solution), a working sudoku and
+ * all counters. In parallel mode every solver thread has its own worker,
+ * the counters are merged after the run.
+ */
+class BatchSolveWorker {
+
+    SudokuSolver solver;
+    SudokuGenerator generator;
+    Sudoku2 sudoku = new Sudoku2();
+    /** Buffer for formatting the result line. */
+    StringBuilder out = new StringBuilder(200);
+    List<SolutionStep> allSteps = new ArrayList<SolutionStep>();
+    int[] results = new int[Options.DEFAULT_DIFFICULTY_LEVELS.length];
+    int bruteForceAnz;
+    int templateAnz;
+    int unsolvedAnz;
+    int givenUpAnz;
+    StepStatistic[] stepStatistics;
+    StepStatistic[] singleStepStatistics;
+
+    BatchSolveWorker(SudokuSolver solver, SudokuGenerator generator, boolean printStatistic) {
+        this.solver = solver;
+        this.generator = generator;
+        if (printStatistic) {
+            stepStatistics = new StepStatistic[SolutionType.values().length];
+            singleStepStatistics = new StepStatistic[SolutionType.values().length];
+            for (int i = 0; i < stepStatistics.length; i++) {
+                stepStatistics[i] = new StepStatistic(SolutionType.values()[i]);
+                singleStepStatistics[i] = new StepStatistic(SolutionType.values()[i]);
+            }
+        }
+    }
+
+    void adjustStatistics(SolutionStep step) {
+        int anzCand = step.getAnzCandidatesToDelete();
+        int anzSet = step.getAnzSet();
+        stepStatistics[step.getType().ordinal()].anzSteps++;
+        stepStatistics[step.getType().ordinal()].anzCandDel += anzCand;
+        stepStatistics[step.getType().ordinal()].anzSet += anzSet;
+        singleStepStatistics[step.getType().ordinal()].anzSteps++;
+        singleStepStatistics[step.getType().ordinal()].anzCandDel += anzCand;
+        singleStepStatistics[step.getType().ordinal()].anzSet += anzSet;
+    }
+
+    void clearSingleStepStatistics() {
+        for (int i = 0; i < singleStepStatistics.length; i++) {
+            singleStepStatistics[i].anzCandDel = 0;
+            singleStepStatistics[i].anzSet = 0;
+            singleStepStatistics[i].anzSteps = 0;
+        }
+    }
+}
+
 class ShutDownThread extends Thread {
 
     private Thread thread;
@@ -2014,4 +2417,17 @@ class StepStatistic {
     StepStatistic(SolutionType type) {
         this.type = type;
     }
+
+    /**
+     * Adds all counters of <code>other</code> to this statistic.
+     * @param other
+     */
+    void add(StepStatistic other) {
+        anzSet += other.anzSet;
+        anzCandDel += other.anzCandDel;
+        anzSteps += other.anzSteps;
+        anzInvalidSteps += other.anzInvalidSteps;
+        anzInvalidSet += other.anzInvalidSet;
+        anzInvalidCandDel += other.anzInvalidCandDel;
+    }
 }
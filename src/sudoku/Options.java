@@ -38,6 +38,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import solver.SolverConfig;
 
 /**
  *
@@ -161,12 +162,15 @@ public final class Options {
     public StepConfig[] solverSteps = null;
     // sortierte Kopie für Step-Progress, wird intern verwendet, darf aber nicht im *.cfg-File landen
     public StepConfig[] solverStepsProgress = null;
-    // internal cache for background creation
+    // internal cache for background creation (only read from old config files: the puzzles are moved into generator.PuzzlePool)
     public static final int CACHE_SIZE = 10;
     private String[][] normalPuzzles = new String[5][CACHE_SIZE]; // 10 puzzles per DifficultyLevel
     private String[] learningPuzzles = new String[CACHE_SIZE];    // 10 puzzles for training
     private String[] practisingPuzzles = new String[CACHE_SIZE];  // 10 puzzles for practising
     private int practisingPuzzlesLevel = -1;                      // the DifficultyLevel, for which the practising puzzles have been created
+    // number of pregenerated puzzles per DifficultyLevel (EASY - EXTREME), for LEARNING and for PRACTISING
+    public static final int[] PUZZLE_POOL_SIZES = {10, 10, 10, 10, 20, 10, 10};
+    private int[] puzzlePoolSizes = Arrays.copyOf(PUZZLE_POOL_SIZES, PUZZLE_POOL_SIZES.length);
     // ChainSolver
     public static final int RESTRICT_CHAIN_LENGTH = 20;      // maximale Länge von X-/XY-Chains, wenn restrictChainSize gesetzt ist
     public static final int RESTRICT_NICE_LOOP_LENGTH = 10;  // maximale Länge von Nice-Loops, wenn restrictChainSize gesetzt ist
@@ -177,11 +181,13 @@ public final class Options {
     // TablingSolver
     public static final int MAX_TABLE_ENTRY_LENGTH = 1000;
 //    public static final int MAX_TABLE_ENTRY_LENGTH = 400;
+    public static final int MAX_TABLE_ARENA_SIZE = 4000000; // entries in all tables of one TablingSolver
     public static final int ANZ_TABLE_LOOK_AHEAD = 4;
     public static final boolean ONLY_ONE_CHAIN_PER_STEP = true;
     public static final boolean ALLOW_ALS_IN_TABLING_CHAINS = false;
     public static final boolean ALL_STEPS_ALLOW_ALS_IN_TABLING_CHAINS = true;
     private int maxTableEntryLength = MAX_TABLE_ENTRY_LENGTH;
+    private int maxTableArenaSize = MAX_TABLE_ARENA_SIZE;
     private int anzTableLookAhead = ANZ_TABLE_LOOK_AHEAD;
     private boolean onlyOneChainPerStep = ONLY_ONE_CHAIN_PER_STEP;
     private boolean allowAlsInTablingChains = ALLOW_ALS_IN_TABLING_CHAINS;
@@ -1218,6 +1224,20 @@ public final class Options {
         this.practisingPuzzlesLevel = practisingPuzzlesLevel;
     }
 
+    /**
+     * @return the puzzlePoolSizes
+     */
+    public int[] getPuzzlePoolSizes() {
+        return puzzlePoolSizes;
+    }
+
+    /**
+     * @param puzzlePoolSizes the puzzlePoolSizes to set
+     */
+    public void setPuzzlePoolSizes(int[] puzzlePoolSizes) {
+        this.puzzlePoolSizes = puzzlePoolSizes;
+    }
+
     /**
      * @return the generatorPatterns
      */
@@ -1425,6 +1445,16 @@ public final class Options {
         }
     }
 
+    /**
+     * Creates an immutable snapshot of all settings used by the solvers.
+     * The solvers never read the options directly, so changes made
+     * in the GUI take effect with the next snapshot.
+     * @return
+     */
+    public SolverConfig createSolverConfig() {
+        return new SolverConfig(this);
+    }
+
     /**
      * Find a {@link DifficultyLevel} via its ordinal.
      * @param ordinal
@@ -1804,6 +1834,14 @@ public final class Options {
         this.maxTableEntryLength = maxTableEntryLength;
     }
 
+    public int getMaxTableArenaSize() {
+        return maxTableArenaSize;
+    }
+
+    public void setMaxTableArenaSize(int maxTableArenaSize) {
+        this.maxTableArenaSize = maxTableArenaSize;
+    }
+
     public int getAnzTableLookAhead() {
         return anzTableLookAhead;
     }
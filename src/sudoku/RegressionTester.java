@@ -29,6 +29,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import solver.SolverConfig;
 import solver.SudokuSolverFactory;
 import solver.SudokuStepFinder;
 
@@ -61,6 +62,16 @@ public class RegressionTester {
         stepFinder = SudokuSolverFactory.getDefaultSolverInstance().getStepFinder();
     }
 
+    /**
+     * The solvers see the options only through a {@link SolverConfig} snapshot:
+     * every test case sets its own options, so a new snapshot is needed.
+     * @return
+     */
+    private SudokuStepFinder getStepFinder() {
+        stepFinder.setConfig(Options.getInstance().createSolverConfig());
+        return stepFinder;
+    }
+
     public void runTest(String testFile) {
         runTest(testFile, false);
     }
@@ -201,28 +212,28 @@ public class RegressionTester {
         boolean oldOption2 = false;
         switch (type) {
             case FULL_HOUSE:
-                steps = stepFinder.findAllFullHouses(sudoku);
+                steps = getStepFinder().findAllFullHouses(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 break;
             case HIDDEN_SINGLE:
             case HIDDEN_PAIR:
             case HIDDEN_TRIPLE:
             case HIDDEN_QUADRUPLE:
-                steps = stepFinder.findAllHiddenXle(sudoku);
+                steps = getStepFinder().findAllHiddenXle(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 break;
             case NAKED_SINGLE:
             case NAKED_PAIR:
             case NAKED_TRIPLE:
             case NAKED_QUADRUPLE:
-                steps = stepFinder.findAllNakedXle(sudoku);
+                steps = getStepFinder().findAllNakedXle(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 break;
             case LOCKED_PAIR:
             case LOCKED_TRIPLE:
                 if (variant == 1) {
-                    steps = stepFinder.findAllNakedXle(sudoku);
-                    steps1 = stepFinder.findAllHiddenXle(sudoku);
+                    steps = getStepFinder().findAllNakedXle(sudoku);
+                    steps1 = getStepFinder().findAllHiddenXle(sudoku);
                     steps.addAll(steps1);
                     checkResults(testCase, steps, sudoku, start, failCase);
                 } else {
@@ -232,27 +243,27 @@ public class RegressionTester {
                 break;
             case LOCKED_CANDIDATES_1:
             case LOCKED_CANDIDATES_2:
-                steps = stepFinder.findAllLockedCandidates(sudoku);
+                steps = getStepFinder().findAllLockedCandidates(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 break;
             case SKYSCRAPER:
                 oldOption = Options.getInstance().isAllowDualsAndSiamese();
                 Options.getInstance().setAllowDualsAndSiamese(false);
-                steps = stepFinder.findAllSkyScrapers(sudoku);
+                steps = getStepFinder().findAllSkyScrapers(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 Options.getInstance().setAllowDualsAndSiamese(oldOption);
                 break;
             case TWO_STRING_KITE:
                 oldOption = Options.getInstance().isAllowDualsAndSiamese();
                 Options.getInstance().setAllowDualsAndSiamese(false);
-                steps = stepFinder.findAllTwoStringKites(sudoku);
+                steps = getStepFinder().findAllTwoStringKites(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 Options.getInstance().setAllowDualsAndSiamese(oldOption);
                 break;
             case DUAL_TWO_STRING_KITE:
                 oldOption = Options.getInstance().isAllowDualsAndSiamese();
                 Options.getInstance().setAllowDualsAndSiamese(true);
-                steps = stepFinder.findAllTwoStringKites(sudoku);
+                steps = getStepFinder().findAllTwoStringKites(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 Options.getInstance().setAllowDualsAndSiamese(oldOption);
                 break;
@@ -261,7 +272,7 @@ public class RegressionTester {
                 if (variant == 1) {
                     Options.getInstance().setAllowErsWithOnlyTwoCandidates(true);
                 }
-                steps = stepFinder.findAllEmptyRectangles(sudoku);
+                steps = getStepFinder().findAllEmptyRectangles(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 Options.getInstance().setAllowErsWithOnlyTwoCandidates(oldOption);
                 break;
@@ -270,7 +281,7 @@ public class RegressionTester {
                 oldOption2 = Options.getInstance().isAllowDualsAndSiamese();
                 Options.getInstance().setAllowErsWithOnlyTwoCandidates(true);
                 Options.getInstance().setAllowDualsAndSiamese(true);
-                steps = stepFinder.findAllEmptyRectangles(sudoku);
+                steps = getStepFinder().findAllEmptyRectangles(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 Options.getInstance().setAllowErsWithOnlyTwoCandidates(oldOption);
                 Options.getInstance().setAllowDualsAndSiamese(oldOption2);
@@ -278,13 +289,13 @@ public class RegressionTester {
             case SIMPLE_COLORS:
             case SIMPLE_COLORS_TRAP:
             case SIMPLE_COLORS_WRAP:
-                steps = stepFinder.findAllSimpleColors(sudoku);
+                steps = getStepFinder().findAllSimpleColors(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 break;
             case MULTI_COLORS:
             case MULTI_COLORS_1:
             case MULTI_COLORS_2:
-                steps = stepFinder.findAllMultiColors(sudoku);
+                steps = getStepFinder().findAllMultiColors(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 break;
             case UNIQUENESS_1:
@@ -302,14 +313,14 @@ public class RegressionTester {
                 } else if (variant == 2) {
                     Options.getInstance().setAllowUniquenessMissingCandidates(true);
                 }
-                steps = stepFinder.getAllUniqueness(sudoku);
+                steps = getStepFinder().getAllUniqueness(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 Options.getInstance().setAllowUniquenessMissingCandidates(oldOption);
                 break;
             case BUG_PLUS_1:
                 steps = new ArrayList<SolutionStep>();
-                stepFinder.setSudoku(sudoku);
-                SolutionStep step = stepFinder.getStep(type);
+                getStepFinder().setSudoku(sudoku);
+                SolutionStep step = getStepFinder().getStep(type);
                 if (step != null) {
                     steps.add(step);
                 }
@@ -318,7 +329,7 @@ public class RegressionTester {
             case XY_WING:
             case XYZ_WING:
             case W_WING:
-                steps = stepFinder.getAllWings(sudoku);
+                steps = getStepFinder().getAllWings(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 break;
             case TURBOT_FISH:
@@ -327,7 +338,7 @@ public class RegressionTester {
             case REMOTE_PAIR:
                 oldOption = Options.getInstance().isOnlyOneChainPerStep();
                 Options.getInstance().setOnlyOneChainPerStep(false);
-                steps = stepFinder.getAllChains(sudoku);
+                steps = getStepFinder().getAllChains(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 Options.getInstance().setOnlyOneChainPerStep(oldOption);
                 break;
@@ -336,7 +347,7 @@ public class RegressionTester {
             case AIC:
                 oldOption = Options.getInstance().isOnlyOneChainPerStep();
                 Options.getInstance().setOnlyOneChainPerStep(false);
-                steps = stepFinder.getAllNiceLoops(sudoku);
+                steps = getStepFinder().getAllNiceLoops(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 Options.getInstance().setOnlyOneChainPerStep(oldOption);
                 break;
@@ -353,7 +364,7 @@ public class RegressionTester {
                 } else {
                     Options.getInstance().setAllowAlsInTablingChains(false);
                 }
-                steps = stepFinder.getAllGroupedNiceLoops(sudoku);
+                steps = getStepFinder().getAllGroupedNiceLoops(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 Options.getInstance().setOnlyOneChainPerStep(oldOption);
                 Options.getInstance().setAllowAlsInTablingChains(oldOption2);
@@ -533,7 +544,7 @@ public class RegressionTester {
                 }
                 break;
             case SUE_DE_COQ:
-                steps = stepFinder.getAllSueDeCoqs(sudoku);
+                steps = getStepFinder().getAllSueDeCoqs(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 break;
             case ALS_XZ:
@@ -547,7 +558,7 @@ public class RegressionTester {
                      (type == SolutionType.ALS_XY_WING && variant == 2)) {
                     Options.getInstance().setAllowAlsOverlap(true);
                 }
-                steps = stepFinder.getAllAlses(sudoku, type == SolutionType.ALS_XZ,
+                steps = getStepFinder().getAllAlses(sudoku, type == SolutionType.ALS_XZ,
                         type == SolutionType.ALS_XY_WING,
                         type == SolutionType.ALS_XY_CHAIN);
                 checkResults(testCase, steps, sudoku, start, failCase);
@@ -562,14 +573,14 @@ public class RegressionTester {
                 if (variant == 2) {
                     Options.getInstance().setAllowAlsOverlap(true);
                 }
-                steps = stepFinder.getAllDeathBlossoms(sudoku);
+                steps = getStepFinder().getAllDeathBlossoms(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 Options.getInstance().setOnlyOneAlsPerStep(oldOption);
                 Options.getInstance().setAllowAlsOverlap(oldOption2);
                 break;
             case TEMPLATE_SET:
             case TEMPLATE_DEL:
-                steps = stepFinder.getAllTemplates(sudoku);
+                steps = getStepFinder().getAllTemplates(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 break;
             case FORCING_CHAIN_CONTRADICTION:
@@ -578,7 +589,7 @@ public class RegressionTester {
                 oldOption2 = Options.getInstance().isAllowAlsInTablingChains();
                 Options.getInstance().setOnlyOneChainPerStep(false);
                 Options.getInstance().setAllowAlsInTablingChains(false);
-                steps = stepFinder.getAllForcingChains(sudoku);
+                steps = getStepFinder().getAllForcingChains(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 Options.getInstance().setOnlyOneChainPerStep(oldOption);
                 Options.getInstance().setAllowAlsInTablingChains(oldOption2);
@@ -589,7 +600,7 @@ public class RegressionTester {
                 oldOption2 = Options.getInstance().isAllowAlsInTablingChains();
                 Options.getInstance().setOnlyOneChainPerStep(false);
                 Options.getInstance().setAllowAlsInTablingChains(false);
-                steps = stepFinder.getAllForcingNets(sudoku);
+                steps = getStepFinder().getAllForcingNets(sudoku);
                 checkResults(testCase, steps, sudoku, start, failCase);
                 Options.getInstance().setOnlyOneChainPerStep(oldOption);
                 Options.getInstance().setAllowAlsInTablingChains(oldOption2);
@@ -600,7 +611,7 @@ public class RegressionTester {
                 oldOption2 = Options.getInstance().isCheckTemplates();
                 Options.getInstance().setOnlyOneFishPerStep(false);
                 Options.getInstance().setCheckTemplates(true);
-                steps = stepFinder.getAllKrakenFishes(sudoku, 2, 4,
+                steps = getStepFinder().getAllKrakenFishes(sudoku, 2, 4,
                         Options.getInstance().getAllStepsMaxFins(),
                         Options.getInstance().getAllStepsMaxEndoFins(), null, -1, 1);
                 checkResults(testCase, steps, sudoku, start, failCase);
@@ -619,7 +630,7 @@ public class RegressionTester {
         boolean oldOption2 = Options.getInstance().isCheckTemplates();
         Options.getInstance().setOnlyOneFishPerStep(false);
         Options.getInstance().setCheckTemplates(true);
-        List<SolutionStep> steps = stepFinder.getAllFishes(sudoku, size, size,
+        List<SolutionStep> steps = getStepFinder().getAllFishes(sudoku, size, size,
                 Options.getInstance().getAllStepsMaxFins(),
                 Options.getInstance().getAllStepsMaxEndoFins(), null, -1, type);
         Options.getInstance().setOnlyOneFishPerStep(oldOption);
@@ -23,7 +23,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
@@ -384,8 +383,7 @@ public class SolutionStep implements Comparable<SolutionStep>, Cloneable {
     }
 
     public String getCandidateString(boolean library, boolean statistics) {
-        Collections.sort(candidatesToDelete);
-        eliminateDoubleCandidatesToDelete();
+        sortCandidatesToDelete();
         StringBuilder candBuff = new StringBuilder();
         int lastCand = -1;
         StringBuffer delPos = new StringBuffer();
@@ -424,14 +422,28 @@ public class SolutionStep implements Comparable<SolutionStep>, Cloneable {
         }
     }
 
+    /**
+     * Sorts {@link #candidatesToDelete} and removes duplicates. The
+     * list is left in the same order {@link #getCandidateString()} uses.
+     */
+    public void sortCandidatesToDelete() {
+        Collections.sort(candidatesToDelete);
+        eliminateDoubleCandidatesToDelete();
+    }
+
+    /**
+     * Removes duplicates from the <b>sorted</b> list {@link #candidatesToDelete}.
+     */
     private void eliminateDoubleCandidatesToDelete() {
-        Set<Candidate> candSet = new TreeSet<Candidate>();
+        int anz = 0;
         for (int i = 0; i < candidatesToDelete.size(); i++) {
-            candSet.add(candidatesToDelete.get(i));
+            Candidate cand = candidatesToDelete.get(i);
+            if (anz == 0 || candidatesToDelete.get(anz - 1).compareTo(cand) != 0) {
+                candidatesToDelete.set(anz++, cand);
+            }
         }
-        candidatesToDelete.clear();
-        for (Candidate cand : candSet) {
-            candidatesToDelete.add(cand);
+        while (candidatesToDelete.size() > anz) {
+            candidatesToDelete.remove(candidatesToDelete.size() - 1);
         }
     }
 
@@ -296,6 +296,18 @@ public enum SolutionType {
      * @return The StepConfig appropriate for type
      */
     public static StepConfig getStepConfig(SolutionType type) {
+        return getStepConfig(type, Options.getInstance().solverSteps);
+    }
+
+    /**
+     * Like {@link #getStepConfig(sudoku.SolutionType) }, but the StepConfig
+     * is taken from <code>configs</code> instead of {@link Options#solverSteps}.
+     * 
+     * @param type The SolutionType for which the StepConfig should be retrieved
+     * @param configs The step configuration to search
+     * @return The StepConfig appropriate for type
+     */
+    public static StepConfig getStepConfig(SolutionType type, StepConfig[] configs) {
         // Split Locked Candidates in two
 //        if (type == SolutionType.LOCKED_CANDIDATES_1 || type == SolutionType.LOCKED_CANDIDATES_2) {
 //            type = SolutionType.LOCKED_CANDIDATES;
@@ -330,7 +342,6 @@ public enum SolutionType {
             type = SolutionType.MULTI_COLORS;
         }
 
-        StepConfig[] configs = Options.getInstance().solverSteps;
         for (int i = 0; i < configs.length; i++) {
             if (configs[i].getType() == type) {
                 return configs[i];
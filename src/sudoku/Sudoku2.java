@@ -20,7 +20,6 @@ package sudoku;
 
 import generator.SudokuGenerator;
 import generator.SudokuGeneratorFactory;
-import java.io.ObjectInputStream;
 import java.util.Arrays;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -149,8 +148,12 @@ public class Sudoku2 implements Cloneable {
     
     // Templates
     //
-    /** One template for every possible combination of 9 equal digits in the grid. */
-    public static SudokuSetBase[] templates = new SudokuSetBase[46656];
+    /** Number of possible combinations of 9 equal digits in the grid. */
+    public static final int TEMPLATE_COUNT = 46656;
+    /** The low order long of one template for every possible combination of 9 equal digits in the grid. */
+    public static final long[] templatesM1 = new long[TEMPLATE_COUNT];
+    /** The high order long of one template for every possible combination of 9 equal digits in the grid. */
+    public static final long[] templatesM2 = new long[TEMPLATE_COUNT];
     /** One bitmap with all buddies of each cell */
     public static SudokuSet[] buddies = new SudokuSet[LENGTH];
     /** The low order long from {@link #buddies} */
@@ -2196,43 +2199,16 @@ public class Sudoku2 implements Cloneable {
 //    }
 
     /**
-     * Create all 46656 possible templates. Since the calculation has become incredibly
-     * slow on Windows 7 64bit, the templates are read from a file.
+     * Create all 46656 possible templates. The templates are built line by line
+     * with bit masks for the columns and blocks already used, which is
+     * much faster than deserializing a precomputed template file.
      */
-    @SuppressWarnings("CallToThreadDumpStack")
     private static void initTemplates() {
         // alle 46656 möglichen Templates anlegen
-        try {
-            //System.out.println("Start Templates lesen...");
-            long ticks = System.currentTimeMillis();
-            ObjectInputStream in = new ObjectInputStream(Sudoku2.class.getResourceAsStream("/templates.dat"));
-            templates = (SudokuSetBase[])in.readObject();
-            in.close();
-            ticks = System.currentTimeMillis() - ticks;
-            //System.out.println("Templates lesen: " + ticks + "ms");
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
-//        //Sudoku2 sudoku = new Sudoku2(false);
-//        Sudoku2 sudoku = new Sudoku2();
-//        SudokuSetBase set = new SudokuSetBase();
-//        initTemplatesRecursive(sudoku, 0, 0, 1, set);
-//        try {
-////            PrintWriter out = new PrintWriter(new FileWriter("templates.txt"));
-////            for (int i = 0; i < templates.length; i++) {
-////                if ((i % 2) == 0) {
-////                    out.print("        new SudokuSetBase(" + templates[i].mask1 + "L, " + templates[i].mask2 + "L),");
-////                } else {
-////                    out.println(" new SudokuSetBase(" + templates[i].mask1 + "L, " + templates[i].mask2 + "L),");
-////                }
-////            }
-////            out.close();
-//            ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream("templates.dat"));
-//            out.writeObject(templates);
-//            out.close();
-//        } catch (Exception ex) {
-//            ex.printStackTrace();
-//        }
+        int anz = initTemplatesRecursive(0, 0, 0, 0, 0L, 0L);
+        if (anz != TEMPLATE_COUNT) {
+            throw new IllegalStateException("Wrong number of templates: " + anz);
+        }
 
         // jetzt noch die Templates für die Häuser
         for (int i = 0; i < LINES.length; i++) {
@@ -2244,6 +2220,40 @@ public class Sudoku2 implements Cloneable {
         }
     }
 
+    /**
+     * Puts the digit in every possible column of <code>line</code> and
+     * continues with the next line.
+     * @param line
+     * @param index Index of the next template in {@link #templatesM1}/{@link #templatesM2}
+     * @param usedCols One bit for every column that already holds the digit
+     * @param usedBlocks One bit for every block that already holds the digit
+     * @param m1
+     * @param m2
+     * @return The index of the next template
+     */
+    private static int initTemplatesRecursive(int line, int index, int usedCols, int usedBlocks, long m1, long m2) {
+        if (line >= LINES.length) {
+            templatesM1[index] = m1;
+            templatesM2[index] = m2;
+            return index + 1;
+        }
+        for (int col = 0; col < 9; col++) {
+            int block = (line / 3) * 3 + col / 3;
+            if ((usedCols & (1 << col)) != 0 || (usedBlocks & (1 << block)) != 0) {
+                continue;
+            }
+            int cellIndex = LINES[line][col];
+            if (cellIndex < 64) {
+                index = initTemplatesRecursive(line + 1, index, usedCols | (1 << col), usedBlocks | (1 << block),
+                        m1 | (1L << cellIndex), m2);
+            } else {
+                index = initTemplatesRecursive(line + 1, index, usedCols | (1 << col), usedBlocks | (1 << block),
+                        m1, m2 | (1L << (cellIndex - 64)));
+            }
+        }
+        return index;
+    }
+
 //    private static int initTemplatesRecursive(Sudoku2 sudoku, int line, int index, int cand, SudokuSetBase set) {
 //        if (line >= Sudoku2.LINES.length) {
 //            templates[index++] = set.clone();
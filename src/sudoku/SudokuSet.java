@@ -97,13 +97,8 @@ public class SudokuSet extends SudokuSetBase implements Cloneable {
     }
     
     public int size() {
-        if (isEmpty()) {
-            return 0;
-        }
-        if (! isInitialized()) {
-            initialize();
-        }
-        return anz;
+        // no need to build the values array just for counting
+        return cardinality();
     }
     
     @Override
@@ -139,6 +139,43 @@ public class SudokuSetBase implements Cloneable, Serializable {
         initialized = false;
     }
 
+    /**
+     * Returns the first element of the set that is greater than or equal to
+     * <code>fromIndex</code> or -1, if no such element exists. The set is
+     * iterated directly on the bitmaps, no array is created. Typical usage:
+     * <pre>
+     * for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+     *     // do something with i
+     * }
+     * </pre>
+     * @param fromIndex
+     * @return
+     */
+    public int nextSetBit(int fromIndex) {
+        if (fromIndex < 64) {
+            long m = mask1 & (MAX_MASK1 << fromIndex);
+            if (m != 0) {
+                return Long.numberOfTrailingZeros(m);
+            }
+            fromIndex = 64;
+        }
+        if (fromIndex < 81) {
+            long m = mask2 & (MAX_MASK1 << (fromIndex - 64));
+            if (m != 0) {
+                return 64 + Long.numberOfTrailingZeros(m);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of elements in the set (computed from the bitmaps).
+     * @return
+     */
+    public int cardinality() {
+        return Long.bitCount(mask1) + Long.bitCount(mask2);
+    }
+
     public boolean contains(int value) {
         if (value >= 64) {
             return (mask2 & MASKS[value - 64]) != 0;